@@ -0,0 +1,67 @@
+package com.company.benchmarks;
+
+import org.jsoup.Jsoup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Class Corpus gives access to the checked-in HTML pages which are used by the benchmarks,
+ * so results don't depend on the network
+ */
+public final class Corpus {
+    /**
+     * Names of the pages from the smallest to the largest one
+     */
+    public static final String[] PAGES = {"small", "medium", "large"};
+
+    /**
+     * URL which is used as location of every page for resolving relative links
+     */
+    public static final String BASE_URL = "http://corpus.example.com/wiki/page.html";
+
+    private Corpus() {
+    }
+
+    /**
+     * Function for reading HTML of the page
+     *
+     * @param page - name of the page from {@link #PAGES}
+     * @return HTML
+     */
+    public static String getHtml(String page) {
+        String resource = "/corpus/" + page + ".html";
+        try (InputStream inputStream = Corpus.class.getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new IllegalArgumentException("Unknown corpus page: " + page);
+            }
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Function for getting distinct lowercased words of the text of all pages
+     *
+     * @return words in the alphabetical order
+     */
+    public static List<String> getWords() {
+        Set<String> words = new TreeSet<>();
+        for (String page : PAGES) {
+            String text = Jsoup.parse(getHtml(page)).body().text().toLowerCase();
+            for (String word : text.split("[^\\p{L}]+")) {
+                if (!word.isEmpty()) {
+                    words.add(word);
+                }
+            }
+        }
+        return new ArrayList<>(words);
+    }
+}
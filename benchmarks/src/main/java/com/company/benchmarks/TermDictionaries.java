@@ -0,0 +1,83 @@
+package com.company.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Class TermDictionaries generates sets of terms of the given size. Words of the corpus are taken first,
+ * so the terms are found in the pages, the rest of terms are phrases of corpus words and random
+ * syllable combinations which mostly are not found. Dictionaries are the same for the same seed
+ */
+public final class TermDictionaries {
+    public static final long DEFAULT_SEED = 42;
+
+    private static final String[] SYLLABLES = {
+            "bar", "cor", "den", "fal", "gin", "hul", "jor", "ka", "kel", "lo", "mar", "mi", "ne", "nor",
+            "pel", "quin", "ros", "ru", "sa", "sul", "te", "tor", "ur", "val", "vo", "xan", "yor", "zel", "zi"
+    };
+
+    /**
+     * Maximum number of syllables in a generated term
+     */
+    private static final int MAX_SYLLABLES_NUM = 5;
+
+    private static List<String> corpusWords;
+
+    private TermDictionaries() {
+    }
+
+    /**
+     * Function for generating terms with the default seed
+     *
+     * @param termsNum - number of terms
+     * @return terms
+     */
+    public static Set<String> generate(int termsNum) {
+        return generate(termsNum, DEFAULT_SEED);
+    }
+
+    /**
+     * Function for generating terms
+     *
+     * @param termsNum - number of terms
+     * @param seed     - seed of the random generator
+     * @return terms
+     */
+    public static Set<String> generate(int termsNum, long seed) {
+        Random random = new Random(seed);
+        List<String> words = new ArrayList<>(getCorpusWords());
+        Collections.shuffle(words, random);
+        Set<String> terms = new LinkedHashSet<>();
+        for (int i = 0; i < words.size() && terms.size() < termsNum / 2; i++) {
+            terms.add(words.get(i));
+        }
+        while (terms.size() < termsNum) {
+            if (random.nextInt(4) == 0) {
+                terms.add(words.get(random.nextInt(words.size())) + " " + words.get(random.nextInt(words.size())));
+            } else {
+                terms.add(generateTerm(random));
+            }
+        }
+        return terms;
+    }
+
+    private static String generateTerm(Random random) {
+        StringBuilder term = new StringBuilder();
+        int syllablesNum = 2 + random.nextInt(MAX_SYLLABLES_NUM - 1);
+        for (int i = 0; i < syllablesNum; i++) {
+            term.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return term.toString();
+    }
+
+    private static synchronized List<String> getCorpusWords() {
+        if (corpusWords == null) {
+            corpusWords = Corpus.getWords();
+        }
+        return corpusWords;
+    }
+}
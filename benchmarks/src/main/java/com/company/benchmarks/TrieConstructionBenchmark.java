@@ -0,0 +1,39 @@
+package com.company.benchmarks;
+
+import com.company.trie.CompiledTrie;
+import com.company.trie.Trie;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of building the trie from dictionaries of different sizes
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrieConstructionBenchmark {
+    @Param({"10", "1000", "100000"})
+    public int termsNum;
+
+    private Set<String> terms;
+
+    @Setup
+    public void setUp() {
+        terms = TermDictionaries.generate(termsNum);
+    }
+
+    @Benchmark
+    public Trie build() {
+        return new Trie(terms);
+    }
+
+    @Benchmark
+    public CompiledTrie buildAndCompile() {
+        return new Trie(terms).compile();
+    }
+}
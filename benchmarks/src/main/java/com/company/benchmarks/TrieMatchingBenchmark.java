@@ -0,0 +1,98 @@
+package com.company.benchmarks;
+
+import com.company.trie.Trie;
+import org.jsoup.Jsoup;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of matching throughput on the text of corpus pages.
+ * Throughput in MB/s is reported by the "megabytes" counter
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrieMatchingBenchmark {
+    @Param({"10", "1000", "100000"})
+    public int termsNum;
+
+    @Param({"small", "medium", "large"})
+    public String page;
+
+    private String text;
+    private double textMegabytes;
+    private Trie nodeTrie;
+    private Trie compiledTrie;
+
+    /**
+     * Counter of the matched text, JMH reports it as the rate per second
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public double megabytes;
+    }
+
+    @Setup
+    public void setUp() {
+        Set<String> terms = TermDictionaries.generate(termsNum);
+        text = Jsoup.parse(Corpus.getHtml(page)).body().text().toLowerCase();
+        textMegabytes = text.getBytes(StandardCharsets.UTF_8).length / 1e6;
+        nodeTrie = new Trie(terms);
+        compiledTrie = new Trie(terms);
+        compiledTrie.compile();
+    }
+
+    @Benchmark
+    public int[] nodeTrie(Throughput throughput) {
+        int[] counts = new int[nodeTrie.getTermsNum()];
+        nodeTrie.countOccurrences(text, counts);
+        throughput.megabytes += textMegabytes;
+        return counts;
+    }
+
+    @Benchmark
+    public int[] compiledTrie(Throughput throughput) {
+        int[] counts = new int[compiledTrie.getTermsNum()];
+        compiledTrie.countOccurrences(text, counts);
+        throughput.megabytes += textMegabytes;
+        return counts;
+    }
+
+    @Benchmark
+    public int[] compiledTrieReusedCounts(CountsState countsState, Throughput throughput) {
+        int[] counts = countsState.counts;
+        Arrays.fill(counts, 0);
+        compiledTrie.countOccurrences(text, counts);
+        throughput.megabytes += textMegabytes;
+        return counts;
+    }
+
+    @Benchmark
+    public Map<String, Integer> occurrencesMap(Throughput throughput) {
+        Map<String, Integer> occurrences = compiledTrie.getOccurrencesNum(text);
+        throughput.megabytes += textMegabytes;
+        return occurrences;
+    }
+
+    /**
+     * Counts array which is allocated once per thread
+     */
+    @State(Scope.Thread)
+    public static class CountsState {
+        private int[] counts;
+
+        @Setup
+        public void setUp(TrieMatchingBenchmark benchmark) {
+            counts = new int[benchmark.compiledTrie.getTermsNum()];
+        }
+    }
+}
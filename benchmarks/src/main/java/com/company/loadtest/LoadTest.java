@@ -0,0 +1,167 @@
+package com.company.loadtest;
+
+import com.company.fetch.HttpClientPageFetcher;
+import com.company.fetch.PageFetcher;
+import com.company.frontier.BestFirstFrontier;
+import com.company.frontier.LinkScorer;
+import com.company.frontier.PolitenessFrontier;
+import com.company.webcrawler.DistributedCrawl;
+import com.company.webcrawler.WebCrawler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test of the crawler against the local synthetic site. Options are passed as key=value arguments,
+ * for example "pages=5000 hosts=8 latency=2,20 threads=16 mode=streaming".
+ * With nodes=N the crawl is distributed between N single-threaded nodes connected by the loopback transport.
+ * With frontier=bestFirst links are scored and the best are crawled first, which is compared with the default
+ * breadth-first order by the total hits for the same limit on a site with topicalRate above 0.
+ * Reports crawl throughput, response latency percentiles and peak heap usage
+ */
+public class LoadTest {
+    private static final long HEAP_SAMPLING_PERIOD_MILLIS = 10;
+    private static final double NANOS_IN_MILLI = 1e6;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        SyntheticSite site = new SyntheticSite();
+        site.setPagesNum(Integer.parseInt(options.getOrDefault("pages", String.valueOf(SyntheticSite.DEFAULT_PAGES_NUM))));
+        site.setFanOut(Integer.parseInt(options.getOrDefault("fanOut", String.valueOf(SyntheticSite.DEFAULT_FAN_OUT))));
+        site.setPageSize(Integer.parseInt(options.getOrDefault("pageSize", String.valueOf(SyntheticSite.DEFAULT_PAGE_SIZE))));
+        site.setTermDensity(Double.parseDouble(options.getOrDefault("termDensity", String.valueOf(SyntheticSite.DEFAULT_TERM_DENSITY))));
+        site.setTermsNum(Integer.parseInt(options.getOrDefault("terms", String.valueOf(SyntheticSite.DEFAULT_TERMS_NUM))));
+        site.setHostsNum(Integer.parseInt(options.getOrDefault("hosts", String.valueOf(SyntheticSite.DEFAULT_HOSTS_NUM))));
+        site.setHostLatenciesMillis(Arrays.stream(options.getOrDefault("latency", String.valueOf(SyntheticSite.DEFAULT_LATENCY_MILLIS))
+                .split(",")).mapToLong(Long::parseLong).toArray());
+        site.setErrorRate(Double.parseDouble(options.getOrDefault("errorRate", String.valueOf(SyntheticSite.DEFAULT_ERROR_RATE))));
+        site.setTopicalRate(Double.parseDouble(options.getOrDefault("topicalRate", String.valueOf(SyntheticSite.DEFAULT_TOPICAL_RATE))));
+        site.setSeed(Long.parseLong(options.getOrDefault("seed", String.valueOf(SyntheticSite.DEFAULT_SEED))));
+        int threadsNum = Integer.parseInt(options.getOrDefault("threads", "8"));
+        int analysisThreadsNum = Integer.parseInt(options.getOrDefault("analysisThreads", "0"));
+        int nodesNum = Integer.parseInt(options.getOrDefault("nodes", "1"));
+        int linkDepth = Integer.parseInt(options.getOrDefault("depth", String.valueOf(WebCrawler.DEFAULT_LINK_DEPTH)));
+        int maxVisitedPagesLimit = Integer.parseInt(options.getOrDefault("limit", String.valueOf(site.getPagesNum())));
+        String mode = options.getOrDefault("mode", "dom");
+        boolean isBestFirst = options.getOrDefault("frontier", "bfs").equals("bestFirst");
+        int frontierCapacity = Integer.parseInt(options.getOrDefault("frontierCapacity",
+                String.valueOf(BestFirstFrontier.DEFAULT_CAPACITY)));
+        // one fetcher is shared by all nodes, like one client of the process
+        PageFetcher pageFetcher = options.getOrDefault("fetcher", "jsoup").equals("httpClient")
+                ? new HttpClientPageFetcher() : null;
+
+        try (SyntheticSiteServer server = new SyntheticSiteServer(site)) {
+            // nodes of the distributed crawl share the process, so the test shows the partitioning overhead
+            DistributedCrawl distributedCrawl = null;
+            WebCrawler webCrawler = null;
+            List<WebCrawler> webCrawlers;
+            if (nodesNum > 1) {
+                distributedCrawl = new DistributedCrawl(server.getSeedUrl(), site.getTerms(), linkDepth,
+                        maxVisitedPagesLimit, nodesNum);
+                webCrawlers = distributedCrawl.getNodes();
+            } else {
+                webCrawler = new WebCrawler(server.getSeedUrl(), site.getTerms(), linkDepth, maxVisitedPagesLimit);
+                webCrawlers = Collections.singletonList(webCrawler);
+            }
+            for (WebCrawler crawler : webCrawlers) {
+                crawler.setStreamingTextMatching(mode.equals("text"));
+                crawler.setStreamingPageProcessing(mode.equals("streaming"));
+                crawler.setPageFetcher(pageFetcher);
+                crawler.setPipelineQueueCapacity(Integer.parseInt(options.getOrDefault("queueCapacity",
+                        String.valueOf(WebCrawler.DEFAULT_PIPELINE_QUEUE_CAPACITY))));
+                if (isBestFirst) {
+                    crawler.setFrontier(new BestFirstFrontier(frontierCapacity));
+                    crawler.setLinkScorer(new LinkScorer());
+                } else {
+                    // all pages are on one local host, politeness would make the crawl sequential
+                    crawler.setFrontier(new PolitenessFrontier(0, Integer.MAX_VALUE));
+                }
+            }
+
+            MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+            System.gc();
+            long initialHeapUsed = memoryMXBean.getHeapMemoryUsage().getUsed();
+            AtomicLong peakHeapUsed = new AtomicLong(initialHeapUsed);
+            AtomicBoolean isCrawling = new AtomicBoolean(true);
+            Thread heapSampler = new Thread(() -> {
+                while (isCrawling.get()) {
+                    peakHeapUsed.accumulateAndGet(memoryMXBean.getHeapMemoryUsage().getUsed(), Math::max);
+                    try {
+                        Thread.sleep(HEAP_SAMPLING_PERIOD_MILLIS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "heap-sampler");
+            heapSampler.setDaemon(true);
+            heapSampler.start();
+
+            long startTime = System.nanoTime();
+            if (distributedCrawl != null) {
+                distributedCrawl.calculateStats();
+            } else if (analysisThreadsNum > 0) {
+                webCrawler.calculateStats(threadsNum, analysisThreadsNum);
+            } else if (threadsNum > 1) {
+                webCrawler.calculateStats(threadsNum);
+            } else {
+                webCrawler.calculateStats();
+            }
+            long crawlNanos = System.nanoTime() - startTime;
+            isCrawling.set(false);
+            heapSampler.join();
+
+            Map<String, Map<String, Integer>> pagesStats = distributedCrawl != null
+                    ? distributedCrawl.getPagesStats() : webCrawler.getPagesStats();
+            int pagesNum = pagesStats.size();
+            long totalHits = pagesStats.values().stream()
+                    .flatMap(pageStats -> pageStats.values().stream()).mapToLong(Integer::longValue).sum();
+            double crawlSeconds = crawlNanos / 1e9;
+            long[] latencies = server.getSortedLatenciesNanos();
+            System.out.println("Options: " + options);
+            System.out.println("Seed URL: " + server.getSeedUrl());
+            System.out.printf("Pages analyzed: %d, pages served: %d, errors served: %d%n",
+                    pagesNum, server.getPagesServedNum(), server.getErrorsServedNum());
+            System.out.printf("Crawl time: %.3f s, throughput: %.1f pages/s%n", crawlSeconds, pagesNum / crawlSeconds);
+            System.out.printf("Total hits: %d, hits per page: %.2f%n", totalHits, pagesNum == 0 ? 0 : (double) totalHits / pagesNum);
+            System.out.printf("Response latency ms: p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, max %.2f%n",
+                    getPercentile(latencies, 0.5), getPercentile(latencies, 0.9), getPercentile(latencies, 0.99),
+                    getPercentile(latencies, 0.999), getPercentile(latencies, 1));
+            System.out.printf("Heap used MB: initial %.1f, peak %.1f (sampled every %d ms)%n",
+                    initialHeapUsed / 1e6, peakHeapUsed.get() / 1e6, HEAP_SAMPLING_PERIOD_MILLIS);
+        }
+    }
+
+    /**
+     * Function for getting percentile of sorted latencies
+     *
+     * @param sortedLatencies - latencies in nanoseconds
+     * @param quantile        - quantile from 0 to 1
+     * @return latency in milliseconds or 0 if there are no latencies
+     */
+    private static double getPercentile(long[] sortedLatencies, double quantile) {
+        if (sortedLatencies.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, index)] / NANOS_IN_MILLI;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separatorIndex = arg.indexOf('=');
+            if (separatorIndex <= 0) {
+                throw new IllegalArgumentException("Option must be key=value: " + arg);
+            }
+            options.put(arg.substring(0, separatorIndex), arg.substring(separatorIndex + 1));
+        }
+        return options;
+    }
+}
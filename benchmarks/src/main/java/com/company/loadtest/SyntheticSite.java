@@ -0,0 +1,269 @@
+package com.company.loadtest;
+
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Class SyntheticSite generates a graph of pages spread over several hosts.
+ * Every page is generated from its id and the seed, so the same site is served on every run
+ */
+public class SyntheticSite {
+    public static int DEFAULT_PAGES_NUM = 10000;
+    public static int DEFAULT_FAN_OUT = 10;
+    public static int DEFAULT_PAGE_SIZE = 20 * 1024;
+    public static double DEFAULT_TERM_DENSITY = 0.01;
+    public static int DEFAULT_TERMS_NUM = 20;
+    public static int DEFAULT_HOSTS_NUM = 4;
+    public static long DEFAULT_LATENCY_MILLIS = 5;
+    public static double DEFAULT_ERROR_RATE = 0.01;
+    public static long DEFAULT_SEED = 42;
+    public static double DEFAULT_TOPICAL_RATE = 0;
+
+    /**
+     * How many times the text of a topical page is denser in terms
+     */
+    private static final int TOPICAL_DENSITY_FACTOR = 10;
+    private static final int TOPICAL_PAGE_ATTEMPTS_NUM = 100;
+
+    private static final String[] SYLLABLES = {
+            "bar", "cor", "den", "fal", "gin", "hul", "jor", "ka", "kel", "lo", "mar", "mi", "ne", "nor",
+            "pel", "quin", "ros", "ru", "sa", "sul", "te", "tor", "ur", "val", "vo", "xan", "yor", "zel", "zi"
+    };
+
+    private int pagesNum = DEFAULT_PAGES_NUM;
+
+    /**
+     * Number of links on every page
+     */
+    private int fanOut = DEFAULT_FAN_OUT;
+
+    /**
+     * Approximate size of a page in bytes
+     */
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    /**
+     * Share of words of the text which are terms
+     */
+    private double termDensity = DEFAULT_TERM_DENSITY;
+
+    private int termsNum = DEFAULT_TERMS_NUM;
+
+    private int hostsNum = DEFAULT_HOSTS_NUM;
+
+    /**
+     * Delays before responses, host uses the delay with the index of host modulo the array length
+     */
+    private long[] hostLatenciesMillis = {DEFAULT_LATENCY_MILLIS};
+
+    /**
+     * Share of pages which are answered with the server error
+     */
+    private double errorRate = DEFAULT_ERROR_RATE;
+
+    private long seed = DEFAULT_SEED;
+
+    /**
+     * Share of topical pages. Their text is denser in terms, half of their links lead to other topical pages
+     * and links to topical pages have a term as the anchor text, so the relevant part of the site can be
+     * found by the best-first crawl
+     */
+    private double topicalRate = DEFAULT_TOPICAL_RATE;
+
+    public int getPagesNum() {
+        return pagesNum;
+    }
+
+    public void setPagesNum(int pagesNum) {
+        this.pagesNum = pagesNum;
+    }
+
+    public int getFanOut() {
+        return fanOut;
+    }
+
+    public void setFanOut(int fanOut) {
+        this.fanOut = fanOut;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public double getTermDensity() {
+        return termDensity;
+    }
+
+    public void setTermDensity(double termDensity) {
+        this.termDensity = termDensity;
+    }
+
+    public int getTermsNum() {
+        return termsNum;
+    }
+
+    public void setTermsNum(int termsNum) {
+        this.termsNum = termsNum;
+    }
+
+    public int getHostsNum() {
+        return hostsNum;
+    }
+
+    public void setHostsNum(int hostsNum) {
+        this.hostsNum = hostsNum;
+    }
+
+    public long getHostLatencyMillis(int host) {
+        return hostLatenciesMillis[host % hostLatenciesMillis.length];
+    }
+
+    public void setHostLatenciesMillis(long... hostLatenciesMillis) {
+        this.hostLatenciesMillis = hostLatenciesMillis;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public double getTopicalRate() {
+        return topicalRate;
+    }
+
+    public void setTopicalRate(double topicalRate) {
+        this.topicalRate = topicalRate;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Function that returns terms which are placed in the text of pages
+     *
+     * @return terms
+     */
+    public Set<String> getTerms() {
+        Random random = new Random(seed);
+        Set<String> terms = new LinkedHashSet<>();
+        while (terms.size() < termsNum) {
+            // terms are longer than ordinary words, so they are rarely found in the text by chance
+            terms.add(generateWord(random, 4, 5));
+        }
+        return terms;
+    }
+
+    /**
+     * Function that returns host which serves the page
+     *
+     * @param pageId - id of page
+     * @return index of host
+     */
+    public int getHost(int pageId) {
+        return pageId % hostsNum;
+    }
+
+    /**
+     * Function that returns whether the page is answered with the server error
+     *
+     * @param pageId - id of page
+     */
+    public boolean isErrorPage(int pageId) {
+        return pageId != 0 && getPageRandom(pageId, 1).nextDouble() < errorRate;
+    }
+
+    /**
+     * Function for generating HTML of the page. Links are absolute paths on the host of the target page,
+     * every page links to the next one, so all pages are reachable from the page 0
+     *
+     * @param pageId   - id of page
+     * @param hostUrls - base URLs of hosts, for example "http://127.0.0.1:8080"
+     * @return HTML
+     */
+    public String generatePage(int pageId, String[] hostUrls) {
+        Random random = getPageRandom(pageId, 0);
+        String[] terms = getTerms().toArray(new String[0]);
+        StringBuilder html = new StringBuilder(pageSize + 1024);
+        html.append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n<title>Page ")
+                .append(pageId).append("</title>\n</head>\n<body>\n<ul>\n");
+        boolean isTopical = isTopicalPage(pageId);
+        for (int i = 0; i < fanOut; i++) {
+            int linkedPageId = i == 0 ? (pageId + 1) % pagesNum : random.nextInt(pagesNum);
+            if (isTopical && i > 0 && random.nextBoolean()) {
+                linkedPageId = getRandomTopicalPage(random, linkedPageId);
+            }
+            html.append("<li><a href=\"").append(getPageUrl(linkedPageId, hostUrls)).append("\">")
+                    .append(isTopicalPage(linkedPageId) && terms.length > 0
+                            ? terms[random.nextInt(terms.length)] : generateWord(random, 1, 3))
+                    .append("</a></li>\n");
+        }
+        html.append("</ul>\n<p>");
+        double pageTermDensity = isTopical ? Math.min(1, termDensity * TOPICAL_DENSITY_FACTOR) : termDensity;
+        while (html.length() < pageSize) {
+            if (terms.length > 0 && random.nextDouble() < pageTermDensity) {
+                html.append(terms[random.nextInt(terms.length)]);
+            } else {
+                html.append(generateWord(random, 1, 3));
+            }
+            html.append(random.nextInt(12) == 0 ? ".</p>\n<p>" : " ");
+        }
+        html.append("</p>\n</body>\n</html>\n");
+        return html.toString();
+    }
+
+    /**
+     * Function that returns whether the page is topical, there are no topical pages if the topical rate is 0
+     *
+     * @param pageId - id of page
+     */
+    public boolean isTopicalPage(int pageId) {
+        return topicalRate > 0 && getPageRandom(pageId, 2).nextDouble() < topicalRate;
+    }
+
+    private int getRandomTopicalPage(Random random, int defaultPageId) {
+        for (int i = 0; i < TOPICAL_PAGE_ATTEMPTS_NUM; i++) {
+            int pageId = random.nextInt(pagesNum);
+            if (isTopicalPage(pageId)) {
+                return pageId;
+            }
+        }
+        return defaultPageId;
+    }
+
+    /**
+     * Function that returns absolute URL of the page
+     *
+     * @param pageId   - id of page
+     * @param hostUrls - base URLs of hosts
+     * @return URL
+     */
+    public String getPageUrl(int pageId, String[] hostUrls) {
+        return hostUrls[getHost(pageId)] + "/page/" + pageId + ".html";
+    }
+
+    private Random getPageRandom(int pageId, int purpose) {
+        return new Random(seed * 31 + pageId * 2L + purpose);
+    }
+
+    private static String generateWord(Random random, int minSyllablesNum, int maxSyllablesNum) {
+        StringBuilder word = new StringBuilder();
+        int syllablesNum = minSyllablesNum + random.nextInt(maxSyllablesNum - minSyllablesNum + 1);
+        for (int i = 0; i < syllablesNum; i++) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,161 @@
+package com.company.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class SyntheticSiteServer serves the synthetic site on the loopback interface.
+ * Every host of the site is a separate server on its own port, so the crawler sees them as different hosts.
+ * Response latencies are recorded for the report
+ */
+public class SyntheticSiteServer implements Closeable {
+    private static final String PAGE_PATH_PREFIX = "/page/";
+    private static final String PAGE_PATH_SUFFIX = ".html";
+
+    private final SyntheticSite site;
+
+    private final HttpServer[] servers;
+
+    private final String[] hostUrls;
+
+    private final ExecutorService executor;
+
+    private final AtomicLong pagesServedNum = new AtomicLong();
+    private final AtomicLong errorsServedNum = new AtomicLong();
+
+    /**
+     * Response times in nanoseconds from receiving a request to sending the whole body
+     */
+    private long[] latenciesNanos = new long[1024];
+    private int latenciesNum;
+
+    /**
+     * Constructor - creating a new object and starting servers on free ports
+     *
+     * @param site - site to serve
+     */
+    public SyntheticSiteServer(SyntheticSite site) throws IOException {
+        this.site = site;
+        servers = new HttpServer[site.getHostsNum()];
+        hostUrls = new String[site.getHostsNum()];
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "synthetic-site");
+            thread.setDaemon(true);
+            return thread;
+        });
+        InetAddress loopbackAddress = InetAddress.getLoopbackAddress();
+        for (int host = 0; host < servers.length; host++) {
+            int hostIndex = host;
+            HttpServer server = HttpServer.create(new InetSocketAddress(loopbackAddress, 0), 0);
+            server.createContext("/", exchange -> handle(exchange, hostIndex));
+            server.setExecutor(executor);
+            server.start();
+            servers[host] = server;
+            hostUrls[host] = "http://" + loopbackAddress.getHostAddress() + ":" + server.getAddress().getPort();
+        }
+    }
+
+    /**
+     * Function that returns URL of the first page, all pages are reachable from it
+     */
+    public String getSeedUrl() {
+        return site.getPageUrl(0, hostUrls);
+    }
+
+    public long getPagesServedNum() {
+        return pagesServedNum.get();
+    }
+
+    public long getErrorsServedNum() {
+        return errorsServedNum.get();
+    }
+
+    /**
+     * Function for getting recorded response times
+     *
+     * @return sorted response times in nanoseconds
+     */
+    public synchronized long[] getSortedLatenciesNanos() {
+        long[] latencies = Arrays.copyOf(latenciesNanos, latenciesNum);
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    @Override
+    public void close() {
+        for (HttpServer server : servers) {
+            server.stop(0);
+        }
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange, int host) throws IOException {
+        long startTime = System.nanoTime();
+        try {
+            int pageId = getPageId(exchange.getRequestURI().getPath());
+            sleep(site.getHostLatencyMillis(host));
+            if (pageId < 0 || site.getHost(pageId) != host) {
+                exchange.sendResponseHeaders(404, -1);
+                errorsServedNum.incrementAndGet();
+                return;
+            }
+            if (site.isErrorPage(pageId)) {
+                exchange.sendResponseHeaders(500, -1);
+                errorsServedNum.incrementAndGet();
+                return;
+            }
+            byte[] body = site.generatePage(pageId, hostUrls).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+            pagesServedNum.incrementAndGet();
+        } finally {
+            exchange.close();
+            recordLatency(System.nanoTime() - startTime);
+        }
+    }
+
+    private int getPageId(String path) {
+        if (!path.startsWith(PAGE_PATH_PREFIX) || !path.endsWith(PAGE_PATH_SUFFIX)) {
+            return -1;
+        }
+        try {
+            int pageId = Integer.parseInt(path.substring(PAGE_PATH_PREFIX.length(),
+                    path.length() - PAGE_PATH_SUFFIX.length()));
+            return pageId < site.getPagesNum() ? pageId : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private synchronized void recordLatency(long latencyNanos) {
+        if (latenciesNum == latenciesNanos.length) {
+            latenciesNanos = Arrays.copyOf(latenciesNanos, latenciesNum * 2);
+        }
+        latenciesNanos[latenciesNum++] = latencyNanos;
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.company.webcrawler;
+
+import com.company.benchmarks.Corpus;
+import com.company.trie.Trie;
+import com.company.url.UrlCanonicalizer;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of extracting absolute URLs of links from corpus pages
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LinkExtractionBenchmark {
+    @Param({"small", "medium", "large"})
+    public String page;
+
+    private String html;
+    private Element body;
+    private Trie trie;
+    private LinkExtractor linkExtractor;
+    private UrlCanonicalizer urlCanonicalizer;
+
+    @Setup
+    public void setUp() {
+        html = Corpus.getHtml(page);
+        body = Jsoup.parse(html, Corpus.BASE_URL).body();
+        trie = new Trie(Collections.emptySet());
+        trie.compile();
+        linkExtractor = new LinkExtractor();
+        // without rules canonicalization only checks the scheme, so the resolution is compared with domSelect
+        urlCanonicalizer = new UrlCanonicalizer(EnumSet.noneOf(UrlCanonicalizer.Rule.class), Collections.emptySet());
+    }
+
+    /**
+     * Links of the already parsed document, the same way as the crawler selects them
+     */
+    @Benchmark
+    public List<String> domSelect() {
+        return selectLinks(body);
+    }
+
+    /**
+     * Parsing of the document and selecting links
+     */
+    @Benchmark
+    public List<String> domParseAndSelect() {
+        Document document = Jsoup.parse(html, Corpus.BASE_URL);
+        return selectLinks(document.body());
+    }
+
+    /**
+     * Links of the already parsed document, the same way as the crawler extracts them
+     */
+    @Benchmark
+    public List<String> linkExtractor() {
+        return linkExtractor.extractLinks(Corpus.BASE_URL, body, urlCanonicalizer, null);
+    }
+
+    @Benchmark
+    public List<String> streamingParser() throws IOException {
+        List<String> links = new ArrayList<>();
+        new StreamingPageParser(trie.newMatcher(new int[0]), Corpus.BASE_URL, links::add)
+                .parse(new StringReader(html));
+        return links;
+    }
+
+    private static List<String> selectLinks(Element body) {
+        List<String> links = new ArrayList<>();
+        for (Element link : body.select("a")) {
+            String href = link.attr("href");
+            if (!href.isEmpty() && href.charAt(0) != '#') {
+                links.add(link.absUrl("href"));
+            }
+        }
+        return links;
+    }
+}
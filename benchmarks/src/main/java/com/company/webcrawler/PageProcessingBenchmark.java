@@ -0,0 +1,91 @@
+package com.company.webcrawler;
+
+import com.company.benchmarks.Corpus;
+import com.company.benchmarks.TermDictionaries;
+import com.company.trie.Trie;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the whole processing of a downloaded page: parsing, counting terms and extracting links.
+ * Variants correspond to the modes of {@link WebCrawler}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PageProcessingBenchmark {
+    @Param({"10", "1000", "100000"})
+    public int termsNum;
+
+    @Param({"small", "medium", "large"})
+    public String page;
+
+    private String html;
+    private Trie trie;
+
+    @Setup
+    public void setUp() {
+        html = Corpus.getHtml(page);
+        trie = new Trie(TermDictionaries.generate(termsNum));
+        trie.compile();
+    }
+
+    /**
+     * Default mode: DOM is built, text of the body is built and lowercased
+     */
+    @Benchmark
+    public void dom(Blackhole blackhole) {
+        Element body = Jsoup.parse(html, Corpus.BASE_URL).body();
+        int[] counts = new int[trie.getTermsNum()];
+        trie.countOccurrences(body.text().toLowerCase(), counts);
+        blackhole.consume(counts);
+        blackhole.consume(getLinks(body));
+    }
+
+    /**
+     * DOM is built, terms are matched directly from text nodes
+     */
+    @Benchmark
+    public void domTextMatcher(Blackhole blackhole) {
+        Element body = Jsoup.parse(html, Corpus.BASE_URL).body();
+        int[] counts = new int[trie.getTermsNum()];
+        DocumentTextMatcher.match(body, trie.newMatcher(counts));
+        blackhole.consume(counts);
+        blackhole.consume(getLinks(body));
+    }
+
+    /**
+     * Page is processed while it is parsed, without building the DOM
+     */
+    @Benchmark
+    public void streaming(Blackhole blackhole) throws IOException {
+        int[] counts = new int[trie.getTermsNum()];
+        List<String> links = new ArrayList<>();
+        new StreamingPageParser(trie.newMatcher(counts), Corpus.BASE_URL, links::add)
+                .parse(new StringReader(html));
+        blackhole.consume(counts);
+        blackhole.consume(links);
+    }
+
+    private static List<String> getLinks(Element body) {
+        List<String> links = new ArrayList<>();
+        for (Element link : body.select("a")) {
+            String href = link.attr("href");
+            if (!href.isEmpty() && href.charAt(0) != '#') {
+                links.add(link.absUrl("href"));
+            }
+        }
+        return links;
+    }
+}
@@ -1,32 +1,131 @@
 package com.company;
 
+import com.company.cache.ResponseCache;
+import com.company.dedup.DuplicateDetector;
+import com.company.fetch.HttpClientPageFetcher;
+import com.company.metrics.CrawlMetrics;
+import com.company.metrics.MetricsReporter;
+import com.company.metrics.MetricsSnapshot;
+import com.company.metrics.Stage;
+import com.company.trie.MappedTrie;
+import com.company.trie.TermFiles;
+import com.company.trie.Trie;
+import com.company.url.UrlCanonicalizer;
+import com.company.webcrawler.CsvStatsSink;
+import com.company.webcrawler.LinkExtractor;
 import com.company.webcrawler.WebCrawler;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 public class Main {
     public static void main(String[] args) {
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));) {
             System.out.println("Enter seed URL");
             String seedURL = reader.readLine();
-            System.out.println("Enter terms comma separated without spaces");
-            Set<String> terms = new HashSet<>(Arrays.asList(reader.readLine().split(",")));
+            System.out.println("Enter terms comma separated without spaces, terms file with a term per line "
+                    + "or automaton file compiled by TrieCompiler");
+            String termsLine = reader.readLine();
+            Path termsPath = Paths.get(termsLine);
+            Trie trie;
+            if (MappedTrie.isAutomatonFile(termsPath)) {
+                trie = Trie.load(termsPath);
+            } else if (Files.isRegularFile(termsPath)) {
+                trie = new Trie(TermFiles.readTerms(termsPath));
+                trie.compile();
+            } else {
+                Set<String> terms = new HashSet<>(Arrays.asList(termsLine.split(",")));
+                trie = new Trie(terms.stream().map(String::toLowerCase).collect(Collectors.toSet()));
+                trie.compile();
+            }
             System.out.println("Enter link depth");
             int linkDepth = Integer.parseInt(reader.readLine());
             System.out.println("Enter max visited pages limit");
             int maxVisitedPagesLimit = Integer.parseInt(reader.readLine());
+            System.out.println("Enter number of threads (1 for single-threaded crawl)");
+            int threadsNum = Integer.parseInt(reader.readLine());
+            System.out.println("Enter number of analysis threads (0 to analyze pages in the request threads)");
+            int analysisThreadsNum = Integer.parseInt(reader.readLine());
+            System.out.println("Enter checkpoint file (empty to crawl without checkpoints)");
+            String checkpointFile = reader.readLine();
+            System.out.println("Enter response cache directory (empty to crawl without cache)");
+            String cacheDirectory = reader.readLine();
 
-            WebCrawler webCrawler = new WebCrawler(seedURL, terms, linkDepth, maxVisitedPagesLimit);
-            webCrawler.calculateStats();
+            WebCrawler webCrawler = new WebCrawler(seedURL, trie, linkDepth, maxVisitedPagesLimit);
+            webCrawler.setPageFetcher(new HttpClientPageFetcher());
+            webCrawler.setMinHostDelay(WebCrawler.DEFAULT_CONCURRENT_MIN_HOST_DELAY_MILLIS);
+            webCrawler.setParallelMatching(WebCrawler.DEFAULT_PARALLEL_MATCHING_THRESHOLD);
+            webCrawler.getLinkExtractor().setDeniedExtensions(LinkExtractor.DEFAULT_DENIED_EXTENSIONS);
+            ResponseCache responseCache = null;
+            if (cacheDirectory != null && !cacheDirectory.isEmpty()) {
+                responseCache = new ResponseCache(Paths.get(cacheDirectory));
+                webCrawler.setResponseCache(responseCache);
+            }
+            DuplicateDetector duplicateDetector = new DuplicateDetector();
+            webCrawler.setDuplicateDetector(duplicateDetector);
+            CrawlMetrics metrics = new CrawlMetrics();
+            metrics.setJfrEventsEnabled(true);
+            webCrawler.setMetrics(metrics);
+            // rows of all pages and snapshots of metrics are written during the crawl
+            MetricsReporter metricsReporter = new MetricsReporter(metrics,
+                    new BufferedWriter(new FileWriter("metrics.jsonl")));
+            try (CsvStatsSink statsSink = new CsvStatsSink(new BufferedWriter(new FileWriter("all_stats.csv")),
+                    webCrawler.getTermColumns())) {
+                webCrawler.setStatsSink(statsSink);
+                if (checkpointFile != null && !checkpointFile.isEmpty()) {
+                    Path checkpointPath = Paths.get(checkpointFile);
+                    if (Files.exists(checkpointPath)) {
+                        System.out.println("Resuming the crawl from the checkpoint");
+                        webCrawler.restoreCheckpoint(checkpointPath);
+                    }
+                    webCrawler.setCheckpoint(checkpointPath, WebCrawler.DEFAULT_CHECKPOINT_INTERVAL_MILLIS);
+                }
+                if (analysisThreadsNum > 0) {
+                    webCrawler.calculateStats(threadsNum, analysisThreadsNum);
+                } else if (threadsNum > 1) {
+                    webCrawler.calculateStats(threadsNum);
+                } else {
+                    webCrawler.calculateStats();
+                }
+            } finally {
+                metricsReporter.close();
+            }
 
-            webCrawler.serializeAllStatsToCSV("all_stats.csv");
             int numTopPages = 10;
             System.out.println("Top " + numTopPages + " pages by total hints");
             webCrawler.printTopPages(numTopPages);
             webCrawler.serializeTopPagesToCSV("top_10_pages_stats.csv", numTopPages);
+            System.out.println("URLs changed by canonicalization rules");
+            for (UrlCanonicalizer.Rule rule : UrlCanonicalizer.Rule.values()) {
+                System.out.println(rule + " " + webCrawler.getUrlCanonicalizer().getChangedUrlsNum(rule));
+            }
+            System.out.println("Links out of scope " + webCrawler.getLinkExtractor().getFilteredLinksNum()
+                    + ", repeated links of pages " + webCrawler.getLinkExtractor().getRepeatedLinksNum());
+            if (checkpointFile != null && !checkpointFile.isEmpty()) {
+                System.out.println("Checkpoint failures " + webCrawler.getCheckpointFailuresNum());
+            }
+            if (responseCache != null) {
+                System.out.println("Response cache hits " + responseCache.getHitsNum() + ", hit ratio " + responseCache.getHitRatio());
+                System.out.println("Response cache misses " + responseCache.getMissesNum() + ", miss ratio " + responseCache.getMissRatio());
+            }
+            System.out.println("Exact duplicate pages " + duplicateDetector.getExactDuplicatesNum()
+                    + ", near duplicate pages " + duplicateDetector.getNearDuplicatesNum());
+            System.out.println("Links not expanded " + duplicateDetector.getSkippedLinksNum()
+                    + ", characters not matched " + duplicateDetector.getSkippedMatchingCharactersNum());
+            MetricsSnapshot snapshot = metrics.getSnapshot();
+            for (Stage stage : Stage.values()) {
+                System.out.println(stage + " count " + snapshot.getStageCount(stage)
+                        + ", total ms " + snapshot.getStageTotalNanos(stage) / 1_000_000
+                        + ", p50 ms " + snapshot.getStagePercentileNanos(stage, 50) / 1_000_000.0
+                        + ", p99 ms " + snapshot.getStagePercentileNanos(stage, 99) / 1_000_000.0);
+            }
+            System.out.println("Errors by type " + snapshot.getErrors());
         } catch (IOException | NumberFormatException exception) {
             System.out.println(exception.getClass() + " " + exception.getMessage());
         }
@@ -0,0 +1,302 @@
+package com.company.cache;
+
+import com.company.trie.TermCounts;
+
+import java.io.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Class CachedResponse stores a page response for conditional revalidation: validators,
+ * charset and the gzip-compressed body. Results of the page analysis can be attached,
+ * so an unchanged page isn't parsed again if it is analyzed for the same terms.
+ * Only not zero counts are stored as pairs of term id and count
+ */
+public class CachedResponse {
+    private final String url;
+
+    /**
+     * Value of the ETag header or null
+     */
+    private final String eTag;
+
+    /**
+     * Value of the Last-Modified header or null
+     */
+    private final String lastModified;
+
+    /**
+     * Charset from the Content-Type header or null
+     */
+    private final String charset;
+
+    private final byte[] compressedBody;
+
+    /**
+     * Signature of terms which the attached statistics were counted for
+     */
+    private long analysisSignature;
+
+    /**
+     * Number of terms which the attached statistics were counted for
+     */
+    private int termsNum;
+
+    /**
+     * Ids of terms with not zero occurrences or null if the analysis isn't attached
+     */
+    private int[] statsTermIds;
+
+    /**
+     * Occurrences of terms from statsTermIds
+     */
+    private int[] statsCounts;
+
+    /**
+     * Canonical URLs of linked pages or null if links weren't collected
+     */
+    private String[] linkedPages;
+
+    /**
+     * Constructor - creating a new object from the downloaded body
+     *
+     * @param url          - canonical page URL
+     * @param eTag         - value of the ETag header or null
+     * @param lastModified - value of the Last-Modified header or null
+     * @param charset      - charset of the body or null
+     * @param body         - body, it is compressed
+     */
+    public CachedResponse(String url, String eTag, String lastModified, String charset, byte[] body) {
+        this(compress(body), url, eTag, lastModified, charset);
+    }
+
+    private CachedResponse(byte[] compressedBody, String url, String eTag, String lastModified, String charset) {
+        this.url = url;
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+        this.charset = charset;
+        this.compressedBody = compressedBody;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public String getCharset() {
+        return charset;
+    }
+
+    /**
+     * Function that returns whether the response has a validator, so it can be revalidated by a conditional request
+     */
+    public boolean isRevalidatable() {
+        return eTag != null || lastModified != null;
+    }
+
+    /**
+     * Function for decompressing the body
+     *
+     * @return body
+     */
+    public byte[] getBody() {
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(compressedBody))) {
+            return inputStream.readAllBytes();
+        } catch (IOException exc) {
+            throw new UncheckedIOException("Cached body is corrupted", exc);
+        }
+    }
+
+    /**
+     * Function for attaching results of the page analysis
+     *
+     * @param analysisSignature - signature of terms
+     * @param pageStats         - occurrences indexed by term id
+     * @param linkedPages       - canonical URLs of linked pages or null if links weren't collected
+     */
+    public void setAnalysis(long analysisSignature, int[] pageStats, String[] linkedPages) {
+        int notZeroCountsNum = 0;
+        for (int count : pageStats) {
+            if (count != 0) {
+                notZeroCountsNum++;
+            }
+        }
+        int[] termIds = new int[notZeroCountsNum];
+        int[] counts = new int[notZeroCountsNum];
+        int pairIndex = 0;
+        for (int termId = 0; termId < pageStats.length; termId++) {
+            if (pageStats[termId] != 0) {
+                termIds[pairIndex] = termId;
+                counts[pairIndex] = pageStats[termId];
+                pairIndex++;
+            }
+        }
+        setAnalysis(analysisSignature, pageStats.length, termIds, counts, linkedPages);
+    }
+
+    /**
+     * Function for attaching results of the page analysis, only occurred terms are read
+     *
+     * @param analysisSignature - signature of terms
+     * @param pageStats         - occurrences of terms
+     * @param linkedPages       - canonical URLs of linked pages or null if links weren't collected
+     */
+    public void setAnalysis(long analysisSignature, TermCounts pageStats, String[] linkedPages) {
+        int[] termIds = new int[pageStats.getOccurredTermsNum()];
+        int[] counts = new int[termIds.length];
+        for (int i = 0; i < termIds.length; i++) {
+            termIds[i] = pageStats.getOccurredTermId(i);
+            counts[i] = pageStats.get(termIds[i]);
+        }
+        setAnalysis(analysisSignature, pageStats.getCounts().length, termIds, counts, linkedPages);
+    }
+
+    private void setAnalysis(long analysisSignature, int termsNum, int[] termIds, int[] counts,
+                             String[] linkedPages) {
+        this.analysisSignature = analysisSignature;
+        this.termsNum = termsNum;
+        statsTermIds = termIds;
+        statsCounts = counts;
+        this.linkedPages = linkedPages;
+    }
+
+    /**
+     * Function that returns whether statistics counted for the terms are attached
+     *
+     * @param analysisSignature - signature of current terms
+     */
+    public boolean hasPageStats(long analysisSignature) {
+        return statsTermIds != null && this.analysisSignature == analysisSignature;
+    }
+
+    /**
+     * Function for building the dense attached statistics
+     *
+     * @param analysisSignature - signature of current terms
+     * @return occurrences indexed by term id or null if statistics were counted for other terms or aren't attached
+     */
+    public int[] getPageStats(long analysisSignature) {
+        if (!hasPageStats(analysisSignature)) {
+            return null;
+        }
+        int[] pageStats = new int[termsNum];
+        for (int i = 0; i < statsTermIds.length; i++) {
+            pageStats[statsTermIds[i]] = statsCounts[i];
+        }
+        return pageStats;
+    }
+
+    /**
+     * Function for adding attached statistics to the counts without building the dense array,
+     * statistics must be counted for the current terms
+     *
+     * @param pageStats - occurrences of terms, attached occurrences are added to it
+     */
+    public void addPageStatsTo(TermCounts pageStats) {
+        for (int i = 0; i < statsTermIds.length; i++) {
+            pageStats.add(statsTermIds[i], statsCounts[i]);
+        }
+    }
+
+    /**
+     * Function for getting attached links
+     *
+     * @return canonical URLs of linked pages or null if links weren't collected
+     */
+    public String[] getLinkedPages() {
+        return linkedPages;
+    }
+
+    void writeTo(DataOutput output) throws IOException {
+        writeString(output, url);
+        writeString(output, eTag);
+        writeString(output, lastModified);
+        writeString(output, charset);
+        output.writeLong(analysisSignature);
+        if (statsTermIds == null) {
+            output.writeInt(-1);
+        } else {
+            output.writeInt(termsNum);
+            output.writeInt(statsTermIds.length);
+            for (int i = 0; i < statsTermIds.length; i++) {
+                output.writeInt(statsTermIds[i]);
+                output.writeInt(statsCounts[i]);
+            }
+        }
+        if (linkedPages == null) {
+            output.writeInt(-1);
+        } else {
+            output.writeInt(linkedPages.length);
+            for (String linkedPage : linkedPages) {
+                writeString(output, linkedPage);
+            }
+        }
+        output.writeInt(compressedBody.length);
+        output.write(compressedBody);
+    }
+
+    static CachedResponse readFrom(DataInput input) throws IOException {
+        String url = readString(input);
+        String eTag = readString(input);
+        String lastModified = readString(input);
+        String charset = readString(input);
+        long analysisSignature = input.readLong();
+        int termsNum = input.readInt();
+        int[] statsTermIds = null;
+        int[] statsCounts = null;
+        if (termsNum >= 0) {
+            int pairsNum = input.readInt();
+            statsTermIds = new int[pairsNum];
+            statsCounts = new int[pairsNum];
+            for (int i = 0; i < pairsNum; i++) {
+                statsTermIds[i] = input.readInt();
+                statsCounts[i] = input.readInt();
+            }
+        }
+        String[] linkedPages = null;
+        int linkedPagesNum = input.readInt();
+        if (linkedPagesNum >= 0) {
+            linkedPages = new String[linkedPagesNum];
+            for (int i = 0; i < linkedPagesNum; i++) {
+                linkedPages[i] = readString(input);
+            }
+        }
+        byte[] compressedBody = new byte[input.readInt()];
+        input.readFully(compressedBody);
+        CachedResponse response = new CachedResponse(compressedBody, url, eTag, lastModified, charset);
+        response.analysisSignature = analysisSignature;
+        response.termsNum = termsNum;
+        response.statsTermIds = statsTermIds;
+        response.statsCounts = statsCounts;
+        response.linkedPages = linkedPages;
+        return response;
+    }
+
+    private static byte[] compress(byte[] body) {
+        ByteArrayOutputStream compressedBody = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (OutputStream outputStream = new GZIPOutputStream(compressedBody)) {
+            outputStream.write(body);
+        } catch (IOException exc) {
+            throw new UncheckedIOException(exc);
+        }
+        return compressedBody.toByteArray();
+    }
+
+    private static void writeString(DataOutput output, String value) throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+}
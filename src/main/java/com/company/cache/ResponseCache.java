@@ -0,0 +1,211 @@
+package com.company.cache;
+
+import com.company.support.Fingerprints;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Class ResponseCache stores responses in a directory, one file per canonical URL.
+ * Total size of files is bounded, least recently used responses are evicted.
+ * Files of the previous runs are reused, their recency is taken from modification time,
+ * which is refreshed when a response is read.
+ * Hits and misses are reported by the crawler, so the ratios describe revalidation results. Thread-safe
+ */
+public class ResponseCache {
+    public static long DEFAULT_MAX_SIZE_BYTES = 512L * 1024 * 1024;
+
+    private static final String FILE_SUFFIX = ".response";
+
+    /**
+     * "WCRC" in ASCII
+     */
+    private static final int MAGIC = 0x57435243;
+
+    /**
+     * Version of the file format, files of other versions are removed when they are read
+     */
+    private static final int FORMAT_VERSION = 2;
+
+    private final Path directory;
+
+    private final long maxSizeBytes;
+
+    /**
+     * Sizes of files by file name, from the least recently used
+     */
+    private final LinkedHashMap<String, Long> fileSizes = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long sizeBytes;
+
+    private long hitsNum;
+
+    private long missesNum;
+
+    /**
+     * Constructor - creating a new object and indexing existing files of the directory
+     *
+     * @param directory    - directory of the cache
+     * @param maxSizeBytes - maximum total size of files
+     */
+    public ResponseCache(Path directory, long maxSizeBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxSizeBytes = maxSizeBytes;
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.filter(path -> path.getFileName().toString().endsWith(FILE_SUFFIX)).forEach(files::add);
+        }
+        List<Map.Entry<Path, FileTime>> filesByTime = new ArrayList<>();
+        for (Path file : files) {
+            filesByTime.add(Map.entry(file, Files.getLastModifiedTime(file)));
+        }
+        filesByTime.sort(Map.Entry.comparingByValue());
+        for (Map.Entry<Path, FileTime> file : filesByTime) {
+            long fileSize = Files.size(file.getKey());
+            fileSizes.put(file.getKey().getFileName().toString(), fileSize);
+            sizeBytes += fileSize;
+        }
+        evict();
+    }
+
+    public ResponseCache(Path directory) throws IOException {
+        this(directory, DEFAULT_MAX_SIZE_BYTES);
+    }
+
+    /**
+     * Function for getting the cached response
+     *
+     * @param url - canonical page URL
+     * @return response or null if it isn't cached or its file can't be read
+     */
+    public synchronized CachedResponse get(String url) {
+        String fileName = getFileName(url);
+        if (fileSizes.get(fileName) == null) {
+            return null;
+        }
+        Path file = directory.resolve(fileName);
+        CachedResponse response;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+                throw new IOException("File isn't a cached response of the current format: " + file);
+            }
+            response = CachedResponse.readFrom(input);
+        } catch (IOException exc) {
+            remove(fileName);
+            return null;
+        }
+        // other URL with the same fingerprint
+        if (!response.getUrl().equals(url)) {
+            return null;
+        }
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+            // the response is still used, only its recency in the next runs is lost
+        }
+        return response;
+    }
+
+    /**
+     * Function for storing the response, previous response of the URL is replaced
+     *
+     * @param response - response
+     */
+    public synchronized void put(CachedResponse response) throws IOException {
+        String fileName = getFileName(response.getUrl());
+        Path file = directory.resolve(fileName);
+        Path temporaryFile = directory.resolve(fileName + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            response.writeTo(output);
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Long previousSize = fileSizes.put(fileName, Files.size(file));
+        sizeBytes += fileSizes.get(fileName) - (previousSize == null ? 0 : previousSize);
+        evict();
+    }
+
+    /**
+     * Function for counting the page which was taken from the cache after revalidation
+     */
+    public synchronized void recordHit() {
+        hitsNum++;
+    }
+
+    /**
+     * Function for counting the page which was downloaded in full
+     */
+    public synchronized void recordMiss() {
+        missesNum++;
+    }
+
+    public synchronized long getHitsNum() {
+        return hitsNum;
+    }
+
+    public synchronized long getMissesNum() {
+        return missesNum;
+    }
+
+    /**
+     * Function that returns share of hits among all requests or 0 if there were no requests
+     */
+    public synchronized double getHitRatio() {
+        return hitsNum + missesNum == 0 ? 0 : (double) hitsNum / (hitsNum + missesNum);
+    }
+
+    /**
+     * Function that returns share of misses among all requests or 0 if there were no requests
+     */
+    public synchronized double getMissRatio() {
+        return hitsNum + missesNum == 0 ? 0 : (double) missesNum / (hitsNum + missesNum);
+    }
+
+    /**
+     * Function that returns total size of files in bytes
+     */
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public synchronized int getResponsesNum() {
+        return fileSizes.size();
+    }
+
+    /**
+     * Function for deleting least recently used files while the total size exceeds the maximum
+     */
+    private void evict() throws IOException {
+        Iterator<Map.Entry<String, Long>> iterator = fileSizes.entrySet().iterator();
+        while (sizeBytes > maxSizeBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> file = iterator.next();
+            Files.deleteIfExists(directory.resolve(file.getKey()));
+            sizeBytes -= file.getValue();
+            iterator.remove();
+        }
+    }
+
+    private void remove(String fileName) {
+        Long fileSize = fileSizes.remove(fileName);
+        if (fileSize != null) {
+            sizeBytes -= fileSize;
+        }
+        try {
+            Files.deleteIfExists(directory.resolve(fileName));
+        } catch (IOException ignored) {
+            // the file will be replaced by the next response of the URL
+        }
+    }
+
+    private static String getFileName(String url) {
+        return String.format("%016x", Fingerprints.fingerprint64(url)) + FILE_SUFFIX;
+    }
+}
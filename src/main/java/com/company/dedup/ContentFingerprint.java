@@ -0,0 +1,99 @@
+package com.company.dedup;
+
+import com.company.support.Fingerprints;
+
+/**
+ * Class ContentFingerprint calculates fingerprints of a text which is received by characters:
+ * exact hash of the whole text and SimHash of its words. Texts which differ only in a small share of words
+ * have SimHashes with a small Hamming distance. Characters are compared case-insensitively. Not thread-safe
+ */
+public class ContentFingerprint {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private long exactHash = FNV_OFFSET_BASIS;
+
+    /**
+     * Hash of the current word or FNV offset basis if there is no current word
+     */
+    private long wordHash = FNV_OFFSET_BASIS;
+
+    private boolean isInWord;
+
+    /**
+     * Sums of +1 and -1 for every bit of words hashes
+     */
+    private final int[] bitWeights = new int[Long.SIZE];
+
+    private int wordsNum;
+
+    private long charactersNum;
+
+    /**
+     * Function for adding the next character of the text
+     *
+     * @param character - character
+     */
+    public void feed(char character) {
+        char lowerCharacter = Character.toLowerCase(character);
+        exactHash = (exactHash ^ lowerCharacter) * FNV_PRIME;
+        charactersNum++;
+        if (Character.isLetterOrDigit(lowerCharacter)) {
+            wordHash = (wordHash ^ lowerCharacter) * FNV_PRIME;
+            isInWord = true;
+        } else {
+            finishWord();
+        }
+    }
+
+    /**
+     * Function for adding characters of the text
+     *
+     * @param text - text
+     */
+    public void feed(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            feed(text.charAt(i));
+        }
+    }
+
+    public long getExactHash() {
+        return Fingerprints.mix64(exactHash ^ charactersNum);
+    }
+
+    /**
+     * Function that returns SimHash of words, bit is set if it is set in the majority of words hashes
+     */
+    public long getSimHash() {
+        finishWord();
+        long simHash = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (bitWeights[bit] > 0) {
+                simHash |= 1L << bit;
+            }
+        }
+        return simHash;
+    }
+
+    public int getWordsNum() {
+        finishWord();
+        return wordsNum;
+    }
+
+    public long getCharactersNum() {
+        return charactersNum;
+    }
+
+    private void finishWord() {
+        if (!isInWord) {
+            return;
+        }
+        long hash = Fingerprints.mix64(wordHash);
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            bitWeights[bit] += ((hash >>> bit) & 1) != 0 ? 1 : -1;
+        }
+        wordsNum++;
+        wordHash = FNV_OFFSET_BASIS;
+        isInWord = false;
+    }
+}
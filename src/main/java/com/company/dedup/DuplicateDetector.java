@@ -0,0 +1,283 @@
+package com.company.dedup;
+
+import com.company.support.Pair;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Class DuplicateDetector keeps content fingerprints of analyzed pages and finds pages with the same
+ * or nearly the same text. Exact hashes are kept in an open-addressing table, SimHashes are indexed by bands:
+ * SimHash is split into maxHammingDistance + 1 bands, so a near duplicate has at least one equal band.
+ * Texts with too few words aren't checked at all. Only URLs and fingerprints of pages are stored, statistics of a duplicate are looked up by the URL
+ * of the original page in the store of the crawler. Work saved by skipping duplicates is counted. Thread-safe
+ */
+public class DuplicateDetector {
+    public static int DEFAULT_MAX_HAMMING_DISTANCE = 3;
+
+    /**
+     * Texts with fewer words are checked only for exact duplicates, their SimHashes are not reliable
+     */
+    public static int DEFAULT_MIN_WORDS_NUM = 20;
+
+    /**
+     * Texts with fewer words aren't checked for duplicates at all, so pages without text, for example
+     * pages of links or images, aren't duplicates of each other and their links are expanded
+     */
+    public static int DEFAULT_MIN_EXACT_WORDS_NUM = 3;
+
+    private static final int MAX_BAND_BUCKETS_BITS = 16;
+    private static final double MAX_LOAD_FACTOR = 0.7;
+    private static final long EMPTY = 0;
+    private static final long EMPTY_REPLACEMENT = 1;
+
+    private final int maxHammingDistance;
+
+    private final int minWordsNum;
+
+    private final int minExactWordsNum;
+
+    private final int bandsNum;
+
+    private final int bandBits;
+
+    private final int bandBucketsBits;
+
+    private String[] pages = new String[64];
+    private long[] simHashes = new long[64];
+
+    /**
+     * Number of links of the page, they aren't expanded for its duplicates
+     */
+    private int[] linksNums = new int[64];
+
+    private int pagesNum;
+
+    /**
+     * Exact hashes and ids of their pages
+     */
+    private long[] exactHashes = new long[128];
+    private int[] exactHashPageIds = new int[128];
+    private int exactHashesNum;
+
+    /**
+     * For every band: bucket of the band value -> ids of pages, the first element of a bucket is its size
+     */
+    private final int[][][] bandBuckets;
+
+    private long exactDuplicatesNum;
+    private long nearDuplicatesNum;
+    private long skippedLinksNum;
+    private long skippedMatchingCharactersNum;
+
+    /**
+     * Constructor - creating a new object
+     *
+     * @param maxHammingDistance - maximum number of different SimHash bits of near duplicates, from 0 to 7
+     * @param minWordsNum        - minimum number of words of a text which is checked for near duplicates
+     * @param minExactWordsNum   - minimum number of words of a text which is checked for exact duplicates
+     */
+    public DuplicateDetector(int maxHammingDistance, int minWordsNum, int minExactWordsNum) {
+        if (maxHammingDistance < 0 || maxHammingDistance > 7) {
+            throw new IllegalArgumentException("Max Hamming distance must be from 0 to 7");
+        }
+        this.maxHammingDistance = maxHammingDistance;
+        this.minWordsNum = minWordsNum;
+        this.minExactWordsNum = minExactWordsNum;
+        bandsNum = maxHammingDistance + 1;
+        bandBits = Long.SIZE / bandsNum;
+        bandBucketsBits = Math.min(bandBits, MAX_BAND_BUCKETS_BITS);
+        bandBuckets = new int[bandsNum][1 << bandBucketsBits][];
+    }
+
+    public DuplicateDetector(int maxHammingDistance, int minWordsNum) {
+        this(maxHammingDistance, minWordsNum, DEFAULT_MIN_EXACT_WORDS_NUM);
+    }
+
+    public DuplicateDetector() {
+        this(DEFAULT_MAX_HAMMING_DISTANCE, DEFAULT_MIN_WORDS_NUM, DEFAULT_MIN_EXACT_WORDS_NUM);
+    }
+
+    /**
+     * Function for finding the page with the same or similar text. The page is a duplicate only if statistics
+     * of the found page are available, for example they may be not stored yet by another thread
+     *
+     * @param fingerprint - fingerprint of the text of the analyzed page
+     * @param pagesStats  - lookup of statistics by page URL, it returns null if statistics aren't available
+     * @return URL and statistics of the found page or null if there isn't such page
+     */
+    public synchronized Pair<String, int[]> findDuplicate(ContentFingerprint fingerprint,
+                                                          Function<String, int[]> pagesStats) {
+        if (fingerprint.getWordsNum() < minExactWordsNum) {
+            return null;
+        }
+        boolean isExact = true;
+        int pageId = findExactDuplicate(fingerprint.getExactHash());
+        if (pageId < 0 && fingerprint.getWordsNum() >= minWordsNum) {
+            isExact = false;
+            pageId = findNearDuplicate(fingerprint.getSimHash());
+        }
+        if (pageId < 0) {
+            return null;
+        }
+        int[] pageStats = pagesStats.apply(pages[pageId]);
+        if (pageStats == null) {
+            return null;
+        }
+        if (isExact) {
+            exactDuplicatesNum++;
+        } else {
+            nearDuplicatesNum++;
+        }
+        skippedLinksNum += linksNums[pageId];
+        return new Pair<>(pages[pageId], pageStats);
+    }
+
+    /**
+     * Function for adding the analyzed page which isn't a duplicate
+     *
+     * @param page        - page URL, statistics of the page are looked up by it
+     * @param fingerprint - fingerprint of the text of the page
+     * @param linksNum    - number of links of the page
+     */
+    public synchronized void add(String page, ContentFingerprint fingerprint, int linksNum) {
+        if (pagesNum == pages.length) {
+            int capacity = pagesNum * 2;
+            pages = Arrays.copyOf(pages, capacity);
+            simHashes = Arrays.copyOf(simHashes, capacity);
+            linksNums = Arrays.copyOf(linksNums, capacity);
+        }
+        int pageId = pagesNum++;
+        pages[pageId] = page;
+        linksNums[pageId] = linksNum;
+        if (fingerprint.getWordsNum() >= minExactWordsNum) {
+            addExactHash(fingerprint.getExactHash(), pageId);
+        }
+        if (fingerprint.getWordsNum() >= minWordsNum) {
+            long simHash = fingerprint.getSimHash();
+            simHashes[pageId] = simHash;
+            for (int band = 0; band < bandsNum; band++) {
+                addToBucket(band, getBucket(simHash, band), pageId);
+            }
+        }
+    }
+
+    /**
+     * Function for counting characters of the duplicate's text which weren't matched against terms
+     *
+     * @param charactersNum - number of characters
+     */
+    public synchronized void recordSkippedMatching(long charactersNum) {
+        skippedMatchingCharactersNum += charactersNum;
+    }
+
+    public synchronized long getExactDuplicatesNum() {
+        return exactDuplicatesNum;
+    }
+
+    public synchronized long getNearDuplicatesNum() {
+        return nearDuplicatesNum;
+    }
+
+    /**
+     * Function that returns number of links which weren't expanded because their pages are duplicates.
+     * Every such link could lead to a request of a mirrored page
+     */
+    public synchronized long getSkippedLinksNum() {
+        return skippedLinksNum;
+    }
+
+    public synchronized long getSkippedMatchingCharactersNum() {
+        return skippedMatchingCharactersNum;
+    }
+
+    public synchronized int getPagesNum() {
+        return pagesNum;
+    }
+
+    private int findExactDuplicate(long exactHash) {
+        long key = exactHash == EMPTY ? EMPTY_REPLACEMENT : exactHash;
+        int mask = exactHashes.length - 1;
+        for (int i = (int) key & mask; exactHashes[i] != EMPTY; i = (i + 1) & mask) {
+            if (exactHashes[i] == key) {
+                return exactHashPageIds[i];
+            }
+        }
+        return -1;
+    }
+
+    private int findNearDuplicate(long simHash) {
+        for (int band = 0; band < bandsNum; band++) {
+            int[] bucket = bandBuckets[band][getBucket(simHash, band)];
+            if (bucket == null) {
+                continue;
+            }
+            for (int i = 1; i <= bucket[0]; i++) {
+                if (Long.bitCount(simHashes[bucket[i]] ^ simHash) <= maxHammingDistance) {
+                    return bucket[i];
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void addExactHash(long exactHash, int pageId) {
+        long key = exactHash == EMPTY ? EMPTY_REPLACEMENT : exactHash;
+        int mask = exactHashes.length - 1;
+        int i = (int) key & mask;
+        while (exactHashes[i] != EMPTY) {
+            if (exactHashes[i] == key) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        exactHashes[i] = key;
+        exactHashPageIds[i] = pageId;
+        exactHashesNum++;
+        if (exactHashesNum > exactHashes.length * MAX_LOAD_FACTOR) {
+            resizeExactHashes();
+        }
+    }
+
+    private void resizeExactHashes() {
+        long[] oldHashes = exactHashes;
+        int[] oldPageIds = exactHashPageIds;
+        exactHashes = new long[oldHashes.length * 2];
+        exactHashPageIds = new int[oldHashes.length * 2];
+        int mask = exactHashes.length - 1;
+        for (int j = 0; j < oldHashes.length; j++) {
+            if (oldHashes[j] == EMPTY) {
+                continue;
+            }
+            int i = (int) oldHashes[j] & mask;
+            while (exactHashes[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            exactHashes[i] = oldHashes[j];
+            exactHashPageIds[i] = oldPageIds[j];
+        }
+    }
+
+    /**
+     * Function that returns bucket of the band's value, the value is hashed if it has more bits than buckets
+     */
+    private int getBucket(long simHash, int band) {
+        long bandMask = bandBits == Long.SIZE ? -1L : (1L << bandBits) - 1;
+        long bandValue = (simHash >>> (band * bandBits)) & bandMask;
+        if (bandBits == bandBucketsBits) {
+            return (int) bandValue;
+        }
+        return (int) ((bandValue * 0x9e3779b97f4a7c15L) >>> (Long.SIZE - bandBucketsBits));
+    }
+
+    private void addToBucket(int band, int bucketIndex, int pageId) {
+        int[] bucket = bandBuckets[band][bucketIndex];
+        if (bucket == null) {
+            bucket = new int[4];
+        } else if (bucket[0] + 1 == bucket.length) {
+            bucket = Arrays.copyOf(bucket, bucket.length * 2);
+        }
+        bucket[++bucket[0]] = pageId;
+        bandBuckets[band][bucketIndex] = bucket;
+    }
+}
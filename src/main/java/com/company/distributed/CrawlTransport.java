@@ -0,0 +1,42 @@
+package com.company.distributed;
+
+import com.company.support.Pair;
+
+import java.util.List;
+
+/**
+ * Transport of pages between crawl nodes. Besides batches of pages it detects the end of the crawl:
+ * the crawl is finished when every node is idle and no batch is sent but not received
+ */
+public interface CrawlTransport {
+    /**
+     * Function for sending pages to the node which crawls them
+     *
+     * @param node  - id of the receiving node
+     * @param pages - canonical URLs of pages with their remaining link depth
+     */
+    void send(int node, List<Pair<String, Integer>> pages);
+
+    /**
+     * Function for receiving the next batch of pages. Receiving node becomes busy
+     * before the batch stops being counted as sent, so the crawl can't finish in between
+     *
+     * @param node          - id of the receiving node
+     * @param timeoutMillis - maximum waiting time in milliseconds, 0 to return immediately
+     * @return batch of pages or null if there isn't any
+     */
+    List<Pair<String, Integer>> receive(int node, long timeoutMillis) throws InterruptedException;
+
+    /**
+     * Function for marking the node as idle. Node is idle when it has nothing to crawl
+     * and all its batches are sent, it becomes busy again when it receives a batch
+     *
+     * @param node - id of the node
+     */
+    void setIdle(int node);
+
+    /**
+     * Function that returns whether every node is idle and all sent batches are received
+     */
+    boolean isFinished();
+}
@@ -0,0 +1,88 @@
+package com.company.distributed;
+
+import com.company.frontier.PolitenessFrontier;
+import com.company.support.Fingerprints;
+
+import java.util.Arrays;
+
+/**
+ * Class HostPartitioner assigns URLs to crawl nodes by consistent hashing of their host, so all pages
+ * of a host are crawled by one node and its politeness delay is kept. Every node owns virtualNodesNum
+ * points of the hash ring, a host belongs to the node of the first point after its hash.
+ * When a node is added, only about 1/nodesNum of hosts move to it. Immutable, thread-safe
+ */
+public class HostPartitioner {
+    public static int DEFAULT_VIRTUAL_NODES_NUM = 64;
+
+    private final int nodesNum;
+
+    /**
+     * Sorted hashes of ring points
+     */
+    private final long[] pointHashes;
+
+    /**
+     * Node of the ring point with the same index
+     */
+    private final int[] pointNodes;
+
+    /**
+     * Constructor - creating a new object
+     *
+     * @param nodesNum        - number of nodes, their ids are from 0 to nodesNum - 1
+     * @param virtualNodesNum - number of ring points of every node, more points give more even partitions
+     */
+    public HostPartitioner(int nodesNum, int virtualNodesNum) {
+        if (nodesNum <= 0 || virtualNodesNum <= 0) {
+            throw new IllegalArgumentException("Numbers of nodes and virtual nodes must be positive");
+        }
+        this.nodesNum = nodesNum;
+        long[][] points = new long[nodesNum * virtualNodesNum][];
+        for (int node = 0; node < nodesNum; node++) {
+            for (int virtualNode = 0; virtualNode < virtualNodesNum; virtualNode++) {
+                long hash = Fingerprints.fingerprint64("node-" + node + "#" + virtualNode);
+                points[node * virtualNodesNum + virtualNode] = new long[]{hash, node};
+            }
+        }
+        Arrays.sort(points, (first, second) -> Long.compare(first[0], second[0]));
+        pointHashes = new long[points.length];
+        pointNodes = new int[points.length];
+        for (int i = 0; i < points.length; i++) {
+            pointHashes[i] = points[i][0];
+            pointNodes[i] = (int) points[i][1];
+        }
+    }
+
+    public HostPartitioner(int nodesNum) {
+        this(nodesNum, DEFAULT_VIRTUAL_NODES_NUM);
+    }
+
+    public int getNodesNum() {
+        return nodesNum;
+    }
+
+    /**
+     * Function that returns the node which crawls the page
+     *
+     * @param page - page URL
+     * @return node id
+     */
+    public int getNode(String page) {
+        return getHostNode(PolitenessFrontier.getHost(page));
+    }
+
+    /**
+     * Function that returns the node which crawls pages of the host
+     *
+     * @param host - host with port as it is used for politeness
+     * @return node id
+     */
+    public int getHostNode(String host) {
+        long hash = Fingerprints.fingerprint64(host);
+        int index = Arrays.binarySearch(pointHashes, hash);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return pointNodes[index == pointHashes.length ? 0 : index];
+    }
+}
@@ -0,0 +1,89 @@
+package com.company.distributed;
+
+import com.company.support.Pair;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class LoopbackTransport passes batches between nodes of one process through in-memory queues,
+ * so multi-node crawls can be run and tested on one machine. Thread-safe
+ */
+public class LoopbackTransport implements CrawlTransport {
+    private final List<BlockingQueue<List<Pair<String, Integer>>>> queues;
+
+    private final boolean[] isIdle;
+
+    /**
+     * Number of sent batches which aren't received yet
+     */
+    private long batchesInFlightNum;
+
+    private long sentBatchesNum;
+
+    private long sentPagesNum;
+
+    /**
+     * Constructor - creating a new object, all nodes are busy
+     *
+     * @param nodesNum - number of nodes
+     */
+    public LoopbackTransport(int nodesNum) {
+        queues = new ArrayList<>(nodesNum);
+        for (int node = 0; node < nodesNum; node++) {
+            queues.add(new LinkedBlockingQueue<>());
+        }
+        isIdle = new boolean[nodesNum];
+    }
+
+    @Override
+    public void send(int node, List<Pair<String, Integer>> pages) {
+        synchronized (this) {
+            batchesInFlightNum++;
+            sentBatchesNum++;
+            sentPagesNum += pages.size();
+        }
+        queues.get(node).add(pages);
+    }
+
+    @Override
+    public List<Pair<String, Integer>> receive(int node, long timeoutMillis) throws InterruptedException {
+        List<Pair<String, Integer>> pages = queues.get(node).poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        if (pages != null) {
+            synchronized (this) {
+                isIdle[node] = false;
+                batchesInFlightNum--;
+            }
+        }
+        return pages;
+    }
+
+    @Override
+    public synchronized void setIdle(int node) {
+        isIdle[node] = true;
+    }
+
+    @Override
+    public synchronized boolean isFinished() {
+        if (batchesInFlightNum != 0) {
+            return false;
+        }
+        for (boolean isNodeIdle : isIdle) {
+            if (!isNodeIdle) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized long getSentBatchesNum() {
+        return sentBatchesNum;
+    }
+
+    public synchronized long getSentPagesNum() {
+        return sentPagesNum;
+    }
+}
@@ -0,0 +1,47 @@
+package com.company.fetch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Response of {@link PageFetcher}. The body can be read only once, by bytes or by the stream.
+ * The response must be closed on every path, so the connection is released even if the body isn't read
+ */
+public interface FetchResponse extends Closeable {
+    int getStatusCode();
+
+    /**
+     * Function that returns URL of the response after redirects
+     */
+    String getUrl();
+
+    /**
+     * Function that returns charset from the Content-Type header or null if it isn't specified
+     */
+    String getCharset();
+
+    /**
+     * Function that returns the first value of the header
+     *
+     * @param name - case-insensitive name of the header
+     * @return value or null if there isn't such header
+     */
+    String getHeader(String name);
+
+    /**
+     * Function for reading the whole body, it is truncated to the max body size of the fetcher
+     */
+    byte[] getBody() throws IOException;
+
+    /**
+     * Function that returns the body as a stream, it ends at the max body size of the fetcher
+     */
+    InputStream getBodyStream() throws IOException;
+
+    /**
+     * Function for releasing the connection of the response, the unread body is discarded
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,291 @@
+package com.company.fetch;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Class HttpClientPageFetcher downloads pages by one shared {@link HttpClient}. The client keeps
+ * connections to hosts alive and reuses them, so repeated requests to the same host don't pay
+ * for the TCP and TLS handshakes. HTTP/2 is used when the server supports it, requests to one host
+ * are multiplexed over one connection then. Bodies are requested compressed and decoded from gzip or deflate.
+ * Reading of a body has a deadline, the body is closed when it passes, so a server which stalls
+ * in the middle of the body doesn't block the reader forever
+ */
+public class HttpClientPageFetcher implements PageFetcher {
+    public static long DEFAULT_CONNECT_TIMEOUT_MILLIS = 10 * 1000;
+    public static long DEFAULT_RESPONSE_TIMEOUT_MILLIS = 30 * 1000;
+    public static long DEFAULT_BODY_TIMEOUT_MILLIS = 60 * 1000;
+    public static int DEFAULT_MAX_BODY_SIZE = 2 * 1024 * 1024;
+    public static String USER_AGENT = "Mozilla/5.0 (compatible; web-crawler)";
+
+    private static final Pattern CHARSET_PATTERN = Pattern.compile("charset=\"?([^\";\\s]+)", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Timer which closes bodies after their deadlines, shared by all fetchers
+     */
+    private static final ScheduledThreadPoolExecutor DEADLINE_TIMER = createDeadlineTimer();
+
+    private final HttpClient client;
+
+    private final Duration responseTimeout;
+
+    private final long bodyTimeoutMillis;
+
+    private final int maxBodySize;
+
+    /**
+     * Constructor - creating a new object
+     *
+     * @param connectTimeoutMillis  - timeout of the connection establishment in milliseconds
+     * @param responseTimeoutMillis - timeout in milliseconds until the response headers are received
+     * @param bodyTimeoutMillis     - timeout in milliseconds from the response headers until the body is read
+     * @param maxBodySize           - max number of decoded body bytes, longer bodies are truncated, 0 for unlimited
+     */
+    public HttpClientPageFetcher(long connectTimeoutMillis, long responseTimeoutMillis, long bodyTimeoutMillis,
+                                 int maxBodySize) {
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .build();
+        responseTimeout = Duration.ofMillis(responseTimeoutMillis);
+        this.bodyTimeoutMillis = bodyTimeoutMillis;
+        this.maxBodySize = maxBodySize;
+    }
+
+    public HttpClientPageFetcher(long connectTimeoutMillis, long responseTimeoutMillis, int maxBodySize) {
+        this(connectTimeoutMillis, responseTimeoutMillis, DEFAULT_BODY_TIMEOUT_MILLIS, maxBodySize);
+    }
+
+    public HttpClientPageFetcher() {
+        this(DEFAULT_CONNECT_TIMEOUT_MILLIS, DEFAULT_RESPONSE_TIMEOUT_MILLIS, DEFAULT_MAX_BODY_SIZE);
+    }
+
+    @Override
+    public FetchResponse fetch(String url, Map<String, String> headers) throws IOException {
+        HttpRequest.Builder requestBuilder;
+        try {
+            requestBuilder = HttpRequest.newBuilder(URI.create(url));
+        } catch (IllegalArgumentException exc) {
+            throw new MalformedURLException(exc.getMessage());
+        }
+        requestBuilder.timeout(responseTimeout)
+                .header("User-Agent", USER_AGENT)
+                .header("Accept-Encoding", "gzip, deflate");
+        headers.forEach(requestBuilder::header);
+        HttpResponse<InputStream> response;
+        try {
+            response = client.send(requestBuilder.GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Request of " + url + " is interrupted");
+        }
+        return new HttpClientFetchResponse(response);
+    }
+
+    private static ScheduledThreadPoolExecutor createDeadlineTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "body-deadline-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    private class HttpClientFetchResponse implements FetchResponse {
+        private final HttpResponse<InputStream> response;
+
+        private final long deadlineNanos;
+
+        private final ScheduledFuture<?> deadlineTask;
+
+        private volatile boolean isTimedOut;
+
+        HttpClientFetchResponse(HttpResponse<InputStream> response) {
+            this.response = response;
+            deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(bodyTimeoutMillis);
+            deadlineTask = DEADLINE_TIMER.schedule(this::abort, bodyTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Function for closing the body after the deadline, so the blocked read returns
+         */
+        private void abort() {
+            isTimedOut = true;
+            try {
+                response.body().close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        /**
+         * Function that checks the deadline before a read
+         *
+         * @param isReadFinished - whether it's checked after the read, then only the closing by the timer fails
+         */
+        private void checkDeadline(boolean isReadFinished) throws HttpTimeoutException {
+            if (isTimedOut || !isReadFinished && System.nanoTime() - deadlineNanos > 0) {
+                throw new HttpTimeoutException("Body of " + response.uri() + " isn't read in "
+                        + bodyTimeoutMillis + " ms");
+            }
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.statusCode();
+        }
+
+        @Override
+        public String getUrl() {
+            return response.uri().toString();
+        }
+
+        @Override
+        public String getCharset() {
+            String contentType = getHeader("Content-Type");
+            if (contentType == null) {
+                return null;
+            }
+            Matcher matcher = CHARSET_PATTERN.matcher(contentType);
+            return matcher.find() ? matcher.group(1) : null;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return response.headers().firstValue(name).orElse(null);
+        }
+
+        @Override
+        public byte[] getBody() throws IOException {
+            try (InputStream body = getBodyStream()) {
+                return body.readAllBytes();
+            }
+        }
+
+        @Override
+        public InputStream getBodyStream() throws IOException {
+            checkDeadline(false);
+            InputStream body = new DeadlineInputStream(response.body());
+            String contentEncoding = getHeader("Content-Encoding");
+            if ("gzip".equalsIgnoreCase(contentEncoding) || "x-gzip".equalsIgnoreCase(contentEncoding)) {
+                body = new GZIPInputStream(body);
+            } else if ("deflate".equalsIgnoreCase(contentEncoding)) {
+                body = new InflaterInputStream(body);
+            }
+            return maxBodySize > 0 ? new LimitedInputStream(body, maxBodySize) : body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            deadlineTask.cancel(false);
+            response.body().close();
+        }
+
+        /**
+         * Stream which fails when the deadline of the body passes, instead of ending as a truncated body
+         */
+        private class DeadlineInputStream extends FilterInputStream {
+            DeadlineInputStream(InputStream in) {
+                super(in);
+            }
+
+            @Override
+            public int read() throws IOException {
+                checkDeadline(false);
+                int result;
+                try {
+                    result = super.read();
+                } catch (IOException exc) {
+                    checkDeadline(true);
+                    throw exc;
+                }
+                if (result == -1) {
+                    checkDeadline(true);
+                }
+                return result;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                checkDeadline(false);
+                int readNum;
+                try {
+                    readNum = super.read(buffer, offset, length);
+                } catch (IOException exc) {
+                    checkDeadline(true);
+                    throw exc;
+                }
+                if (readNum == -1) {
+                    checkDeadline(true);
+                }
+                return readNum;
+            }
+        }
+    }
+
+    /**
+     * Stream which ends after the limit of bytes
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+        private long remainingBytesNum;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            remainingBytesNum = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remainingBytesNum <= 0) {
+                return -1;
+            }
+            int result = super.read();
+            if (result >= 0) {
+                remainingBytesNum--;
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remainingBytesNum <= 0) {
+                return -1;
+            }
+            int readNum = super.read(buffer, offset, (int) Math.min(length, remainingBytesNum));
+            if (readNum > 0) {
+                remainingBytesNum -= readNum;
+            }
+            return readNum;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skippedNum = super.skip(Math.min(n, remainingBytesNum));
+            remainingBytesNum -= skippedNum;
+            return skippedNum;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remainingBytesNum);
+        }
+    }
+}
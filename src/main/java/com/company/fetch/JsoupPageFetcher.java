@@ -0,0 +1,79 @@
+package com.company.fetch;
+
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Class JsoupPageFetcher requests every page through a new jsoup connection, it is the fetcher
+ * of the crawler when no other fetcher is set
+ */
+public class JsoupPageFetcher implements PageFetcher {
+    private final int maxBodySize;
+
+    /**
+     * Constructor - creating a new object
+     *
+     * @param maxBodySize - max number of downloaded body bytes, 0 for unlimited
+     */
+    public JsoupPageFetcher(int maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    @Override
+    public FetchResponse fetch(String url, Map<String, String> headers) throws IOException {
+        Connection connection = Jsoup.connect(url).maxBodySize(maxBodySize).ignoreHttpErrors(true);
+        headers.forEach(connection::header);
+        Connection.Response response = connection.execute();
+        return new FetchResponse() {
+            private boolean isBodyRead;
+
+            @Override
+            public int getStatusCode() {
+                return response.statusCode();
+            }
+
+            @Override
+            public String getUrl() {
+                return response.url().toExternalForm();
+            }
+
+            @Override
+            public String getCharset() {
+                return response.charset();
+            }
+
+            @Override
+            public String getHeader(String name) {
+                return response.header(name);
+            }
+
+            @Override
+            public byte[] getBody() {
+                isBodyRead = true;
+                return response.bodyAsBytes();
+            }
+
+            @Override
+            public InputStream getBodyStream() {
+                isBodyRead = true;
+                return response.bodyStream();
+            }
+
+            @Override
+            public void close() throws IOException {
+                // the body which is read as bytes is already released, the stream is closed by its reader
+                if (!isBodyRead) {
+                    isBodyRead = true;
+                    InputStream body = response.bodyStream();
+                    if (body != null) {
+                        body.close();
+                    }
+                }
+            }
+        };
+    }
+}
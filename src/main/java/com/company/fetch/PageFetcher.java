@@ -0,0 +1,19 @@
+package com.company.fetch;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Downloader of pages. Implementations must be thread-safe, they are shared by crawl threads
+ */
+public interface PageFetcher {
+    /**
+     * Function for requesting the page, responses with error statuses are returned as well
+     *
+     * @param url     - page URL
+     * @param headers - additional request headers, for example validators of the cached response
+     * @return response whose body is decoded from the content encoding
+     * @throws IOException - connection failed or timed out
+     */
+    FetchResponse fetch(String url, Map<String, String> headers) throws IOException;
+}
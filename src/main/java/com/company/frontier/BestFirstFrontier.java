@@ -0,0 +1,135 @@
+package com.company.frontier;
+
+import com.company.support.Pair;
+
+import java.util.Comparator;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+
+/**
+ * Frontier which returns pages in the order of their scores, pages with equal scores are returned
+ * in the order of adding, so without scores the order is the same as in the breadth-first crawl.
+ * Number of stored pages is bounded, when the frontier is full the page with the lowest score is evicted.
+ * Hosts aren't delayed, so pages are always ready to be requested. Not thread-safe
+ */
+public class BestFirstFrontier implements Frontier {
+    public static int DEFAULT_CAPACITY = 100000;
+
+    /**
+     * Class ScoredPage describes page which waits in the frontier
+     */
+    private static class ScoredPage {
+        private final String page;
+
+        private final int linkDepth;
+
+        private final double score;
+
+        /**
+         * Number of the page's adding, keeps FIFO order between pages with the same score
+         */
+        private final long number;
+
+        ScoredPage(String page, int linkDepth, double score, long number) {
+            this.page = page;
+            this.linkDepth = linkDepth;
+            this.score = score;
+            this.number = number;
+        }
+    }
+
+    /**
+     * Pages ordered from the best to the worst
+     */
+    private final TreeSet<ScoredPage> pages = new TreeSet<>(
+            Comparator.<ScoredPage>comparingDouble(scoredPage -> -scoredPage.score)
+                    .thenComparingLong(scoredPage -> scoredPage.number));
+
+    private final int capacity;
+
+    private long addedNum;
+
+    private long evictedNum;
+
+    /**
+     * Constructor - creating a new object
+     *
+     * @param capacity - max number of stored pages
+     */
+    public BestFirstFrontier(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    public BestFirstFrontier() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Function for adding page with zero score
+     *
+     * @param page      - page URL
+     * @param linkDepth - remaining link depth of the page
+     */
+    @Override
+    public void add(String page, int linkDepth) {
+        add(page, linkDepth, 0);
+    }
+
+    /**
+     * Function for adding page, if the frontier is full the page with the lowest score is evicted,
+     * it can be the added page itself
+     *
+     * @param page      - page URL
+     * @param linkDepth - remaining link depth of the page
+     * @param score     - relevance of the page, pages with higher score are polled first
+     */
+    @Override
+    public void add(String page, int linkDepth, double score) {
+        pages.add(new ScoredPage(page, linkDepth, score, addedNum++));
+        if (pages.size() > capacity) {
+            pages.pollLast();
+            evictedNum++;
+        }
+    }
+
+    @Override
+    public Pair<String, Integer> poll() {
+        ScoredPage scoredPage = pages.pollFirst();
+        return scoredPage == null ? null : new Pair<>(scoredPage.page, scoredPage.linkDepth);
+    }
+
+    @Override
+    public long getDelayUntilReady() {
+        return 0;
+    }
+
+    /**
+     * Function for visiting all pages from the best to the worst, scores aren't visited
+     *
+     * @param consumer - receives page URL and its remaining link depth
+     */
+    @Override
+    public void forEachPage(BiConsumer<String, Integer> consumer) {
+        pages.forEach(scoredPage -> consumer.accept(scoredPage.page, scoredPage.linkDepth));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return pages.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return pages.size();
+    }
+
+    /**
+     * Function that returns number of pages which were evicted because the frontier was full
+     */
+    public long getEvictedNum() {
+        return evictedNum;
+    }
+}
@@ -0,0 +1,130 @@
+package com.company.frontier;
+
+import com.company.support.Fingerprints;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Approximate set of seen URLs based on a Bloom filter.
+ * URL can be falsely reported as seen with the configured probability, so such URL isn't crawled,
+ * but memory doesn't depend on URLs length. Not thread-safe
+ */
+public class BloomFilterSeenUrlSet implements SeenUrlSet {
+    private final long[] bits;
+
+    private final long bitsNum;
+
+    private final int hashFunctionsNum;
+
+    private int size;
+
+    /**
+     * Constructor - creating a new object
+     *
+     * @param expectedUrlsNum   - expected number of unique URLs
+     * @param falsePositiveRate - probability of reporting not seen URL as seen when set contains expectedUrlsNum URLs
+     */
+    public BloomFilterSeenUrlSet(int expectedUrlsNum, double falsePositiveRate) {
+        if (expectedUrlsNum <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Expected URLs number must be positive " +
+                    "and false positive rate must be between 0 and 1");
+        }
+        double ln2 = Math.log(2);
+        bitsNum = Math.max(64, (long) Math.ceil(-expectedUrlsNum * Math.log(falsePositiveRate) / (ln2 * ln2)));
+        hashFunctionsNum = Math.max(1, (int) Math.round((double) bitsNum / expectedUrlsNum * ln2));
+        bits = new long[(int) ((bitsNum + 63) / 64)];
+    }
+
+    private BloomFilterSeenUrlSet(long[] bits, long bitsNum, int hashFunctionsNum) {
+        this.bits = bits;
+        this.bitsNum = bitsNum;
+        this.hashFunctionsNum = hashFunctionsNum;
+    }
+
+    @Override
+    public boolean add(String url) {
+        long firstHash = Fingerprints.fingerprint64(url);
+        long secondHash = Fingerprints.mix64(firstHash) | 1;
+        boolean added = false;
+        for (int i = 0; i < hashFunctionsNum; i++) {
+            long bit = Math.floorMod(firstHash + i * secondHash, bitsNum);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((bits[word] & mask) == 0) {
+                bits[word] |= mask;
+                added = true;
+            }
+        }
+        if (added) {
+            size++;
+        }
+        return added;
+    }
+
+    @Override
+    public boolean contains(String url) {
+        long firstHash = Fingerprints.fingerprint64(url);
+        long secondHash = Fingerprints.mix64(firstHash) | 1;
+        for (int i = 0; i < hashFunctionsNum; i++) {
+            long bit = Math.floorMod(firstHash + i * secondHash, bitsNum);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Function that returns number of URLs which were reported as not seen
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public SeenUrlSet copy() {
+        BloomFilterSeenUrlSet copy = new BloomFilterSeenUrlSet(bits.clone(), bitsNum, hashFunctionsNum);
+        copy.size = size;
+        return copy;
+    }
+
+    @Override
+    public void writeTo(DataOutput output) throws IOException {
+        output.writeLong(bitsNum);
+        output.writeInt(hashFunctionsNum);
+        output.writeInt(size);
+        for (long word : bits) {
+            output.writeLong(word);
+        }
+    }
+
+    /**
+     * Function for replacing bits of the filter with the saved ones
+     *
+     * @param input - input positioned at the saved filter
+     * @throws IOException - if the saved filter has other size or number of hash functions
+     */
+    @Override
+    public void readFrom(DataInput input) throws IOException {
+        long savedBitsNum = input.readLong();
+        int savedHashFunctionsNum = input.readInt();
+        if (savedBitsNum != bitsNum || savedHashFunctionsNum != hashFunctionsNum) {
+            throw new IOException("Saved Bloom filter has other parameters");
+        }
+        size = input.readInt();
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = input.readLong();
+        }
+    }
+
+    public long getBitsNum() {
+        return bitsNum;
+    }
+
+    public int getHashFunctionsNum() {
+        return hashFunctionsNum;
+    }
+}
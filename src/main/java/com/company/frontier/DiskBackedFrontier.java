@@ -0,0 +1,337 @@
+package com.company.frontier;
+
+import com.company.support.Pair;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * FIFO frontier which keeps only a small head of pages on the heap.
+ * The rest of pages are written to memory-mapped segment files as compact records:
+ * varint length of the URL's UTF-8 bytes plus one, zigzag varint link depth, URL bytes.
+ * Record with zero length marks the end of a segment. Segments are deleted when they are read, the mapping is
+ * released only by the garbage collector, so files which can't be deleted yet are deleted later.
+ * Written records are never changed, so a snapshot captures only the head and the unread ranges of segments.
+ * Not thread-safe, a snapshot can be read by another thread
+ */
+public class DiskBackedFrontier implements Frontier, Closeable {
+    public static int DEFAULT_HEAD_CAPACITY = 10000;
+    public static int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * Maximum size of varint encoded int
+     */
+    private static final int MAX_VARINT_SIZE = 5;
+
+    /**
+     * Class Segment describes one segment file
+     */
+    private static class Segment {
+        private final Path path;
+
+        /**
+         * Mapped file or null when the segment is released
+         */
+        private MappedByteBuffer buffer;
+
+        /**
+         * Position where the next record will be written
+         */
+        private int writePosition;
+
+        /**
+         * Position of the next record to be read
+         */
+        private int readPosition;
+
+        Segment(Path path, MappedByteBuffer buffer) {
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Directory of this frontier inside the given one, so files left by a crashed process or segments
+     * of another frontier in the same directory don't collide with segments of this one
+     */
+    private final Path directory;
+
+    private final int headCapacity;
+
+    private final int segmentSize;
+
+    /**
+     * Oldest pages of the frontier
+     */
+    private final ArrayDeque<Pair<String, Integer>> head = new ArrayDeque<>();
+
+    /**
+     * Segments with pages which are newer than all pages of the head, from oldest to newest
+     */
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+
+    /**
+     * Files of released segments which weren't deleted, their deletion is retried on the next spill and on closing
+     */
+    private final List<Path> undeletedSegmentFiles = new ArrayList<>();
+
+    private int segmentsNum;
+
+    private int spilledPagesNum;
+
+    /**
+     * Constructor - creating a new object
+     *
+     * @param directory    - directory where a new directory for segment files is created
+     * @param headCapacity - maximum number of pages which are kept on the heap
+     * @param segmentSize  - size of one segment file in bytes
+     */
+    public DiskBackedFrontier(Path directory, int headCapacity, int segmentSize) throws IOException {
+        if (headCapacity <= 0 || segmentSize <= MAX_VARINT_SIZE * 2) {
+            throw new IllegalArgumentException("Head capacity and segment size are too small");
+        }
+        this.directory = Files.createTempDirectory(Files.createDirectories(directory), "frontier-");
+        this.headCapacity = headCapacity;
+        this.segmentSize = segmentSize;
+    }
+
+    public DiskBackedFrontier(Path directory) throws IOException {
+        this(directory, DEFAULT_HEAD_CAPACITY, DEFAULT_SEGMENT_SIZE);
+    }
+
+    @Override
+    public void add(String page, int linkDepth) {
+        if (spilledPagesNum == 0 && head.size() < headCapacity) {
+            head.addLast(new Pair<>(page, linkDepth));
+            return;
+        }
+        byte[] pageBytes = page.getBytes(StandardCharsets.UTF_8);
+        // space for the record and the end of segment marker
+        int recordSize = pageBytes.length + MAX_VARINT_SIZE * 2 + 1;
+        Segment segment = segments.peekLast();
+        if (segment == null || segment.buffer.capacity() - segment.writePosition < recordSize) {
+            if (segment != null) {
+                segment.buffer.put(segment.writePosition, (byte) 0);
+            }
+            segment = createSegment(Math.max(segmentSize, recordSize));
+            segments.addLast(segment);
+        }
+        MappedByteBuffer buffer = segment.buffer;
+        buffer.position(segment.writePosition);
+        writeVarint(buffer, pageBytes.length + 1);
+        writeVarint(buffer, (linkDepth << 1) ^ (linkDepth >> 31));
+        buffer.put(pageBytes);
+        segment.writePosition = buffer.position();
+        spilledPagesNum++;
+    }
+
+    @Override
+    public Pair<String, Integer> poll() {
+        if (head.isEmpty()) {
+            fillHead();
+        }
+        return head.pollFirst();
+    }
+
+    @Override
+    public long getDelayUntilReady() {
+        return 0;
+    }
+
+    /**
+     * Function for visiting all pages in the FIFO order, spilled pages are read without removing
+     *
+     * @param consumer - receives page URL and its remaining link depth
+     */
+    @Override
+    public void forEachPage(BiConsumer<String, Integer> consumer) {
+        snapshot().forEachPage(consumer);
+    }
+
+    /**
+     * Function for capturing pages without reading the spilled ones: the head is copied and unread records
+     * of segments are captured as read-only ranges of the mapped buffers, they are decoded on visiting
+     *
+     * @return snapshot of pages in the FIFO order
+     */
+    @Override
+    public FrontierSnapshot snapshot() {
+        List<Pair<String, Integer>> headPages = new ArrayList<>(head);
+        List<ByteBuffer> segmentsRecords = new ArrayList<>(segments.size());
+        for (Segment segment : segments) {
+            ByteBuffer records = segment.buffer.asReadOnlyBuffer();
+            records.limit(segment.writePosition);
+            records.position(segment.readPosition);
+            segmentsRecords.add(records.slice());
+        }
+        int capturedSpilledPagesNum = spilledPagesNum;
+        return new FrontierSnapshot() {
+            @Override
+            public void forEachPage(BiConsumer<String, Integer> consumer) {
+                headPages.forEach(page -> consumer.accept(page.getFirst(), page.getSecond()));
+                for (ByteBuffer records : segmentsRecords) {
+                    ByteBuffer buffer = records.duplicate();
+                    while (buffer.hasRemaining()) {
+                        int pageBytesNum = readVarint(buffer) - 1;
+                        if (pageBytesNum == -1) {
+                            break;
+                        }
+                        int encodedDepth = readVarint(buffer);
+                        byte[] pageBytes = new byte[pageBytesNum];
+                        buffer.get(pageBytes);
+                        consumer.accept(new String(pageBytes, StandardCharsets.UTF_8),
+                                (encodedDepth >>> 1) ^ -(encodedDepth & 1));
+                    }
+                }
+            }
+
+            @Override
+            public int size() {
+                return headPages.size() + capturedSpilledPagesNum;
+            }
+        };
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public int size() {
+        return head.size() + spilledPagesNum;
+    }
+
+    /**
+     * Function that returns number of pages which are stored in segment files
+     */
+    public int getSpilledPagesNum() {
+        return spilledPagesNum;
+    }
+
+    /**
+     * Function that returns number of segment files which exist now
+     */
+    public int getSegmentsNum() {
+        return segments.size();
+    }
+
+    /**
+     * Function for deleting all segment files and the directory of the frontier
+     */
+    @Override
+    public void close() throws IOException {
+        head.clear();
+        spilledPagesNum = 0;
+        while (!segments.isEmpty()) {
+            deleteFirstSegment();
+        }
+        if (!deleteUndeletedSegmentFiles()) {
+            throw new IOException("Frontier segment files weren't deleted: " + undeletedSegmentFiles);
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * Function for moving the oldest spilled pages to the head
+     */
+    private void fillHead() {
+        while (head.size() < headCapacity && spilledPagesNum > 0) {
+            Segment segment = segments.peekFirst();
+            MappedByteBuffer buffer = segment.buffer;
+            boolean isLastSegment = segments.size() == 1;
+            if (isLastSegment && segment.readPosition == segment.writePosition) {
+                break;
+            }
+            buffer.position(segment.readPosition);
+            int pageBytesNum = readVarint(buffer) - 1;
+            if (pageBytesNum == -1) {
+                deleteFirstSegment();
+                continue;
+            }
+            int encodedDepth = readVarint(buffer);
+            byte[] pageBytes = new byte[pageBytesNum];
+            buffer.get(pageBytes);
+            segment.readPosition = buffer.position();
+            head.addLast(new Pair<>(new String(pageBytes, StandardCharsets.UTF_8),
+                    (encodedDepth >>> 1) ^ -(encodedDepth & 1)));
+            spilledPagesNum--;
+        }
+        if (spilledPagesNum == 0) {
+            // all spilled pages are read, new pages can be added to the head again
+            while (!segments.isEmpty()) {
+                deleteFirstSegment();
+            }
+        }
+    }
+
+    private Segment createSegment(int size) {
+        deleteUndeletedSegmentFiles();
+        Path path = directory.resolve("frontier-" + segmentsNum++ + ".seg");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new Segment(path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        } catch (IOException exc) {
+            throw new UncheckedIOException("Frontier segment creation failed", exc);
+        }
+    }
+
+    /**
+     * Function for releasing the oldest segment, the reference to its mapping is dropped before the deletion
+     * of the file. File which can't be deleted while it's mapped is deleted later
+     */
+    private void deleteFirstSegment() {
+        Segment segment = segments.removeFirst();
+        segment.buffer = null;
+        undeletedSegmentFiles.add(segment.path);
+        deleteUndeletedSegmentFiles();
+    }
+
+    /**
+     * Function for retrying deletion of released segments
+     *
+     * @return whether all of them are deleted
+     */
+    private boolean deleteUndeletedSegmentFiles() {
+        undeletedSegmentFiles.removeIf(path -> {
+            try {
+                Files.deleteIfExists(path);
+                return true;
+            } catch (IOException exc) {
+                return false;
+            }
+        });
+        return undeletedSegmentFiles.isEmpty();
+    }
+
+    private static void writeVarint(MappedByteBuffer buffer, int value) {
+        while ((value & ~0x7f) != 0) {
+            buffer.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte part = buffer.get();
+            value |= (part & 0x7f) << shift;
+            if (part >= 0) {
+                return value;
+            }
+        }
+    }
+}
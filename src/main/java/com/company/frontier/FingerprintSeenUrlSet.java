@@ -0,0 +1,141 @@
+package com.company.frontier;
+
+import com.company.support.Fingerprints;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Exact set of seen URLs. Only 64-bit fingerprints of URLs are stored,
+ * in an open-addressing hash table with linear probing over a primitive array.
+ * Not thread-safe
+ */
+public class FingerprintSeenUrlSet implements SeenUrlSet {
+    public static int DEFAULT_INITIAL_CAPACITY = 1024;
+
+    private static final double MAX_LOAD_FACTOR = 0.7;
+
+    /**
+     * Marker of the empty table cell, fingerprint which is equal to it is replaced
+     */
+    private static final long EMPTY = 0;
+    private static final long EMPTY_REPLACEMENT = 1;
+
+    private long[] table;
+
+    private int size;
+
+    /**
+     * Constructor - creating a new object
+     *
+     * @param initialCapacity - expected number of URLs
+     */
+    public FingerprintSeenUrlSet(int initialCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, (int) (initialCapacity / MAX_LOAD_FACTOR)) - 1) << 1;
+        table = new long[capacity];
+    }
+
+    public FingerprintSeenUrlSet() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    @Override
+    public boolean add(String url) {
+        return addFingerprint(getFingerprint(url));
+    }
+
+    @Override
+    public boolean contains(String url) {
+        long fingerprint = getFingerprint(url);
+        int mask = table.length - 1;
+        for (int i = (int) fingerprint & mask; table[i] != EMPTY; i = (i + 1) & mask) {
+            if (table[i] == fingerprint) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public SeenUrlSet copy() {
+        FingerprintSeenUrlSet copy = new FingerprintSeenUrlSet(0);
+        copy.table = table.clone();
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Function for saving the set, only fingerprints are written, without empty cells of the table
+     *
+     * @param output - output
+     */
+    @Override
+    public void writeTo(DataOutput output) throws IOException {
+        output.writeInt(size);
+        for (long fingerprint : table) {
+            if (fingerprint != EMPTY) {
+                output.writeLong(fingerprint);
+            }
+        }
+    }
+
+    @Override
+    public void readFrom(DataInput input) throws IOException {
+        int savedSize = input.readInt();
+        table = new FingerprintSeenUrlSet(savedSize).table;
+        size = 0;
+        for (int i = 0; i < savedSize; i++) {
+            addFingerprint(input.readLong());
+        }
+    }
+
+    /**
+     * Function for adding fingerprint to the table
+     *
+     * @param fingerprint - not empty fingerprint
+     * @return true if fingerprint wasn't in the table
+     */
+    private boolean addFingerprint(long fingerprint) {
+        int mask = table.length - 1;
+        int i = (int) fingerprint & mask;
+        while (table[i] != EMPTY) {
+            if (table[i] == fingerprint) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        table[i] = fingerprint;
+        size++;
+        if (size > table.length * MAX_LOAD_FACTOR) {
+            resize();
+        }
+        return true;
+    }
+
+    private void resize() {
+        long[] oldTable = table;
+        table = new long[oldTable.length * 2];
+        int mask = table.length - 1;
+        for (long fingerprint : oldTable) {
+            if (fingerprint == EMPTY) {
+                continue;
+            }
+            int i = (int) fingerprint & mask;
+            while (table[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            table[i] = fingerprint;
+        }
+    }
+
+    private static long getFingerprint(String url) {
+        long fingerprint = Fingerprints.fingerprint64(url);
+        return fingerprint == EMPTY ? EMPTY_REPLACEMENT : fingerprint;
+    }
+}
@@ -0,0 +1,79 @@
+package com.company.frontier;
+
+import com.company.support.Pair;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Frontier stores pages which are found but not analyzed yet.
+ * Every page is stored with its remaining link depth
+ */
+public interface Frontier {
+    /**
+     * Function for adding page to the frontier
+     *
+     * @param page      - page URL
+     * @param linkDepth - remaining link depth of the page
+     */
+    void add(String page, int linkDepth);
+
+    /**
+     * Function for adding page with the score of its relevance. Frontiers which don't order pages
+     * by relevance ignore the score
+     *
+     * @param page      - page URL
+     * @param linkDepth - remaining link depth of the page
+     * @param score     - relevance of the page, pages with higher score are polled first
+     */
+    default void add(String page, int linkDepth, double score) {
+        add(page, linkDepth);
+    }
+
+    /**
+     * Function that removes the next page which is allowed to be requested now
+     *
+     * @return page and its remaining link depth or null if there isn't page which can be requested now
+     */
+    Pair<String, Integer> poll();
+
+    /**
+     * Function that returns time after which {@link #poll()} can return a page
+     *
+     * @return delay in milliseconds, 0 if a page can be polled right now or the frontier is empty
+     */
+    long getDelayUntilReady();
+
+    /**
+     * Function for reporting that the request of the polled page is finished, successfully or not.
+     * Frontiers which limit requests to hosts count the page as in flight until it is reported
+     *
+     * @param page - page URL returned by {@link #poll()}
+     */
+    default void pageDone(String page) {
+    }
+
+    /**
+     * Function for visiting all pages without removing them, for example to save the frontier
+     *
+     * @param consumer - receives page URL and its remaining link depth
+     */
+    void forEachPage(BiConsumer<String, Integer> consumer);
+
+    /**
+     * Function for capturing pages, so they can be visited by another thread while the frontier is changed.
+     * Pages are copied by default, frontiers which store pages off the heap capture them without copying
+     *
+     * @return snapshot of pages in the order of {@link #forEachPage}
+     */
+    default FrontierSnapshot snapshot() {
+        List<Pair<String, Integer>> pages = new ArrayList<>(size());
+        forEachPage((page, linkDepth) -> pages.add(new Pair<>(page, linkDepth)));
+        return FrontierSnapshot.of(pages);
+    }
+
+    boolean isEmpty();
+
+    int size();
+}
@@ -0,0 +1,63 @@
+package com.company.frontier;
+
+import com.company.support.Pair;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * FrontierSnapshot describes pages of the frontier at the moment of its capture. It is captured cheaply
+ * under the crawl's lock and visited later by another thread while the frontier is changed
+ */
+public interface FrontierSnapshot {
+    /**
+     * Function for visiting the captured pages in the order of {@link Frontier#forEachPage}
+     *
+     * @param consumer - receives page URL and its remaining link depth
+     */
+    void forEachPage(BiConsumer<String, Integer> consumer);
+
+    int size();
+
+    /**
+     * Function for creating snapshot of the pages list, the list must not be changed after that
+     *
+     * @param pages - pages and their remaining link depth
+     * @return snapshot
+     */
+    static FrontierSnapshot of(List<Pair<String, Integer>> pages) {
+        return new FrontierSnapshot() {
+            @Override
+            public void forEachPage(BiConsumer<String, Integer> consumer) {
+                pages.forEach(page -> consumer.accept(page.getFirst(), page.getSecond()));
+            }
+
+            @Override
+            public int size() {
+                return pages.size();
+            }
+        };
+    }
+
+    /**
+     * Function for joining two snapshots, pages of the first one are visited first
+     *
+     * @param first  - first snapshot
+     * @param second - second snapshot
+     * @return snapshot
+     */
+    static FrontierSnapshot concat(FrontierSnapshot first, FrontierSnapshot second) {
+        return new FrontierSnapshot() {
+            @Override
+            public void forEachPage(BiConsumer<String, Integer> consumer) {
+                first.forEachPage(consumer);
+                second.forEachPage(consumer);
+            }
+
+            @Override
+            public int size() {
+                return first.size() + second.size();
+            }
+        };
+    }
+}
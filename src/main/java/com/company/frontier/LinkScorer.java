@@ -0,0 +1,47 @@
+package com.company.frontier;
+
+/**
+ * Class LinkScorer estimates relevance of a found link for the best-first crawl.
+ * Score is the weighted sum of the logarithm of terms hits on the page which contains the link,
+ * terms hits in the anchor text of the link and remaining link depth
+ */
+public class LinkScorer {
+    public static double DEFAULT_PARENT_HITS_WEIGHT = 1;
+    public static double DEFAULT_ANCHOR_HITS_WEIGHT = 4;
+    public static double DEFAULT_DEPTH_WEIGHT = 0.1;
+
+    private final double parentHitsWeight;
+
+    private final double anchorHitsWeight;
+
+    private final double depthWeight;
+
+    /**
+     * Constructor - creating a new object
+     *
+     * @param parentHitsWeight - weight of the logarithm of terms hits on the linking page
+     * @param anchorHitsWeight - weight of terms hits in the anchor text
+     * @param depthWeight      - weight of the remaining link depth
+     */
+    public LinkScorer(double parentHitsWeight, double anchorHitsWeight, double depthWeight) {
+        this.parentHitsWeight = parentHitsWeight;
+        this.anchorHitsWeight = anchorHitsWeight;
+        this.depthWeight = depthWeight;
+    }
+
+    public LinkScorer() {
+        this(DEFAULT_PARENT_HITS_WEIGHT, DEFAULT_ANCHOR_HITS_WEIGHT, DEFAULT_DEPTH_WEIGHT);
+    }
+
+    /**
+     * Function for scoring the link
+     *
+     * @param parentHits     - total terms hits on the page which contains the link
+     * @param anchorHits     - terms hits in the anchor text of the link
+     * @param remainingDepth - remaining link depth of the linked page
+     * @return score, higher is better
+     */
+    public double score(long parentHits, int anchorHits, int remainingDepth) {
+        return parentHitsWeight * Math.log1p(parentHits) + anchorHitsWeight * anchorHits + depthWeight * remainingDepth;
+    }
+}
@@ -0,0 +1,290 @@
+package com.company.frontier;
+
+import com.company.support.Pair;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Frontier which keeps a separate FIFO queue for every host, doesn't allow more than max in-flight
+ * requests to the same host and waits for the minimum host delay after the host's request is finished.
+ * Hosts which have pages are scheduled in the order of the time when they can be requested,
+ * so {@link #poll()} always returns a page of a host which is allowed to be requested now.
+ * Polled pages are in flight until they are reported by {@link #pageDone}. Queues of hosts which are idle
+ * longer than the delay are removed. Not thread-safe
+ */
+public class PolitenessFrontier implements Frontier {
+    /**
+     * Class HostQueue describes pages of one host
+     */
+    private static class HostQueue {
+        private final String host;
+
+        private final ArrayDeque<Pair<String, Integer>> pages = new ArrayDeque<>();
+
+        /**
+         * Number of polled pages which aren't reported as done
+         */
+        private int inFlightNum;
+
+        private boolean isScheduled;
+
+        /**
+         * Time in nanoseconds after which the host can be requested again
+         */
+        private long readyTime;
+
+        /**
+         * Number of the host's scheduling, keeps round-robin order between hosts with the same ready time
+         */
+        private long scheduleNumber;
+
+        HostQueue(String host, long readyTime) {
+            this.host = host;
+            this.readyTime = readyTime;
+        }
+
+        private boolean isIdle() {
+            return pages.isEmpty() && inFlightNum == 0;
+        }
+    }
+
+    public static int DEFAULT_MAX_IN_FLIGHT_PER_HOST = 1;
+
+    /**
+     * Queues of hosts which have pages, requests in flight or a delay which isn't passed yet
+     */
+    private final Map<String, HostQueue> hostQueues = new HashMap<>();
+
+    /**
+     * Hosts which became idle in the order of it, they are removed when their delay is passed
+     */
+    private final ArrayDeque<HostQueue> idleHosts = new ArrayDeque<>();
+
+    /**
+     * Hosts which have pages, ordered by the time when they can be requested
+     */
+    private final PriorityQueue<HostQueue> scheduledHosts = new PriorityQueue<>(
+            Comparator.<HostQueue>comparingLong(hostQueue -> hostQueue.readyTime)
+                    .thenComparingLong(hostQueue -> hostQueue.scheduleNumber));
+
+    private long minHostDelayNanos;
+
+    private final int maxInFlightPerHost;
+
+    /**
+     * Source of current time in nanoseconds
+     */
+    private final LongSupplier clock;
+
+    private long schedulesNum;
+
+    private int size;
+
+    /**
+     * Constructor - creating a new object
+     *
+     * @param minHostDelayMillis - minimum delay between the end of a request and the next request to the same host
+     * @param maxInFlightPerHost - maximum number of requests to the same host at the same time
+     */
+    public PolitenessFrontier(long minHostDelayMillis, int maxInFlightPerHost) {
+        this(minHostDelayMillis, maxInFlightPerHost, System::nanoTime);
+    }
+
+    public PolitenessFrontier(long minHostDelayMillis) {
+        this(minHostDelayMillis, DEFAULT_MAX_IN_FLIGHT_PER_HOST);
+    }
+
+    PolitenessFrontier(long minHostDelayMillis, int maxInFlightPerHost, LongSupplier clock) {
+        if (maxInFlightPerHost <= 0) {
+            throw new IllegalArgumentException("Max in-flight requests per host must be positive");
+        }
+        this.minHostDelayNanos = minHostDelayMillis * 1_000_000;
+        this.maxInFlightPerHost = maxInFlightPerHost;
+        this.clock = clock;
+    }
+
+    /**
+     * Function for changing the minimum host delay, it is applied to requests which are finished after that
+     *
+     * @param minHostDelayMillis - minimum delay between the end of a request and the next request to the same host
+     */
+    public void setMinHostDelay(long minHostDelayMillis) {
+        this.minHostDelayNanos = minHostDelayMillis * 1_000_000;
+    }
+
+    @Override
+    public void add(String page, int linkDepth) {
+        long now = clock.getAsLong();
+        removeIdleHosts(now);
+        HostQueue hostQueue = hostQueues.computeIfAbsent(getHost(page), host -> new HostQueue(host, now));
+        hostQueue.pages.addLast(new Pair<>(page, linkDepth));
+        size++;
+        if (!hostQueue.isScheduled && hostQueue.inFlightNum < maxInFlightPerHost) {
+            schedule(hostQueue);
+        }
+    }
+
+    @Override
+    public Pair<String, Integer> poll() {
+        HostQueue hostQueue = scheduledHosts.peek();
+        long now = clock.getAsLong();
+        removeIdleHosts(now);
+        if (hostQueue == null || hostQueue.readyTime - now > 0) {
+            return null;
+        }
+        scheduledHosts.poll();
+        hostQueue.isScheduled = false;
+        Pair<String, Integer> page = hostQueue.pages.removeFirst();
+        size--;
+        hostQueue.inFlightNum++;
+        // parallel requests to the same host are spaced by the delay too
+        hostQueue.readyTime = now + minHostDelayNanos;
+        if (!hostQueue.pages.isEmpty() && hostQueue.inFlightNum < maxInFlightPerHost) {
+            schedule(hostQueue);
+        }
+        return page;
+    }
+
+    /**
+     * Function for finishing the request of the page, the host's delay is counted from now. The host which
+     * was at the limit of in-flight requests is scheduled again
+     *
+     * @param page - page URL returned by {@link #poll()}
+     */
+    @Override
+    public void pageDone(String page) {
+        HostQueue hostQueue = hostQueues.get(getHost(page));
+        if (hostQueue == null || hostQueue.inFlightNum == 0) {
+            return;
+        }
+        long now = clock.getAsLong();
+        hostQueue.inFlightNum--;
+        if (hostQueue.isScheduled) {
+            // the delay of the scheduled host was set by the last poll
+            return;
+        }
+        hostQueue.readyTime = now + minHostDelayNanos;
+        if (!hostQueue.pages.isEmpty()) {
+            schedule(hostQueue);
+        } else if (hostQueue.isIdle()) {
+            idleHosts.addLast(hostQueue);
+        }
+    }
+
+    /**
+     * Function that returns time after which {@link #poll()} can return a page
+     *
+     * @return delay in milliseconds, 0 if a page can be polled right now or the frontier is empty,
+     * {@link Long#MAX_VALUE} if all pages wait for the end of requests to their hosts
+     */
+    @Override
+    public long getDelayUntilReady() {
+        HostQueue hostQueue = scheduledHosts.peek();
+        if (hostQueue == null) {
+            return size == 0 ? 0 : Long.MAX_VALUE;
+        }
+        long delayNanos = hostQueue.readyTime - clock.getAsLong();
+        if (delayNanos <= 0) {
+            return 0;
+        }
+        return (delayNanos + 999_999) / 1_000_000;
+    }
+
+    /**
+     * Function for visiting all pages, hosts are visited in the order of their scheduling,
+     * hosts which wait for the end of their requests are visited after them
+     *
+     * @param consumer - receives page URL and its remaining link depth
+     */
+    @Override
+    public void forEachPage(BiConsumer<String, Integer> consumer) {
+        List<HostQueue> hosts = new ArrayList<>(scheduledHosts);
+        hosts.sort(scheduledHosts.comparator());
+        List<HostQueue> waitingHosts = new ArrayList<>();
+        for (HostQueue hostQueue : hostQueues.values()) {
+            if (!hostQueue.isScheduled && !hostQueue.pages.isEmpty()) {
+                waitingHosts.add(hostQueue);
+            }
+        }
+        waitingHosts.sort(Comparator.comparingLong(hostQueue -> hostQueue.scheduleNumber));
+        hosts.addAll(waitingHosts);
+        for (HostQueue hostQueue : hosts) {
+            hostQueue.pages.forEach(page -> consumer.accept(page.getFirst(), page.getSecond()));
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Function that returns number of hosts which have pages in the frontier and can be requested
+     */
+    public int getHostsNum() {
+        return scheduledHosts.size();
+    }
+
+    /**
+     * Function that returns number of hosts whose queues are kept, idle hosts are kept until their delay is passed
+     */
+    public int getHostQueuesNum() {
+        return hostQueues.size();
+    }
+
+    private void schedule(HostQueue hostQueue) {
+        hostQueue.scheduleNumber = schedulesNum++;
+        hostQueue.isScheduled = true;
+        scheduledHosts.add(hostQueue);
+    }
+
+    /**
+     * Function for removing queues of hosts which are idle and whose delay is passed
+     *
+     * @param now - current time in nanoseconds
+     */
+    private void removeIdleHosts(long now) {
+        while (!idleHosts.isEmpty()) {
+            HostQueue hostQueue = idleHosts.peekFirst();
+            if (!hostQueue.isIdle()) {
+                // the host became busy again, it is added again when it's idle
+                idleHosts.removeFirst();
+                continue;
+            }
+            if (hostQueue.readyTime - now > 0) {
+                return;
+            }
+            idleHosts.removeFirst();
+            hostQueues.remove(hostQueue.host, hostQueue);
+        }
+    }
+
+    /**
+     * Function for getting the host which is used for politeness
+     *
+     * @param page - page URL
+     * @return host with port or empty string if URL doesn't have a host
+     */
+    public static String getHost(String page) {
+        try {
+            URI uri = new URI(page);
+            String host = uri.getHost();
+            if (host == null) {
+                return "";
+            }
+            host = host.toLowerCase();
+            return uri.getPort() == -1 ? host : host + ":" + uri.getPort();
+        } catch (URISyntaxException exc) {
+            return "";
+        }
+    }
+}
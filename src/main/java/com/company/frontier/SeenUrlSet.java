@@ -0,0 +1,47 @@
+package com.company.frontier;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Set of URLs which were already added to the frontier
+ */
+public interface SeenUrlSet {
+    /**
+     * Function for adding URL to the set
+     *
+     * @param url - URL
+     * @return true if URL wasn't seen before
+     */
+    boolean add(String url);
+
+    boolean contains(String url);
+
+    /**
+     * Function that returns number of added unique URLs
+     */
+    int size();
+
+    /**
+     * Function for creating an independent copy of the set, so it can be saved while the set is changed
+     *
+     * @return copy
+     */
+    SeenUrlSet copy();
+
+    /**
+     * Function for saving the set in the binary form
+     *
+     * @param output - output
+     */
+    void writeTo(DataOutput output) throws IOException;
+
+    /**
+     * Function for replacing contents of the set with the saved ones. Set must be created
+     * with the same parameters as the saved one
+     *
+     * @param input - input positioned at the data written by {@link #writeTo(DataOutput)}
+     */
+    void readFrom(DataInput input) throws IOException;
+}
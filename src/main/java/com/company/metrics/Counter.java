@@ -0,0 +1,27 @@
+package com.company.metrics;
+
+/**
+ * Counters of {@link CrawlMetrics}, errors are counted separately by their type
+ */
+public enum Counter {
+    /**
+     * Analyzed pages
+     */
+    PAGES,
+
+    /**
+     * Downloaded bytes of bodies. Jsoup doesn't report the size of the body parsed while reading,
+     * so bytes are counted only with the response cache or the streaming processing
+     */
+    BYTES,
+
+    /**
+     * Pages which are duplicates of analyzed pages, their statistics are reused
+     */
+    DUPLICATES,
+
+    /**
+     * Checkpoints which weren't written, the crawl goes on with the previous checkpoint file
+     */
+    CHECKPOINT_FAILURES
+}
@@ -0,0 +1,108 @@
+package com.company.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class CrawlMetrics collects latency histograms of page processing stages, counters, errors by type
+ * and gauges of the crawl. Stage durations can be also committed as Flight Recorder events.
+ * All functions are thread-safe, values are read through {@link #getSnapshot()}
+ */
+public class CrawlMetrics {
+    private final Map<Stage, LatencyHistogram> stageHistograms = new EnumMap<>(Stage.class);
+
+    private final Map<Counter, LongAdder> counters = new EnumMap<>(Counter.class);
+
+    private final Map<Gauge, AtomicLong> gauges = new EnumMap<>(Gauge.class);
+
+    /**
+     * Exception class name -> number of errors
+     */
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    private volatile boolean isJfrEventsEnabled;
+
+    public CrawlMetrics() {
+        for (Stage stage : Stage.values()) {
+            stageHistograms.put(stage, new LatencyHistogram());
+        }
+        for (Counter counter : Counter.values()) {
+            counters.put(counter, new LongAdder());
+        }
+        for (Gauge gauge : Gauge.values()) {
+            gauges.put(gauge, new AtomicLong());
+        }
+    }
+
+    /**
+     * Function for turning on Flight Recorder events of stages. Events are committed
+     * only while a recording is running, so they can be left on
+     *
+     * @param isJfrEventsEnabled - whether events are created
+     */
+    public void setJfrEventsEnabled(boolean isJfrEventsEnabled) {
+        this.isJfrEventsEnabled = isJfrEventsEnabled;
+    }
+
+    /**
+     * Function for recording duration of the stage
+     *
+     * @param stage - stage
+     * @param nanos - duration in nanoseconds
+     */
+    public void recordStage(Stage stage, long nanos) {
+        stageHistograms.get(stage).record(nanos);
+        if (isJfrEventsEnabled) {
+            CrawlStageEvent event = new CrawlStageEvent();
+            if (event.shouldCommit()) {
+                event.stage = stage.name();
+                event.stageDuration = nanos;
+                event.commit();
+            }
+        }
+    }
+
+    public void increment(Counter counter) {
+        counters.get(counter).increment();
+    }
+
+    public void add(Counter counter, long value) {
+        counters.get(counter).add(value);
+    }
+
+    /**
+     * Function for counting the error by its class
+     *
+     * @param exc - exception of the error
+     */
+    public void recordError(Exception exc) {
+        errors.computeIfAbsent(exc.getClass().getSimpleName(), type -> new LongAdder()).increment();
+    }
+
+    public void setGauge(Gauge gauge, long value) {
+        gauges.get(gauge).set(value);
+    }
+
+    public void addToGauge(Gauge gauge, long delta) {
+        gauges.get(gauge).addAndGet(delta);
+    }
+
+    /**
+     * Function that returns copies of all values, values changed during copying may be partly included
+     */
+    public MetricsSnapshot getSnapshot() {
+        Map<Stage, LatencyHistogram> stageHistogramsCopy = new EnumMap<>(Stage.class);
+        stageHistograms.forEach((stage, histogram) -> stageHistogramsCopy.put(stage, histogram.copy()));
+        Map<Counter, Long> countersCopy = new EnumMap<>(Counter.class);
+        counters.forEach((counter, value) -> countersCopy.put(counter, value.sum()));
+        Map<Gauge, Long> gaugesCopy = new EnumMap<>(Gauge.class);
+        gauges.forEach((gauge, value) -> gaugesCopy.put(gauge, value.get()));
+        Map<String, Long> errorsCopy = new ConcurrentHashMap<>();
+        errors.forEach((type, value) -> errorsCopy.put(type, value.sum()));
+        return new MetricsSnapshot(System.currentTimeMillis(), stageHistogramsCopy, countersCopy, gaugesCopy,
+                errorsCopy);
+    }
+}
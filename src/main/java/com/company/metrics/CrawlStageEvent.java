@@ -0,0 +1,23 @@
+package com.company.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event of a timed stage, it is committed only while a recording with the event is running
+ */
+@Name("com.company.CrawlStage")
+@Label("Crawl Stage")
+@Category("Web Crawler")
+@Description("Duration of a page processing stage")
+class CrawlStageEvent extends jdk.jfr.Event {
+    @Label("Stage")
+    String stage;
+
+    @Label("Stage Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long stageDuration;
+}
@@ -0,0 +1,26 @@
+package com.company.metrics;
+
+/**
+ * Gauges of {@link CrawlMetrics}, they keep the last reported value
+ */
+public enum Gauge {
+    /**
+     * Pages in the frontier, updated after found links are added
+     */
+    FRONTIER_SIZE,
+
+    /**
+     * Pages which are being requested and analyzed right now
+     */
+    IN_FLIGHT_REQUESTS,
+
+    /**
+     * Pages which wait for downloading in the pipelined crawl
+     */
+    FETCH_QUEUE_SIZE,
+
+    /**
+     * Downloaded pages which wait for the analysis in the pipelined crawl
+     */
+    ANALYSIS_QUEUE_SIZE
+}
@@ -0,0 +1,108 @@
+package com.company.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class LatencyHistogram counts durations in log-linear buckets: every power of two is split into
+ * 8 sub-buckets, so a percentile is reported with at most 12.5% error in constant memory.
+ * Recording is lock-free and thread-safe
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS_NUM = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS_NUM = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS_NUM;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS_NUM);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Function for recording the duration
+     *
+     * @param nanos - duration in nanoseconds, negative durations are recorded as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(getBucket(value));
+        count.incrementAndGet();
+        totalNanos.addAndGet(value);
+        maxNanos.accumulateAndGet(value, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Function that returns the upper bound of the bucket which contains the percentile
+     *
+     * @param percentile - percentile from 0 to 100
+     * @return duration in nanoseconds, not greater than the maximum, or 0 if nothing is recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        long recordsNum = 0;
+        long[] counts = new long[BUCKETS_NUM];
+        for (int i = 0; i < BUCKETS_NUM; i++) {
+            counts[i] = buckets.get(i);
+            recordsNum += counts[i];
+        }
+        if (recordsNum == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * recordsNum));
+        long seenNum = 0;
+        for (int i = 0; i < BUCKETS_NUM; i++) {
+            seenNum += counts[i];
+            if (seenNum >= rank) {
+                return Math.min(getBucketUpperBound(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * Function that returns a copy of the histogram, records made during copying may be partly included
+     */
+    public LatencyHistogram copy() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < BUCKETS_NUM; i++) {
+            histogram.buckets.set(i, buckets.get(i));
+        }
+        histogram.count.set(count.get());
+        histogram.totalNanos.set(totalNanos.get());
+        histogram.maxNanos.set(maxNanos.get());
+        return histogram;
+    }
+
+    private static int getBucket(long value) {
+        if (value < SUB_BUCKETS_NUM) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS_NUM - 1));
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS_NUM + subBucket;
+    }
+
+    private static long getBucketUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS_NUM) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS_NUM + SUB_BUCKET_BITS - 1;
+        long subBucketWidth = 1L << (exponent - SUB_BUCKET_BITS);
+        long lowerBound = (SUB_BUCKETS_NUM + bucket % SUB_BUCKETS_NUM) * subBucketWidth;
+        return lowerBound + subBucketWidth - 1;
+    }
+}
@@ -0,0 +1,90 @@
+package com.company.metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class MetricsReporter appends a JSON snapshot of the metrics as a line of the writer once in the interval
+ * and the last snapshot when it is closed. Write errors don't stop the crawl, the first one is thrown by close()
+ */
+public class MetricsReporter implements Closeable {
+    public static long DEFAULT_REPORT_INTERVAL_MILLIS = 10 * 1000;
+
+    private final CrawlMetrics metrics;
+
+    private final Writer writer;
+
+    private final ScheduledExecutorService executor;
+
+    private IOException writeException;
+
+    /**
+     * Constructor - creating a new object and starting the reports
+     *
+     * @param metrics              - metrics of the crawl
+     * @param writer               - writer of the file, it is closed together with the reporter
+     * @param reportIntervalMillis - interval between snapshots in milliseconds
+     */
+    public MetricsReporter(CrawlMetrics metrics, Writer writer, long reportIntervalMillis) {
+        this.metrics = metrics;
+        this.writer = writer;
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::report, reportIntervalMillis, reportIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public MetricsReporter(CrawlMetrics metrics, Writer writer) {
+        this(metrics, writer, DEFAULT_REPORT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Function for writing the current snapshot
+     */
+    public synchronized void report() {
+        if (writeException != null) {
+            return;
+        }
+        try {
+            writer.write(metrics.getSnapshot().toJson());
+            writer.write('\n');
+            writer.flush();
+        } catch (IOException exc) {
+            writeException = exc;
+        }
+    }
+
+    /**
+     * Function for stopping the reports, writing the last snapshot and closing the writer
+     *
+     * @throws IOException - the first exception of writing snapshots or exception of closing
+     */
+    @Override
+    public void close() throws IOException {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+        report();
+        synchronized (this) {
+            try {
+                writer.close();
+            } catch (IOException exc) {
+                if (writeException == null) {
+                    writeException = exc;
+                }
+            }
+            if (writeException != null) {
+                throw writeException;
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.company.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Class MetricsSnapshot stores values of {@link CrawlMetrics} at some moment.
+ * The snapshot is written as a JSON object in one line
+ */
+public class MetricsSnapshot {
+    private static final double[] JSON_PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] JSON_PERCENTILE_NAMES = {"p50Nanos", "p90Nanos", "p99Nanos", "p999Nanos"};
+
+    private final long timeMillis;
+
+    private final Map<Stage, LatencyHistogram> stageHistograms;
+
+    private final Map<Counter, Long> counters;
+
+    private final Map<Gauge, Long> gauges;
+
+    /**
+     * Exception class name -> number of errors
+     */
+    private final Map<String, Long> errors;
+
+    MetricsSnapshot(long timeMillis, Map<Stage, LatencyHistogram> stageHistograms, Map<Counter, Long> counters,
+                    Map<Gauge, Long> gauges, Map<String, Long> errors) {
+        this.timeMillis = timeMillis;
+        this.stageHistograms = stageHistograms;
+        this.counters = counters;
+        this.gauges = gauges;
+        this.errors = new TreeMap<>(errors);
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public long getStageCount(Stage stage) {
+        return stageHistograms.get(stage).getCount();
+    }
+
+    public long getStageTotalNanos(Stage stage) {
+        return stageHistograms.get(stage).getTotalNanos();
+    }
+
+    public long getStageMaxNanos(Stage stage) {
+        return stageHistograms.get(stage).getMaxNanos();
+    }
+
+    /**
+     * Function that returns the percentile of the stage durations
+     *
+     * @param stage      - stage
+     * @param percentile - percentile from 0 to 100
+     * @return duration in nanoseconds with at most 12.5% error
+     */
+    public long getStagePercentileNanos(Stage stage, double percentile) {
+        return stageHistograms.get(stage).getPercentileNanos(percentile);
+    }
+
+    public long getCounter(Counter counter) {
+        return counters.get(counter);
+    }
+
+    public long getGauge(Gauge gauge) {
+        return gauges.get(gauge);
+    }
+
+    /**
+     * Function that returns numbers of errors by exception class name
+     */
+    public Map<String, Long> getErrors() {
+        return Collections.unmodifiableMap(errors);
+    }
+
+    /**
+     * Function that returns the snapshot as a JSON object without line breaks, so snapshots can be
+     * appended to a JSON Lines file
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"timeMillis\":").append(timeMillis).append(",\"stages\":{");
+        for (Stage stage : Stage.values()) {
+            if (stage.ordinal() > 0) {
+                json.append(',');
+            }
+            json.append('"').append(stage.name()).append("\":{\"count\":").append(getStageCount(stage))
+                    .append(",\"totalNanos\":").append(getStageTotalNanos(stage));
+            for (int i = 0; i < JSON_PERCENTILES.length; i++) {
+                json.append(",\"").append(JSON_PERCENTILE_NAMES[i]).append("\":")
+                        .append(getStagePercentileNanos(stage, JSON_PERCENTILES[i]));
+            }
+            json.append(",\"maxNanos\":").append(getStageMaxNanos(stage)).append('}');
+        }
+        json.append("},\"counters\":{");
+        for (Counter counter : Counter.values()) {
+            if (counter.ordinal() > 0) {
+                json.append(',');
+            }
+            json.append('"').append(counter.name()).append("\":").append(getCounter(counter));
+        }
+        json.append("},\"gauges\":{");
+        for (Gauge gauge : Gauge.values()) {
+            if (gauge.ordinal() > 0) {
+                json.append(',');
+            }
+            json.append('"').append(gauge.name()).append("\":").append(getGauge(gauge));
+        }
+        json.append("},\"errors\":{");
+        boolean isFirst = true;
+        for (Map.Entry<String, Long> error : errors.entrySet()) {
+            if (!isFirst) {
+                json.append(',');
+            }
+            isFirst = false;
+            appendJsonString(json, error.getKey());
+            json.append(':').append(error.getValue());
+        }
+        return json.append("}}").toString();
+    }
+
+    private static void appendJsonString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            if (character == '"' || character == '\\') {
+                json.append('\\').append(character);
+            } else if (character < ' ') {
+                json.append(String.format("\\u%04x", (int) character));
+            } else {
+                json.append(character);
+            }
+        }
+        json.append('"');
+    }
+}
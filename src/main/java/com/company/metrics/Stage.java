@@ -0,0 +1,35 @@
+package com.company.metrics;
+
+/**
+ * Stages of the page processing which are timed by {@link CrawlMetrics}
+ */
+public enum Stage {
+    /**
+     * Request of the page. Jsoup parses the DOM while reading the response, so without the response cache
+     * and the streaming processing this stage includes the parse. In the streaming processing it lasts
+     * until the headers are received, the body is read during the parse. Failed requests aren't timed,
+     * they are counted as errors
+     */
+    FETCH,
+
+    /**
+     * Building the DOM of the downloaded body or the whole streaming pass of the page,
+     * which matches terms and extracts links while the body is read
+     */
+    PARSE,
+
+    /**
+     * Building the text of the DOM, calculating its fingerprint and matching it against terms
+     */
+    MATCH,
+
+    /**
+     * Collecting and canonicalizing links of the DOM
+     */
+    LINK_EXTRACTION,
+
+    /**
+     * Adding found links to the seen URLs and to the frontier
+     */
+    ENQUEUE
+}
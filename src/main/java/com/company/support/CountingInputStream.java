@@ -0,0 +1,48 @@
+package com.company.support;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Class CountingInputStream counts bytes which are read from the wrapped stream
+ */
+public class CountingInputStream extends FilterInputStream {
+    private long count;
+
+    public CountingInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int result = super.read();
+        if (result >= 0) {
+            count++;
+        }
+        return result;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int readNum = super.read(buffer, offset, length);
+        if (readNum > 0) {
+            count += readNum;
+        }
+        return readNum;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skippedNum = super.skip(n);
+        count += skippedNum;
+        return skippedNum;
+    }
+
+    /**
+     * Function that returns number of read or skipped bytes
+     */
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,47 @@
+package com.company.support;
+
+/**
+ * Class with functions for calculating 64-bit fingerprints
+ */
+public final class Fingerprints {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Fingerprints() {
+    }
+
+    /**
+     * Function for calculating 64-bit fingerprint of the text.
+     * FNV-1a over the text's chars with the final avalanche of MurmurHash3,
+     * so all bits of the result are well mixed
+     *
+     * @param text - text
+     * @return fingerprint
+     */
+    public static long fingerprint64(CharSequence text) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            hash ^= character & 0xff;
+            hash *= FNV_PRIME;
+            hash ^= character >>> 8;
+            hash *= FNV_PRIME;
+        }
+        return mix64(hash);
+    }
+
+    /**
+     * Finalization mix of MurmurHash3
+     *
+     * @param hash - hash
+     * @return mixed hash
+     */
+    public static long mix64(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,68 @@
+package com.company.trie;
+
+/**
+ * Aho-Corasick automaton which can be traversed by {@link TrieMatcher}
+ */
+abstract class Automaton {
+    /**
+     * Function for traversing the automaton by the character
+     *
+     * @param state     - current state
+     * @param character - symbol for moving to next state
+     * @return next state
+     */
+    abstract int getNextState(int state, char character);
+
+    /**
+     * Function that adds occurrences of words which end in the state
+     *
+     * @param state  - state
+     * @param counts - occurrences of words
+     */
+    abstract void countOutputs(int state, TermCounts counts);
+
+    /**
+     * Function that returns number of words which end in the state
+     *
+     * @param state - state
+     * @return number of words
+     */
+    abstract int getOutputsNum(int state);
+
+    /**
+     * Function for counting the total number of occurrences of all words in the text
+     *
+     * @param text - text
+     * @return number of occurrences
+     */
+    int countTotalOccurrences(CharSequence text) {
+        int state = 0;
+        int occurrencesNum = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = getNextState(state, text.charAt(i));
+            occurrencesNum += getOutputsNum(state);
+        }
+        return occurrencesNum;
+    }
+
+    /**
+     * Function for counting occurrences of words which end in the part of the text.
+     * Matching starts earlier, so words which begin before the part are found too
+     *
+     * @param text      - text
+     * @param from      - index where matching starts
+     * @param countFrom - index of the first character of the part
+     * @param to        - index after the last character of the part
+     * @param counts    - occurrences of words, occurrences are added to it
+     */
+    void countOccurrences(CharSequence text, int from, int countFrom, int to, TermCounts counts) {
+        int state = 0;
+        for (int i = from; i < countFrom; i++) {
+            state = getNextState(state, text.charAt(i));
+        }
+        for (int i = countFrom; i < to; i++) {
+            state = getNextState(state, text.charAt(i));
+            countOutputs(state, counts);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.company.trie;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Class ChunkedMatchingTask counts words occurrences in a part of the text on the fork-join pool.
+ * Part is split in halves until it isn't longer than the chunk length. Every chunk is matched from
+ * the position which is the max word length minus one before it, but only words which end inside
+ * the chunk are counted, so words on the borders are found exactly once
+ */
+class ChunkedMatchingTask extends RecursiveTask<int[]> {
+    private static final long serialVersionUID = 1L;
+
+    private final Automaton automaton;
+
+    private final CharSequence text;
+
+    private final int from;
+
+    private final int to;
+
+    /**
+     * Max word length minus one
+     */
+    private final int overlap;
+
+    private final int chunkLength;
+
+    private final int termsNum;
+
+    ChunkedMatchingTask(Automaton automaton, CharSequence text, int from, int to, int overlap, int chunkLength,
+                        int termsNum) {
+        this.automaton = automaton;
+        this.text = text;
+        this.from = from;
+        this.to = to;
+        this.overlap = overlap;
+        this.chunkLength = chunkLength;
+        this.termsNum = termsNum;
+    }
+
+    @Override
+    protected int[] compute() {
+        if (to - from <= chunkLength) {
+            int[] counts = new int[termsNum];
+            automaton.countOccurrences(text, Math.max(0, from - overlap), from, to, new TermCounts(counts));
+            return counts;
+        }
+        int middle = (from + to) >>> 1;
+        ChunkedMatchingTask left = new ChunkedMatchingTask(automaton, text, from, middle, overlap, chunkLength, termsNum);
+        ChunkedMatchingTask right = new ChunkedMatchingTask(automaton, text, middle, to, overlap, chunkLength, termsNum);
+        left.fork();
+        int[] counts = right.compute();
+        int[] leftCounts = left.join();
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += leftCounts[i];
+        }
+        return counts;
+    }
+}
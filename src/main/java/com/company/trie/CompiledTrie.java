@@ -0,0 +1,167 @@
+package com.company.trie;
+
+import java.util.*;
+
+/**
+ * Class CompiledTrie describes the Aho-Corasick automaton as flat arrays.
+ * Characters are remapped to a compressed alphabet, all goto and failure transitions
+ * are precomputed, so moving to the next state is one array load per character.
+ * Immutable, so it can be used by several threads at the same time
+ */
+public class CompiledTrie extends Automaton {
+    /**
+     * Alphabet index of every character, 0 for characters which don't occur in words
+     */
+    private final char[] alphabetIndices;
+
+    private final int alphabetSize;
+
+    /**
+     * Transitions table, next state of state s for alphabet index a is stored at s * alphabetSize + a.
+     * State 0 is the root
+     */
+    private final int[] transitions;
+
+    /**
+     * Words which end in state s are stored in outputs from outputOffsets[s] to outputOffsets[s + 1]
+     */
+    private final int[] outputOffsets;
+
+    private final int[] outputs;
+
+    private final List<String> words;
+
+    CompiledTrie(char[] alphabetIndices, int alphabetSize, int[] transitions, int[] outputOffsets, int[] outputs,
+                 List<String> words) {
+        this.alphabetIndices = alphabetIndices;
+        this.alphabetSize = alphabetSize;
+        this.transitions = transitions;
+        this.outputOffsets = outputOffsets;
+        this.outputs = outputs;
+        this.words = words;
+    }
+
+    /**
+     * Function for counting the number of occurrences of words in the text
+     *
+     * @param text - text
+     * @return map that stores number of occurrences for each word
+     */
+    public Map<String, Integer> getOccurrencesNum(String text) {
+        int[] counts = new int[words.size()];
+        countOccurrences(text, counts);
+        Map<String, Integer> occurrences = new HashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            occurrences.put(words.get(i), counts[i]);
+        }
+        return occurrences;
+    }
+
+    /**
+     * Function for counting the number of occurrences of words in the text without allocations
+     *
+     * @param text   - text
+     * @param counts - array indexed by word id, occurrences are added to it
+     */
+    public void countOccurrences(CharSequence text, int[] counts) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = transitions[state * alphabetSize + alphabetIndices[text.charAt(i)]];
+            for (int j = outputOffsets[state]; j < outputOffsets[state + 1]; j++) {
+                counts[outputs[j]]++;
+            }
+        }
+    }
+
+    /**
+     * Function for creating matcher which receives text by characters
+     *
+     * @param counts - array indexed by word id, occurrences are added to it
+     * @return matcher in the root state
+     */
+    public TrieMatcher newMatcher(int[] counts) {
+        return new TrieMatcher(this, new TermCounts(counts));
+    }
+
+    /**
+     * Function for counting the number of occurrences of words in the text without allocations
+     *
+     * @param text   - text
+     * @param counts - occurrences of words, occurrences are added to it
+     */
+    public void countOccurrences(CharSequence text, TermCounts counts) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = transitions[state * alphabetSize + alphabetIndices[text.charAt(i)]];
+            countOutputs(state, counts);
+        }
+    }
+
+    /**
+     * Function for creating matcher which receives text by characters
+     *
+     * @param counts - occurrences of words, occurrences are added to it
+     * @return matcher in the root state
+     */
+    public TrieMatcher newMatcher(TermCounts counts) {
+        return new TrieMatcher(this, counts);
+    }
+
+    /**
+     * Function for traversing the automaton by the character
+     *
+     * @param state     - current state
+     * @param character - symbol for moving to next state
+     * @return next state
+     */
+    @Override
+    int getNextState(int state, char character) {
+        return transitions[state * alphabetSize + alphabetIndices[character]];
+    }
+
+    /**
+     * Function that adds occurrences of words which end in the state
+     *
+     * @param state  - state
+     * @param counts - occurrences of words
+     */
+    @Override
+    void countOutputs(int state, TermCounts counts) {
+        for (int j = outputOffsets[state]; j < outputOffsets[state + 1]; j++) {
+            counts.increment(outputs[j]);
+        }
+    }
+
+    @Override
+    int getOutputsNum(int state) {
+        return outputOffsets[state + 1] - outputOffsets[state];
+    }
+
+    /**
+     * Function that returns word by its id
+     *
+     * @param wordId - id of word
+     * @return word
+     */
+    public String getTerm(int wordId) {
+        return words.get(wordId);
+    }
+
+    /**
+     * Function that returns number of words, ids of words are from 0 to this number
+     */
+    public int getTermsNum() {
+        return words.size();
+    }
+
+    /**
+     * Function that returns number of automaton's states
+     */
+    public int getStatesNum() {
+        return outputOffsets.length - 1;
+    }
+
+    public int getAlphabetSize() {
+        return alphabetSize;
+    }
+}
@@ -0,0 +1,372 @@
+package com.company.trie;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Class MappedTrie describes the Aho-Corasick automaton which is compiled by {@link TrieCompiler}
+ * and memory-mapped from the file, so loading doesn't depend on the dictionary size and the automaton
+ * lives outside of the heap. States are numbered in BFS order, children of a state are consecutive
+ * states sorted by alphabet index, so goto transitions are found by binary search and the failure
+ * links are followed for missing transitions. Transitions of the root are stored as a dense row.
+ * Immutable, so it can be used by several threads and crawlers at the same time,
+ * processes which map the same file share its pages in the OS page cache
+ */
+public class MappedTrie extends Automaton {
+    static final int MAGIC = 0x41544357;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    static final int ALPHABET_SECTION = 0;
+    static final int ROOT_TRANSITIONS_SECTION = 1;
+    static final int CHILD_OFFSETS_SECTION = 2;
+    static final int LABELS_SECTION = 3;
+    static final int FAILURES_SECTION = 4;
+    static final int WORD_IDS_SECTION = 5;
+    static final int OUTPUT_LINKS_SECTION = 6;
+    static final int TERM_OFFSETS_SECTION = 7;
+    static final int TERM_CHARS_SECTION = 8;
+    static final int END_SECTION = 9;
+
+    /**
+     * Alphabet index of every character, 0 for characters which don't occur in words
+     */
+    private final char[] alphabetIndices;
+
+    /**
+     * Transitions of the root for every alphabet index
+     */
+    private final int[] rootTransitions;
+
+    /**
+     * Children of state s are states from childOffsets[s] to childOffsets[s + 1]
+     */
+    private final IntBuffer childOffsets;
+
+    /**
+     * Alphabet index of the character which leads to the state from its parent
+     */
+    private final CharBuffer labels;
+
+    private final IntBuffer failures;
+
+    /**
+     * Id of the word which ends in the state or -1
+     */
+    private final IntBuffer wordIds;
+
+    /**
+     * Nearest state by failure links where a word ends or 0
+     */
+    private final IntBuffer outputLinks;
+
+    /**
+     * Chars of word i are stored in termChars from termOffsets[i] to termOffsets[i + 1]
+     */
+    private final IntBuffer termOffsets;
+
+    private final CharBuffer termChars;
+
+    private final int statesNum;
+
+    private final int termsNum;
+
+    private MappedTrie(ByteBuffer buffer, int alphabetSize, int statesNum, int termsNum, int termCharsNum) {
+        this.statesNum = statesNum;
+        this.termsNum = termsNum;
+        long[] offsets = getSectionOffsets(alphabetSize, statesNum, termsNum, termCharsNum);
+        alphabetIndices = new char[Character.MAX_VALUE + 1];
+        slice(buffer, offsets, ALPHABET_SECTION).asCharBuffer().get(alphabetIndices);
+        rootTransitions = new int[alphabetSize];
+        slice(buffer, offsets, ROOT_TRANSITIONS_SECTION).asIntBuffer().get(rootTransitions);
+        childOffsets = slice(buffer, offsets, CHILD_OFFSETS_SECTION).asIntBuffer();
+        labels = slice(buffer, offsets, LABELS_SECTION).asCharBuffer();
+        failures = slice(buffer, offsets, FAILURES_SECTION).asIntBuffer();
+        wordIds = slice(buffer, offsets, WORD_IDS_SECTION).asIntBuffer();
+        outputLinks = slice(buffer, offsets, OUTPUT_LINKS_SECTION).asIntBuffer();
+        termOffsets = slice(buffer, offsets, TERM_OFFSETS_SECTION).asIntBuffer();
+        termChars = slice(buffer, offsets, TERM_CHARS_SECTION).asCharBuffer();
+    }
+
+    /**
+     * Function for mapping the automaton file which is written by {@link TrieCompiler}
+     *
+     * @param automatonFile - compiled automaton
+     * @return automaton which reads the mapped file
+     */
+    public static MappedTrie map(Path automatonFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(automatonFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("File is not a compiled automaton: " + automatonFile);
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Automaton file is too large to be mapped: " + automatonFile);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("File is not a compiled automaton: " + automatonFile);
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException("Unsupported version of the automaton file: " + buffer.getInt(4));
+            }
+            int alphabetSize = buffer.getInt(8);
+            int statesNum = buffer.getInt(12);
+            int termsNum = buffer.getInt(16);
+            int termCharsNum = buffer.getInt(20);
+            if (alphabetSize < 1 || statesNum < 1 || termsNum < 0 || termCharsNum < 0
+                    || getSectionOffsets(alphabetSize, statesNum, termsNum, termCharsNum)[END_SECTION] != size) {
+                throw new IOException("Automaton file is corrupted: " + automatonFile);
+            }
+            return new MappedTrie(buffer, alphabetSize, statesNum, termsNum, termCharsNum);
+        }
+    }
+
+    /**
+     * Function that checks whether the file starts as a compiled automaton
+     *
+     * @param file - file
+     * @return true if the file is written by {@link TrieCompiler}
+     */
+    public static boolean isAutomatonFile(Path file) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) < HEADER_SIZE) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+            }
+            return !header.hasRemaining() && header.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Function that returns byte offsets of the file sections, every section is aligned to 4 bytes
+     *
+     * @param alphabetSize - size of the alphabet including index 0
+     * @param statesNum    - number of states including the root
+     * @param termsNum     - number of words
+     * @param termCharsNum - total length of words
+     * @return offsets indexed by section, the last one is the file size
+     */
+    static long[] getSectionOffsets(int alphabetSize, int statesNum, int termsNum, int termCharsNum) {
+        long[] sizes = new long[END_SECTION];
+        sizes[ALPHABET_SECTION] = (Character.MAX_VALUE + 1) * 2L;
+        sizes[ROOT_TRANSITIONS_SECTION] = alphabetSize * 4L;
+        sizes[CHILD_OFFSETS_SECTION] = (statesNum + 1L) * 4;
+        sizes[LABELS_SECTION] = statesNum * 2L;
+        sizes[FAILURES_SECTION] = statesNum * 4L;
+        sizes[WORD_IDS_SECTION] = statesNum * 4L;
+        sizes[OUTPUT_LINKS_SECTION] = statesNum * 4L;
+        sizes[TERM_OFFSETS_SECTION] = (termsNum + 1L) * 4;
+        sizes[TERM_CHARS_SECTION] = termCharsNum * 2L;
+        long[] offsets = new long[END_SECTION + 1];
+        offsets[0] = HEADER_SIZE;
+        for (int section = 0; section < END_SECTION; section++) {
+            offsets[section + 1] = (offsets[section] + sizes[section] + 3) & ~3L;
+        }
+        return offsets;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, long[] offsets, int section) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position((int) offsets[section]);
+        duplicate.limit((int) offsets[section + 1]);
+        return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Function for counting the number of occurrences of words in the text
+     *
+     * @param text - text
+     * @return map that stores number of occurrences for each word
+     */
+    public Map<String, Integer> getOccurrencesNum(String text) {
+        int[] counts = new int[termsNum];
+        countOccurrences(text, counts);
+        Map<String, Integer> occurrences = new HashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            occurrences.put(getTerm(i), counts[i]);
+        }
+        return occurrences;
+    }
+
+    /**
+     * Function for counting the number of occurrences of words in the text without allocations
+     *
+     * @param text   - text
+     * @param counts - array indexed by word id, occurrences are added to it
+     */
+    public void countOccurrences(CharSequence text, int[] counts) {
+        countOccurrences(text, new TermCounts(counts));
+    }
+
+    /**
+     * Function for counting the number of occurrences of words in the text without allocations
+     *
+     * @param text   - text
+     * @param counts - occurrences of words, occurrences are added to it
+     */
+    public void countOccurrences(CharSequence text, TermCounts counts) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = getNextState(state, text.charAt(i));
+            if (state != 0) {
+                countOutputs(state, counts);
+            }
+        }
+    }
+
+    /**
+     * Function for creating matcher which receives text by characters
+     *
+     * @param counts - array indexed by word id, occurrences are added to it
+     * @return matcher in the root state
+     */
+    public TrieMatcher newMatcher(int[] counts) {
+        return new TrieMatcher(this, new TermCounts(counts));
+    }
+
+    /**
+     * Function for creating matcher which receives text by characters
+     *
+     * @param counts - occurrences of words, occurrences are added to it
+     * @return matcher in the root state
+     */
+    public TrieMatcher newMatcher(TermCounts counts) {
+        return new TrieMatcher(this, counts);
+    }
+
+    @Override
+    int getNextState(int state, char character) {
+        int index = alphabetIndices[character];
+        if (index == 0) {
+            return 0;
+        }
+        while (state != 0) {
+            int child = getChild(state, index);
+            if (child != 0) {
+                return child;
+            }
+            state = failures.get(state);
+        }
+        return rootTransitions[index];
+    }
+
+    /**
+     * Function for finding the child of the state by binary search among its children
+     *
+     * @param state - state
+     * @param index - alphabet index of the character
+     * @return child or 0 if there isn't child for the character
+     */
+    private int getChild(int state, int index) {
+        int low = childOffsets.get(state);
+        int high = childOffsets.get(state + 1) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int label = labels.get(middle);
+            if (label < index) {
+                low = middle + 1;
+            } else if (label > index) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    void countOutputs(int state, TermCounts counts) {
+        int wordId = wordIds.get(state);
+        if (wordId != -1) {
+            counts.increment(wordId);
+        }
+        for (int outputState = outputLinks.get(state); outputState != 0; outputState = outputLinks.get(outputState)) {
+            counts.increment(wordIds.get(outputState));
+        }
+    }
+
+    @Override
+    int getOutputsNum(int state) {
+        int outputsNum = wordIds.get(state) != -1 ? 1 : 0;
+        for (int outputState = outputLinks.get(state); outputState != 0; outputState = outputLinks.get(outputState)) {
+            outputsNum++;
+        }
+        return outputsNum;
+    }
+
+    /**
+     * Function that returns word by its id
+     *
+     * @param wordId - id of word
+     * @return word
+     */
+    public String getTerm(int wordId) {
+        int start = termOffsets.get(wordId);
+        char[] term = new char[termOffsets.get(wordId + 1) - start];
+        for (int i = 0; i < term.length; i++) {
+            term[i] = termChars.get(start + i);
+        }
+        return new String(term);
+    }
+
+    /**
+     * Function that returns words in the order of their ids, words are read from the file on access
+     *
+     * @return unmodifiable list of words
+     */
+    public List<String> getTerms() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return getTerm(index);
+            }
+
+            @Override
+            public int size() {
+                return termsNum;
+            }
+        };
+    }
+
+    /**
+     * Function that returns number of words, ids of words are from 0 to this number
+     */
+    public int getTermsNum() {
+        return termsNum;
+    }
+
+    /**
+     * Function that returns length of the longest word
+     */
+    public int getMaxTermLength() {
+        int maxLength = 0;
+        for (int i = 0; i < termsNum; i++) {
+            maxLength = Math.max(maxLength, termOffsets.get(i + 1) - termOffsets.get(i));
+        }
+        return maxLength;
+    }
+
+    /**
+     * Function that returns number of automaton's states
+     */
+    public int getStatesNum() {
+        return statesNum;
+    }
+
+    public int getAlphabetSize() {
+        return rootTransitions.length;
+    }
+}
@@ -0,0 +1,142 @@
+package com.company.trie;
+
+import java.util.Arrays;
+
+/**
+ * Class TermCounts keeps occurrences of terms in a text for reuse between texts. Ids of terms which occurred
+ * are remembered, so the total, sparse reading and clearing take time proportional to the number of
+ * occurred terms, not to the number of all terms. Not thread-safe
+ */
+public final class TermCounts {
+    /**
+     * Occurrences indexed by term id
+     */
+    private final int[] counts;
+
+    /**
+     * Ids of terms with not zero occurrences in the order of their first occurrence
+     * or null if they aren't tracked
+     */
+    private final int[] occurredTermIds;
+
+    private int occurredTermsNum;
+
+    private int total;
+
+    /**
+     * Constructor - creating a new object without occurrences
+     *
+     * @param termsNum - number of terms, ids of terms are from 0 to this number
+     */
+    public TermCounts(int termsNum) {
+        counts = new int[termsNum];
+        occurredTermIds = new int[termsNum];
+    }
+
+    /**
+     * Constructor - creating a view of the occurrences array which is filled by the array API of tries,
+     * occurred terms aren't tracked, so only {@link #increment} and {@link #getCounts} are used
+     *
+     * @param counts - array indexed by term id
+     */
+    TermCounts(int[] counts) {
+        this.counts = counts;
+        occurredTermIds = null;
+    }
+
+    /**
+     * Function for adding an occurrence of the term
+     *
+     * @param termId - id of the term
+     */
+    void increment(int termId) {
+        if (counts[termId]++ == 0 && occurredTermIds != null) {
+            occurredTermIds[occurredTermsNum++] = termId;
+        }
+        total++;
+    }
+
+    /**
+     * Function for adding occurrences of the term
+     *
+     * @param termId - id of the term
+     * @param count  - number of occurrences
+     */
+    public void add(int termId, int count) {
+        if (count == 0) {
+            return;
+        }
+        if (counts[termId] == 0 && occurredTermIds != null) {
+            occurredTermIds[occurredTermsNum++] = termId;
+        }
+        counts[termId] += count;
+        total += count;
+    }
+
+    /**
+     * Function for adding occurrences of all terms
+     *
+     * @param termsCounts - occurrences indexed by term id
+     */
+    public void addAll(int[] termsCounts) {
+        for (int termId = 0; termId < termsCounts.length; termId++) {
+            add(termId, termsCounts[termId]);
+        }
+    }
+
+    public int get(int termId) {
+        return counts[termId];
+    }
+
+    /**
+     * Function that returns the total number of occurrences of all terms
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Function that returns number of terms with not zero occurrences
+     */
+    public int getOccurredTermsNum() {
+        return occurredTermsNum;
+    }
+
+    /**
+     * Function that returns id of the term with not zero occurrences
+     *
+     * @param index - index from 0 to {@link #getOccurredTermsNum()} in the order of the first occurrence
+     * @return term id
+     */
+    public int getOccurredTermId(int index) {
+        return occurredTermIds[index];
+    }
+
+    /**
+     * Function that returns occurrences indexed by term id, the array is changed when counts are changed
+     * or cleared, so it must not be kept
+     */
+    public int[] getCounts() {
+        return counts;
+    }
+
+    /**
+     * Function for copying occurrences to a new array
+     *
+     * @return occurrences indexed by term id
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(counts, counts.length);
+    }
+
+    /**
+     * Function for removing all occurrences, only occurred terms are cleared
+     */
+    public void clear() {
+        for (int i = 0; i < occurredTermsNum; i++) {
+            counts[occurredTermIds[i]] = 0;
+        }
+        occurredTermsNum = 0;
+        total = 0;
+    }
+}
@@ -0,0 +1,41 @@
+package com.company.trie;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Class TermFiles reads dictionaries which are too large to be entered as one line.
+ * File contains one term per line in UTF-8, empty lines and lines starting with '#' are skipped
+ */
+public final class TermFiles {
+    private static final String COMMENT_PREFIX = "#";
+
+    private TermFiles() {
+    }
+
+    /**
+     * Function for reading terms from the file, terms are trimmed and lowercased
+     * the same way as terms of the crawler
+     *
+     * @param termsFile - file with a term per line
+     * @return terms in the order of the file without duplicates
+     */
+    public static Set<String> readTerms(Path termsFile) throws IOException {
+        Set<String> terms = new LinkedHashSet<>();
+        try (BufferedReader reader = Files.newBufferedReader(termsFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String term = line.trim();
+                if (!term.isEmpty() && !term.startsWith(COMMENT_PREFIX)) {
+                    terms.add(term.toLowerCase());
+                }
+            }
+        }
+        return terms;
+    }
+}
@@ -2,7 +2,10 @@ package com.company.trie;
 
 import com.company.support.Pair;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 /**
@@ -10,6 +13,10 @@ import java.util.stream.Collectors;
  * to search for multiple substrings in the text
  */
 public class Trie {
+    /**
+     * Length of parts of the text which are matched by one task in the parallel matching
+     */
+    public static int DEFAULT_PARALLEL_CHUNK_LENGTH = 1 << 18;
 
     /**
      * Class TrieNode describes nodes which are located in the Trie
@@ -62,14 +69,30 @@ public class Trie {
     }
 
     /**
-     * Trie root
+     * Trie root or null if the trie is compiled, it's released after {@link #compiledTrie} is published,
+     * so a thread which reads null always finds the compiled automaton
      */
-    private TrieNode root;
+    private volatile TrieNode root;
     /**
      * Trie words list
      */
     private List<String> words;
 
+    /**
+     * Compiled automaton or null if trie isn't compiled
+     */
+    private volatile CompiledTrie compiledTrie;
+
+    /**
+     * Automaton mapped from the file or null if the trie is built from words
+     */
+    private MappedTrie mappedTrie;
+
+    /**
+     * Max length of words or -1 if it isn't calculated yet
+     */
+    private volatile int maxWordLength = -1;
+
     /**
      * Constructor - creating a new object
      *
@@ -83,14 +106,36 @@ public class Trie {
         buildTerminalLinks();
     }
 
+    /**
+     * Constructor - creating a new object which searches words by the automaton compiled offline.
+     * Nodes aren't built, words are read from the mapped file
+     *
+     * @param mappedTrie - automaton written by {@link TrieCompiler}
+     */
+    public Trie(MappedTrie mappedTrie) {
+        this.mappedTrie = mappedTrie;
+        this.words = mappedTrie.getTerms();
+    }
+
+    /**
+     * Function for loading trie from the automaton file which is written by {@link TrieCompiler}
+     *
+     * @param automatonFile - compiled automaton
+     * @return trie which searches words by the mapped automaton
+     */
+    public static Trie load(Path automatonFile) throws IOException {
+        return new Trie(MappedTrie.map(automatonFile));
+    }
+
     /**
      * Function for traversing the structure by characters from the text
      *
+     * @param root        - trie root which is read once for the text, the field is released by compilation
      * @param currentNode - node where we are located
      * @param character   - symbol for moving to next node
      * @return return next node
      */
-    private TrieNode getNextNode(TrieNode currentNode, char character) {
+    private static TrieNode getNextNode(TrieNode root, TrieNode currentNode, char character) {
         TrieNode nextNode = currentNode.getTrieTransition(character);
         if (nextNode != null) {
             return nextNode;
@@ -109,14 +154,14 @@ public class Trie {
     /**
      * Function that updates the number of words occurrences in the text
      *
-     * @param occurrences - map that stores the current number of words occurrences
-     * @param node        - node where we are located
+     * @param root   - trie root which is read once for the text
+     * @param counts - current number of words occurrences
+     * @param node   - node where we are located
      */
-    private void checkOccurrences(Map<String, Integer> occurrences, TrieNode node) {
+    private static void checkOccurrences(TrieNode root, TermCounts counts, TrieNode node) {
         while (node != root) {
             if (node.wordId != -1) {
-                String word = words.get(node.wordId);
-                occurrences.put(word, occurrences.get(word) + 1);
+                counts.increment(node.wordId);
             }
             node = node.terminalLink;
         }
@@ -129,16 +174,253 @@ public class Trie {
      * @return map that stores number of occurrences for each word
      */
     public Map<String, Integer> getOccurrencesNum(String text) {
-        Map<String, Integer> occurrences = new HashMap<>();
-        words.forEach((word) -> occurrences.put(word, 0));
+        int[] counts = new int[words.size()];
+        countOccurrences(text, counts);
+        return getOccurrencesMap(counts);
+    }
+
+    /**
+     * Function for counting the number of occurrences of words in the text without allocations.
+     * Array can be reused for several texts
+     *
+     * @param text   - text
+     * @param counts - array indexed by word id, occurrences are added to it
+     */
+    public void countOccurrences(CharSequence text, int[] counts) {
+        countOccurrences(text, new TermCounts(counts));
+    }
+
+    /**
+     * Function for counting the number of occurrences of words in the text without allocations.
+     * Counts can be cleared and reused for several texts
+     *
+     * @param text   - text
+     * @param counts - occurrences of words, occurrences are added to it
+     */
+    public void countOccurrences(CharSequence text, TermCounts counts) {
+        if (mappedTrie != null) {
+            mappedTrie.countOccurrences(text, counts);
+            return;
+        }
+        TrieNode root = this.root;
+        if (root == null) {
+            compiledTrie.countOccurrences(text, counts);
+            return;
+        }
         TrieNode currentNode = root;
         for (int i = 0; i < text.length(); i++) {
-            currentNode = getNextNode(currentNode, text.charAt(i));
-            checkOccurrences(occurrences, currentNode);
+            currentNode = getNextNode(root, currentNode, text.charAt(i));
+            checkOccurrences(root, counts, currentNode);
+        }
+    }
+
+    /**
+     * Function for counting the total number of occurrences of all words in the text
+     *
+     * @param text - text
+     * @return number of occurrences
+     */
+    public int countTotalOccurrences(CharSequence text) {
+        if (mappedTrie != null) {
+            return mappedTrie.countTotalOccurrences(text);
+        }
+        TrieNode root = this.root;
+        if (root == null) {
+            return compiledTrie.countTotalOccurrences(text);
+        }
+        int occurrencesNum = 0;
+        TrieNode currentNode = root;
+        for (int i = 0; i < text.length(); i++) {
+            currentNode = getNextNode(root, currentNode, text.charAt(i));
+            for (TrieNode node = currentNode; node != root; node = node.terminalLink) {
+                if (node.wordId != -1) {
+                    occurrencesNum++;
+                }
+            }
+        }
+        return occurrencesNum;
+    }
+
+    /**
+     * Function for counting occurrences in chunks of the text on the fork-join pool.
+     * Chunks overlap by the max word length minus one and only words which end inside a chunk
+     * are counted in it, so counts are equal to the sequential matching. Settings are passed by the caller,
+     * so crawlers which share the trie can match texts with different settings.
+     * Trie is switched to the compiled mode, because chunks are matched by the compiled automaton
+     *
+     * @param text        - text, it mustn't be changed while it's matched
+     * @param counts      - array indexed by word id, occurrences are added to it
+     * @param chunkLength - length of parts of the text which are matched by one task
+     * @param pool        - pool where chunks are matched
+     */
+    public void countOccurrencesInParallel(CharSequence text, int[] counts, int chunkLength, ForkJoinPool pool) {
+        countOccurrencesInParallel(text, new TermCounts(counts), chunkLength, pool);
+    }
+
+    /**
+     * Function for counting occurrences in chunks of the text on the fork-join pool,
+     * the same as {@link #countOccurrencesInParallel(CharSequence, int[], int, ForkJoinPool)}
+     *
+     * @param text        - text, it mustn't be changed while it's matched
+     * @param counts      - occurrences of words, occurrences are added to it
+     * @param chunkLength - length of parts of the text which are matched by one task
+     * @param pool        - pool where chunks are matched
+     */
+    public void countOccurrencesInParallel(CharSequence text, TermCounts counts, int chunkLength, ForkJoinPool pool) {
+        if (chunkLength < 1) {
+            throw new IllegalArgumentException("Chunk length must be positive");
+        }
+        CompiledTrie compiledTrie = this.compiledTrie;
+        Automaton automaton = mappedTrie != null ? mappedTrie : compiledTrie != null ? compiledTrie : compile();
+        int[] chunksCounts = pool.invoke(new ChunkedMatchingTask(automaton, text, 0, text.length(),
+                Math.max(0, getMaxWordLength() - 1), chunkLength, words.size()));
+        counts.addAll(chunksCounts);
+    }
+
+    private int getMaxWordLength() {
+        int maxWordLength = this.maxWordLength;
+        if (maxWordLength < 0) {
+            maxWordLength = mappedTrie != null ? mappedTrie.getMaxTermLength()
+                    : words.stream().mapToInt(String::length).max().orElse(0);
+            this.maxWordLength = maxWordLength;
+        }
+        return maxWordLength;
+    }
+
+    /**
+     * Function for creating matcher which receives text by characters.
+     * Matcher works with the compiled automaton, so the trie is switched to the compiled mode
+     * unless it's loaded from the automaton file
+     *
+     * @param counts - array indexed by word id, occurrences are added to it
+     * @return matcher in the root state
+     */
+    public TrieMatcher newMatcher(int[] counts) {
+        return newMatcher(new TermCounts(counts));
+    }
+
+    /**
+     * Function for creating matcher which receives text by characters.
+     * Matcher works with the compiled automaton, so the trie is switched to the compiled mode
+     * unless it's loaded from the automaton file
+     *
+     * @param counts - occurrences of words, occurrences are added to it
+     * @return matcher in the root state
+     */
+    public TrieMatcher newMatcher(TermCounts counts) {
+        if (mappedTrie != null) {
+            return mappedTrie.newMatcher(counts);
+        }
+        CompiledTrie compiledTrie = this.compiledTrie;
+        return (compiledTrie != null ? compiledTrie : compile()).newMatcher(counts);
+    }
+
+    /**
+     * Function for converting occurrences counts to the map
+     *
+     * @param counts - array indexed by word id
+     * @return map that stores number of occurrences for each word
+     */
+    public Map<String, Integer> getOccurrencesMap(int[] counts) {
+        Map<String, Integer> occurrences = new HashMap<>();
+        for (int i = 0; i < words.size(); i++) {
+            occurrences.put(words.get(i), counts[i]);
         }
         return occurrences;
     }
 
+    /**
+     * Function that returns word by its id
+     *
+     * @param wordId - id of word
+     * @return word
+     */
+    public String getTerm(int wordId) {
+        return words.get(wordId);
+    }
+
+    /**
+     * Function that returns number of words, ids of words are from 0 to this number
+     */
+    public int getTermsNum() {
+        return words.size();
+    }
+
+    /**
+     * Function that switches the trie to the compiled mode. Automaton is converted to a flat
+     * transitions table, after that text search uses the table and nodes are released.
+     * Trie loaded from the automaton file is already compiled and isn't switched.
+     * Threads which call it at the same time compile the trie once, matching of other threads
+     * continues by the nodes it has started with
+     *
+     * @return compiled automaton or null if the trie is loaded from the automaton file
+     */
+    public synchronized CompiledTrie compile() {
+        if (this.compiledTrie != null || mappedTrie != null) {
+            return this.compiledTrie;
+        }
+        TrieNode root = this.root;
+        char[] alphabetIndices = new char[Character.MAX_VALUE + 1];
+        int alphabetSize = 1;
+        for (String word : words) {
+            for (int i = 0; i < word.length(); i++) {
+                if (alphabetIndices[word.charAt(i)] == 0) {
+                    if (alphabetSize == Character.MAX_VALUE) {
+                        throw new IllegalStateException("Alphabet is too large for compiled mode");
+                    }
+                    alphabetIndices[word.charAt(i)] = (char) alphabetSize++;
+                }
+            }
+        }
+        char[] alphabet = new char[alphabetSize];
+        for (int character = 0; character <= Character.MAX_VALUE; character++) {
+            alphabet[alphabetIndices[character]] = (char) character;
+        }
+
+        // nodes are numbered in BFS order, so suffix link of a node is numbered before the node
+        List<TrieNode> nodes = new ArrayList<>();
+        Map<TrieNode, Integer> nodeIds = new IdentityHashMap<>();
+        nodes.add(root);
+        nodeIds.put(root, 0);
+        for (int i = 0; i < nodes.size(); i++) {
+            for (TrieNode child : nodes.get(i).trieTransitions.values()) {
+                nodeIds.put(child, nodes.size());
+                nodes.add(child);
+            }
+        }
+        if ((long) nodes.size() * alphabetSize > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Dictionary is too large for compiled mode");
+        }
+
+        int[] transitions = new int[nodes.size() * alphabetSize];
+        int[] outputOffsets = new int[nodes.size() + 1];
+        List<Integer> outputs = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            TrieNode node = nodes.get(i);
+            int suffixLinkId = nodeIds.get(node.suffixLink);
+            // index 0 is for characters which don't occur in words, they always lead to the root
+            for (int index = 1; index < alphabetSize; index++) {
+                TrieNode child = node.getTrieTransition(alphabet[index]);
+                if (child != null) {
+                    transitions[i * alphabetSize + index] = nodeIds.get(child);
+                } else if (node != root) {
+                    transitions[i * alphabetSize + index] = transitions[suffixLinkId * alphabetSize + index];
+                }
+            }
+            for (TrieNode outputNode = node; outputNode != root; outputNode = outputNode.terminalLink) {
+                if (outputNode.wordId != -1) {
+                    outputs.add(outputNode.wordId);
+                }
+            }
+            outputOffsets[i + 1] = outputs.size();
+        }
+        CompiledTrie compiledTrie = new CompiledTrie(alphabetIndices, alphabetSize, transitions, outputOffsets,
+                outputs.stream().mapToInt(Integer::intValue).toArray(), words);
+        this.compiledTrie = compiledTrie;
+        root = null;
+        return compiledTrie;
+    }
+
     /**
      * Function for building trie's nodes
      */
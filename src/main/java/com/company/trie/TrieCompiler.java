@@ -0,0 +1,234 @@
+package com.company.trie;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Class TrieCompiler builds the Aho-Corasick automaton for a large dictionary offline and writes it
+ * in the format of {@link MappedTrie}. Nodes are kept in flat arrays instead of objects and maps,
+ * so millions of terms are compiled without the overhead of {@link Trie}.
+ * Usage: TrieCompiler termsFile automatonFile
+ */
+public final class TrieCompiler {
+    private TrieCompiler() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("Usage: TrieCompiler termsFile automatonFile");
+            return;
+        }
+        try {
+            long startTime = System.currentTimeMillis();
+            Collection<String> terms = TermFiles.readTerms(Paths.get(args[0]));
+            compile(terms, Paths.get(args[1]));
+            System.out.println("Compiled " + terms.size() + " terms in "
+                    + (System.currentTimeMillis() - startTime) / 1000.0 + " s");
+        } catch (IOException | IllegalArgumentException exception) {
+            System.out.println(exception.getClass() + " " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Function for compiling words to the automaton file. Ids of words are their indices
+     * in the order of the collection, empty words get ids but are never found
+     *
+     * @param words         - words to search for in the text
+     * @param automatonFile - file which is overwritten by the automaton
+     */
+    public static void compile(Collection<String> words, Path automatonFile) throws IOException {
+        String[] terms = words.toArray(new String[0]);
+        long termCharsNum = 0;
+        for (String term : terms) {
+            termCharsNum += term.length();
+        }
+        if (termCharsNum >= Integer.MAX_VALUE / 4) {
+            throw new IllegalArgumentException("Dictionary is too large: " + termCharsNum + " characters");
+        }
+
+        char[] alphabetIndices = new char[Character.MAX_VALUE + 1];
+        boolean[] usedCharacters = new boolean[Character.MAX_VALUE + 1];
+        for (String term : terms) {
+            for (int i = 0; i < term.length(); i++) {
+                usedCharacters[term.charAt(i)] = true;
+            }
+        }
+        // indices are assigned in the order of characters, so children sorted by characters are sorted by indices
+        int alphabetSize = 1;
+        for (int character = 0; character <= Character.MAX_VALUE; character++) {
+            if (usedCharacters[character]) {
+                alphabetIndices[character] = (char) alphabetSize++;
+            }
+        }
+
+        // words are inserted in sorted order, so a new child is always the last child of its parent
+        Integer[] order = new Integer[terms.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (first, second) -> terms[first].compareTo(terms[second]));
+        int maxNodesNum = (int) termCharsNum + 1;
+        int[] firstChild = new int[maxNodesNum];
+        int[] nextSibling = new int[maxNodesNum];
+        int[] lastChild = new int[maxNodesNum];
+        char[] nodeLabels = new char[maxNodesNum];
+        int[] nodeWordIds = new int[maxNodesNum];
+        Arrays.fill(nodeWordIds, -1);
+        int nodesNum = 1;
+        int[] path = new int[1];
+        String previousTerm = "";
+        for (int wordId : order) {
+            String term = terms[wordId];
+            if (term.isEmpty()) {
+                continue;
+            }
+            if (path.length < term.length() + 1) {
+                path = Arrays.copyOf(path, term.length() + 1);
+            }
+            int commonPrefix = 0;
+            int maxCommonPrefix = Math.min(term.length(), previousTerm.length());
+            while (commonPrefix < maxCommonPrefix && term.charAt(commonPrefix) == previousTerm.charAt(commonPrefix)) {
+                commonPrefix++;
+            }
+            int node = path[commonPrefix];
+            for (int i = commonPrefix; i < term.length(); i++) {
+                int child = nodesNum++;
+                nodeLabels[child] = term.charAt(i);
+                if (firstChild[node] == 0) {
+                    firstChild[node] = child;
+                } else {
+                    nextSibling[lastChild[node]] = child;
+                }
+                lastChild[node] = child;
+                path[i + 1] = child;
+                node = child;
+            }
+            // duplicate words end in the same node, the last id is kept as Trie does
+            nodeWordIds[node] = wordId;
+            previousTerm = term;
+        }
+        lastChild = null;
+
+        // states are numbered in BFS order, so children of a state are consecutive
+        // and failure link of a state is numbered before the state
+        int statesNum = nodesNum;
+        int[] nodes = new int[statesNum];
+        int[] childOffsets = new int[statesNum + 1];
+        char[] labels = new char[statesNum];
+        int[] wordIds = new int[statesNum];
+        int tail = 1;
+        for (int state = 0; state < statesNum; state++) {
+            int node = nodes[state];
+            labels[state] = alphabetIndices[nodeLabels[node]];
+            wordIds[state] = nodeWordIds[node];
+            childOffsets[state] = tail;
+            for (int child = firstChild[node]; child != 0; child = nextSibling[child]) {
+                nodes[tail++] = child;
+            }
+        }
+        childOffsets[statesNum] = statesNum;
+        labels[0] = 0;
+        nodes = null;
+        firstChild = null;
+        nextSibling = null;
+        nodeLabels = null;
+        nodeWordIds = null;
+
+        int[] rootTransitions = new int[alphabetSize];
+        for (int child = childOffsets[0]; child < childOffsets[1]; child++) {
+            rootTransitions[labels[child]] = child;
+        }
+        int[] failures = new int[statesNum];
+        int[] outputLinks = new int[statesNum];
+        for (int state = 1; state < statesNum; state++) {
+            for (int child = childOffsets[state]; child < childOffsets[state + 1]; child++) {
+                int failure = failures[state];
+                int next = 0;
+                while (failure != 0) {
+                    next = getChild(childOffsets, labels, failure, labels[child]);
+                    if (next != 0) {
+                        break;
+                    }
+                    failure = failures[failure];
+                }
+                if (next == 0) {
+                    next = rootTransitions[labels[child]];
+                }
+                failures[child] = next;
+                outputLinks[child] = wordIds[next] != -1 ? next : outputLinks[next];
+            }
+        }
+
+        write(automatonFile, alphabetIndices, rootTransitions, childOffsets, labels, failures, wordIds, outputLinks,
+                terms, (int) termCharsNum);
+    }
+
+    private static int getChild(int[] childOffsets, char[] labels, int state, char index) {
+        int low = childOffsets[state];
+        int high = childOffsets[state + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (labels[middle] < index) {
+                low = middle + 1;
+            } else if (labels[middle] > index) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return 0;
+    }
+
+    private static void write(Path automatonFile, char[] alphabetIndices, int[] rootTransitions, int[] childOffsets,
+                              char[] labels, int[] failures, int[] wordIds, int[] outputLinks,
+                              String[] terms, int termCharsNum) throws IOException {
+        int statesNum = labels.length;
+        long[] offsets = MappedTrie.getSectionOffsets(rootTransitions.length, statesNum, terms.length, termCharsNum);
+        long size = offsets[MappedTrie.END_SECTION];
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Automaton is too large to be mapped: " + size + " bytes");
+        }
+        try (FileChannel channel = FileChannel.open(automatonFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0, MappedTrie.MAGIC);
+            buffer.putInt(4, MappedTrie.VERSION);
+            buffer.putInt(8, rootTransitions.length);
+            buffer.putInt(12, statesNum);
+            buffer.putInt(16, terms.length);
+            buffer.putInt(20, termCharsNum);
+            section(buffer, offsets, MappedTrie.ALPHABET_SECTION).asCharBuffer().put(alphabetIndices);
+            section(buffer, offsets, MappedTrie.ROOT_TRANSITIONS_SECTION).asIntBuffer().put(rootTransitions);
+            section(buffer, offsets, MappedTrie.CHILD_OFFSETS_SECTION).asIntBuffer().put(childOffsets);
+            section(buffer, offsets, MappedTrie.LABELS_SECTION).asCharBuffer().put(labels);
+            section(buffer, offsets, MappedTrie.FAILURES_SECTION).asIntBuffer().put(failures);
+            section(buffer, offsets, MappedTrie.WORD_IDS_SECTION).asIntBuffer().put(wordIds);
+            section(buffer, offsets, MappedTrie.OUTPUT_LINKS_SECTION).asIntBuffer().put(outputLinks);
+            int[] termOffsets = new int[terms.length + 1];
+            CharBuffer termChars = section(buffer, offsets, MappedTrie.TERM_CHARS_SECTION).asCharBuffer();
+            for (int i = 0; i < terms.length; i++) {
+                termChars.put(terms[i]);
+                termOffsets[i + 1] = termOffsets[i] + terms[i].length();
+            }
+            section(buffer, offsets, MappedTrie.TERM_OFFSETS_SECTION).asIntBuffer().put(termOffsets);
+            buffer.force();
+        }
+    }
+
+    private static ByteBuffer section(ByteBuffer buffer, long[] offsets, int section) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position((int) offsets[section]);
+        duplicate.limit((int) offsets[section + 1]);
+        return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,100 @@
+package com.company.trie;
+
+/**
+ * Class TrieMatcher counts words occurrences in a text which is received by characters,
+ * so the text doesn't have to be stored. State of the automaton is kept between calls,
+ * so words are found on the borders of text parts too. Not thread-safe
+ */
+public class TrieMatcher {
+    /**
+     * Capital letter I with dot above is lowercased to two characters: 'i' and combining dot above
+     */
+    private static final char CAPITAL_I_WITH_DOT = '\u0130';
+    private static final char COMBINING_DOT_ABOVE = '\u0307';
+
+    private final Automaton automaton;
+
+    private final TermCounts counts;
+
+    private int state;
+
+    /**
+     * High surrogate which waits for the low one before lowercasing or 0
+     */
+    private char highSurrogate;
+
+    TrieMatcher(Automaton automaton, TermCounts counts) {
+        this.automaton = automaton;
+        this.counts = counts;
+    }
+
+    /**
+     * Function for matching the next character of the text
+     *
+     * @param character - character
+     */
+    public void feed(char character) {
+        state = automaton.getNextState(state, character);
+        automaton.countOutputs(state, counts);
+    }
+
+    /**
+     * Function for matching the lowercase form of the next character of the text.
+     * Characters are lowercased by code points the same way as {@link String#toLowerCase()}
+     * does in the root locale, except the final form of sigma which needs the context of the word
+     *
+     * @param character - character
+     */
+    public void feedLowerCase(char character) {
+        if (highSurrogate != 0) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(character)) {
+                int lowerCodePoint = Character.toLowerCase(Character.toCodePoint(high, character));
+                if (Character.isBmpCodePoint(lowerCodePoint)) {
+                    feed((char) lowerCodePoint);
+                } else {
+                    feed(Character.highSurrogate(lowerCodePoint));
+                    feed(Character.lowSurrogate(lowerCodePoint));
+                }
+                return;
+            }
+            feed(high);
+        }
+        if (Character.isHighSurrogate(character)) {
+            highSurrogate = character;
+        } else if (character == CAPITAL_I_WITH_DOT) {
+            feed('i');
+            feed(COMBINING_DOT_ABOVE);
+        } else {
+            feed(Character.toLowerCase(character));
+        }
+    }
+
+    /**
+     * Function that must be called after the last character of the text
+     */
+    public void finish() {
+        if (highSurrogate != 0) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            feed(high);
+        }
+    }
+
+    /**
+     * Function for moving matcher to the root state, counts aren't changed
+     */
+    public void reset() {
+        state = 0;
+        highSurrogate = 0;
+    }
+
+    public int[] getCounts() {
+        return counts.getCounts();
+    }
+
+    public TermCounts getTermCounts() {
+        return counts;
+    }
+}
@@ -0,0 +1,345 @@
+package com.company.url;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class for bringing URLs of the same page to the same form before they are deduplicated and requested.
+ * Only http and https URLs are changed, other URLs are returned as they are.
+ * Thread-safe, counts how many URLs were changed by every rule
+ */
+public class UrlCanonicalizer {
+    /**
+     * Canonicalization rules
+     */
+    public enum Rule {
+        /**
+         * Scheme and host are lowercased
+         */
+        LOWERCASE_SCHEME_AND_HOST,
+        /**
+         * Port 80 of http and port 443 of https are removed
+         */
+        REMOVE_DEFAULT_PORT,
+        /**
+         * Fragment is removed
+         */
+        REMOVE_FRAGMENT,
+        /**
+         * Empty path is replaced with "/", dot segments are removed,
+         * percent-encoding is normalized
+         */
+        NORMALIZE_PATH,
+        /**
+         * Trailing slash of not root path is removed
+         */
+        REMOVE_TRAILING_SLASH,
+        /**
+         * Configured query parameters and empty query are removed
+         */
+        STRIP_QUERY_PARAMETERS,
+        /**
+         * Query parameters are sorted by name
+         */
+        SORT_QUERY_PARAMETERS
+    }
+
+    /**
+     * Tracking and session parameters which are stripped by default
+     */
+    public static List<String> DEFAULT_STRIPPED_PARAMETERS = Arrays.asList(
+            "utm_*", "fbclid", "gclid", "yclid", "sessionid", "jsessionid", "phpsessid", "sid");
+
+    private static final String UNRESERVED_CHARACTERS = "-._~";
+
+    private final Set<Rule> rules;
+
+    /**
+     * Lowercased names of stripped parameters
+     */
+    private final Set<String> strippedParameters = new HashSet<>();
+
+    /**
+     * Lowercased prefixes of stripped parameters, given as "prefix*"
+     */
+    private final List<String> strippedParameterPrefixes = new ArrayList<>();
+
+    private final Map<Rule, LongAdder> changedUrlsNum = new EnumMap<>(Rule.class);
+
+    /**
+     * Constructor - creating a new object
+     *
+     * @param rules              - rules which are applied
+     * @param strippedParameters - names of query parameters which are removed,
+     *                           name ending with '*' removes all parameters with this prefix
+     */
+    public UrlCanonicalizer(Set<Rule> rules, Collection<String> strippedParameters) {
+        this.rules = rules.isEmpty() ? EnumSet.noneOf(Rule.class) : EnumSet.copyOf(rules);
+        for (String parameter : strippedParameters) {
+            String name = parameter.toLowerCase();
+            if (name.endsWith("*")) {
+                strippedParameterPrefixes.add(name.substring(0, name.length() - 1));
+            } else {
+                this.strippedParameters.add(name);
+            }
+        }
+        for (Rule rule : Rule.values()) {
+            changedUrlsNum.put(rule, new LongAdder());
+        }
+    }
+
+    /**
+     * Constructor - creating a new object with all rules and default stripped parameters
+     */
+    public UrlCanonicalizer() {
+        this(EnumSet.allOf(Rule.class), DEFAULT_STRIPPED_PARAMETERS);
+    }
+
+    /**
+     * Function for getting canonical form of URL
+     *
+     * @param url - absolute URL
+     * @return canonical URL
+     */
+    public String canonicalize(String url) {
+        return canonicalize(url, true);
+    }
+
+    /**
+     * Function for getting canonical form of URL without counting it by {@link #getChangedUrlsNum},
+     * it's used for URLs which aren't links, for example the page whose links are extracted
+     *
+     * @param url - absolute URL
+     * @return canonical URL
+     */
+    public String canonicalizeWithoutCounting(String url) {
+        return canonicalize(url, false);
+    }
+
+    private String canonicalize(String url, boolean isCounted) {
+        int schemeEnd = url.indexOf("://");
+        if (schemeEnd == -1) {
+            return url;
+        }
+        String scheme = url.substring(0, schemeEnd);
+        String lowercaseScheme = scheme.toLowerCase();
+        int defaultPort;
+        if (lowercaseScheme.equals("http")) {
+            defaultPort = 80;
+        } else if (lowercaseScheme.equals("https")) {
+            defaultPort = 443;
+        } else {
+            return url;
+        }
+
+        int authorityStart = schemeEnd + 3;
+        int authorityEnd = indexOfAny(url, "/?#", authorityStart);
+        int pathEnd = indexOfAny(url, "?#", authorityEnd);
+        int queryEnd = indexOfAny(url, "#", pathEnd);
+        String authority = url.substring(authorityStart, authorityEnd);
+        String path = url.substring(authorityEnd, pathEnd);
+        String query = pathEnd < queryEnd ? url.substring(pathEnd + 1, queryEnd) : null;
+        String fragment = queryEnd < url.length() ? url.substring(queryEnd + 1) : null;
+
+        if (isApplied(Rule.LOWERCASE_SCHEME_AND_HOST)) {
+            String lowercaseAuthority = lowercaseHost(authority);
+            countChange(isCounted, Rule.LOWERCASE_SCHEME_AND_HOST,
+                    !scheme.equals(lowercaseScheme) || !authority.equals(lowercaseAuthority));
+            scheme = lowercaseScheme;
+            authority = lowercaseAuthority;
+        }
+        if (isApplied(Rule.REMOVE_DEFAULT_PORT)) {
+            String newAuthority = removeDefaultPort(authority, defaultPort);
+            countChange(isCounted, Rule.REMOVE_DEFAULT_PORT, !authority.equals(newAuthority));
+            authority = newAuthority;
+        }
+        if (isApplied(Rule.NORMALIZE_PATH)) {
+            String newPath = normalizePath(path);
+            countChange(isCounted, Rule.NORMALIZE_PATH, !path.equals(newPath));
+            path = newPath;
+        }
+        if (isApplied(Rule.REMOVE_TRAILING_SLASH) && path.length() > 1 && path.endsWith("/")) {
+            countChange(isCounted, Rule.REMOVE_TRAILING_SLASH, true);
+            path = path.substring(0, path.length() - 1);
+        }
+        if (query != null && (isApplied(Rule.STRIP_QUERY_PARAMETERS) || isApplied(Rule.SORT_QUERY_PARAMETERS))) {
+            query = canonicalizeQuery(query, isCounted);
+        }
+        if (fragment != null && isApplied(Rule.REMOVE_FRAGMENT)) {
+            countChange(isCounted, Rule.REMOVE_FRAGMENT, true);
+            fragment = null;
+        }
+
+        StringBuilder builder = new StringBuilder(url.length());
+        builder.append(scheme).append("://").append(authority).append(path);
+        if (query != null) {
+            builder.append('?').append(query);
+        }
+        if (fragment != null) {
+            builder.append('#').append(fragment);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Function that returns how many URLs were changed by the rule
+     *
+     * @param rule - rule
+     * @return number of changed URLs
+     */
+    public long getChangedUrlsNum(Rule rule) {
+        return changedUrlsNum.get(rule).sum();
+    }
+
+    private boolean isApplied(Rule rule) {
+        return rules.contains(rule);
+    }
+
+    private void countChange(boolean isCounted, Rule rule, boolean changed) {
+        if (isCounted && changed) {
+            changedUrlsNum.get(rule).increment();
+        }
+    }
+
+    private static int indexOfAny(String string, String characters, int fromIndex) {
+        for (int i = fromIndex; i < string.length(); i++) {
+            if (characters.indexOf(string.charAt(i)) != -1) {
+                return i;
+            }
+        }
+        return string.length();
+    }
+
+    private static String lowercaseHost(String authority) {
+        int hostStart = authority.lastIndexOf('@') + 1;
+        return authority.substring(0, hostStart) + authority.substring(hostStart).toLowerCase();
+    }
+
+    private static String removeDefaultPort(String authority, int defaultPort) {
+        int portStart = authority.lastIndexOf(':');
+        if (portStart == -1 || portStart < authority.lastIndexOf('@') || portStart < authority.lastIndexOf(']')) {
+            return authority;
+        }
+        String port = authority.substring(portStart + 1);
+        if (port.isEmpty() || port.equals(String.valueOf(defaultPort))) {
+            return authority.substring(0, portStart);
+        }
+        return authority;
+    }
+
+    /**
+     * Function for normalizing path: removing dot segments and normalizing percent-encoding
+     *
+     * @param path - path of URL
+     * @return normalized path
+     */
+    static String normalizePath(String path) {
+        if (path.isEmpty()) {
+            return "/";
+        }
+        path = normalizePercentEncoding(path);
+        if (!path.contains(".")) {
+            return path;
+        }
+        Deque<String> segments = new ArrayDeque<>();
+        String[] parts = path.split("/", -1);
+        // the first part is empty because path starts with '/'
+        for (int i = 1; i < parts.length; i++) {
+            String part = parts[i];
+            boolean isLast = i == parts.length - 1;
+            if (part.equals(".")) {
+                if (isLast) {
+                    segments.addLast("");
+                }
+            } else if (part.equals("..")) {
+                segments.pollLast();
+                if (isLast) {
+                    segments.addLast("");
+                }
+            } else {
+                segments.addLast(part);
+            }
+        }
+        StringBuilder builder = new StringBuilder(path.length());
+        for (String segment : segments) {
+            builder.append('/').append(segment);
+        }
+        return builder.length() == 0 ? "/" : builder.toString();
+    }
+
+    /**
+     * Function that uppercases hex digits of percent-encoded characters and decodes unreserved characters
+     *
+     * @param part - part of URL
+     * @return normalized part
+     */
+    private static String normalizePercentEncoding(String part) {
+        if (part.indexOf('%') == -1) {
+            return part;
+        }
+        StringBuilder builder = new StringBuilder(part.length());
+        for (int i = 0; i < part.length(); i++) {
+            char character = part.charAt(i);
+            if (character != '%' || i + 2 >= part.length()
+                    || Character.digit(part.charAt(i + 1), 16) == -1 || Character.digit(part.charAt(i + 2), 16) == -1) {
+                builder.append(character);
+                continue;
+            }
+            char decoded = (char) (Character.digit(part.charAt(i + 1), 16) * 16 + Character.digit(part.charAt(i + 2), 16));
+            if (decoded < 128 && (Character.isLetterOrDigit(decoded) || UNRESERVED_CHARACTERS.indexOf(decoded) != -1)) {
+                builder.append(decoded);
+            } else {
+                builder.append('%').append(Character.toUpperCase(part.charAt(i + 1)))
+                        .append(Character.toUpperCase(part.charAt(i + 2)));
+            }
+            i += 2;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Function for stripping and sorting query parameters
+     *
+     * @param query     - query of URL without '?'
+     * @param isCounted - whether changes are counted
+     * @return new query or null if query became empty
+     */
+    private String canonicalizeQuery(String query, boolean isCounted) {
+        List<String> parameters = new ArrayList<>();
+        boolean stripped = false;
+        for (String parameter : query.split("&")) {
+            if (isApplied(Rule.STRIP_QUERY_PARAMETERS) && (parameter.isEmpty() || isStripped(parameter))) {
+                stripped = true;
+                continue;
+            }
+            parameters.add(parameter);
+        }
+        countChange(isCounted, Rule.STRIP_QUERY_PARAMETERS, stripped || (query.isEmpty() && isApplied(Rule.STRIP_QUERY_PARAMETERS)));
+        if (isApplied(Rule.SORT_QUERY_PARAMETERS)) {
+            List<String> sortedParameters = new ArrayList<>(parameters);
+            // sort is stable, so values of the same parameter keep their order
+            sortedParameters.sort(Comparator.comparing(UrlCanonicalizer::getParameterName));
+            countChange(isCounted, Rule.SORT_QUERY_PARAMETERS, !sortedParameters.equals(parameters));
+            parameters = sortedParameters;
+        }
+        return parameters.isEmpty() ? null : String.join("&", parameters);
+    }
+
+    private boolean isStripped(String parameter) {
+        String name = getParameterName(parameter).toLowerCase();
+        if (strippedParameters.contains(name)) {
+            return true;
+        }
+        for (String prefix : strippedParameterPrefixes) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getParameterName(String parameter) {
+        int nameEnd = parameter.indexOf('=');
+        return nameEnd == -1 ? parameter : parameter.substring(0, nameEnd);
+    }
+}
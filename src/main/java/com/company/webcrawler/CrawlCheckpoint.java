@@ -0,0 +1,240 @@
+package com.company.webcrawler;
+
+import com.company.frontier.FrontierSnapshot;
+import com.company.frontier.SeenUrlSet;
+import com.company.support.Pair;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class CrawlCheckpoint is a consistent snapshot of the crawl state: frontier, seen URLs, remaining pages limit,
+ * pages statistics and top pages. It is captured under the crawl's lock and written by another thread,
+ * so it holds copies of the changing structures. Statistics are held as a snapshot of the store,
+ * which shares the cells with it, and frontier pages as a snapshot of the frontier, which is visited
+ * only when the checkpoint is written. Binary format uses varints and stores statistics sparsely
+ */
+class CrawlCheckpoint {
+    /**
+     * "WCCP" in ASCII
+     */
+    private static final int MAGIC = 0x57434350;
+    private static final int VERSION = 1;
+
+    private final List<String> termColumns;
+
+    private final int remainingPagesLimit;
+
+    /**
+     * Pages of the frontier and pages which were being analyzed, with remaining link depth
+     */
+    private final FrontierSnapshot frontierPages;
+
+    private final SeenUrlSet seenUrls;
+
+    private final PageStatsStore pagesStats;
+
+    private final List<Pair<String, int[]>> topPages;
+
+    CrawlCheckpoint(List<String> termColumns, int remainingPagesLimit, FrontierSnapshot frontierPages,
+                    SeenUrlSet seenUrls, PageStatsStore pagesStats, List<Pair<String, int[]>> topPages) {
+        this.termColumns = termColumns;
+        this.remainingPagesLimit = remainingPagesLimit;
+        this.frontierPages = frontierPages;
+        this.seenUrls = seenUrls;
+        this.pagesStats = pagesStats;
+        this.topPages = topPages;
+    }
+
+    List<String> getTermColumns() {
+        return termColumns;
+    }
+
+    int getRemainingPagesLimit() {
+        return remainingPagesLimit;
+    }
+
+    List<Pair<String, Integer>> getFrontierPages() {
+        List<Pair<String, Integer>> pages = new ArrayList<>(frontierPages.size());
+        frontierPages.forEachPage((page, linkDepth) -> pages.add(new Pair<>(page, linkDepth)));
+        return pages;
+    }
+
+    SeenUrlSet getSeenUrls() {
+        return seenUrls;
+    }
+
+    PageStatsStore getPagesStats() {
+        return pagesStats;
+    }
+
+    List<Pair<String, int[]>> getTopPages() {
+        return topPages;
+    }
+
+    /**
+     * Function for writing the checkpoint. Data is written to a temporary file which then replaces
+     * the checkpoint file, so the previous checkpoint stays valid if the writing fails
+     *
+     * @param file - checkpoint file
+     */
+    void write(Path file) throws IOException {
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream fileOutputStream = new FileOutputStream(temporaryFile.toFile());
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileOutputStream))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            writeVarint(output, termColumns.size());
+            for (String term : termColumns) {
+                writeString(output, term);
+            }
+            output.writeInt(remainingPagesLimit);
+            writeVarint(output, frontierPages.size());
+            try {
+                frontierPages.forEachPage((page, linkDepth) -> {
+                    try {
+                        writeString(output, page);
+                        writeVarint(output, (linkDepth << 1) ^ (linkDepth >> 31));
+                    } catch (IOException exc) {
+                        throw new UncheckedIOException(exc);
+                    }
+                });
+            } catch (UncheckedIOException exc) {
+                throw exc.getCause();
+            }
+            seenUrls.writeTo(output);
+            writePagesStats(output, pagesStats);
+            writePagesStats(output, topPages);
+            output.flush();
+            fileOutputStream.getFD().sync();
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Function for reading the checkpoint
+     *
+     * @param file     - checkpoint file
+     * @param seenUrls - empty set of the same kind as the saved one, it is filled with the saved URLs
+     * @return checkpoint
+     */
+    static CrawlCheckpoint read(Path file, SeenUrlSet seenUrls) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("File isn't a crawl checkpoint of the supported version: " + file);
+            }
+            int termsNum = readVarint(input);
+            List<String> termColumns = new ArrayList<>(termsNum);
+            for (int i = 0; i < termsNum; i++) {
+                termColumns.add(readString(input));
+            }
+            int remainingPagesLimit = input.readInt();
+            int frontierPagesNum = readVarint(input);
+            List<Pair<String, Integer>> frontierPages = new ArrayList<>(frontierPagesNum);
+            for (int i = 0; i < frontierPagesNum; i++) {
+                String page = readString(input);
+                int encodedDepth = readVarint(input);
+                frontierPages.add(new Pair<>(page, (encodedDepth >>> 1) ^ -(encodedDepth & 1)));
+            }
+            seenUrls.readFrom(input);
+            PageStatsStore pagesStats = new PageStatsStore(termsNum);
+            for (Pair<String, int[]> pageStats : readPagesStats(input, termsNum)) {
+                pagesStats.accept(pageStats.getFirst(), pageStats.getSecond());
+            }
+            List<Pair<String, int[]>> topPages = readPagesStats(input, termsNum);
+            return new CrawlCheckpoint(termColumns, remainingPagesLimit, FrontierSnapshot.of(frontierPages), seenUrls,
+                    pagesStats, topPages);
+        }
+    }
+
+    /**
+     * Function for writing statistics from the store in the same format as lists of statistics
+     */
+    private static void writePagesStats(DataOutput output, PageStatsStore pagesStats) throws IOException {
+        writeVarint(output, pagesStats.size());
+        for (int pageId = 0; pageId < pagesStats.size(); pageId++) {
+            writeString(output, pagesStats.getPage(pageId));
+            writeVarint(output, pagesStats.getCellsNum(pageId));
+            for (int cell = 0; cell < pagesStats.getCellsNum(pageId); cell++) {
+                writeVarint(output, pagesStats.getCellTermId(pageId, cell));
+                writeVarint(output, pagesStats.getCellCount(pageId, cell));
+            }
+        }
+    }
+
+    /**
+     * Function for writing statistics, only not zero counts are written as pairs of term id and count
+     */
+    private static void writePagesStats(DataOutput output, List<Pair<String, int[]>> pagesStats) throws IOException {
+        writeVarint(output, pagesStats.size());
+        for (Pair<String, int[]> pageStats : pagesStats) {
+            writeString(output, pageStats.getFirst());
+            int[] counts = pageStats.getSecond();
+            int notZeroCountsNum = 0;
+            for (int count : counts) {
+                if (count != 0) {
+                    notZeroCountsNum++;
+                }
+            }
+            writeVarint(output, notZeroCountsNum);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    writeVarint(output, i);
+                    writeVarint(output, counts[i]);
+                }
+            }
+        }
+    }
+
+    private static List<Pair<String, int[]>> readPagesStats(DataInput input, int termsNum) throws IOException {
+        int pagesNum = readVarint(input);
+        List<Pair<String, int[]>> pagesStats = new ArrayList<>(pagesNum);
+        for (int i = 0; i < pagesNum; i++) {
+            String page = readString(input);
+            int[] counts = new int[termsNum];
+            int notZeroCountsNum = readVarint(input);
+            for (int j = 0; j < notZeroCountsNum; j++) {
+                int termId = readVarint(input);
+                counts[termId] = readVarint(input);
+            }
+            pagesStats.add(new Pair<>(page, counts));
+        }
+        return pagesStats;
+    }
+
+    private static void writeString(DataOutput output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(output, bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInput input) throws IOException {
+        byte[] bytes = new byte[readVarint(input)];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarint(DataOutput output, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            output.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    private static int readVarint(DataInput input) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte part = input.readByte();
+            value |= (part & 0x7f) << shift;
+            if (part >= 0) {
+                return value;
+            }
+        }
+    }
+}
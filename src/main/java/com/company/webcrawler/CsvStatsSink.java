@@ -0,0 +1,105 @@
+package com.company.webcrawler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Class CsvStatsSink appends a CSV row for every analyzed page. Columns are the page, terms in the order
+ * of trie's term ids and the total. Rows are flushed at least once in the flush interval, so the file
+ * can be read during the crawl. Write errors don't stop the crawl, the first one is thrown by close()
+ */
+public class CsvStatsSink implements PageStatsSink, Closeable {
+    public static long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+
+    private final Writer writer;
+
+    private final long flushIntervalNanos;
+
+    private final StringBuilder row = new StringBuilder();
+
+    private long lastFlushTime;
+
+    private IOException writeException;
+
+    /**
+     * Constructor - creating a new object and writing the header
+     *
+     * @param writer      - buffered writer of the file, it is closed together with the sink
+     * @param termColumns - terms in the order of trie's term ids
+     */
+    public CsvStatsSink(Writer writer, List<String> termColumns) throws IOException {
+        this(writer, termColumns, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Constructor - creating a new object and writing the header
+     *
+     * @param writer              - buffered writer of the file, it is closed together with the sink
+     * @param termColumns         - terms in the order of trie's term ids
+     * @param flushIntervalMillis - maximum time in milliseconds while written rows can stay in the buffer
+     */
+    public CsvStatsSink(Writer writer, List<String> termColumns, long flushIntervalMillis) throws IOException {
+        this.writer = writer;
+        this.flushIntervalNanos = flushIntervalMillis * 1_000_000;
+        row.append("Page");
+        for (String term : termColumns) {
+            row.append(WebCrawler.CSV_SEPARATOR).append(term);
+        }
+        row.append(WebCrawler.CSV_SEPARATOR).append("Total").append('\n');
+        writer.write(row.toString());
+        writer.flush();
+        lastFlushTime = System.nanoTime();
+    }
+
+    /**
+     * Function for writing the row of the page
+     *
+     * @param page      - page URL
+     * @param pageStats - occurrences indexed by trie's term id
+     */
+    @Override
+    public synchronized void accept(String page, int[] pageStats) {
+        if (writeException != null) {
+            return;
+        }
+        row.setLength(0);
+        row.append(page);
+        int total = 0;
+        for (int value : pageStats) {
+            row.append(WebCrawler.CSV_SEPARATOR).append(value);
+            total += value;
+        }
+        row.append(WebCrawler.CSV_SEPARATOR).append(total).append('\n');
+        try {
+            writer.append(row);
+            long currentTime = System.nanoTime();
+            if (currentTime - lastFlushTime >= flushIntervalNanos) {
+                writer.flush();
+                lastFlushTime = currentTime;
+            }
+        } catch (IOException exc) {
+            writeException = exc;
+        }
+    }
+
+    /**
+     * Function for closing the writer
+     *
+     * @throws IOException - the first exception of writing rows or exception of closing
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            writer.close();
+        } catch (IOException exc) {
+            if (writeException == null) {
+                writeException = exc;
+            }
+        }
+        if (writeException != null) {
+            throw writeException;
+        }
+    }
+}
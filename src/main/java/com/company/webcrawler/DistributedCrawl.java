@@ -0,0 +1,89 @@
+package com.company.webcrawler;
+
+import com.company.distributed.HostPartitioner;
+import com.company.distributed.LoopbackTransport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class DistributedCrawl runs several crawl nodes in one process, they are connected by the loopback transport.
+ * Hosts are partitioned between nodes by consistent hashing, every node has its own frontier, seen URLs
+ * and statistics, and the max visited pages limit is split between nodes. Statistics of nodes
+ * are merged after the crawl
+ */
+public class DistributedCrawl {
+    private final List<WebCrawler> nodes = new ArrayList<>();
+
+    private final LoopbackTransport transport;
+
+    /**
+     * Constructor - creating a new object
+     *
+     * @param seedURL              - page from which starts collection of statistics
+     * @param terms                - terms whose occurrences are counted
+     * @param linkDepth            - link depth
+     * @param maxVisitedPagesLimit - total max visited pages limit of all nodes, negative for no limit
+     * @param nodesNum             - number of nodes
+     */
+    public DistributedCrawl(String seedURL, Set<String> terms, int linkDepth, int maxVisitedPagesLimit, int nodesNum) {
+        HostPartitioner partitioner = new HostPartitioner(nodesNum);
+        transport = new LoopbackTransport(nodesNum);
+        for (int node = 0; node < nodesNum; node++) {
+            int nodeLimit = maxVisitedPagesLimit < 0 ? maxVisitedPagesLimit
+                    : maxVisitedPagesLimit / nodesNum + (node < maxVisitedPagesLimit % nodesNum ? 1 : 0);
+            WebCrawler webCrawler = new WebCrawler(seedURL, terms, linkDepth, nodeLimit);
+            webCrawler.setDistributedNode(node, partitioner, transport);
+            nodes.add(webCrawler);
+        }
+    }
+
+    /**
+     * Function that returns crawlers of nodes, they can be configured before the crawl
+     */
+    public List<WebCrawler> getNodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    public LoopbackTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Function for crawling by all nodes, every node runs in its own thread
+     */
+    public void calculateStats() {
+        List<Thread> threads = new ArrayList<>(nodes.size());
+        for (int node = 0; node < nodes.size(); node++) {
+            Thread thread = new Thread(nodes.get(node)::calculateStats, "crawl-node-" + node);
+            threads.add(thread);
+            thread.start();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException exc) {
+            threads.forEach(Thread::interrupt);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Function that returns merged statistics of nodes. Every page is crawled only by the node of its host,
+     * so statistics of nodes don't overlap
+     *
+     * @return page URL -> term -> number of occurrences
+     */
+    public Map<String, Map<String, Integer>> getPagesStats() {
+        Map<String, Map<String, Integer>> pagesStats = new HashMap<>();
+        for (WebCrawler webCrawler : nodes) {
+            pagesStats.putAll(webCrawler.getPagesStats());
+        }
+        return pagesStats;
+    }
+}
@@ -0,0 +1,178 @@
+package com.company.webcrawler;
+
+import com.company.dedup.ContentFingerprint;
+import com.company.trie.TrieMatcher;
+import org.jsoup.nodes.*;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+
+/**
+ * Class for matching terms in the text of an element without building the text.
+ * Text nodes are fed to the matcher by characters with the same whitespace normalization
+ * as {@link Element#text()} does, characters are lowercased by the matcher
+ */
+class DocumentTextMatcher implements NodeVisitor {
+    /**
+     * Number of element's ancestors which are checked for whitespace preserving tags, the same as in jsoup
+     */
+    private static final int PRESERVE_WHITESPACE_DEPTH = 6;
+
+    private static final char NO_BREAK_SPACE = 160;
+    private static final char ZERO_WIDTH_SPACE = 8203;
+    private static final char SOFT_HYPHEN = 173;
+
+    private final TrieMatcher matcher;
+
+    /**
+     * Receives the normalized text too or null
+     */
+    private final ContentFingerprint contentFingerprint;
+
+    /**
+     * Whitespace characters which are fed only if they are followed by not whitespace character,
+     * so the text is trimmed like the result of {@link Element#text()}
+     */
+    private final StringBuilder pendingWhitespace = new StringBuilder();
+
+    /**
+     * Whether any character of the normalized text was produced
+     */
+    private boolean hasText;
+
+    /**
+     * Last character of the normalized text
+     */
+    private char lastCharacter;
+
+    /**
+     * Whether not whitespace character was fed to the matcher
+     */
+    private boolean isTrimmedTextStarted;
+
+    private DocumentTextMatcher(TrieMatcher matcher, ContentFingerprint contentFingerprint) {
+        this.matcher = matcher;
+        this.contentFingerprint = contentFingerprint;
+    }
+
+    /**
+     * Function for matching terms in the text of the element
+     *
+     * @param element - element
+     * @param matcher - matcher which receives lowercased text
+     */
+    static void match(Element element, TrieMatcher matcher) {
+        match(element, matcher, null);
+    }
+
+    /**
+     * Function for matching terms in the text of the element and calculating fingerprint of the text in the same pass
+     *
+     * @param element            - element
+     * @param matcher            - matcher which receives lowercased text
+     * @param contentFingerprint - fingerprint which receives the text or null
+     */
+    static void match(Element element, TrieMatcher matcher, ContentFingerprint contentFingerprint) {
+        DocumentTextMatcher documentTextMatcher = new DocumentTextMatcher(matcher, contentFingerprint);
+        NodeTraversor.traverse(documentTextMatcher, element);
+        matcher.finish();
+    }
+
+    @Override
+    public void head(Node node, int depth) {
+        if (node instanceof TextNode) {
+            appendText((TextNode) node);
+        } else if (node instanceof Element) {
+            Element element = (Element) node;
+            if (hasText && (element.isBlock() || element.tagName().equals("br")) && !isLastCharacterSpace()) {
+                append(' ');
+            }
+        }
+    }
+
+    @Override
+    public void tail(Node node, int depth) {
+        // space between block tags and immediately following text nodes
+        if (node instanceof Element && ((Element) node).isBlock()
+                && node.nextSibling() instanceof TextNode && !isLastCharacterSpace()) {
+            append(' ');
+        }
+    }
+
+    private boolean isLastCharacterSpace() {
+        return hasText && lastCharacter == ' ';
+    }
+
+    private void appendText(TextNode textNode) {
+        String text = textNode.getWholeText();
+        if (textNode instanceof CDataNode || isWhitespacePreserved(textNode.parentNode())) {
+            for (int i = 0; i < text.length(); i++) {
+                append(text.charAt(i));
+            }
+            return;
+        }
+        boolean stripLeading = isLastCharacterSpace();
+        boolean lastWasWhite = false;
+        boolean reachedNonWhite = false;
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            if (isWhitespace(character)) {
+                if ((stripLeading && !reachedNonWhite) || lastWasWhite) {
+                    continue;
+                }
+                append(' ');
+                lastWasWhite = true;
+            } else if (character != ZERO_WIDTH_SPACE && character != SOFT_HYPHEN) {
+                append(character);
+                lastWasWhite = false;
+                reachedNonWhite = true;
+            }
+        }
+    }
+
+    /**
+     * Function for appending character to the normalized text
+     *
+     * @param character - character
+     */
+    private void append(char character) {
+        hasText = true;
+        lastCharacter = character;
+        if (character <= ' ') {
+            if (isTrimmedTextStarted) {
+                pendingWhitespace.append(character);
+            }
+            return;
+        }
+        for (int i = 0; i < pendingWhitespace.length(); i++) {
+            matcher.feedLowerCase(pendingWhitespace.charAt(i));
+            if (contentFingerprint != null) {
+                contentFingerprint.feed(pendingWhitespace.charAt(i));
+            }
+        }
+        pendingWhitespace.setLength(0);
+        matcher.feedLowerCase(character);
+        if (contentFingerprint != null) {
+            contentFingerprint.feed(character);
+        }
+        isTrimmedTextStarted = true;
+    }
+
+    private static boolean isWhitespace(char character) {
+        return character == ' ' || character == '\t' || character == '\n' || character == '\f' || character == '\r'
+                || character == NO_BREAK_SPACE;
+    }
+
+    private static boolean isWhitespacePreserved(Node node) {
+        if (!(node instanceof Element)) {
+            return false;
+        }
+        Element element = (Element) node;
+        for (int i = 0; i < PRESERVE_WHITESPACE_DEPTH && element != null; i++) {
+            if (element.tag().preserveWhitespace()) {
+                return true;
+            }
+            element = element.parent();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,352 @@
+package com.company.webcrawler;
+
+import com.company.url.UrlCanonicalizer;
+import org.jsoup.nodes.Element;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Class LinkExtractor collects links of a page which are passed to the frontier. Anchors are found by one
+ * traversal of the tree without the selector engine and resolved against the base URL which is parsed
+ * once per page, common links are resolved by concatenation without URL parsing. Links are canonicalized,
+ * filtered by the scope (same host, allowed prefixes, denied file extensions) and repeated links
+ * of the page are dropped. Scope must be set before the crawl, after that the extractor is thread-safe
+ */
+public class LinkExtractor {
+    public static List<String> DEFAULT_DENIED_EXTENSIONS = Arrays.asList(
+            "7z", "avi", "bmp", "css", "dmg", "doc", "docx", "exe", "gif", "gz", "ico", "iso", "jpeg", "jpg",
+            "js", "mov", "mp3", "mp4", "pdf", "png", "rar", "svg", "tar", "ttf", "webp", "woff", "woff2", "xls",
+            "xlsx", "zip");
+
+    /**
+     * Class PageLinks collects links of one page. Not thread-safe
+     */
+    public class PageLinks {
+        private final UrlCanonicalizer urlCanonicalizer;
+
+        /**
+         * Authority of the page or null if links of other hosts are allowed
+         */
+        private final String pageAuthority;
+
+        private final Set<String> uniqueLinks = new HashSet<>();
+
+        private final List<String> links = new ArrayList<>();
+
+        private PageLinks(String page, UrlCanonicalizer urlCanonicalizer) {
+            this.urlCanonicalizer = urlCanonicalizer;
+            pageAuthority = isSameHostOnly ? getAuthority(urlCanonicalizer.canonicalizeWithoutCounting(page)) : null;
+        }
+
+        /**
+         * Function for adding the link of the page
+         *
+         * @param absoluteUrl - absolute URL of the link
+         * @return canonical URL or null if the link is out of the scope
+         */
+        public String add(String absoluteUrl) {
+            String link = urlCanonicalizer.canonicalize(absoluteUrl);
+            if (!isInScope(link)) {
+                filteredLinksNum.incrementAndGet();
+                return null;
+            }
+            if (uniqueLinks.add(link)) {
+                links.add(link);
+            } else {
+                repeatedLinksNum.incrementAndGet();
+            }
+            return link;
+        }
+
+        /**
+         * Function that returns canonical URLs of links in the order of their first occurrence
+         */
+        public List<String> getLinks() {
+            return links;
+        }
+
+        private boolean isInScope(String link) {
+            if (pageAuthority != null && !pageAuthority.equals(getAuthority(link))) {
+                return false;
+            }
+            if (!allowedPrefixes.isEmpty() && allowedPrefixes.stream().noneMatch(link::startsWith)) {
+                return false;
+            }
+            return deniedExtensions.isEmpty() || !deniedExtensions.contains(getExtension(link));
+        }
+    }
+
+    private boolean isSameHostOnly;
+
+    private List<String> allowedPrefixes = Collections.emptyList();
+
+    private Set<String> deniedExtensions = Collections.emptySet();
+
+    private final AtomicLong filteredLinksNum = new AtomicLong();
+
+    private final AtomicLong repeatedLinksNum = new AtomicLong();
+
+    /**
+     * Function for allowing only links to the host of the page, hosts are compared with ports
+     *
+     * @param isSameHostOnly - whether links to other hosts are dropped
+     */
+    public void setSameHostOnly(boolean isSameHostOnly) {
+        this.isSameHostOnly = isSameHostOnly;
+    }
+
+    /**
+     * Function for allowing only links which start with one of the prefixes
+     *
+     * @param allowedPrefixes - canonical URL prefixes, empty to allow all links
+     */
+    public void setAllowedPrefixes(Collection<String> allowedPrefixes) {
+        this.allowedPrefixes = new ArrayList<>(allowedPrefixes);
+    }
+
+    /**
+     * Function for dropping links to files which can't be analyzed, for example {@link #DEFAULT_DENIED_EXTENSIONS}
+     *
+     * @param deniedExtensions - lowercase extensions without dot, empty to allow all links
+     */
+    public void setDeniedExtensions(Collection<String> deniedExtensions) {
+        this.deniedExtensions = new HashSet<>(deniedExtensions);
+    }
+
+    /**
+     * Function for creating collector of links of the page, it's used when links are found without the DOM
+     *
+     * @param page             - page URL
+     * @param urlCanonicalizer - canonicalizer of links
+     * @return empty collector
+     */
+    public PageLinks newPageLinks(String page, UrlCanonicalizer urlCanonicalizer) {
+        return new PageLinks(page, urlCanonicalizer);
+    }
+
+    /**
+     * Function for extracting links of the parsed page
+     *
+     * @param page             - page URL
+     * @param documentBody     - body of the page, its base URI is used for resolving relative links
+     * @param urlCanonicalizer - canonicalizer of links
+     * @param anchorConsumer   - receives canonical URL and the anchor of every link in the scope,
+     *                         repeated links too, or null
+     * @return canonical URLs of links in the order of their first occurrence
+     */
+    public List<String> extractLinks(String page, Element documentBody, UrlCanonicalizer urlCanonicalizer,
+                                     BiConsumer<String, Element> anchorConsumer) {
+        PageLinks pageLinks = newPageLinks(page, urlCanonicalizer);
+        BaseUrl baseUrl = BaseUrl.parse(documentBody.baseUri());
+        for (Element anchor : documentBody.getElementsByTag("a")) {
+            String href = anchor.attr("href");
+            if (href.isEmpty() || href.startsWith("#")) {
+                continue;
+            }
+            String absoluteUrl = baseUrl != null ? baseUrl.resolve(href) : anchor.absUrl("href");
+            if (absoluteUrl.isEmpty()) {
+                continue;
+            }
+            String link = pageLinks.add(absoluteUrl);
+            if (link != null && anchorConsumer != null) {
+                anchorConsumer.accept(link, anchor);
+            }
+        }
+        return pageLinks.getLinks();
+    }
+
+    /**
+     * Function that returns number of links which were dropped because they are out of the scope
+     */
+    public long getFilteredLinksNum() {
+        return filteredLinksNum.get();
+    }
+
+    /**
+     * Function that returns number of links which were dropped because the page already had them
+     */
+    public long getRepeatedLinksNum() {
+        return repeatedLinksNum.get();
+    }
+
+    /**
+     * Class BaseUrl resolves links against the base URL which is parsed once for the page. Absolute links,
+     * links from the root and names in the base directory are resolved by concatenation, the rest of links
+     * are resolved by {@link URL} with the corrections which jsoup makes, so the result is the same as
+     * {@link Element#absUrl} gives
+     */
+    static class BaseUrl {
+        private final URL url;
+
+        /**
+         * Scheme and authority, for example "http://example.com"
+         */
+        private final String origin;
+
+        /**
+         * Origin and path of the base URL up to the last slash or null if the path has dot segments
+         */
+        private final String directory;
+
+        private BaseUrl(URL url) {
+            this.url = url;
+            origin = url.getProtocol() + "://" + url.getAuthority();
+            String path = url.getPath();
+            if (path.isEmpty()) {
+                directory = origin + "/";
+            } else {
+                directory = path.contains("/.") ? null : origin + path.substring(0, path.lastIndexOf('/') + 1);
+            }
+        }
+
+        /**
+         * Function for parsing the base URL
+         *
+         * @param baseUri - base URI of the document
+         * @return base URL or null if it isn't a valid HTTP URL
+         */
+        static BaseUrl parse(String baseUri) {
+            if (baseUri == null || baseUri.isEmpty()) {
+                return null;
+            }
+            try {
+                URL url = new URL(baseUri);
+                boolean isHttp = url.getProtocol().equals("http") || url.getProtocol().equals("https");
+                if (!isHttp || url.getAuthority() == null || url.getAuthority().isEmpty()) {
+                    return null;
+                }
+                return new BaseUrl(url);
+            } catch (MalformedURLException exc) {
+                return null;
+            }
+        }
+
+        /**
+         * Function for resolving the link
+         *
+         * @param href - href attribute of the anchor
+         * @return absolute URL or empty string if it can't be resolved
+         */
+        String resolve(String href) {
+            String trimmedHref = href.trim();
+            // dot segments are removed by URL, so such links aren't concatenated
+            if (trimmedHref.isEmpty() || trimmedHref.contains("/.") || trimmedHref.indexOf('\\') != -1) {
+                return resolveByUrl(trimmedHref);
+            }
+            if (trimmedHref.startsWith("http://") || trimmedHref.startsWith("https://")) {
+                return trimmedHref;
+            }
+            char first = trimmedHref.charAt(0);
+            if (first == '/' && (trimmedHref.length() == 1 || trimmedHref.charAt(1) != '/')) {
+                return origin + trimmedHref;
+            }
+            if (directory != null && first != '.' && first != '?' && first != '#' && isPlainName(trimmedHref)) {
+                return directory + trimmedHref;
+            }
+            return resolveByUrl(trimmedHref);
+        }
+
+        private String resolveByUrl(String href) {
+            try {
+                return resolve(url, href);
+            } catch (MalformedURLException exc) {
+                return "";
+            }
+        }
+
+        /**
+         * Function for resolving the link against the base URI which isn't parsed before,
+         * the result is the same as {@link Element#absUrl} gives
+         *
+         * @param baseUri - base URI, if it isn't valid URL the link must be absolute
+         * @param href    - href attribute of the anchor
+         * @return absolute URL or empty string if it can't be resolved
+         */
+        static String resolve(String baseUri, String href) {
+            try {
+                URL base;
+                try {
+                    base = new URL(baseUri);
+                } catch (MalformedURLException exc) {
+                    return new URL(href).toExternalForm();
+                }
+                return resolve(base, href);
+            } catch (MalformedURLException exc) {
+                return "";
+            }
+        }
+
+        private static String resolve(URL base, String href) throws MalformedURLException {
+            String relativeUrl = href;
+            // query replaces only the query of the base, URL would also drop the last segment of its path
+            if (relativeUrl.startsWith("?")) {
+                relativeUrl = base.getPath() + relativeUrl;
+            }
+            // dot segments are resolved against the root when the base doesn't have a path
+            if (relativeUrl.indexOf('.') == 0 && base.getFile().indexOf('/') != 0) {
+                base = new URL(base.getProtocol(), base.getHost(), base.getPort(), "/" + base.getFile());
+            }
+            return new URL(base, relativeUrl).toExternalForm();
+        }
+
+        /**
+         * Function that checks whether the relative link has neither scheme nor slashes before its query
+         */
+        private static boolean isPlainName(String href) {
+            for (int i = 0; i < href.length(); i++) {
+                char character = href.charAt(i);
+                if (character == '?' || character == '#') {
+                    return true;
+                }
+                if (character == '/' || character == ':') {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Function that returns authority of the canonical URL
+     *
+     * @param url - canonical URL
+     * @return host with port or empty string if URL doesn't have authority
+     */
+    static String getAuthority(String url) {
+        int schemeEnd = url.indexOf("://");
+        if (schemeEnd == -1) {
+            return "";
+        }
+        int authorityStart = schemeEnd + 3;
+        int authorityEnd = authorityStart;
+        while (authorityEnd < url.length() && "/?#".indexOf(url.charAt(authorityEnd)) == -1) {
+            authorityEnd++;
+        }
+        return url.substring(authorityStart, authorityEnd).toLowerCase();
+    }
+
+    /**
+     * Function that returns extension of the last segment of the URL's path
+     *
+     * @param url - canonical URL
+     * @return lowercase extension without dot or empty string
+     */
+    static String getExtension(String url) {
+        int schemeEnd = url.indexOf("://");
+        int pathStart = schemeEnd == -1 ? 0 : schemeEnd + 3;
+        int pathEnd = pathStart;
+        while (pathEnd < url.length() && url.charAt(pathEnd) != '?' && url.charAt(pathEnd) != '#') {
+            pathEnd++;
+        }
+        int segmentStart = url.lastIndexOf('/', pathEnd - 1) + 1;
+        if (segmentStart <= pathStart) {
+            return "";
+        }
+        int dot = url.lastIndexOf('.', pathEnd - 1);
+        return dot < segmentStart ? "" : url.substring(dot + 1, pathEnd).toLowerCase();
+    }
+}
@@ -0,0 +1,16 @@
+package com.company.webcrawler;
+
+/**
+ * Interface of a receiver of page statistics, which is called as soon as a page is analyzed.
+ * Can be called by several crawl threads, but never at the same time
+ */
+public interface PageStatsSink {
+    /**
+     * Function for receiving statistics of the analyzed page
+     *
+     * @param page      - page URL
+     * @param pageStats - occurrences indexed by trie's term id, the array must not be modified
+     *                  and must not be kept after the call, because it's reused for next pages
+     */
+    void accept(String page, int[] pageStats);
+}
@@ -0,0 +1,338 @@
+package com.company.webcrawler;
+
+import com.company.support.Pair;
+import com.company.trie.TermCounts;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Class PageStatsStore keeps statistics of analyzed pages in a compact form. URLs are interned into
+ * a dictionary of page ids, only not zero counts are stored as cells of term id and count in primitive
+ * arrays, and total hits are stored for every page, so ranking doesn't read the cells.
+ * Cells are only appended, statistics of a page which is accepted again are appended as new cells,
+ * so a snapshot shares the cells with the store and copies only the per page arrays. Thread-safe
+ */
+public class PageStatsStore implements PageStatsSink {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int termsNum;
+
+    /**
+     * URL -> page id, null in snapshots
+     */
+    private final Map<String, Integer> pageIds;
+
+    private String[] pages;
+
+    /**
+     * Cells of page i are stored from cellStarts[i] to cellEnds[i]
+     */
+    private int[] cellStarts;
+
+    private int[] cellEnds;
+
+    private int[] totals;
+
+    private int[] cellTermIds;
+
+    private int[] cellCounts;
+
+    private int pagesNum;
+
+    private int cellsNum;
+
+    /**
+     * Constructor - creating a new object
+     *
+     * @param termsNum - number of terms, ids of terms are from 0 to this number
+     */
+    public PageStatsStore(int termsNum) {
+        this.termsNum = termsNum;
+        pageIds = new HashMap<>();
+        pages = new String[INITIAL_CAPACITY];
+        cellStarts = new int[INITIAL_CAPACITY];
+        cellEnds = new int[INITIAL_CAPACITY];
+        totals = new int[INITIAL_CAPACITY];
+        cellTermIds = new int[INITIAL_CAPACITY];
+        cellCounts = new int[INITIAL_CAPACITY];
+    }
+
+    private PageStatsStore(PageStatsStore store) {
+        termsNum = store.termsNum;
+        pageIds = null;
+        pagesNum = store.pagesNum;
+        cellsNum = store.cellsNum;
+        pages = store.pages;
+        cellStarts = Arrays.copyOf(store.cellStarts, pagesNum);
+        cellEnds = Arrays.copyOf(store.cellEnds, pagesNum);
+        totals = Arrays.copyOf(store.totals, pagesNum);
+        cellTermIds = store.cellTermIds;
+        cellCounts = store.cellCounts;
+    }
+
+    /**
+     * Function for storing statistics of the page, statistics of the page which is already stored are replaced
+     *
+     * @param page      - page URL
+     * @param pageStats - occurrences indexed by trie's term id
+     */
+    @Override
+    public synchronized void accept(String page, int[] pageStats) {
+        int pageId = getOrAddPageId(page);
+        int notZeroCountsNum = 0;
+        for (int count : pageStats) {
+            if (count != 0) {
+                notZeroCountsNum++;
+            }
+        }
+        ensureCellsCapacity(notZeroCountsNum);
+        int total = 0;
+        cellStarts[pageId] = cellsNum;
+        for (int termId = 0; termId < pageStats.length; termId++) {
+            if (pageStats[termId] != 0) {
+                cellTermIds[cellsNum] = termId;
+                cellCounts[cellsNum] = pageStats[termId];
+                cellsNum++;
+                total += pageStats[termId];
+            }
+        }
+        cellEnds[pageId] = cellsNum;
+        totals[pageId] = total;
+    }
+
+    /**
+     * Function for storing statistics of the page in time proportional to the number of occurred terms,
+     * statistics of the page which is already stored are replaced
+     *
+     * @param page      - page URL
+     * @param pageStats - occurrences of trie's terms
+     */
+    public synchronized void accept(String page, TermCounts pageStats) {
+        int pageId = getOrAddPageId(page);
+        int occurredTermsNum = pageStats.getOccurredTermsNum();
+        ensureCellsCapacity(occurredTermsNum);
+        cellStarts[pageId] = cellsNum;
+        for (int i = 0; i < occurredTermsNum; i++) {
+            cellTermIds[cellsNum + i] = pageStats.getOccurredTermId(i);
+        }
+        // cells are kept in the order of term ids
+        Arrays.sort(cellTermIds, cellsNum, cellsNum + occurredTermsNum);
+        for (int i = 0; i < occurredTermsNum; i++) {
+            cellCounts[cellsNum] = pageStats.get(cellTermIds[cellsNum]);
+            cellsNum++;
+        }
+        cellEnds[pageId] = cellsNum;
+        totals[pageId] = pageStats.getTotal();
+    }
+
+    private int getOrAddPageId(String page) {
+        if (pageIds == null) {
+            throw new IllegalStateException("Snapshot can't be changed");
+        }
+        Integer pageId = pageIds.get(page);
+        if (pageId != null) {
+            return pageId;
+        }
+        if (pagesNum == pages.length) {
+            int capacity = pages.length * 2;
+            pages = Arrays.copyOf(pages, capacity);
+            cellStarts = Arrays.copyOf(cellStarts, capacity);
+            cellEnds = Arrays.copyOf(cellEnds, capacity);
+            totals = Arrays.copyOf(totals, capacity);
+        }
+        pages[pagesNum] = page;
+        pageIds.put(page, pagesNum);
+        return pagesNum++;
+    }
+
+    private void ensureCellsCapacity(int newCellsNum) {
+        if (cellsNum + newCellsNum > cellTermIds.length) {
+            int capacity = Math.max(cellTermIds.length * 2, cellsNum + newCellsNum);
+            cellTermIds = Arrays.copyOf(cellTermIds, capacity);
+            cellCounts = Arrays.copyOf(cellCounts, capacity);
+        }
+    }
+
+    /**
+     * Function for creating a consistent read-only copy, which can be read while the store is changed
+     *
+     * @return snapshot
+     */
+    public synchronized PageStatsStore snapshot() {
+        return new PageStatsStore(this);
+    }
+
+    public synchronized boolean contains(String page) {
+        if (pageIds == null) {
+            throw new IllegalStateException("Snapshot doesn't have URLs dictionary");
+        }
+        return pageIds.containsKey(page);
+    }
+
+    /**
+     * Function that returns number of pages, ids of pages are from 0 to this number in the order of storing
+     */
+    public synchronized int size() {
+        return pagesNum;
+    }
+
+    public synchronized boolean isEmpty() {
+        return pagesNum == 0;
+    }
+
+    public int getTermsNum() {
+        return termsNum;
+    }
+
+    public synchronized String getPage(int pageId) {
+        checkPageId(pageId);
+        return pages[pageId];
+    }
+
+    /**
+     * Function that returns total hits of all terms on the page
+     *
+     * @param pageId - id of page
+     * @return total hits
+     */
+    public synchronized int getTotal(int pageId) {
+        checkPageId(pageId);
+        return totals[pageId];
+    }
+
+    /**
+     * Function that returns number of not zero counts of the page
+     *
+     * @param pageId - id of page
+     * @return number of cells
+     */
+    public synchronized int getCellsNum(int pageId) {
+        checkPageId(pageId);
+        return cellEnds[pageId] - cellStarts[pageId];
+    }
+
+    /**
+     * Function that returns term id of the page's cell, cells are in the order of term ids
+     *
+     * @param pageId - id of page
+     * @param cell   - index of cell from 0 to {@link #getCellsNum}
+     * @return term id
+     */
+    public synchronized int getCellTermId(int pageId, int cell) {
+        return cellTermIds[getCellIndex(pageId, cell)];
+    }
+
+    /**
+     * Function that returns count of the page's cell
+     *
+     * @param pageId - id of page
+     * @param cell   - index of cell from 0 to {@link #getCellsNum}
+     * @return not zero count
+     */
+    public synchronized int getCellCount(int pageId, int cell) {
+        return cellCounts[getCellIndex(pageId, cell)];
+    }
+
+    /**
+     * Function for building the dense statistics of the page
+     *
+     * @param pageId - id of page
+     * @return occurrences indexed by trie's term id
+     */
+    public synchronized int[] getPageStats(int pageId) {
+        checkPageId(pageId);
+        int[] pageStats = new int[termsNum];
+        for (int cell = cellStarts[pageId]; cell < cellEnds[pageId]; cell++) {
+            pageStats[cellTermIds[cell]] = cellCounts[cell];
+        }
+        return pageStats;
+    }
+
+    /**
+     * Function for building the dense statistics of the page by its URL
+     *
+     * @param page - page URL
+     * @return occurrences indexed by trie's term id or null if the page isn't stored
+     */
+    public synchronized int[] getPageStats(String page) {
+        if (pageIds == null) {
+            throw new IllegalStateException("Snapshot doesn't have URLs dictionary");
+        }
+        Integer pageId = pageIds.get(page);
+        return pageId == null ? null : getPageStats(pageId);
+    }
+
+    /**
+     * Function for visiting all pages with their dense statistics, an array is built for every page
+     *
+     * @param consumer - receives page URL and occurrences indexed by trie's term id
+     */
+    public void forEach(BiConsumer<String, int[]> consumer) {
+        int size = size();
+        for (int pageId = 0; pageId < size; pageId++) {
+            consumer.accept(getPage(pageId), getPageStats(pageId));
+        }
+    }
+
+    /**
+     * Function for summing counts of every term over all pages
+     *
+     * @return total hits indexed by trie's term id
+     */
+    public synchronized long[] getTermTotals() {
+        long[] termTotals = new long[termsNum];
+        for (int pageId = 0; pageId < pagesNum; pageId++) {
+            for (int cell = cellStarts[pageId]; cell < cellEnds[pageId]; cell++) {
+                termTotals[cellTermIds[cell]] += cellCounts[cell];
+            }
+        }
+        return termTotals;
+    }
+
+    /**
+     * Function that returns pages with the most total hits in O(n log numPages) time by the stored totals,
+     * among pages with the same total the earlier stored ones are returned
+     *
+     * @param numPages - maximum number of pages
+     * @return pages and their statistics from the most total hits to the least
+     */
+    public synchronized List<Pair<String, int[]>> getTopPages(int numPages) {
+        if (numPages <= 0) {
+            return new ArrayList<>();
+        }
+        // the worst kept page is at the head
+        Comparator<Integer> rankOrder = Comparator.<Integer>comparingInt(pageId -> totals[pageId])
+                .thenComparing(Comparator.<Integer>naturalOrder().reversed());
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.min(numPages, Math.max(1, pagesNum)), rankOrder);
+        for (int pageId = 0; pageId < pagesNum; pageId++) {
+            if (heap.size() < numPages) {
+                heap.add(pageId);
+            } else if (rankOrder.compare(pageId, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(pageId);
+            }
+        }
+        List<Integer> rankedPageIds = new ArrayList<>(heap);
+        rankedPageIds.sort(rankOrder.reversed());
+        List<Pair<String, int[]>> topPages = new ArrayList<>(rankedPageIds.size());
+        for (int pageId : rankedPageIds) {
+            topPages.add(new Pair<>(pages[pageId], getPageStats(pageId)));
+        }
+        return topPages;
+    }
+
+    private int getCellIndex(int pageId, int cell) {
+        checkPageId(pageId);
+        if (cell < 0 || cell >= cellEnds[pageId] - cellStarts[pageId]) {
+            throw new IndexOutOfBoundsException("Cell " + cell + " of page " + pageId);
+        }
+        return cellStarts[pageId] + cell;
+    }
+
+    private void checkPageId(int pageId) {
+        if (pageId < 0 || pageId >= pagesNum) {
+            throw new IndexOutOfBoundsException("Page id " + pageId + ", pages number " + pagesNum);
+        }
+    }
+}
@@ -0,0 +1,505 @@
+package com.company.webcrawler;
+
+import com.company.dedup.ContentFingerprint;
+import com.company.trie.TrieMatcher;
+import org.jsoup.nodes.Entities;
+import org.jsoup.parser.Tag;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.Consumer;
+
+/**
+ * Class for processing page without building the DOM. HTML is tokenized incrementally while it is read,
+ * visible text of the body is fed to the matcher and links are passed to the consumer as soon as they appear.
+ * Text is normalized close to {@link org.jsoup.nodes.Element#text()}: whitespace is collapsed except
+ * in preformatted tags, block tags and line breaks separate words, text is trimmed.
+ * Text of head, script and style isn't matched. Not thread-safe
+ */
+class StreamingPageParser {
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Maximum length of character reference name
+     */
+    private static final int MAX_REFERENCE_LENGTH = 32;
+
+    private static final char NO_BREAK_SPACE = 160;
+    private static final char ZERO_WIDTH_SPACE = 8203;
+    private static final char SOFT_HYPHEN = 173;
+
+    private enum State {
+        DATA,
+        CHARACTER_REFERENCE,
+        TAG_OPEN,
+        TAG_NAME,
+        END_TAG_NAME,
+        BEFORE_ATTRIBUTE_NAME,
+        ATTRIBUTE_NAME,
+        AFTER_ATTRIBUTE_NAME,
+        BEFORE_ATTRIBUTE_VALUE,
+        ATTRIBUTE_VALUE,
+        MARKUP_DECLARATION,
+        COMMENT,
+        BOGUS_COMMENT,
+        RAW_TEXT
+    }
+
+    private final TrieMatcher matcher;
+
+    /**
+     * Receives the normalized text too or null
+     */
+    private ContentFingerprint contentFingerprint;
+
+    /**
+     * Receives absolute URLs of links or null if links aren't needed
+     */
+    private final Consumer<String> linkConsumer;
+
+    private String baseUrl;
+
+    private State state = State.DATA;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    private final StringBuilder tagName = new StringBuilder();
+    private final StringBuilder attributeName = new StringBuilder();
+    private final StringBuilder attributeValue = new StringBuilder();
+    private final StringBuilder reference = new StringBuilder();
+
+    private boolean isEndTag;
+
+    private boolean isEndTagNameRead;
+
+    /**
+     * Quote of the current attribute value or 0 if value isn't quoted
+     */
+    private char attributeQuote;
+
+    private String href;
+
+    /**
+     * Number of '-' characters at the end of the current comment
+     */
+    private int commentDashesNum;
+
+    /**
+     * Name of the tag with raw text content (script or style) which is read now
+     */
+    private String rawTextTagName;
+
+    /**
+     * Number of matched characters of the raw text end tag
+     */
+    private int rawTextEndMatched;
+
+    private boolean isInHead;
+
+    /**
+     * Number of open tags which preserve whitespace
+     */
+    private int preformattedDepth;
+
+    private final StringBuilder pendingWhitespace = new StringBuilder();
+    private boolean hasText;
+    private char lastCharacter;
+    private boolean isTrimmedTextStarted;
+
+    /**
+     * Constructor - creating a new object
+     *
+     * @param matcher      - matcher which receives lowercased text
+     * @param pageUrl      - URL of the page for resolving relative links
+     * @param linkConsumer - consumer of absolute URLs of links or null if links aren't needed
+     */
+    StreamingPageParser(TrieMatcher matcher, String pageUrl, Consumer<String> linkConsumer) {
+        this.matcher = matcher;
+        this.baseUrl = pageUrl;
+        this.linkConsumer = linkConsumer;
+    }
+
+    /**
+     * Function for setting the fingerprint which receives the same text as the matcher
+     *
+     * @param contentFingerprint - fingerprint or null
+     */
+    void setContentFingerprint(ContentFingerprint contentFingerprint) {
+        this.contentFingerprint = contentFingerprint;
+    }
+
+    /**
+     * Function for parsing the whole page
+     *
+     * @param reader - reader of the page's HTML
+     */
+    void parse(Reader reader) throws IOException {
+        int charsNum;
+        while ((charsNum = reader.read(buffer)) != -1) {
+            for (int i = 0; i < charsNum; i++) {
+                process(buffer[i]);
+            }
+        }
+        if (state == State.CHARACTER_REFERENCE) {
+            appendTextCharacters("&" + reference);
+        }
+        matcher.finish();
+    }
+
+    private void process(char character) {
+        switch (state) {
+            case DATA:
+                if (character == '<') {
+                    state = State.TAG_OPEN;
+                } else if (character == '&') {
+                    reference.setLength(0);
+                    state = State.CHARACTER_REFERENCE;
+                } else {
+                    text(character);
+                }
+                break;
+            case CHARACTER_REFERENCE:
+                if (character == ';') {
+                    appendTextCharacters(decodeReference());
+                    state = State.DATA;
+                } else if ((Character.isLetterOrDigit(character) || character == '#')
+                        && reference.length() < MAX_REFERENCE_LENGTH) {
+                    reference.append(character);
+                } else {
+                    appendTextCharacters("&" + reference);
+                    state = State.DATA;
+                    process(character);
+                }
+                break;
+            case TAG_OPEN:
+                if (character == '!') {
+                    attributeValue.setLength(0);
+                    state = State.MARKUP_DECLARATION;
+                } else if (character == '/') {
+                    startTag(true);
+                    state = State.END_TAG_NAME;
+                } else if (isAsciiLetter(character)) {
+                    startTag(false);
+                    tagName.append(Character.toLowerCase(character));
+                    state = State.TAG_NAME;
+                } else if (character == '?') {
+                    state = State.BOGUS_COMMENT;
+                } else {
+                    text('<');
+                    state = State.DATA;
+                    process(character);
+                }
+                break;
+            case TAG_NAME:
+                if (isTagWhitespace(character) || character == '/') {
+                    state = State.BEFORE_ATTRIBUTE_NAME;
+                } else if (character == '>') {
+                    emitTag();
+                } else {
+                    tagName.append(Character.toLowerCase(character));
+                }
+                break;
+            case END_TAG_NAME:
+                if (character == '>') {
+                    emitTag();
+                } else if (isTagWhitespace(character) || character == '/') {
+                    // attributes of end tags are ignored
+                    isEndTagNameRead = true;
+                } else if (!isEndTagNameRead) {
+                    tagName.append(Character.toLowerCase(character));
+                }
+                break;
+            case BEFORE_ATTRIBUTE_NAME:
+                if (character == '>') {
+                    emitTag();
+                } else if (!isTagWhitespace(character) && character != '/') {
+                    attributeName.setLength(0);
+                    attributeName.append(Character.toLowerCase(character));
+                    state = State.ATTRIBUTE_NAME;
+                }
+                break;
+            case ATTRIBUTE_NAME:
+                if (character == '=') {
+                    state = State.BEFORE_ATTRIBUTE_VALUE;
+                } else if (isTagWhitespace(character)) {
+                    state = State.AFTER_ATTRIBUTE_NAME;
+                } else if (character == '/') {
+                    state = State.BEFORE_ATTRIBUTE_NAME;
+                } else if (character == '>') {
+                    emitTag();
+                } else {
+                    attributeName.append(Character.toLowerCase(character));
+                }
+                break;
+            case AFTER_ATTRIBUTE_NAME:
+                if (character == '=') {
+                    state = State.BEFORE_ATTRIBUTE_VALUE;
+                } else if (character == '>') {
+                    emitTag();
+                } else if (!isTagWhitespace(character)) {
+                    state = State.BEFORE_ATTRIBUTE_NAME;
+                    process(character);
+                }
+                break;
+            case BEFORE_ATTRIBUTE_VALUE:
+                if (character == '>') {
+                    emitTag();
+                } else if (!isTagWhitespace(character)) {
+                    attributeValue.setLength(0);
+                    attributeQuote = character == '"' || character == '\'' ? character : 0;
+                    if (attributeQuote == 0) {
+                        attributeValue.append(character);
+                    }
+                    state = State.ATTRIBUTE_VALUE;
+                }
+                break;
+            case ATTRIBUTE_VALUE:
+                if (attributeQuote != 0 ? character == attributeQuote : isTagWhitespace(character)) {
+                    finishAttribute();
+                    state = State.BEFORE_ATTRIBUTE_NAME;
+                } else if (attributeQuote == 0 && character == '>') {
+                    finishAttribute();
+                    emitTag();
+                } else {
+                    attributeValue.append(character);
+                }
+                break;
+            case MARKUP_DECLARATION:
+                attributeValue.append(character);
+                if (attributeValue.length() == 2) {
+                    if (attributeValue.charAt(0) == '-' && attributeValue.charAt(1) == '-') {
+                        commentDashesNum = 0;
+                        state = State.COMMENT;
+                    } else {
+                        state = State.BOGUS_COMMENT;
+                    }
+                }
+                if (character == '>') {
+                    state = State.DATA;
+                }
+                break;
+            case COMMENT:
+                if (character == '>' && commentDashesNum >= 2) {
+                    state = State.DATA;
+                } else if (character == '-') {
+                    commentDashesNum++;
+                } else {
+                    commentDashesNum = 0;
+                }
+                break;
+            case BOGUS_COMMENT:
+                if (character == '>') {
+                    state = State.DATA;
+                }
+                break;
+            case RAW_TEXT:
+                processRawText(character);
+                break;
+        }
+    }
+
+    private void startTag(boolean isEndTag) {
+        this.isEndTag = isEndTag;
+        isEndTagNameRead = false;
+        tagName.setLength(0);
+        attributeName.setLength(0);
+        href = null;
+    }
+
+    private void finishAttribute() {
+        if (!isEndTag && attributeName.length() == 4 && attributeName.toString().equals("href")) {
+            href = decodeAttribute(attributeValue);
+        }
+    }
+
+    /**
+     * Function for handling the tag which was read
+     */
+    private void emitTag() {
+        state = State.DATA;
+        String name = tagName.toString();
+        Tag tag = Tag.isKnownTag(name) ? Tag.valueOf(name) : null;
+        if (tag != null && (tag.isBlock() || name.equals("br"))) {
+            separateText();
+        }
+        if (isEndTag) {
+            if (name.equals("head")) {
+                isInHead = false;
+            } else if (tag != null && tag.preserveWhitespace() && preformattedDepth > 0) {
+                preformattedDepth--;
+            }
+            return;
+        }
+        switch (name) {
+            case "head":
+                isInHead = true;
+                break;
+            case "body":
+                isInHead = false;
+                break;
+            case "script":
+            case "style":
+                rawTextTagName = name;
+                rawTextEndMatched = 0;
+                state = State.RAW_TEXT;
+                break;
+            case "base":
+                if (href != null) {
+                    baseUrl = LinkExtractor.BaseUrl.resolve(baseUrl, href);
+                }
+                break;
+            case "a":
+                if (href != null && linkConsumer != null && !(href.isEmpty() || href.startsWith("#"))) {
+                    String link = LinkExtractor.BaseUrl.resolve(baseUrl, href);
+                    if (!link.isEmpty()) {
+                        linkConsumer.accept(link);
+                    }
+                }
+                break;
+            default:
+                if (tag != null && tag.preserveWhitespace()) {
+                    preformattedDepth++;
+                }
+        }
+    }
+
+    /**
+     * Function for skipping content of script and style until their end tag
+     *
+     * @param character - character of the content
+     */
+    private void processRawText(char character) {
+        int endTagLength = rawTextTagName.length() + 2;
+        if (rawTextEndMatched == endTagLength) {
+            if (character == '>') {
+                state = State.DATA;
+                separateText();
+            } else if (!isTagWhitespace(character)) {
+                rawTextEndMatched = 0;
+            }
+            return;
+        }
+        char expected = rawTextEndMatched == 0 ? '<' : rawTextEndMatched == 1 ? '/'
+                : rawTextTagName.charAt(rawTextEndMatched - 2);
+        if (Character.toLowerCase(character) == expected) {
+            rawTextEndMatched++;
+        } else {
+            rawTextEndMatched = character == '<' ? 1 : 0;
+        }
+    }
+
+    private String decodeReference() {
+        String name = reference.toString();
+        if (name.startsWith("#")) {
+            try {
+                int codePoint = name.length() > 1 && (name.charAt(1) == 'x' || name.charAt(1) == 'X')
+                        ? Integer.parseInt(name.substring(2), 16) : Integer.parseInt(name.substring(1));
+                if (Character.isValidCodePoint(codePoint)) {
+                    return new String(Character.toChars(codePoint));
+                }
+            } catch (NumberFormatException ignored) {
+                // not a character reference, kept as it is
+            }
+            return "&" + name + ";";
+        }
+        String value = Entities.getByName(name);
+        return value.isEmpty() ? "&" + name + ";" : value;
+    }
+
+    private String decodeAttribute(StringBuilder value) {
+        if (value.indexOf("&") == -1) {
+            return value.toString().trim();
+        }
+        StringBuilder decoded = new StringBuilder(value.length());
+        int i = 0;
+        while (i < value.length()) {
+            char character = value.charAt(i);
+            int referenceEnd = character == '&' ? value.indexOf(";", i) : -1;
+            if (referenceEnd != -1 && referenceEnd - i <= MAX_REFERENCE_LENGTH) {
+                reference.setLength(0);
+                reference.append(value, i + 1, referenceEnd);
+                decoded.append(decodeReference());
+                i = referenceEnd + 1;
+            } else {
+                decoded.append(character);
+                i++;
+            }
+        }
+        return decoded.toString().trim();
+    }
+
+    /**
+     * Function for handling character of the page's text
+     *
+     * @param character - character
+     */
+    private void text(char character) {
+        if (isInHead) {
+            return;
+        }
+        if (preformattedDepth > 0) {
+            append(character);
+        } else if (isWhitespace(character)) {
+            if (!(hasText && lastCharacter == ' ')) {
+                append(' ');
+            }
+        } else if (character != ZERO_WIDTH_SPACE && character != SOFT_HYPHEN) {
+            append(character);
+        }
+    }
+
+    private void appendTextCharacters(String characters) {
+        for (int i = 0; i < characters.length(); i++) {
+            text(characters.charAt(i));
+        }
+    }
+
+    /**
+     * Function for separating words of different blocks
+     */
+    private void separateText() {
+        if (hasText && lastCharacter != ' ' && !isInHead) {
+            append(' ');
+        }
+    }
+
+    /**
+     * Function for appending character to the normalized text, whitespace at the ends of the text is trimmed
+     *
+     * @param character - character
+     */
+    private void append(char character) {
+        hasText = true;
+        lastCharacter = character;
+        if (character <= ' ') {
+            if (isTrimmedTextStarted) {
+                pendingWhitespace.append(character);
+            }
+            return;
+        }
+        for (int i = 0; i < pendingWhitespace.length(); i++) {
+            matcher.feedLowerCase(pendingWhitespace.charAt(i));
+            if (contentFingerprint != null) {
+                contentFingerprint.feed(pendingWhitespace.charAt(i));
+            }
+        }
+        pendingWhitespace.setLength(0);
+        matcher.feedLowerCase(character);
+        if (contentFingerprint != null) {
+            contentFingerprint.feed(character);
+        }
+        isTrimmedTextStarted = true;
+    }
+
+    private static boolean isAsciiLetter(char character) {
+        return (character >= 'a' && character <= 'z') || (character >= 'A' && character <= 'Z');
+    }
+
+    private static boolean isTagWhitespace(char character) {
+        return character == ' ' || character == '\t' || character == '\n' || character == '\f' || character == '\r';
+    }
+
+    private static boolean isWhitespace(char character) {
+        return isTagWhitespace(character) || character == NO_BREAK_SPACE;
+    }
+}
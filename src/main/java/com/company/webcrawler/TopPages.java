@@ -0,0 +1,125 @@
+package com.company.webcrawler;
+
+import com.company.support.Pair;
+import com.company.trie.TermCounts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Class TopPages keeps pages with the most total hits among the received ones. Pages are kept in a min-heap
+ * bounded by the capacity, so a page is added in O(log K) time and the memory doesn't depend on
+ * the number of pages. Among pages with the same total the earlier received ones are kept. Statistics are copied
+ * only when the page enters the heap, so received arrays can be reused by the caller. Thread-safe
+ */
+public class TopPages implements PageStatsSink {
+    private static class RankedPage {
+        private final String page;
+        private final int[] pageStats;
+        private final int total;
+
+        /**
+         * Order of receiving the page
+         */
+        private final long sequenceNumber;
+
+        RankedPage(String page, int[] pageStats, int total, long sequenceNumber) {
+            this.page = page;
+            this.pageStats = pageStats;
+            this.total = total;
+            this.sequenceNumber = sequenceNumber;
+        }
+    }
+
+    /**
+     * From the worst page to the best one
+     */
+    private static final Comparator<RankedPage> RANK_ORDER = Comparator.<RankedPage>comparingInt(rankedPage -> rankedPage.total)
+            .thenComparing(Comparator.<RankedPage>comparingLong(rankedPage -> rankedPage.sequenceNumber).reversed());
+
+    private final int capacity;
+
+    /**
+     * The worst kept page is at the head
+     */
+    private final PriorityQueue<RankedPage> heap;
+
+    private long receivedPagesNum;
+
+    /**
+     * Constructor - creating a new object
+     *
+     * @param capacity - maximum number of kept pages
+     */
+    public TopPages(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        heap = new PriorityQueue<>(Math.max(1, capacity), RANK_ORDER);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Function for offering the page, the total is calculated once here
+     *
+     * @param page      - page URL
+     * @param pageStats - occurrences indexed by trie's term id
+     */
+    @Override
+    public void accept(String page, int[] pageStats) {
+        int total = 0;
+        for (int value : pageStats) {
+            total += value;
+        }
+        offer(page, pageStats, total);
+    }
+
+    /**
+     * Function for offering the page, the total is taken from the counts
+     *
+     * @param page      - page URL
+     * @param pageStats - occurrences of trie's terms
+     */
+    public void accept(String page, TermCounts pageStats) {
+        offer(page, pageStats.getCounts(), pageStats.getTotal());
+    }
+
+    private synchronized void offer(String page, int[] pageStats, int total) {
+        long sequenceNumber = receivedPagesNum++;
+        if (heap.size() < capacity) {
+            heap.add(new RankedPage(page, Arrays.copyOf(pageStats, pageStats.length), total, sequenceNumber));
+            return;
+        }
+        if (capacity == 0) {
+            return;
+        }
+        RankedPage worstPage = heap.peek();
+        // pages with the same total are received later than kept ones, so they don't enter the heap
+        if (total > worstPage.total) {
+            heap.poll();
+            heap.add(new RankedPage(page, Arrays.copyOf(pageStats, pageStats.length), total, sequenceNumber));
+        }
+    }
+
+    /**
+     * Function that returns kept pages, can be called during the crawl
+     *
+     * @return pages and their statistics from the most total hits to the least
+     */
+    public synchronized List<Pair<String, int[]>> getTopPages() {
+        List<RankedPage> rankedPages = new ArrayList<>(heap);
+        rankedPages.sort(RANK_ORDER.reversed());
+        List<Pair<String, int[]>> topPages = new ArrayList<>(rankedPages.size());
+        for (RankedPage rankedPage : rankedPages) {
+            topPages.add(new Pair<>(rankedPage.page, rankedPage.pageStats));
+        }
+        return topPages;
+    }
+}
@@ -1,13 +1,42 @@
 package com.company.webcrawler;
 
+import com.company.cache.CachedResponse;
+import com.company.cache.ResponseCache;
+import com.company.dedup.ContentFingerprint;
+import com.company.dedup.DuplicateDetector;
+import com.company.distributed.CrawlTransport;
+import com.company.distributed.HostPartitioner;
+import com.company.fetch.FetchResponse;
+import com.company.fetch.HttpClientPageFetcher;
+import com.company.fetch.JsoupPageFetcher;
+import com.company.fetch.PageFetcher;
+import com.company.frontier.FingerprintSeenUrlSet;
+import com.company.frontier.BestFirstFrontier;
+import com.company.frontier.Frontier;
+import com.company.frontier.FrontierSnapshot;
+import com.company.frontier.LinkScorer;
+import com.company.frontier.PolitenessFrontier;
+import com.company.frontier.SeenUrlSet;
+import com.company.metrics.Counter;
+import com.company.metrics.CrawlMetrics;
+import com.company.metrics.Gauge;
+import com.company.metrics.Stage;
+import com.company.support.CountingInputStream;
+import com.company.support.Fingerprints;
 import com.company.support.Pair;
+import com.company.trie.TermCounts;
 import com.company.trie.Trie;
+import com.company.url.UrlCanonicalizer;
+import org.jsoup.HttpStatusException;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 
 import java.io.*;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -19,127 +48,1556 @@ public class WebCrawler {
      */
     private String seedURL;
 
+    private int linkDepth;
+
+    /**
+     * Maximum number of pages that can be analyzed
+     */
+    private int maxVisitedPagesLimit;
+
+    public static int DEFAULT_LINK_DEPTH = 8;
+    public static int DEFAULT_MAX_VISITED_PAGES_LIMIT = 10000;
+    public static long DEFAULT_MIN_HOST_DELAY_MILLIS = 0;
+    public static long DEFAULT_CONCURRENT_MIN_HOST_DELAY_MILLIS = 1000;
+    public static int DEFAULT_MAX_BODY_SIZE = 2 * 1024 * 1024;
+    public static int DEFAULT_TOP_PAGES_NUM = 10;
+    public static long DEFAULT_CHECKPOINT_INTERVAL_MILLIS = 60 * 1000;
+    public static int DEFAULT_PIPELINE_QUEUE_CAPACITY = 16;
+    public static int DEFAULT_FORWARD_BATCH_SIZE = 64;
+    public static long DEFAULT_FORWARD_INTERVAL_MILLIS = 100;
+    public static int DEFAULT_PARALLEL_MATCHING_THRESHOLD = 1024 * 1024;
+    public static String CSV_SEPARATOR = ",";
+
+    private static final int HTTP_NOT_MODIFIED = 304;
+    private static final long IDLE_RECEIVE_TIMEOUT_MILLIS = 10;
+
+    /**
+     * Terms statistics of analyzed pages, occurrences are indexed by trie's term id.
+     * Thread-safe, so it can be filled by the concurrent crawl
+     */
+    private PageStatsStore pagesStats;
+
+    /**
+     * Trie for search terms on pages
+     */
+    private Trie trie;
+
+    /**
+     * Pages which are found but not analyzed yet
+     */
+    private Frontier frontier;
+
+    /**
+     * Whether the minimum host delay is set by the user, otherwise the concurrent crawls use
+     * {@link #DEFAULT_CONCURRENT_MIN_HOST_DELAY_MILLIS}
+     */
+    private boolean isMinHostDelaySet;
+
+    /**
+     * Pages which were added to the frontier, every page is added only once, so pages whose request
+     * failed aren't requested again in all crawl modes
+     */
+    private SeenUrlSet seenUrls;
+
+    /**
+     * Brings found pages URLs to the canonical form before they are added to the frontier
+     */
+    private UrlCanonicalizer urlCanonicalizer;
+
+    private LinkExtractor linkExtractor;
+
+    /**
+     * Whether terms are matched directly in text nodes of pages instead of the built lowercase text
+     */
+    private boolean isStreamingTextMatching;
+
+    /**
+     * Whether pages are processed while they are read, without building the DOM
+     */
+    private boolean isStreamingPageProcessing;
+
+    /**
+     * Texts of this length and longer are matched in parallel, Integer.MAX_VALUE if parallel matching is disabled.
+     * Setting is kept by the crawler, because the trie can be shared by several crawlers
+     */
+    private int parallelMatchingThreshold = Integer.MAX_VALUE;
+
+    /**
+     * Maximum number of bytes which are read from a page in the streaming processing
+     */
+    private int maxBodySize = DEFAULT_MAX_BODY_SIZE;
+
+    /**
+     * Fetcher of pages or null if every page is requested by a new jsoup connection
+     */
+    private PageFetcher pageFetcher;
+
+    /**
+     * Receiver of statistics of every analyzed page or null
+     */
+    private PageStatsSink statsSink;
+
+    /**
+     * Whether statistics of analyzed pages are stored in pagesStats
+     */
+    private boolean isStatsKeptInMemory = true;
+
+    /**
+     * Pages with the most total hits, updated as soon as a page is analyzed
+     */
+    private TopPages topPages = new TopPages(DEFAULT_TOP_PAGES_NUM);
+
+    /**
+     * Cleared counts which are reused by the next analyzed pages, so counts aren't allocated for every page.
+     * Counts travel between threads in the pipelined crawl, so they are pooled instead of kept by threads
+     */
+    private final Queue<TermCounts> freeTermCounts = new ConcurrentLinkedQueue<>();
+
+    /**
+     * File where the crawl state is periodically saved or null if checkpoints are turned off
+     */
+    private Path checkpointFile;
+
+    private long checkpointIntervalNanos;
+
+    private long lastCheckpointTime;
+
+    /**
+     * Thread which writes checkpoints, so the crawl doesn't wait for the disk
+     */
+    private ExecutorService checkpointExecutor;
+
+    /**
+     * Writing of the last checkpoint, new checkpoint isn't captured until it is finished
+     */
+    private Future<?> checkpointWriting;
+
+    private final AtomicLong checkpointFailuresNum = new AtomicLong();
+
+    /**
+     * Cache of responses for conditional requests or null
+     */
+    private ResponseCache responseCache;
+
+    /**
+     * Signature of the terms, statistics attached to cached responses are reused only for the same terms
+     */
+    private long termsSignature;
+
+    /**
+     * Index of content fingerprints of analyzed pages or null if duplicates aren't detected
+     */
+    private DuplicateDetector duplicateDetector;
+
+    /**
+     * Scorer of found links for the best-first crawl or null if links aren't scored
+     */
+    private LinkScorer linkScorer;
+
+    /**
+     * Canonical URL -> terms hits in the anchor text of the link, links are removed when they are added to the frontier
+     */
+    private final Map<String, Integer> anchorTermsHits = new ConcurrentHashMap<>();
+
+    /**
+     * Metrics of the crawl or null if they aren't collected
+     */
+    private CrawlMetrics metrics;
+
+    /**
+     * Capacity of queues between stages of the pipelined crawl
+     */
+    private int pipelineQueueCapacity = DEFAULT_PIPELINE_QUEUE_CAPACITY;
+
+    /**
+     * Id of this node in the distributed crawl
+     */
+    private int nodeId;
+
+    /**
+     * Partitioner of hosts between nodes or null if the crawl isn't distributed
+     */
+    private HostPartitioner partitioner;
+
+    private CrawlTransport transport;
+
+    /**
+     * Node id -> pages found by this node which are forwarded to that node in the next batch
+     */
+    private final Map<Integer, List<Pair<String, Integer>>> forwardedPages = new HashMap<>();
+
+    private long lastForwardTime;
+
+    public WebCrawler(String seedURL, Set<String> terms, int linkDepth, int maxVisitedPagesLimit) {
+        this(seedURL, buildTrie(terms), linkDepth, maxVisitedPagesLimit);
+    }
+
+    /**
+     * Constructor - creating a new object which searches terms by the prepared trie.
+     * Trie loaded from the automaton file by {@link Trie#load} can be shared by several crawlers,
+     * its terms must be lowercased
+     *
+     * @param seedURL              - URL where the crawl starts
+     * @param trie                 - trie of the lowercased terms
+     * @param linkDepth            - max depth of the visited pages
+     * @param maxVisitedPagesLimit - max number of the visited pages
+     */
+    public WebCrawler(String seedURL, Trie trie, int linkDepth, int maxVisitedPagesLimit) {
+        this.seedURL = seedURL;
+        this.linkDepth = linkDepth;
+        this.maxVisitedPagesLimit = maxVisitedPagesLimit;
+        this.trie = trie;
+        pagesStats = new PageStatsStore(trie.getTermsNum());
+        frontier = new PolitenessFrontier(DEFAULT_MIN_HOST_DELAY_MILLIS);
+        seenUrls = new FingerprintSeenUrlSet();
+        urlCanonicalizer = new UrlCanonicalizer();
+        linkExtractor = new LinkExtractor();
+    }
+
+    public WebCrawler(String seedURL, Set<String> terms) {
+        this(seedURL, terms, DEFAULT_LINK_DEPTH, DEFAULT_MAX_VISITED_PAGES_LIMIT);
+    }
+
+    /**
+     * Function for building the compiled trie of the lowercased terms
+     *
+     * @param terms - terms
+     * @return trie
+     */
+    private static Trie buildTrie(Set<String> terms) {
+        Trie trie = new Trie(terms.stream().map(String::toLowerCase).collect(Collectors.toSet()));
+        trie.compile();
+        return trie;
+    }
+
+    /**
+     * Function that returns terms statistics of analyzed pages, the maps are built on every call
+     *
+     * @return map that stores number of terms occurrences for each page
+     */
+    public Map<String, Map<String, Integer>> getPagesStats() {
+        Map<String, Map<String, Integer>> stats = new HashMap<>();
+        pagesStats.forEach((page, pageStats) -> stats.put(page, trie.getOccurrencesMap(pageStats)));
+        return stats;
+    }
+
+    /**
+     * Function that returns the store of statistics of analyzed pages, which can be iterated,
+     * aggregated by terms and ranked without building maps
+     *
+     * @return store, term ids follow {@link #getTermColumns()}
+     */
+    public PageStatsStore getPageStatsStore() {
+        return pagesStats;
+    }
+
+    /**
+     * Function for replacing the frontier, must be called before the stats calculation
+     *
+     * @param frontier - empty frontier
+     */
+    public void setFrontier(Frontier frontier) {
+        this.frontier = frontier;
+    }
+
+    /**
+     * Function for setting the minimum delay between the end of a request and the next request to the same host,
+     * it is used only by the default {@link PolitenessFrontier}
+     *
+     * @param minHostDelayMillis - delay in milliseconds
+     */
+    public void setMinHostDelay(long minHostDelayMillis) {
+        isMinHostDelaySet = true;
+        if (frontier instanceof PolitenessFrontier) {
+            ((PolitenessFrontier) frontier).setMinHostDelay(minHostDelayMillis);
+        }
+    }
+
+    /**
+     * Function for setting the default delay of the concurrent crawls if the delay isn't set by the user
+     */
+    private void useConcurrentMinHostDelay() {
+        if (!isMinHostDelaySet && frontier instanceof PolitenessFrontier) {
+            ((PolitenessFrontier) frontier).setMinHostDelay(DEFAULT_CONCURRENT_MIN_HOST_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * Function for switching the best-first crawl. Every found link is scored by terms hits of the page
+     * which contains it, terms hits in its anchor text and its remaining depth, and the score is passed
+     * to the frontier, for example to {@link BestFirstFrontier}. Anchor texts are known only when links are
+     * collected from the DOM, links which are reused from the cache or collected in the streaming processing
+     * are scored without them
+     *
+     * @param linkScorer - scorer or null to add links without scores
+     */
+    public void setLinkScorer(LinkScorer linkScorer) {
+        this.linkScorer = linkScorer;
+    }
+
+    /**
+     * Function for replacing the set of seen pages, must be called before the stats calculation
+     *
+     * @param seenUrls - empty set
+     */
+    public void setSeenUrlSet(SeenUrlSet seenUrls) {
+        this.seenUrls = seenUrls;
+    }
+
+    public UrlCanonicalizer getUrlCanonicalizer() {
+        return urlCanonicalizer;
+    }
+
+    public void setUrlCanonicalizer(UrlCanonicalizer urlCanonicalizer) {
+        this.urlCanonicalizer = urlCanonicalizer;
+    }
+
+    /**
+     * Function that returns extractor of links, its scope (same host, allowed prefixes, denied file extensions)
+     * is applied to links before they are passed to the frontier, must be set before the stats calculation
+     */
+    public LinkExtractor getLinkExtractor() {
+        return linkExtractor;
+    }
+
+    public void setLinkExtractor(LinkExtractor linkExtractor) {
+        this.linkExtractor = linkExtractor;
+    }
+
+    /**
+     * Function for switching the streaming text matching mode. In this mode the text of the page
+     * isn't built, characters of text nodes are fed to the trie directly and lowercased by it
+     *
+     * @param isStreamingTextMatching - whether the mode is on
+     */
+    public void setStreamingTextMatching(boolean isStreamingTextMatching) {
+        this.isStreamingTextMatching = isStreamingTextMatching;
+    }
+
+    /**
+     * Function for switching the streaming page processing. In this mode the response is tokenized
+     * while it is read, text is fed to the trie and links are collected without building the DOM.
+     * When the mode is off pages are parsed to the DOM
+     *
+     * @param isStreamingPageProcessing - whether the mode is on
+     */
+    public void setStreamingPageProcessing(boolean isStreamingPageProcessing) {
+        this.isStreamingPageProcessing = isStreamingPageProcessing;
+    }
+
+    /**
+     * Function for enabling parallel matching of huge pages. Text of a page which is at least
+     * of the threshold length is split into chunks which are matched on the common fork-join pool,
+     * so one huge page doesn't keep a worker busy for long. Texts aren't built in the streaming modes,
+     * so they are always matched sequentially
+     *
+     * @param thresholdLength - min length of the text in characters which is matched in parallel
+     */
+    public void setParallelMatching(int thresholdLength) {
+        parallelMatchingThreshold = thresholdLength;
+    }
+
+    /**
+     * Function for setting the fetcher which downloads pages, for example {@link HttpClientPageFetcher}
+     * which reuses connections. Pages downloaded by the fetcher are parsed from their bytes,
+     * the fetcher applies its own max body size
+     *
+     * @param pageFetcher - fetcher or null to request every page by a new jsoup connection
+     */
+    public void setPageFetcher(PageFetcher pageFetcher) {
+        this.pageFetcher = pageFetcher;
+    }
+
+    /**
+     * Function for setting maximum number of bytes which are read from a page in the streaming processing,
+     * the rest of the page is ignored
+     *
+     * @param maxBodySize - maximum body size in bytes, 0 for unlimited
+     */
+    public void setMaxBodySize(int maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * Function for setting the receiver of statistics, which is called as soon as a page is analyzed
+     *
+     * @param statsSink - sink or null
+     */
+    public void setStatsSink(PageStatsSink statsSink) {
+        this.statsSink = statsSink;
+    }
+
+    /**
+     * Function for turning off storing of pages statistics in memory, then results are available only
+     * through the stats sink and {@link #getPagesStats()} is empty
+     *
+     * @param isStatsKeptInMemory - whether statistics are stored in memory
+     */
+    public void setStatsKeptInMemory(boolean isStatsKeptInMemory) {
+        this.isStatsKeptInMemory = isStatsKeptInMemory;
+    }
+
+    /**
+     * Function for setting the number of pages with the most total hits which are tracked during the crawl,
+     * must be called before the stats calculation
+     *
+     * @param topPagesNum - number of pages
+     */
+    public void setTopPagesNum(int topPagesNum) {
+        topPages = new TopPages(topPagesNum);
+    }
+
+    /**
+     * Function for turning on periodic checkpoints of the crawl state: frontier, seen URLs, remaining pages limit,
+     * pages statistics and top pages. Checkpoint is also written when the crawl is finished
+     *
+     * @param checkpointFile           - file for checkpoints, it is replaced by every checkpoint
+     * @param checkpointIntervalMillis - minimum time between two checkpoints
+     */
+    public void setCheckpoint(Path checkpointFile, long checkpointIntervalMillis) {
+        this.checkpointFile = checkpointFile;
+        this.checkpointIntervalNanos = checkpointIntervalMillis * 1_000_000;
+    }
+
+    /**
+     * Function that returns number of checkpoints which weren't written, they are also counted by
+     * {@link Counter#CHECKPOINT_FAILURES} and their exceptions are recorded by the metrics if they are set
+     */
+    public long getCheckpointFailuresNum() {
+        return checkpointFailuresNum.get();
+    }
+
+    /**
+     * Function for restoring the crawl state from the checkpoint, must be called before the stats calculation.
+     * The crawl is continued from the saved frontier with the saved remaining pages limit.
+     * Restored pages statistics are passed to the stats sink if it is set
+     *
+     * @param checkpointFile - file written by a crawl with the same terms and the same kind of seen URLs set
+     */
+    public void restoreCheckpoint(Path checkpointFile) throws IOException {
+        CrawlCheckpoint checkpoint = CrawlCheckpoint.read(checkpointFile, seenUrls.copy());
+        if (!checkpoint.getTermColumns().equals(getTermColumns())) {
+            throw new IOException("Checkpoint was written for other terms: " + checkpoint.getTermColumns());
+        }
+        seenUrls = checkpoint.getSeenUrls();
+        maxVisitedPagesLimit = checkpoint.getRemainingPagesLimit();
+        for (Pair<String, Integer> page : checkpoint.getFrontierPages()) {
+            frontier.add(page.getFirst(), page.getSecond());
+        }
+        checkpoint.getPagesStats().forEach((page, pageStats) -> {
+            pagesStats.accept(page, pageStats);
+            if (statsSink != null) {
+                statsSink.accept(page, pageStats);
+            }
+        });
+        for (Pair<String, int[]> pageStats : checkpoint.getTopPages()) {
+            topPages.accept(pageStats.getFirst(), pageStats.getSecond());
+        }
+    }
+
+    /**
+     * Function for setting the response cache, then pages are requested conditionally if they are cached.
+     * Must be called before the stats calculation
+     *
+     * @param responseCache - cache or null
+     */
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+        termsSignature = Fingerprints.fingerprint64(String.join("\n", getTermColumns()));
+    }
+
+    /**
+     * Function for turning on duplicate detection. Statistics of a page which has the same or nearly the same
+     * text as an analyzed page are taken from that page and its links aren't expanded. Statistics are looked up
+     * in the statistics kept in memory, so duplicates are analyzed as other pages if they aren't kept.
+     * Must be called before the stats calculation
+     *
+     * @param duplicateDetector - detector, it reports the saved work, or null
+     */
+    public void setDuplicateDetector(DuplicateDetector duplicateDetector) {
+        this.duplicateDetector = duplicateDetector;
+    }
+
+    /**
+     * Function for turning on collection of stage durations, counters and gauges of the crawl
+     *
+     * @param metrics - metrics, they can be read during the crawl, or null
+     */
+    public void setMetrics(CrawlMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Function for setting capacity of queues between stages of the pipelined crawl. Every queue of downloaded
+     * pages holds at most capacity bodies, each of them is limited by the max body size
+     *
+     * @param pipelineQueueCapacity - capacity of every queue
+     */
+    public void setPipelineQueueCapacity(int pipelineQueueCapacity) {
+        this.pipelineQueueCapacity = pipelineQueueCapacity;
+    }
+
+    /**
+     * Function for making this crawler a node of the distributed crawl. The node crawls only pages of hosts
+     * which the partitioner assigns to it, other found pages are forwarded to their nodes in batches.
+     * The seed page is added by its node. Distributed node is crawled by {@link #calculateStats()}
+     *
+     * @param nodeId      - id of this node
+     * @param partitioner - partitioner of hosts, the same for all nodes
+     * @param transport   - transport between nodes
+     */
+    public void setDistributedNode(int nodeId, HostPartitioner partitioner, CrawlTransport transport) {
+        this.nodeId = nodeId;
+        this.partitioner = partitioner;
+        this.transport = transport;
+    }
+
+    /**
+     * Function that returns terms in the order of columns of the statistics, which is the order of trie's term ids
+     *
+     * @return lowercased terms
+     */
+    public List<String> getTermColumns() {
+        List<String> termColumns = new ArrayList<>(trie.getTermsNum());
+        for (int i = 0; i < trie.getTermsNum(); i++) {
+            termColumns.add(trie.getTerm(i));
+        }
+        return termColumns;
+    }
+
+    public void calculateStats() {
+        startCheckpoints();
+        try {
+            if (transport != null) {
+                crawlDistributed();
+            } else {
+                crawl();
+            }
+        } finally {
+            finishCheckpoints(Collections.emptyList());
+        }
+    }
+
+    private void crawl() {
+        addPageToVisit(urlCanonicalizer.canonicalize(seedURL), linkDepth);
+        while (!frontier.isEmpty() && maxVisitedPagesLimit != 0) {
+            Pair<String, Integer> currentPage = frontier.poll();
+            if (currentPage == null) {
+                try {
+                    Thread.sleep(frontier.getDelayUntilReady());
+                } catch (InterruptedException exc) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                continue;
+            }
+            try {
+                crawlPage(currentPage);
+            } finally {
+                frontier.pageDone(currentPage.getFirst());
+            }
+        }
+    }
+
+    /**
+     * Function for analyzing the page taken from the frontier by the single-threaded crawl
+     *
+     * @param currentPage - page URL with its remaining link depth
+     */
+    private void crawlPage(Pair<String, Integer> currentPage) {
+        if (pagesStats.contains(currentPage.getFirst())) {
+            return;
+        }
+        Pair<TermCounts, List<String>> analyzedPage = analyzePage(currentPage.getFirst(), currentPage.getSecond() != 0);
+        if (analyzedPage == null) {
+            return;
+        }
+        recordPageStats(currentPage.getFirst(), analyzedPage.getFirst());
+        maxVisitedPagesLimit--;
+        addPagesToVisit(analyzedPage, currentPage.getSecond() - 1);
+        releaseTermCounts(analyzedPage.getFirst());
+        checkpointIfNeeded(Collections.emptyList());
+    }
+
+    /**
+     * Single-threaded crawl of the distributed node. Between pages the node adds received pages
+     * to the frontier and forwards batches which are full or older than the forward interval.
+     * When the node has nothing to crawl, it forwards all pages, becomes idle and waits for pages
+     * until the transport reports that the whole crawl is finished
+     */
+    private void crawlDistributed() {
+        String seedPage = urlCanonicalizer.canonicalize(seedURL);
+        if (partitioner.getNode(seedPage) == nodeId) {
+            addPageToVisit(seedPage, linkDepth);
+        }
+        lastForwardTime = System.nanoTime();
+        try {
+            while (true) {
+                List<Pair<String, Integer>> receivedPages;
+                while ((receivedPages = transport.receive(nodeId, 0)) != null) {
+                    addReceivedPages(receivedPages);
+                }
+                if (frontier.isEmpty() || maxVisitedPagesLimit == 0) {
+                    forwardPages();
+                    transport.setIdle(nodeId);
+                    if (transport.isFinished()) {
+                        return;
+                    }
+                    addReceivedPages(transport.receive(nodeId, IDLE_RECEIVE_TIMEOUT_MILLIS));
+                    continue;
+                }
+                Pair<String, Integer> currentPage = frontier.poll();
+                if (currentPage == null) {
+                    forwardPages();
+                    addReceivedPages(transport.receive(nodeId, Math.max(1, frontier.getDelayUntilReady())));
+                    continue;
+                }
+                try {
+                    crawlPage(currentPage);
+                } finally {
+                    frontier.pageDone(currentPage.getFirst());
+                }
+                if (System.nanoTime() - lastForwardTime >= DEFAULT_FORWARD_INTERVAL_MILLIS * 1_000_000) {
+                    forwardPages();
+                }
+            }
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void addReceivedPages(List<Pair<String, Integer>> receivedPages) {
+        if (receivedPages == null) {
+            return;
+        }
+        for (Pair<String, Integer> page : receivedPages) {
+            addPageToVisit(page.getFirst(), page.getSecond());
+        }
+    }
+
+    /**
+     * Function for adding the page of another node to its batch, full batch is sent right away
+     *
+     * @param node      - id of the node which crawls the page
+     * @param page      - page URL
+     * @param linkDepth - remaining link depth of the page
+     */
+    private void forwardPage(int node, String page, int linkDepth) {
+        List<Pair<String, Integer>> batch = forwardedPages.computeIfAbsent(node, id -> new ArrayList<>());
+        batch.add(new Pair<>(page, linkDepth));
+        if (batch.size() >= DEFAULT_FORWARD_BATCH_SIZE) {
+            transport.send(node, batch);
+            forwardedPages.remove(node);
+        }
+    }
+
     /**
-     * Words to search for on pages
+     * Function for sending all not empty batches
      */
-    private Set<String> terms;
+    private void forwardPages() {
+        forwardedPages.forEach(transport::send);
+        forwardedPages.clear();
+        lastForwardTime = System.nanoTime();
+    }
 
-    private int linkDepth;
+    /**
+     * Concurrent version of {@link #calculateStats()}. Pages are requested and analyzed by a pool
+     * of threadsNum threads, link depth and max visited pages limit rules are the same.
+     * The default frontier allows one request to a host at the same time with
+     * {@link #DEFAULT_CONCURRENT_MIN_HOST_DELAY_MILLIS} between them unless the delay is set
+     *
+     * @param threadsNum - number of pages which are requested at the same time
+     */
+    public void calculateStats(int threadsNum) {
+        checkNotDistributed();
+        useConcurrentMinHostDelay();
+        ExecutorService executor = Executors.newFixedThreadPool(threadsNum);
+        startCheckpoints();
+        try {
+            new ConcurrentCrawl(executor).run();
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void checkNotDistributed() {
+        if (transport != null) {
+            throw new IllegalStateException("Distributed node is crawled by the single-threaded calculateStats()");
+        }
+    }
 
     /**
-     * Maximum number of pages that can be analyzed
+     * State of the concurrent crawl. Pages are taken from the frontier by the thread which calls run(),
+     * workers only report analyzed pages back under the crawl's monitor
      */
-    private int maxVisitedPagesLimit;
+    private class ConcurrentCrawl {
+        private final ExecutorService executor;
 
-    public static int DEFAULT_LINK_DEPTH = 8;
-    public static int DEFAULT_MAX_VISITED_PAGES_LIMIT = 10000;
-    public static String CSV_SEPARATOR = ",";
+        /**
+         * Pages which are being analyzed right now with their remaining link depth,
+         * they are saved to checkpoints together with the frontier
+         */
+        private final Map<String, Integer> pagesInProgress = new HashMap<>();
+
+        private int requestsInProgress;
+
+        ConcurrentCrawl(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        /**
+         * Requests in progress hold a slot of the pages limit, so it can't be exceeded
+         * even if all of them succeed
+         */
+        private boolean isLimitReached() {
+            return maxVisitedPagesLimit >= 0 && requestsInProgress >= maxVisitedPagesLimit;
+        }
+
+        synchronized void run() throws InterruptedException {
+            try {
+                crawl();
+            } finally {
+                finishCheckpoints(getPagesInProgress());
+            }
+        }
+
+        private void crawl() throws InterruptedException {
+            addPageToVisit(urlCanonicalizer.canonicalize(seedURL), linkDepth);
+            while (true) {
+                if (frontier.isEmpty() || isLimitReached()) {
+                    if (requestsInProgress == 0) {
+                        return;
+                    }
+                    wait();
+                    continue;
+                }
+                Pair<String, Integer> currentPage = frontier.poll();
+                if (currentPage == null) {
+                    // wakes up earlier if an analyzed page is reported
+                    wait(Math.max(1, frontier.getDelayUntilReady()));
+                    continue;
+                }
+                requestsInProgress++;
+                pagesInProgress.put(currentPage.getFirst(), currentPage.getSecond());
+                executor.execute(() -> processPage(currentPage));
+            }
+        }
+
+        private void processPage(Pair<String, Integer> currentPage) {
+            Pair<TermCounts, List<String>> analyzedPage = null;
+            try {
+                analyzedPage = analyzePage(currentPage.getFirst(), currentPage.getSecond() != 0);
+            } catch (RuntimeException exc) {
+                printAnalysisFailure(currentPage.getFirst(), exc);
+            } finally {
+                pageAnalyzed(currentPage, analyzedPage);
+            }
+        }
 
-    private Map<String, Map<String, Integer>> pagesStats;
+        private synchronized void pageAnalyzed(Pair<String, Integer> currentPage,
+                                               Pair<TermCounts, List<String>> analyzedPage) {
+            try {
+                String page = currentPage.getFirst();
+                frontier.pageDone(page);
+                requestsInProgress--;
+                pagesInProgress.remove(page);
+                // failed page isn't requested again, it stays in seen URLs
+                if (analyzedPage != null) {
+                    recordPageStats(page, analyzedPage.getFirst());
+                    maxVisitedPagesLimit--;
+                    addPagesToVisit(analyzedPage, currentPage.getSecond() - 1);
+                    releaseTermCounts(analyzedPage.getFirst());
+                    checkpointIfNeeded(getPagesInProgress());
+                }
+            } finally {
+                // the crawl thread mustn't wait for a page which won't be reported
+                notifyAll();
+            }
+        }
+
+        private List<Pair<String, Integer>> getPagesInProgress() {
+            List<Pair<String, Integer>> pages = new ArrayList<>(pagesInProgress.size());
+            pagesInProgress.forEach((page, depth) -> pages.add(new Pair<>(page, depth)));
+            return pages;
+        }
+    }
 
     /**
-     * Trie for search terms on pages
+     * Pipelined version of {@link #calculateStats()}. Pages are downloaded by fetchThreadsNum threads,
+     * parsed and matched by analysisThreadsNum threads, and found links are added to the frontier by the calling
+     * thread. Stages are connected by bounded queues: when the analysis falls behind, fetch threads wait
+     * for a free place for the downloaded body and new pages aren't taken from the frontier,
+     * so memory is limited by the queues capacity. Link depth, max visited pages limit and politeness rules
+     * are the same as in {@link #calculateStats(int)}
+     *
+     * @param fetchThreadsNum    - number of pages which are downloaded at the same time
+     * @param analysisThreadsNum - number of pages which are analyzed at the same time, usually number of cores
      */
-    private Trie trie;
+    public void calculateStats(int fetchThreadsNum, int analysisThreadsNum) {
+        checkNotDistributed();
+        useConcurrentMinHostDelay();
+        ExecutorService fetchExecutor = Executors.newFixedThreadPool(fetchThreadsNum);
+        ExecutorService analysisExecutor = Executors.newFixedThreadPool(analysisThreadsNum);
+        startCheckpoints();
+        try {
+            PipelinedCrawl pipelinedCrawl = new PipelinedCrawl();
+            for (int i = 0; i < fetchThreadsNum; i++) {
+                fetchExecutor.execute(pipelinedCrawl::fetchPages);
+            }
+            for (int i = 0; i < analysisThreadsNum; i++) {
+                analysisExecutor.execute(pipelinedCrawl::analyzePages);
+            }
+            pipelinedCrawl.run();
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        } finally {
+            fetchExecutor.shutdownNow();
+            analysisExecutor.shutdownNow();
+        }
+    }
 
-    public WebCrawler(String seedURL, Set<String> terms, int linkDepth, int maxVisitedPagesLimit) {
-        this.seedURL = seedURL;
-        this.terms = terms;
-        this.linkDepth = linkDepth;
-        this.maxVisitedPagesLimit = maxVisitedPagesLimit;
-        trie = new Trie(terms.stream().map(String::toLowerCase).collect(Collectors.toSet()));
-        pagesStats = new HashMap<>();
+    /**
+     * State of the pipelined crawl. The frontier, seen URLs and statistics are changed only by the thread
+     * which calls run(), fetch and analysis threads communicate with it through queues
+     */
+    private class PipelinedCrawl {
+        /**
+         * Pages taken from the frontier which wait for downloading
+         */
+        private final BlockingQueue<Pair<String, Integer>> fetchQueue = new ArrayBlockingQueue<>(pipelineQueueCapacity);
+
+        /**
+         * Downloaded pages which wait for the analysis
+         */
+        private final BlockingQueue<Pair<Pair<String, Integer>, FetchedPage>> analysisQueue =
+                new ArrayBlockingQueue<>(pipelineQueueCapacity);
+
+        /**
+         * Analyzed pages or pages with null analysis if request failed, its size is limited
+         * by the number of requests in progress
+         */
+        private final BlockingQueue<Pair<Pair<String, Integer>, Pair<TermCounts, List<String>>>> resultQueue =
+                new LinkedBlockingQueue<>();
+
+        /**
+         * Pages which are in queues or stages right now with their remaining link depth,
+         * they are saved to checkpoints together with the frontier
+         */
+        private final Map<String, Integer> pagesInProgress = new HashMap<>();
+
+        /**
+         * The same rule as in the concurrent crawl, requests in progress hold a slot of the pages limit
+         */
+        private boolean isLimitReached() {
+            return maxVisitedPagesLimit >= 0 && pagesInProgress.size() >= maxVisitedPagesLimit;
+        }
+
+        void run() throws InterruptedException {
+            try {
+                crawl();
+            } finally {
+                finishCheckpoints(getPagesInProgress());
+            }
+        }
+
+        private void crawl() throws InterruptedException {
+            addPageToVisit(urlCanonicalizer.canonicalize(seedURL), linkDepth);
+            while (true) {
+                Pair<Pair<String, Integer>, Pair<TermCounts, List<String>>> result;
+                while ((result = resultQueue.poll()) != null) {
+                    pageAnalyzed(result);
+                }
+                // the fetch queue has a single producer, so the free place can't be taken by another thread
+                if (frontier.isEmpty() || isLimitReached() || fetchQueue.remainingCapacity() == 0) {
+                    if (pagesInProgress.isEmpty()) {
+                        return;
+                    }
+                    pageAnalyzed(resultQueue.take());
+                    continue;
+                }
+                Pair<String, Integer> currentPage = frontier.poll();
+                if (currentPage == null) {
+                    // wakes up earlier if an analyzed page is reported
+                    result = resultQueue.poll(Math.max(1, frontier.getDelayUntilReady()), TimeUnit.MILLISECONDS);
+                    if (result != null) {
+                        pageAnalyzed(result);
+                    }
+                    continue;
+                }
+                pagesInProgress.put(currentPage.getFirst(), currentPage.getSecond());
+                fetchQueue.put(currentPage);
+                updateGauges();
+            }
+        }
+
+        private void pageAnalyzed(Pair<Pair<String, Integer>, Pair<TermCounts, List<String>>> result) {
+            Pair<String, Integer> currentPage = result.getFirst();
+            Pair<TermCounts, List<String>> analyzedPage = result.getSecond();
+            String page = currentPage.getFirst();
+            frontier.pageDone(page);
+            pagesInProgress.remove(page);
+            if (analyzedPage != null) {
+                recordPageStats(page, analyzedPage.getFirst());
+                maxVisitedPagesLimit--;
+                addPagesToVisit(analyzedPage, currentPage.getSecond() - 1);
+                releaseTermCounts(analyzedPage.getFirst());
+                checkpointIfNeeded(getPagesInProgress());
+            }
+            updateGauges();
+        }
+
+        /**
+         * Loop of a fetch thread, it waits for a free place in the analysis queue before taking the next page
+         */
+        private void fetchPages() {
+            try {
+                while (true) {
+                    Pair<String, Integer> currentPage = fetchQueue.take();
+                    FetchedPage fetchedPage = null;
+                    try {
+                        fetchedPage = fetchPage(currentPage.getFirst(), currentPage.getSecond() != 0);
+                    } catch (IOException exc) {
+                        printRequestFailure(currentPage.getFirst(), exc);
+                    } catch (RuntimeException exc) {
+                        // the thread keeps working, so the crawl thread doesn't wait for results forever
+                        printAnalysisFailure(currentPage.getFirst(), exc);
+                    } finally {
+                        if (fetchedPage == null || fetchedPage.analyzedPage != null) {
+                            resultQueue.add(new Pair<>(currentPage, fetchedPage == null ? null : fetchedPage.analyzedPage));
+                        }
+                    }
+                    if (fetchedPage != null && fetchedPage.analyzedPage == null) {
+                        analysisQueue.put(new Pair<>(currentPage, fetchedPage));
+                    }
+                }
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Loop of an analysis thread
+         */
+        private void analyzePages() {
+            try {
+                while (true) {
+                    Pair<Pair<String, Integer>, FetchedPage> fetchedPage = analysisQueue.take();
+                    Pair<String, Integer> currentPage = fetchedPage.getFirst();
+                    Pair<TermCounts, List<String>> analyzedPage = null;
+                    try {
+                        analyzedPage = analyzeFetchedPage(fetchedPage.getSecond(), currentPage.getSecond() != 0);
+                    } catch (IOException exc) {
+                        printRequestFailure(currentPage.getFirst(), exc);
+                    } catch (RuntimeException exc) {
+                        printAnalysisFailure(currentPage.getFirst(), exc);
+                    } finally {
+                        resultQueue.add(new Pair<>(currentPage, analyzedPage));
+                    }
+                }
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void updateGauges() {
+            if (metrics != null) {
+                metrics.setGauge(Gauge.IN_FLIGHT_REQUESTS, pagesInProgress.size());
+                metrics.setGauge(Gauge.FETCH_QUEUE_SIZE, fetchQueue.size());
+                metrics.setGauge(Gauge.ANALYSIS_QUEUE_SIZE, analysisQueue.size());
+            }
+        }
+
+        private List<Pair<String, Integer>> getPagesInProgress() {
+            List<Pair<String, Integer>> pages = new ArrayList<>(pagesInProgress.size());
+            pagesInProgress.forEach((page, depth) -> pages.add(new Pair<>(page, depth)));
+            return pages;
+        }
     }
 
-    public WebCrawler(String seedURL, Set<String> terms) {
-        this(seedURL, terms, DEFAULT_LINK_DEPTH, DEFAULT_MAX_VISITED_PAGES_LIMIT);
+    private void startCheckpoints() {
+        if (checkpointFile == null) {
+            return;
+        }
+        checkpointExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "crawl-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lastCheckpointTime = System.nanoTime();
     }
 
-    public Map<String, Map<String, Integer>> getPagesStats() {
-        return pagesStats;
+    /**
+     * Function for capturing the checkpoint and writing it in the background if the checkpoint interval
+     * has passed and the previous checkpoint is written. Must be called under the crawl's lock
+     *
+     * @param pagesInProgress - pages which are being analyzed, they are saved as frontier pages
+     */
+    private void checkpointIfNeeded(List<Pair<String, Integer>> pagesInProgress) {
+        if (checkpointExecutor == null || System.nanoTime() - lastCheckpointTime < checkpointIntervalNanos
+                || (checkpointWriting != null && !checkpointWriting.isDone())) {
+            return;
+        }
+        CrawlCheckpoint checkpoint = captureCheckpoint(pagesInProgress);
+        checkpointWriting = checkpointExecutor.submit(() -> writeCheckpoint(checkpoint));
+        lastCheckpointTime = System.nanoTime();
     }
 
-    public void calculateStats() {
-        LinkedList<Pair<String, Integer>> notAnalyzedPages = new LinkedList<>();
-        notAnalyzedPages.add(new Pair<>(seedURL, linkDepth));
-        while (!notAnalyzedPages.isEmpty() && maxVisitedPagesLimit != 0) {
-            Pair<String, Integer> currentPage = notAnalyzedPages.removeFirst();
-            if (pagesStats.containsKey(currentPage.getFirst())) {
-                continue;
+    /**
+     * Function for writing the last checkpoint of the crawl after the background writing is finished.
+     * Must be called under the crawl's lock
+     *
+     * @param pagesInProgress - pages which are being analyzed, they are saved as frontier pages
+     */
+    private void finishCheckpoints(List<Pair<String, Integer>> pagesInProgress) {
+        if (checkpointExecutor == null) {
+            return;
+        }
+        checkpointExecutor.shutdown();
+        try {
+            // the previous checkpoint must not replace the last one
+            checkpointExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+        checkpointExecutor = null;
+        checkpointWriting = null;
+        writeCheckpoint(captureCheckpoint(pagesInProgress));
+    }
+
+    /**
+     * Function for capturing the checkpoint under the crawl's lock, frontier pages are captured by the frontier's
+     * snapshot, so spilled pages aren't read until the checkpoint is written
+     *
+     * @param pagesInProgress - pages which are being analyzed, they are saved before pages of the frontier
+     */
+    private CrawlCheckpoint captureCheckpoint(List<Pair<String, Integer>> pagesInProgress) {
+        FrontierSnapshot frontierPages = FrontierSnapshot.concat(FrontierSnapshot.of(pagesInProgress),
+                frontier.snapshot());
+        return new CrawlCheckpoint(getTermColumns(), maxVisitedPagesLimit, frontierPages, seenUrls.copy(),
+                pagesStats.snapshot(), topPages.getTopPages());
+    }
+
+    private void writeCheckpoint(CrawlCheckpoint checkpoint) {
+        try {
+            checkpoint.write(checkpointFile);
+        } catch (IOException exc) {
+            checkpointFailuresNum.incrementAndGet();
+            if (metrics != null) {
+                metrics.increment(Counter.CHECKPOINT_FAILURES);
             }
-            Document document;
-            try {
-                document = Jsoup.connect(currentPage.getFirst()).get();
-            } catch (IOException exc) {
-                System.out.println("Page request failed");
-                System.out.println("Requested page " + currentPage.getFirst());
-                System.out.println("Exception message " + exc.getMessage());
-                continue;
+            recordError(exc);
+            System.out.println("Checkpoint writing failed");
+            System.out.println("Checkpoint file " + checkpointFile);
+            System.out.println("Exception message " + exc.getMessage());
+        }
+    }
+
+    /**
+     * Function for passing statistics of the analyzed page to the memory and to the sink
+     *
+     * @param page      - page URL
+     * @param pageStats - occurrences of trie's terms
+     */
+    private void recordPageStats(String page, TermCounts pageStats) {
+        if (metrics != null) {
+            metrics.increment(Counter.PAGES);
+        }
+        if (isStatsKeptInMemory) {
+            pagesStats.accept(page, pageStats);
+        }
+        topPages.accept(page, pageStats);
+        if (statsSink != null) {
+            statsSink.accept(page, pageStats.getCounts());
+        }
+    }
+
+    /**
+     * Function that returns cleared counts for the next analyzed page
+     */
+    private TermCounts takeTermCounts() {
+        TermCounts termCounts = freeTermCounts.poll();
+        return termCounts != null ? termCounts : new TermCounts(trie.getTermsNum());
+    }
+
+    /**
+     * Function for returning counts of the recorded page for reuse, only occurred terms are cleared
+     *
+     * @param termCounts - counts which aren't used anymore
+     */
+    private void releaseTermCounts(TermCounts termCounts) {
+        termCounts.clear();
+        freeTermCounts.add(termCounts);
+    }
+
+    /**
+     * Function for requesting and analyzing page
+     *
+     * @param page          - page URL
+     * @param isLinksNeeded - whether links of the page are collected
+     * @return terms occurrences and canonical URLs of linked pages or null if request failed
+     */
+    private Pair<TermCounts, List<String>> analyzePage(String page, boolean isLinksNeeded) {
+        if (metrics == null) {
+            return requestAndAnalyzePage(page, isLinksNeeded);
+        }
+        metrics.addToGauge(Gauge.IN_FLIGHT_REQUESTS, 1);
+        try {
+            return requestAndAnalyzePage(page, isLinksNeeded);
+        } finally {
+            metrics.addToGauge(Gauge.IN_FLIGHT_REQUESTS, -1);
+        }
+    }
+
+    private Pair<TermCounts, List<String>> requestAndAnalyzePage(String page, boolean isLinksNeeded) {
+        if (responseCache != null || (pageFetcher != null && !isStreamingPageProcessing)) {
+            return analyzeDownloadedPage(page, isLinksNeeded);
+        }
+        if (isStreamingPageProcessing) {
+            return analyzePageStreaming(page, isLinksNeeded);
+        }
+        Element documentBody = requestPageBody(page);
+        if (documentBody == null) {
+            return null;
+        }
+        return analyzeDocument(page, documentBody, isLinksNeeded);
+    }
+
+    /**
+     * Function for analyzing page while it is read, without building the DOM
+     *
+     * @param page          - page URL
+     * @param isLinksNeeded - whether links of the page are collected
+     * @return terms occurrences and canonical URLs of linked pages or null if request failed
+     */
+    private Pair<TermCounts, List<String>> analyzePageStreaming(String page, boolean isLinksNeeded) {
+        long startTime = startStage();
+        try (FetchResponse response = getPageFetcher().fetch(page, Collections.emptyMap())) {
+            checkStatus(response, page);
+            finishStage(Stage.FETCH, startTime);
+            CountingInputStream body = new CountingInputStream(response.getBodyStream());
+            Pair<TermCounts, List<String>> analyzedPage = parsePageStreaming(body, response.getCharset(),
+                    response.getUrl(), isLinksNeeded);
+            if (metrics != null) {
+                metrics.add(Counter.BYTES, body.getCount());
             }
-            Element documentBody = document.body();
-            pagesStats.put(currentPage.getFirst(), trie.getOccurrencesNum(documentBody.text().toLowerCase()));
-            maxVisitedPagesLimit--;
-            if (currentPage.getSecond() == 0) {
-                continue;
+            return analyzedPage;
+        } catch (IOException exc) {
+            printRequestFailure(page, exc);
+            return null;
+        }
+    }
+
+    private Pair<TermCounts, List<String>> parsePageStreaming(InputStream body, String charset, String pageUrl,
+                                                         boolean isLinksNeeded) throws IOException {
+        TermCounts pageStats = takeTermCounts();
+        LinkExtractor.PageLinks pageLinks = linkExtractor.newPageLinks(pageUrl, urlCanonicalizer);
+        List<String> linkedPages = pageLinks.getLinks();
+        ContentFingerprint contentFingerprint = duplicateDetector != null ? new ContentFingerprint() : null;
+        try (Reader reader = new InputStreamReader(body, charset != null ? charset : "UTF-8")) {
+            StreamingPageParser streamingPageParser = new StreamingPageParser(trie.newMatcher(pageStats), pageUrl,
+                    isLinksNeeded ? pageLinks::add : null);
+            streamingPageParser.setContentFingerprint(contentFingerprint);
+            long startTime = startStage();
+            streamingPageParser.parse(reader);
+            finishStage(Stage.PARSE, startTime);
+        } catch (IOException | RuntimeException exc) {
+            releaseTermCounts(pageStats);
+            throw exc;
+        }
+        if (contentFingerprint != null) {
+            Pair<TermCounts, List<String>> duplicate = findDuplicate(contentFingerprint, pageStats);
+            if (duplicate != null) {
+                return duplicate;
+            }
+            duplicateDetector.add(pageUrl, contentFingerprint, linkedPages.size());
+        }
+        return new Pair<>(pageStats, linkedPages);
+    }
+
+    /**
+     * Function for downloading the whole page by the fetcher or through the response cache and analyzing it
+     *
+     * @param page          - page URL
+     * @param isLinksNeeded - whether links of the page are collected
+     * @return terms occurrences and canonical URLs of linked pages or null if request failed
+     */
+    private Pair<TermCounts, List<String>> analyzeDownloadedPage(String page, boolean isLinksNeeded) {
+        try {
+            return analyzeFetchedPage(fetchPage(page, isLinksNeeded), isLinksNeeded);
+        } catch (IOException exc) {
+            printRequestFailure(page, exc);
+            return null;
+        }
+    }
+
+    /**
+     * Downloaded page which isn't analyzed yet or page whose analysis is taken from the response cache
+     */
+    private static class FetchedPage {
+        private byte[] body;
+        private String charset;
+        private String url;
+
+        /**
+         * Response which is cached with the analysis or null
+         */
+        private CachedResponse responseToCache;
+
+        /**
+         * Analysis attached to the cached response or null if the body must be parsed
+         */
+        private Pair<TermCounts, List<String>> analyzedPage;
+    }
+
+    /**
+     * Function for downloading the whole body of the page. If the response cache is set, cached page is requested
+     * with its validators and is taken from the cache if the server answers that it isn't modified. Statistics
+     * and links attached to the cached response are reused if they were counted for the same terms
+     *
+     * @param page          - page URL
+     * @param isLinksNeeded - whether links of the page are collected
+     * @return downloaded page
+     * @throws IOException - request failed or the server answered with an error status
+     */
+    private FetchedPage fetchPage(String page, boolean isLinksNeeded) throws IOException {
+        FetchedPage fetchedPage = new FetchedPage();
+        CachedResponse cachedResponse = responseCache != null ? responseCache.get(page) : null;
+        Map<String, String> headers = new HashMap<>();
+        if (cachedResponse != null && cachedResponse.getETag() != null) {
+            headers.put("If-None-Match", cachedResponse.getETag());
+        }
+        if (cachedResponse != null && cachedResponse.getLastModified() != null) {
+            headers.put("If-Modified-Since", cachedResponse.getLastModified());
+        }
+        long startTime = startStage();
+        try (FetchResponse response = getPageFetcher().fetch(page, headers)) {
+            if (response.getStatusCode() == HTTP_NOT_MODIFIED && cachedResponse != null) {
+                finishStage(Stage.FETCH, startTime);
+                responseCache.recordHit();
+                String[] linkedPages = cachedResponse.getLinkedPages();
+                if (cachedResponse.hasPageStats(termsSignature) && (!isLinksNeeded || linkedPages != null)) {
+                    TermCounts pageStats = takeTermCounts();
+                    cachedResponse.addPageStatsTo(pageStats);
+                    fetchedPage.analyzedPage = new Pair<>(pageStats,
+                            isLinksNeeded ? Arrays.asList(linkedPages) : Collections.emptyList());
+                    return fetchedPage;
+                }
+                fetchedPage.body = cachedResponse.getBody();
+                fetchedPage.charset = cachedResponse.getCharset();
+                fetchedPage.url = cachedResponse.getUrl();
+                fetchedPage.responseToCache = cachedResponse;
+                return fetchedPage;
+            }
+            checkStatus(response, page);
+            fetchedPage.body = response.getBody();
+            finishStage(Stage.FETCH, startTime);
+            if (metrics != null) {
+                metrics.add(Counter.BYTES, fetchedPage.body.length);
+            }
+            fetchedPage.charset = response.getCharset();
+            fetchedPage.url = response.getUrl();
+            if (responseCache != null) {
+                responseCache.recordMiss();
+                CachedResponse newResponse = new CachedResponse(page, response.getHeader("ETag"),
+                        response.getHeader("Last-Modified"), fetchedPage.charset, fetchedPage.body);
+                if (newResponse.isRevalidatable()) {
+                    fetchedPage.responseToCache = newResponse;
+                }
+            }
+            return fetchedPage;
+        }
+    }
+
+    private PageFetcher getPageFetcher() {
+        return pageFetcher != null ? pageFetcher : new JsoupPageFetcher(maxBodySize);
+    }
+
+    private void checkStatus(FetchResponse response, String page) throws HttpStatusException {
+        if (response.getStatusCode() < 200 || response.getStatusCode() >= 300) {
+            throw new HttpStatusException("HTTP error fetching URL", response.getStatusCode(), page);
+        }
+    }
+
+    /**
+     * Function for analyzing the downloaded page and caching the response with its analysis
+     *
+     * @param fetchedPage   - downloaded page
+     * @param isLinksNeeded - whether links of the page are collected
+     * @return terms occurrences and canonical URLs of linked pages
+     */
+    private Pair<TermCounts, List<String>> analyzeFetchedPage(FetchedPage fetchedPage,
+                                                         boolean isLinksNeeded) throws IOException {
+        if (fetchedPage.analyzedPage != null) {
+            return fetchedPage.analyzedPage;
+        }
+        Pair<TermCounts, List<String>> analyzedPage = parsePage(fetchedPage.body, fetchedPage.charset, fetchedPage.url,
+                isLinksNeeded);
+        if (fetchedPage.responseToCache != null) {
+            cacheResponse(fetchedPage.responseToCache, analyzedPage, isLinksNeeded);
+        }
+        return analyzedPage;
+    }
+
+    /**
+     * Function for analyzing the downloaded body by the DOM or by the streaming parser
+     */
+    private Pair<TermCounts, List<String>> parsePage(byte[] body, String charset, String pageUrl,
+                                                boolean isLinksNeeded) throws IOException {
+        if (isStreamingPageProcessing) {
+            return parsePageStreaming(new ByteArrayInputStream(body), charset, pageUrl, isLinksNeeded);
+        }
+        long startTime = startStage();
+        Element documentBody = Jsoup.parse(new ByteArrayInputStream(body), charset, pageUrl).body();
+        finishStage(Stage.PARSE, startTime);
+        return analyzeDocument(pageUrl, documentBody, isLinksNeeded);
+    }
+
+    private void cacheResponse(CachedResponse response, Pair<TermCounts, List<String>> analyzedPage, boolean isLinksNeeded) {
+        response.setAnalysis(termsSignature, analyzedPage.getFirst(),
+                isLinksNeeded ? analyzedPage.getSecond().toArray(new String[0]) : null);
+        try {
+            responseCache.put(response);
+        } catch (IOException exc) {
+            recordError(exc);
+            System.out.println("Response caching failed");
+            System.out.println("Cached page " + response.getUrl());
+            System.out.println("Exception message " + exc.getMessage());
+        }
+    }
+
+    /**
+     * Function for counting terms occurrences and collecting links of the parsed page.
+     * If duplicate detection is on, the text is checked for duplicates before matching when the text is built,
+     * and after matching when terms are matched directly in text nodes
+     *
+     * @param page          - page URL
+     * @param documentBody  - body of the page
+     * @param isLinksNeeded - whether links of the page are collected
+     * @return terms occurrences and canonical URLs of linked pages
+     */
+    private Pair<TermCounts, List<String>> analyzeDocument(String page, Element documentBody, boolean isLinksNeeded) {
+        TermCounts pageStats = takeTermCounts();
+        ContentFingerprint contentFingerprint = duplicateDetector != null ? new ContentFingerprint() : null;
+        long startTime = startStage();
+        if (isStreamingTextMatching) {
+            DocumentTextMatcher.match(documentBody, trie.newMatcher(pageStats), contentFingerprint);
+        } else {
+            String text = documentBody.text().toLowerCase();
+            if (contentFingerprint != null) {
+                contentFingerprint.feed(text);
+            }
+            Pair<TermCounts, List<String>> duplicate = findDuplicate(contentFingerprint, pageStats);
+            if (duplicate != null) {
+                duplicateDetector.recordSkippedMatching(text.length());
+                finishStage(Stage.MATCH, startTime);
+                return duplicate;
+            }
+            if (text.length() >= parallelMatchingThreshold) {
+                trie.countOccurrencesInParallel(text, pageStats, Trie.DEFAULT_PARALLEL_CHUNK_LENGTH,
+                        ForkJoinPool.commonPool());
+            } else {
+                trie.countOccurrences(text, pageStats);
             }
-            addPagesToVisit(notAnalyzedPages, documentBody, currentPage.getSecond());
         }
+        finishStage(Stage.MATCH, startTime);
+        if (isStreamingTextMatching) {
+            Pair<TermCounts, List<String>> duplicate = findDuplicate(contentFingerprint, pageStats);
+            if (duplicate != null) {
+                return duplicate;
+            }
+        }
+        startTime = startStage();
+        List<String> linkedPages = isLinksNeeded ? getLinkedPages(page, documentBody) : Collections.emptyList();
+        finishStage(Stage.LINK_EXTRACTION, startTime);
+        if (contentFingerprint != null) {
+            duplicateDetector.add(page, contentFingerprint, linkedPages.size());
+        }
+        return new Pair<>(pageStats, linkedPages);
+    }
+
+    /**
+     * Function for finding the analyzed page with the same or similar text
+     *
+     * @param contentFingerprint - fingerprint of the text or null if duplicate detection is off
+     * @param pageStats          - counts of the page, they are replaced by statistics of the found page
+     * @return statistics of the found page without links, so links of the duplicate aren't expanded,
+     * or null if there isn't such page
+     */
+    private Pair<TermCounts, List<String>> findDuplicate(ContentFingerprint contentFingerprint,
+                                                         TermCounts pageStats) {
+        if (contentFingerprint == null) {
+            return null;
+        }
+        Pair<String, int[]> original = duplicateDetector.findDuplicate(contentFingerprint, pagesStats::getPageStats);
+        if (original == null) {
+            return null;
+        }
+        if (metrics != null) {
+            metrics.increment(Counter.DUPLICATES);
+        }
+        pageStats.clear();
+        pageStats.addAll(original.getSecond());
+        return new Pair<>(pageStats, Collections.emptyList());
+    }
+
+    /**
+     * Function for requesting page
+     *
+     * @param page - page URL
+     * @return body of the page or null if request failed
+     */
+    private Element requestPageBody(String page) {
+        Document document;
+        try {
+            long startTime = startStage();
+            document = Jsoup.connect(page).get();
+            finishStage(Stage.FETCH, startTime);
+        } catch (IOException exc) {
+            printRequestFailure(page, exc);
+            return null;
+        }
+        return document.body();
+    }
+
+    private void printRequestFailure(String page, IOException exc) {
+        recordError(exc);
+        System.out.println("Page request failed");
+        System.out.println("Requested page " + page);
+        System.out.println("Exception message " + exc.getMessage());
+    }
+
+    /**
+     * Function for reporting unexpected failure of the page processing by a worker thread,
+     * for example a corrupted body of the cached response, the page is skipped like a failed request
+     *
+     * @param page - page URL
+     * @param exc  - exception
+     */
+    private void printAnalysisFailure(String page, RuntimeException exc) {
+        recordError(exc);
+        System.out.println("Page analysis failed");
+        System.out.println("Analyzed page " + page);
+        System.out.println("Exception message " + exc.getMessage());
     }
 
-    private void addPagesToVisit(LinkedList<Pair<String, Integer>> notAnalyzedPages, Element documentBody,
-                                 int currentLinkDepth) {
-        for (Element element : documentBody.select("a")) {
-            String hrefAttr = element.attr("href");
-            if (!isSamePage(hrefAttr)) {
+    /**
+     * Function for adding links of the analyzed page to the frontier
+     *
+     * @param analyzedPage - terms occurrences and canonical URLs of linked pages
+     * @param linkDepth    - remaining link depth of linked pages
+     */
+    private void addPagesToVisit(Pair<TermCounts, List<String>> analyzedPage, int linkDepth) {
+        long startTime = startStage();
+        long pageHits = analyzedPage.getFirst().getTotal();
+        for (String page : analyzedPage.getSecond()) {
+            if (linkScorer == null) {
+                addPageToVisit(page, linkDepth);
                 continue;
             }
-            notAnalyzedPages.add(new Pair<>(element.absUrl("href"), currentLinkDepth - 1));
+            Integer anchorHits = anchorTermsHits.remove(page);
+            addPageToVisit(page, linkDepth, linkScorer.score(pageHits, anchorHits == null ? 0 : anchorHits, linkDepth));
+        }
+        finishStage(Stage.ENQUEUE, startTime);
+        if (metrics != null) {
+            metrics.setGauge(Gauge.FRONTIER_SIZE, frontier.size());
+        }
+    }
+
+    /**
+     * Function for adding page to the frontier or forwarding it to its node if it wasn't added before
+     *
+     * @param page      - page URL
+     * @param linkDepth - remaining link depth of the page
+     */
+    private void addPageToVisit(String page, int linkDepth) {
+        addPageToVisit(page, linkDepth, 0);
+    }
+
+    /**
+     * Function for adding page with the score to the frontier or forwarding it to its node if it wasn't added before.
+     * Score isn't forwarded
+     *
+     * @param page      - page URL
+     * @param linkDepth - remaining link depth of the page
+     * @param score     - relevance of the page
+     */
+    private void addPageToVisit(String page, int linkDepth, double score) {
+        if (!seenUrls.add(page)) {
+            return;
+        }
+        if (partitioner != null) {
+            int node = partitioner.getNode(page);
+            if (node != nodeId) {
+                forwardPage(node, page, linkDepth);
+                return;
+            }
+        }
+        if (linkScorer != null) {
+            frontier.add(page, linkDepth, score);
+        } else {
+            frontier.add(page, linkDepth);
         }
     }
 
-    private boolean isSamePage(String hrefAttr) {
-        return !(hrefAttr.isEmpty() || hrefAttr.startsWith("#"));
+    /**
+     * Function that returns start time of the stage or 0 if metrics aren't collected
+     */
+    private long startStage() {
+        return metrics != null ? System.nanoTime() : 0;
+    }
+
+    private void finishStage(Stage stage, long startTime) {
+        if (metrics != null) {
+            metrics.recordStage(stage, System.nanoTime() - startTime);
+        }
     }
 
-    private void writeHeaderToCSVFile(FileWriter fileWriter) throws IOException {
-        fileWriter.write("Page");
-        for (String term : terms) {
-            fileWriter.write(CSV_SEPARATOR + term);
+    private void recordError(Exception exc) {
+        if (metrics != null) {
+            metrics.recordError(exc);
         }
-        fileWriter.write(CSV_SEPARATOR + "Total");
-        fileWriter.write("\n");
     }
 
-    private void writePageStatsToCSVFile(FileWriter fileWriter, String page, Map<String, Integer> pageStats) throws IOException {
-        fileWriter.write(page);
-        for (int value : pageStats.values()) {
-            fileWriter.write(CSV_SEPARATOR + value);
+    private List<String> getLinkedPages(String page, Element documentBody) {
+        if (linkScorer == null) {
+            return linkExtractor.extractLinks(page, documentBody, urlCanonicalizer, null);
         }
-        fileWriter.write(CSV_SEPARATOR + getValuesSum(pageStats));
-        fileWriter.write("\n");
+        return linkExtractor.extractLinks(page, documentBody, urlCanonicalizer, (linkedPage, anchor) -> {
+            int anchorHits = trie.countTotalOccurrences(anchor.text().toLowerCase());
+            if (anchorHits > 0) {
+                anchorTermsHits.merge(linkedPage, anchorHits, Math::max);
+            }
+        });
     }
 
+    /**
+     * Function for writing statistics of all analyzed pages, columns follow {@link #getTermColumns()}
+     *
+     * @param filename - name of the file
+     */
     public void serializeAllStatsToCSV(String filename) throws IOException {
-        try (FileWriter fileWriter = new FileWriter(filename)) {
-            writeHeaderToCSVFile(fileWriter);
-            for (var pageStats : pagesStats.entrySet()) {
-                writePageStatsToCSVFile(fileWriter, pageStats.getKey(), pageStats.getValue());
-            }
+        try (CsvStatsSink csvStatsSink = new CsvStatsSink(new BufferedWriter(new FileWriter(filename)), getTermColumns())) {
+            pagesStats.forEach(csvStatsSink::accept);
         }
     }
 
     public void serializeTopPagesToCSV(String filename, int numPages) throws IOException {
-        List<Pair<String, Map<String, Integer>>> sortedPagesStats = getSortedPagesStats();
-        try (FileWriter fileWriter = new FileWriter(filename)) {
-            writeHeaderToCSVFile(fileWriter);
-            for (var pair : sortedPagesStats.subList(0, numPages)) {
-                writePageStatsToCSVFile(fileWriter, pair.getFirst(), pair.getSecond());
+        List<Pair<String, int[]>> sortedPagesStats = getTopPages(numPages);
+        try (CsvStatsSink csvStatsSink = new CsvStatsSink(new BufferedWriter(new FileWriter(filename)), getTermColumns())) {
+            for (var pair : sortedPagesStats) {
+                csvStatsSink.accept(pair.getFirst(), pair.getSecond());
             }
         }
     }
 
-    private int getValuesSum(Map<String, Integer> map) {
-        return map.values().stream().reduce(0, Integer::sum);
+    private int getValuesSum(int[] values) {
+        int sum = 0;
+        for (int value : values) {
+            sum += value;
+        }
+        return sum;
     }
 
     /**
@@ -148,9 +1606,24 @@ public class WebCrawler {
      * @return
      */
     public List<Pair<String, Map<String, Integer>>> getSortedPagesStats() {
-        return pagesStats.entrySet().stream().map((entry) -> new Pair<>(entry.getKey(), entry.getValue()))
-                .sorted(((p1, p2) -> getValuesSum(p2.getSecond()) - getValuesSum(p1.getSecond())
-                )).collect(Collectors.toList());
+        return pagesStats.getTopPages(pagesStats.size()).stream()
+                .map((pair) -> new Pair<>(pair.getFirst(), trie.getOccurrencesMap(pair.getSecond())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Function that returns pages with the most total hits. Pages tracked during the crawl are used
+     * if there are enough of them, otherwise the pages in memory are ranked in O(n log numPages) time
+     *
+     * @param numPages - maximum number of pages
+     * @return pages and their statistics from the most total hits to the least
+     */
+    private List<Pair<String, int[]>> getTopPages(int numPages) {
+        if (numPages <= topPages.getCapacity() || !isStatsKeptInMemory) {
+            List<Pair<String, int[]>> trackedPages = topPages.getTopPages();
+            return trackedPages.subList(0, Math.min(numPages, trackedPages.size()));
+        }
+        return pagesStats.getTopPages(numPages);
     }
 
     /**
@@ -160,12 +1633,13 @@ public class WebCrawler {
      */
     public void printTopPages(int numPages) {
         System.out.print("Page");
-        terms.forEach((term) -> System.out.print(" " + term));
+        getTermColumns().forEach((term) -> System.out.print(" " + term));
         System.out.println(" Total");
-        List<Pair<String, Map<String, Integer>>> sortedPagesStats = getSortedPagesStats();
-        sortedPagesStats.subList(0, numPages).forEach((pair -> {
+        getTopPages(numPages).forEach((pair -> {
             System.out.print(pair.getFirst());
-            pair.getSecond().values().forEach((value) -> System.out.print(" " + value));
+            for (int value : pair.getSecond()) {
+                System.out.print(" " + value);
+            }
             int totalHits = getValuesSum(pair.getSecond());
             System.out.println(" " + totalHits);
         }));
@@ -0,0 +1,122 @@
+package com.company.cache;
+
+import com.company.trie.TermCounts;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+public class ResponseCacheTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static final String BODY = "<html><body>cached page</body></html>";
+
+    private CachedResponse createResponse(String url) {
+        return new CachedResponse(url, "\"v1\"", "Mon, 01 Jan 2024 00:00:00 GMT", "UTF-8",
+                BODY.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testResponseIsStoredWithAnalysis() throws IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        ResponseCache responseCache = new ResponseCache(directory);
+        CachedResponse response = createResponse("http://host/a");
+        response.setAnalysis(42, new int[]{1, 2}, new String[]{"http://host/b"});
+        responseCache.put(response);
+        Assert.assertNull(responseCache.get("http://host/b"));
+
+        // the cache of the next run reads files of the directory
+        CachedResponse cachedResponse = new ResponseCache(directory).get("http://host/a");
+        Assert.assertEquals("\"v1\"", cachedResponse.getETag());
+        Assert.assertEquals("Mon, 01 Jan 2024 00:00:00 GMT", cachedResponse.getLastModified());
+        Assert.assertEquals("UTF-8", cachedResponse.getCharset());
+        Assert.assertEquals(BODY, new String(cachedResponse.getBody(), StandardCharsets.UTF_8));
+        Assert.assertArrayEquals(new int[]{1, 2}, cachedResponse.getPageStats(42));
+        Assert.assertNull(cachedResponse.getPageStats(43));
+        Assert.assertArrayEquals(new String[]{"http://host/b"}, cachedResponse.getLinkedPages());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedResponsesAreEvicted() throws IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        ResponseCache responseCache = new ResponseCache(directory, Long.MAX_VALUE);
+        responseCache.put(createResponse("http://host/a"));
+        long responseSize = responseCache.getSizeBytes();
+        responseCache = new ResponseCache(directory, responseSize * 2);
+        responseCache.put(createResponse("http://host/b"));
+        Assert.assertNotNull(responseCache.get("http://host/a"));
+        responseCache.put(createResponse("http://host/c"));
+        Assert.assertEquals(2, responseCache.getResponsesNum());
+        Assert.assertTrue(responseCache.getSizeBytes() <= responseSize * 2);
+        Assert.assertNotNull(responseCache.get("http://host/a"));
+        Assert.assertNull(responseCache.get("http://host/b"));
+        Assert.assertNotNull(responseCache.get("http://host/c"));
+    }
+
+    @Test
+    public void testHitAndMissRatios() throws IOException {
+        ResponseCache responseCache = new ResponseCache(temporaryFolder.getRoot().toPath());
+        Assert.assertEquals(0, responseCache.getHitRatio(), 0);
+        responseCache.recordHit();
+        responseCache.recordHit();
+        responseCache.recordHit();
+        responseCache.recordMiss();
+        Assert.assertEquals(0.75, responseCache.getHitRatio(), 1e-9);
+        Assert.assertEquals(0.25, responseCache.getMissRatio(), 1e-9);
+    }
+
+    @Test
+    public void testSparseStatsAreStored() throws IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        TermCounts pageStats = new TermCounts(1000);
+        pageStats.add(700, 3);
+        pageStats.add(5, 1);
+        CachedResponse response = createResponse("http://host/a");
+        response.setAnalysis(42, pageStats, null);
+        new ResponseCache(directory).put(response);
+
+        CachedResponse cachedResponse = new ResponseCache(directory).get("http://host/a");
+        Assert.assertTrue(cachedResponse.hasPageStats(42));
+        Assert.assertFalse(cachedResponse.hasPageStats(43));
+        TermCounts cachedPageStats = new TermCounts(1000);
+        cachedResponse.addPageStatsTo(cachedPageStats);
+        Assert.assertArrayEquals(pageStats.getCounts(), cachedPageStats.getCounts());
+        Assert.assertEquals(4, cachedPageStats.getTotal());
+        Assert.assertArrayEquals(pageStats.getCounts(), cachedResponse.getPageStats(42));
+        Assert.assertNull(cachedResponse.getLinkedPages());
+        // two pairs of term id and count instead of a thousand counts
+        try (Stream<Path> files = Files.list(directory)) {
+            Assert.assertTrue(Files.size(files.findFirst().get()) < 1000);
+        }
+    }
+
+    @Test
+    public void testReadResponseIsRecentInNextRun() throws IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        ResponseCache responseCache = new ResponseCache(directory, Long.MAX_VALUE);
+        responseCache.put(createResponse("http://host/a"));
+        long responseSize = responseCache.getSizeBytes();
+        responseCache.put(createResponse("http://host/b"));
+        // the response of "a" is older than the response of "b" until it is read
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+            }
+        }
+        responseCache.put(createResponse("http://host/b"));
+        Assert.assertNotNull(responseCache.get("http://host/a"));
+
+        responseCache = new ResponseCache(directory, responseSize);
+        Assert.assertEquals(1, responseCache.getResponsesNum());
+        Assert.assertNotNull(responseCache.get("http://host/a"));
+        Assert.assertNull(responseCache.get("http://host/b"));
+    }
+}
@@ -0,0 +1,106 @@
+package com.company.dedup;
+
+import com.company.support.Pair;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class DuplicateDetectorTest {
+    private static final String TEXT = "Crawlers often meet the same article under several URLs: mirrors, "
+            + "print versions, session parameters and tracking links lead to pages whose text differs "
+            + "only in a date, a counter or a few words of the navigation";
+
+    private ContentFingerprint fingerprint(String text) {
+        ContentFingerprint fingerprint = new ContentFingerprint();
+        fingerprint.feed(text);
+        return fingerprint;
+    }
+
+    private final Map<String, int[]> pagesStats = new HashMap<>();
+
+    @Test
+    public void testExactDuplicate() {
+        DuplicateDetector duplicateDetector = new DuplicateDetector();
+        int[] pageStats = {1, 2};
+        pagesStats.put("http://host/a", pageStats);
+        duplicateDetector.add("http://host/a", fingerprint(TEXT), 5);
+        // the fingerprint doesn't depend on the case
+        Pair<String, int[]> duplicate = duplicateDetector.findDuplicate(fingerprint(TEXT.toUpperCase()),
+                pagesStats::get);
+        Assert.assertEquals("http://host/a", duplicate.getFirst());
+        Assert.assertSame(pageStats, duplicate.getSecond());
+        Assert.assertEquals(1, duplicateDetector.getExactDuplicatesNum());
+        Assert.assertEquals(0, duplicateDetector.getNearDuplicatesNum());
+        Assert.assertEquals(5, duplicateDetector.getSkippedLinksNum());
+    }
+
+    /**
+     * Function that returns text of an article with numbered words, the given words are replaced by dates
+     */
+    private String article(int... changedWords) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            boolean isChanged = false;
+            for (int changedWord : changedWords) {
+                isChanged |= changedWord == i;
+            }
+            text.append(isChanged ? "2024-01-" + i : "word" + i).append(' ');
+        }
+        return text.toString();
+    }
+
+    @Test
+    public void testNearDuplicate() {
+        DuplicateDetector duplicateDetector = new DuplicateDetector();
+        pagesStats.put("http://host/a", new int[]{1, 2});
+        duplicateDetector.add("http://host/a", fingerprint(article()), 5);
+        Pair<String, int[]> duplicate = duplicateDetector.findDuplicate(fingerprint(article(10, 250)), pagesStats::get);
+        Assert.assertEquals("http://host/a", duplicate.getFirst());
+        Assert.assertEquals(0, duplicateDetector.getExactDuplicatesNum());
+        Assert.assertEquals(1, duplicateDetector.getNearDuplicatesNum());
+    }
+
+    @Test
+    public void testDifferentTextIsNotDuplicate() {
+        DuplicateDetector duplicateDetector = new DuplicateDetector();
+        pagesStats.put("http://host/a", new int[]{1, 2});
+        duplicateDetector.add("http://host/a", fingerprint(TEXT), 5);
+        Assert.assertNull(duplicateDetector.findDuplicate(fingerprint("Terms are matched by the automaton "
+                + "built from the trie, every character of the page text moves it along one transition, "
+                + "and failure links are followed when there is no such transition"), pagesStats::get));
+        // short texts are checked only for exact duplicates
+        pagesStats.put("http://host/b", new int[]{0, 0});
+        duplicateDetector.add("http://host/b", fingerprint("one two three"), 0);
+        Assert.assertNull(duplicateDetector.findDuplicate(fingerprint("one two four"), pagesStats::get));
+        Assert.assertEquals(2, duplicateDetector.getPagesNum());
+        Assert.assertEquals(0, duplicateDetector.getSkippedLinksNum());
+    }
+
+    @Test
+    public void testDuplicateWithoutStoredStatsIsNotCounted() {
+        DuplicateDetector duplicateDetector = new DuplicateDetector();
+        duplicateDetector.add("http://host/a", fingerprint(TEXT), 5);
+        Assert.assertNull(duplicateDetector.findDuplicate(fingerprint(TEXT), pagesStats::get));
+        Assert.assertEquals(0, duplicateDetector.getExactDuplicatesNum());
+        Assert.assertEquals(0, duplicateDetector.getSkippedLinksNum());
+        pagesStats.put("http://host/a", new int[]{3});
+        Assert.assertArrayEquals(new int[]{3}, duplicateDetector.findDuplicate(fingerprint(TEXT), pagesStats::get)
+                .getSecond());
+        Assert.assertEquals(1, duplicateDetector.getExactDuplicatesNum());
+    }
+
+    @Test
+    public void testTextlessPagesAreNotDuplicates() {
+        DuplicateDetector duplicateDetector = new DuplicateDetector();
+        pagesStats.put("http://host/gallery", new int[]{0, 0});
+        duplicateDetector.add("http://host/gallery", fingerprint(""), 12);
+        Assert.assertNull(duplicateDetector.findDuplicate(fingerprint(""), pagesStats::get));
+        duplicateDetector.add("http://host/links", fingerprint(""), 3);
+        Assert.assertNull(duplicateDetector.findDuplicate(fingerprint("two words"), pagesStats::get));
+        Assert.assertEquals(2, duplicateDetector.getPagesNum());
+        Assert.assertEquals(0, duplicateDetector.getExactDuplicatesNum());
+        Assert.assertEquals(0, duplicateDetector.getSkippedLinksNum());
+    }
+}
@@ -0,0 +1,47 @@
+package com.company.distributed;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HostPartitionerTest {
+    private static final int HOSTS_NUM = 10000;
+
+    @Test
+    public void testPagesOfHostHaveSameNode() {
+        HostPartitioner partitioner = new HostPartitioner(4);
+        Assert.assertEquals(partitioner.getNode("http://example.com/a"), partitioner.getNode("http://EXAMPLE.com/b?c=d"));
+        Assert.assertEquals(partitioner.getHostNode("example.com"), partitioner.getNode("http://example.com/"));
+        Assert.assertEquals(partitioner.getHostNode("example.com:8080"), partitioner.getNode("http://example.com:8080/"));
+    }
+
+    @Test
+    public void testHostsAreSpreadEvenly() {
+        HostPartitioner partitioner = new HostPartitioner(4);
+        int[] hostsNums = new int[4];
+        for (int i = 0; i < HOSTS_NUM; i++) {
+            hostsNums[partitioner.getHostNode("host" + i + ".com")]++;
+        }
+        for (int hostsNum : hostsNums) {
+            Assert.assertTrue(hostsNum > HOSTS_NUM / 4 / 2);
+            Assert.assertTrue(hostsNum < HOSTS_NUM / 4 * 2);
+        }
+    }
+
+    @Test
+    public void testAddedNodeTakesHostsOnlyFromOthers() {
+        HostPartitioner partitioner = new HostPartitioner(4);
+        HostPartitioner extendedPartitioner = new HostPartitioner(5);
+        int movedHostsNum = 0;
+        for (int i = 0; i < HOSTS_NUM; i++) {
+            String host = "host" + i + ".com";
+            int node = partitioner.getHostNode(host);
+            int newNode = extendedPartitioner.getHostNode(host);
+            if (node != newNode) {
+                Assert.assertEquals(4, newNode);
+                movedHostsNum++;
+            }
+        }
+        Assert.assertTrue(movedHostsNum > HOSTS_NUM / 5 / 2);
+        Assert.assertTrue(movedHostsNum < HOSTS_NUM / 5 * 2);
+    }
+}
@@ -0,0 +1,31 @@
+package com.company.distributed;
+
+import com.company.support.Pair;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+public class LoopbackTransportTest {
+    @Test
+    public void testCrawlIsFinishedWhenAllNodesAreIdleAndBatchesReceived() throws InterruptedException {
+        LoopbackTransport transport = new LoopbackTransport(2);
+        Assert.assertFalse(transport.isFinished());
+        transport.send(1, Collections.singletonList(new Pair<>("http://b/", 3)));
+        transport.setIdle(0);
+        transport.setIdle(1);
+        // the batch is sent but not received
+        Assert.assertFalse(transport.isFinished());
+        Assert.assertNull(transport.receive(0, 0));
+        List<Pair<String, Integer>> pages = transport.receive(1, 0);
+        Assert.assertEquals("http://b/", pages.get(0).getFirst());
+        Assert.assertEquals(Integer.valueOf(3), pages.get(0).getSecond());
+        // the receiving node is busy until it analyzes the batch
+        Assert.assertFalse(transport.isFinished());
+        transport.setIdle(1);
+        Assert.assertTrue(transport.isFinished());
+        Assert.assertEquals(1, transport.getSentBatchesNum());
+        Assert.assertEquals(1, transport.getSentPagesNum());
+    }
+}
@@ -0,0 +1,146 @@
+package com.company.fetch;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+public class HttpClientPageFetcherTest {
+    private static final String BODY = "<html><body>compressed page</body></html>";
+
+    private HttpServer server;
+
+    private String baseUrl;
+
+    private final CountDownLatch stallingFinished = new CountDownLatch(1);
+
+    private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/gzip", exchange -> {
+            try {
+                ByteArrayOutputStream compressedBody = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzipOutput = new GZIPOutputStream(compressedBody)) {
+                    gzipOutput.write(BODY.getBytes(StandardCharsets.UTF_8));
+                }
+                String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                if (acceptEncoding == null || !acceptEncoding.contains("gzip")) {
+                    exchange.sendResponseHeaders(406, -1);
+                    return;
+                }
+                exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                exchange.getResponseHeaders().add("ETag", "\"v1\"");
+                exchange.sendResponseHeaders(200, compressedBody.size());
+                try (OutputStream output = exchange.getResponseBody()) {
+                    compressedBody.writeTo(output);
+                }
+            } finally {
+                exchange.close();
+            }
+        });
+        server.createContext("/validated", exchange -> {
+            try {
+                boolean isValid = "\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"));
+                exchange.sendResponseHeaders(isValid ? 304 : 404, -1);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.createContext("/redirect", exchange -> {
+            try {
+                exchange.getResponseHeaders().add("Location", baseUrl + "/gzip");
+                exchange.sendResponseHeaders(302, -1);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.createContext("/stalling", exchange -> {
+            try {
+                exchange.sendResponseHeaders(200, 0);
+                OutputStream output = exchange.getResponseBody();
+                output.write(BODY.substring(0, 10).getBytes(StandardCharsets.UTF_8));
+                output.flush();
+                stallingFinished.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.setExecutor(serverExecutor);
+        server.start();
+        baseUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    @After
+    public void stopServer() {
+        stallingFinished.countDown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testCompressedBodyIsDecoded() throws IOException {
+        HttpClientPageFetcher pageFetcher = new HttpClientPageFetcher();
+        FetchResponse response = pageFetcher.fetch(baseUrl + "/redirect", Collections.emptyMap());
+        Assert.assertEquals(200, response.getStatusCode());
+        Assert.assertEquals(baseUrl + "/gzip", response.getUrl());
+        Assert.assertEquals("UTF-8", response.getCharset());
+        Assert.assertEquals("\"v1\"", response.getHeader("etag"));
+        Assert.assertEquals(BODY, new String(response.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testBodyIsTruncatedToMaxBodySize() throws IOException {
+        HttpClientPageFetcher pageFetcher = new HttpClientPageFetcher(1000, 1000, 10);
+        FetchResponse response = pageFetcher.fetch(baseUrl + "/gzip", Collections.emptyMap());
+        Assert.assertEquals(BODY.substring(0, 10), new String(response.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testHeadersAndErrorStatuses() throws IOException {
+        HttpClientPageFetcher pageFetcher = new HttpClientPageFetcher();
+        try (FetchResponse response = pageFetcher.fetch(baseUrl + "/validated",
+                Collections.singletonMap("If-None-Match", "\"v1\""))) {
+            Assert.assertEquals(304, response.getStatusCode());
+        }
+        try (FetchResponse response = pageFetcher.fetch(baseUrl + "/validated", Collections.emptyMap())) {
+            Assert.assertEquals(404, response.getStatusCode());
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testStalledBodyTimesOut() throws IOException {
+        HttpClientPageFetcher pageFetcher = new HttpClientPageFetcher(1000, 1000, 300, 0);
+        try (FetchResponse response = pageFetcher.fetch(baseUrl + "/stalling", Collections.emptyMap())) {
+            Assert.assertEquals(200, response.getStatusCode());
+            response.getBody();
+            Assert.fail("Stalled body is read");
+        } catch (HttpTimeoutException exc) {
+            Assert.assertTrue(exc.getMessage(), exc.getMessage().contains("/stalling"));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testMalformedUrl() throws IOException {
+        new HttpClientPageFetcher().fetch("not a url", Collections.emptyMap());
+    }
+}
@@ -0,0 +1,53 @@
+package com.company.frontier;
+
+import com.company.support.Pair;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class BestFirstFrontierTest {
+    @Test
+    public void testPagesInScoreOrder() {
+        BestFirstFrontier frontier = new BestFirstFrontier(10);
+        frontier.add("http://host/a", 1, 1);
+        frontier.add("http://host/b", 2, 5);
+        frontier.add("http://host/c", 3, 3);
+        Assert.assertEquals(3, frontier.size());
+        Assert.assertEquals(0, frontier.getDelayUntilReady());
+        Pair<String, Integer> page = frontier.poll();
+        Assert.assertEquals("http://host/b", page.getFirst());
+        Assert.assertEquals(2, (int) page.getSecond());
+        Assert.assertEquals("http://host/c", frontier.poll().getFirst());
+        Assert.assertEquals("http://host/a", frontier.poll().getFirst());
+        Assert.assertTrue(frontier.isEmpty());
+        Assert.assertNull(frontier.poll());
+    }
+
+    @Test
+    public void testEqualScoresInFifoOrder() {
+        BestFirstFrontier frontier = new BestFirstFrontier(10);
+        frontier.add("http://host/a", 1);
+        frontier.add("http://host/b", 1);
+        frontier.add("http://host/c", 1, 0);
+        List<String> pages = new ArrayList<>();
+        frontier.forEachPage((page, depth) -> pages.add(page));
+        Assert.assertEquals(Arrays.asList("http://host/a", "http://host/b", "http://host/c"), pages);
+        Assert.assertEquals("http://host/a", frontier.poll().getFirst());
+    }
+
+    @Test
+    public void testLowestScoreIsEvicted() {
+        BestFirstFrontier frontier = new BestFirstFrontier(2);
+        frontier.add("http://host/a", 1, 2);
+        frontier.add("http://host/b", 1, 1);
+        frontier.add("http://host/c", 1, 3);
+        frontier.add("http://host/d", 1, 0);
+        Assert.assertEquals(2, frontier.size());
+        Assert.assertEquals(2, frontier.getEvictedNum());
+        Assert.assertEquals("http://host/c", frontier.poll().getFirst());
+        Assert.assertEquals("http://host/a", frontier.poll().getFirst());
+    }
+}
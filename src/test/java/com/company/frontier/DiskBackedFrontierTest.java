@@ -0,0 +1,162 @@
+package com.company.frontier;
+
+import com.company.support.Pair;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class DiskBackedFrontierTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private String getPage(int number) {
+        return "http://host/страница" + number;
+    }
+
+    private long getSegmentFilesNum() throws IOException {
+        try (Stream<Path> paths = Files.walk(temporaryFolder.getRoot().toPath().resolve("frontier"))) {
+            return paths.filter(Files::isRegularFile).count();
+        }
+    }
+
+    @Test
+    public void testFifoOrderWithSpilledPages() throws IOException {
+        int pagesNum = 10000;
+        try (DiskBackedFrontier frontier = new DiskBackedFrontier(
+                temporaryFolder.getRoot().toPath().resolve("frontier"), 100, 4096)) {
+            for (int i = 0; i < pagesNum; i++) {
+                frontier.add(getPage(i), i % 20 - 10);
+            }
+            Assert.assertEquals(pagesNum, frontier.size());
+            Assert.assertEquals(pagesNum - 100, frontier.getSpilledPagesNum());
+            Assert.assertTrue(frontier.getSegmentsNum() > 1);
+            for (int i = 0; i < pagesNum; i++) {
+                Pair<String, Integer> page = frontier.poll();
+                Assert.assertEquals(getPage(i), page.getFirst());
+                Assert.assertEquals(i % 20 - 10, (int) page.getSecond());
+            }
+            Assert.assertTrue(frontier.isEmpty());
+            Assert.assertNull(frontier.poll());
+            Assert.assertEquals(0, getSegmentFilesNum());
+        }
+    }
+
+    @Test
+    public void testAddingWhilePolling() throws IOException {
+        try (DiskBackedFrontier frontier = new DiskBackedFrontier(
+                temporaryFolder.getRoot().toPath().resolve("frontier"), 3, 64)) {
+            int added = 0;
+            int polled = 0;
+            for (int iteration = 0; iteration < 1000; iteration++) {
+                frontier.add(getPage(added++), 1);
+                frontier.add(getPage(added++), 1);
+                Assert.assertEquals(getPage(polled++), frontier.poll().getFirst());
+            }
+            while (!frontier.isEmpty()) {
+                Assert.assertEquals(getPage(polled++), frontier.poll().getFirst());
+            }
+            Assert.assertEquals(added, polled);
+        }
+    }
+
+    @Test
+    public void testPageLongerThanSegment() throws IOException {
+        String longPage = "http://host/" + "a".repeat(1000);
+        try (DiskBackedFrontier frontier = new DiskBackedFrontier(
+                temporaryFolder.getRoot().toPath().resolve("frontier"), 1, 64)) {
+            frontier.add(getPage(0), 0);
+            frontier.add(longPage, 0);
+            frontier.add(getPage(1), 0);
+            Assert.assertEquals(getPage(0), frontier.poll().getFirst());
+            Assert.assertEquals(longPage, frontier.poll().getFirst());
+            Assert.assertEquals(getPage(1), frontier.poll().getFirst());
+        }
+    }
+
+    @Test
+    public void testCloseDeletesSegments() throws IOException {
+        DiskBackedFrontier frontier = new DiskBackedFrontier(
+                temporaryFolder.getRoot().toPath().resolve("frontier"), 1, 64);
+        for (int i = 0; i < 100; i++) {
+            frontier.add(getPage(i), 0);
+        }
+        Assert.assertTrue(getSegmentFilesNum() > 0);
+        frontier.close();
+        Assert.assertEquals(0, getSegmentFilesNum());
+        Assert.assertTrue(frontier.isEmpty());
+    }
+
+    @Test
+    public void testForEachPageDoesNotRemovePages() throws IOException {
+        try (DiskBackedFrontier frontier = new DiskBackedFrontier(
+                temporaryFolder.getRoot().toPath().resolve("frontier"), 5, 128)) {
+            for (int i = 0; i < 50; i++) {
+                frontier.add(getPage(i), i);
+            }
+            frontier.poll();
+            frontier.poll();
+            List<String> pages = new ArrayList<>();
+            frontier.forEachPage((page, depth) -> pages.add(page + " " + depth));
+            Assert.assertEquals(48, pages.size());
+            for (int i = 2; i < 50; i++) {
+                Assert.assertEquals(getPage(i) + " " + i, pages.get(i - 2));
+                Assert.assertEquals(getPage(i), frontier.poll().getFirst());
+            }
+        }
+    }
+
+    @Test
+    public void testSnapshotIsNotChangedByFrontier() throws IOException {
+        try (DiskBackedFrontier frontier = new DiskBackedFrontier(
+                temporaryFolder.getRoot().toPath().resolve("frontier"), 5, 128)) {
+            for (int i = 0; i < 50; i++) {
+                frontier.add(getPage(i), i);
+            }
+            frontier.poll();
+            FrontierSnapshot snapshot = frontier.snapshot();
+            for (int i = 0; i < 30; i++) {
+                frontier.poll();
+            }
+            for (int i = 50; i < 100; i++) {
+                frontier.add(getPage(i), i);
+            }
+            Assert.assertEquals(49, snapshot.size());
+            List<String> pages = new ArrayList<>();
+            snapshot.forEachPage((page, depth) -> pages.add(page + " " + depth));
+            Assert.assertEquals(49, pages.size());
+            for (int i = 1; i < 50; i++) {
+                Assert.assertEquals(getPage(i) + " " + i, pages.get(i - 1));
+            }
+        }
+    }
+
+    @Test
+    public void testFrontiersInSameDirectory() throws IOException {
+        Path directory = temporaryFolder.getRoot().toPath().resolve("frontier");
+        // file left by a crashed crawl
+        Files.createDirectories(directory);
+        Files.write(directory.resolve("frontier-0.seg"), new byte[]{1, 2, 3});
+        try (DiskBackedFrontier first = new DiskBackedFrontier(directory, 1, 64);
+             DiskBackedFrontier second = new DiskBackedFrontier(directory, 1, 64)) {
+            for (int i = 0; i < 10; i++) {
+                first.add(getPage(i), 1);
+                second.add(getPage(i + 10), 2);
+            }
+            Assert.assertTrue(first.getSpilledPagesNum() > 0);
+            Assert.assertTrue(second.getSpilledPagesNum() > 0);
+            for (int i = 0; i < 10; i++) {
+                Assert.assertEquals(getPage(i), first.poll().getFirst());
+                Assert.assertEquals(getPage(i + 10), second.poll().getFirst());
+            }
+        }
+        Assert.assertEquals(1, getSegmentFilesNum());
+    }
+}
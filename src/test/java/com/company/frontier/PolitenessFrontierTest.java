@@ -0,0 +1,156 @@
+package com.company.frontier;
+
+import com.company.support.Pair;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class PolitenessFrontierTest {
+    private final static long MIN_HOST_DELAY_MILLIS = 100;
+
+    private long now;
+    private PolitenessFrontier frontier;
+
+    @Before
+    public void setup() {
+        now = 0;
+        frontier = new PolitenessFrontier(MIN_HOST_DELAY_MILLIS, 1, () -> now);
+    }
+
+    private void advanceMillis(long millis) {
+        now += millis * 1_000_000;
+    }
+
+    @Test
+    public void testEmptyFrontier() {
+        Assert.assertTrue(frontier.isEmpty());
+        Assert.assertNull(frontier.poll());
+        Assert.assertEquals(0, frontier.getDelayUntilReady());
+    }
+
+    @Test
+    public void testPagesOfOneHostInFifoOrder() {
+        frontier.add("http://host/a", 2);
+        frontier.add("http://host/b", 1);
+        Assert.assertEquals(2, frontier.size());
+        Pair<String, Integer> page = frontier.poll();
+        Assert.assertEquals("http://host/a", page.getFirst());
+        Assert.assertEquals(2, (int) page.getSecond());
+        frontier.pageDone(page.getFirst());
+        advanceMillis(MIN_HOST_DELAY_MILLIS);
+        Assert.assertEquals("http://host/b", frontier.poll().getFirst());
+        Assert.assertTrue(frontier.isEmpty());
+    }
+
+    @Test
+    public void testMinHostDelay() {
+        frontier.add("http://host/a", 0);
+        frontier.add("http://HOST/b", 0);
+        frontier.pageDone(frontier.poll().getFirst());
+        Assert.assertNull(frontier.poll());
+        Assert.assertEquals(MIN_HOST_DELAY_MILLIS, frontier.getDelayUntilReady());
+        advanceMillis(MIN_HOST_DELAY_MILLIS - 1);
+        Assert.assertNull(frontier.poll());
+        Assert.assertEquals(1, frontier.getDelayUntilReady());
+        advanceMillis(1);
+        Assert.assertEquals("http://HOST/b", frontier.poll().getFirst());
+    }
+
+    @Test
+    public void testDelayIsKeptWhenHostQueueBecomesEmpty() {
+        frontier.add("http://host/a", 0);
+        frontier.pageDone(frontier.poll().getFirst());
+        frontier.add("http://host/b", 0);
+        Assert.assertNull(frontier.poll());
+        advanceMillis(MIN_HOST_DELAY_MILLIS);
+        Assert.assertEquals("http://host/b", frontier.poll().getFirst());
+    }
+
+    @Test
+    public void testReadyHostIsReturned() {
+        frontier.add("http://first/a", 0);
+        frontier.add("http://first/b", 0);
+        frontier.add("http://second/a", 0);
+        frontier.add("http://second:8080/a", 0);
+        Assert.assertEquals(3, frontier.getHostsNum());
+        Assert.assertEquals("http://first/a", frontier.poll().getFirst());
+        Assert.assertEquals("http://second/a", frontier.poll().getFirst());
+        Assert.assertEquals("http://second:8080/a", frontier.poll().getFirst());
+        Assert.assertNull(frontier.poll());
+        frontier.pageDone("http://first/a");
+        advanceMillis(MIN_HOST_DELAY_MILLIS);
+        Assert.assertEquals("http://first/b", frontier.poll().getFirst());
+    }
+
+    @Test
+    public void testPagesWithoutHost() {
+        frontier.add("url1", 0);
+        frontier.add("not an url", 0);
+        Assert.assertEquals(1, frontier.getHostsNum());
+        Assert.assertEquals("url1", frontier.poll().getFirst());
+    }
+
+    @Test
+    public void testForEachPageInSchedulingOrder() {
+        frontier.add("http://first/a", 0);
+        frontier.add("http://second/a", 1);
+        frontier.add("http://first/b", 2);
+        frontier.poll();
+        List<String> pages = new ArrayList<>();
+        frontier.forEachPage((page, depth) -> pages.add(page + " " + depth));
+        Assert.assertEquals(Arrays.asList("http://second/a 1", "http://first/b 2"), pages);
+        Assert.assertEquals(2, frontier.size());
+        frontier.pageDone("http://first/a");
+        pages.clear();
+        frontier.forEachPage((page, depth) -> pages.add(page + " " + depth));
+        Assert.assertEquals(Arrays.asList("http://second/a 1", "http://first/b 2"), pages);
+    }
+
+    @Test
+    public void testDelayIsCountedFromRequestEnd() {
+        frontier.add("http://host/a", 0);
+        frontier.add("http://host/b", 0);
+        Pair<String, Integer> page = frontier.poll();
+        advanceMillis(MIN_HOST_DELAY_MILLIS * 5);
+        // the request is still in flight
+        Assert.assertNull(frontier.poll());
+        Assert.assertEquals(Long.MAX_VALUE, frontier.getDelayUntilReady());
+        frontier.pageDone(page.getFirst());
+        Assert.assertNull(frontier.poll());
+        Assert.assertEquals(MIN_HOST_DELAY_MILLIS, frontier.getDelayUntilReady());
+        advanceMillis(MIN_HOST_DELAY_MILLIS);
+        Assert.assertEquals("http://host/b", frontier.poll().getFirst());
+    }
+
+    @Test
+    public void testMaxInFlightPerHost() {
+        frontier = new PolitenessFrontier(0, 2, () -> now);
+        for (String page : Arrays.asList("http://host/a", "http://host/b", "http://host/c", "http://other/a")) {
+            frontier.add(page, 0);
+        }
+        Assert.assertEquals("http://host/a", frontier.poll().getFirst());
+        Assert.assertEquals("http://other/a", frontier.poll().getFirst());
+        Assert.assertEquals("http://host/b", frontier.poll().getFirst());
+        Assert.assertNull(frontier.poll());
+        frontier.pageDone("http://host/a");
+        Assert.assertEquals("http://host/c", frontier.poll().getFirst());
+    }
+
+    @Test
+    public void testIdleHostQueuesAreRemoved() {
+        for (int i = 0; i < 10; i++) {
+            String page = "http://host" + i + "/a";
+            frontier.add(page, 0);
+            frontier.pageDone(frontier.poll().getFirst());
+        }
+        Assert.assertEquals(10, frontier.getHostQueuesNum());
+        advanceMillis(MIN_HOST_DELAY_MILLIS);
+        frontier.add("http://host0/b", 0);
+        Assert.assertEquals(1, frontier.getHostQueuesNum());
+        Assert.assertEquals("http://host0/b", frontier.poll().getFirst());
+    }
+}
@@ -0,0 +1,95 @@
+package com.company.frontier;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.HashSet;
+import java.util.Set;
+
+public class SeenUrlSetTest {
+    private final static int URLS_NUM = 100000;
+
+    private String getUrl(int number) {
+        return "http://host" + number % 100 + "/page" + number;
+    }
+
+    @Test
+    public void testFingerprintSetIsExact() {
+        SeenUrlSet seenUrls = new FingerprintSeenUrlSet(16);
+        for (int i = 0; i < URLS_NUM; i++) {
+            Assert.assertTrue(seenUrls.add(getUrl(i)));
+        }
+        for (int i = 0; i < URLS_NUM; i++) {
+            Assert.assertFalse(seenUrls.add(getUrl(i)));
+            Assert.assertTrue(seenUrls.contains(getUrl(i)));
+        }
+        Assert.assertFalse(seenUrls.contains(getUrl(URLS_NUM)));
+        Assert.assertEquals(URLS_NUM, seenUrls.size());
+    }
+
+    @Test
+    public void testBloomFilterHasNoFalseNegatives() {
+        SeenUrlSet seenUrls = new BloomFilterSeenUrlSet(URLS_NUM, 0.01);
+        Set<String> added = new HashSet<>();
+        for (int i = 0; i < URLS_NUM; i++) {
+            if (seenUrls.add(getUrl(i))) {
+                added.add(getUrl(i));
+            }
+        }
+        for (int i = 0; i < URLS_NUM; i++) {
+            Assert.assertFalse(seenUrls.add(getUrl(i)));
+            Assert.assertTrue(seenUrls.contains(getUrl(i)));
+        }
+        Assert.assertEquals(added.size(), seenUrls.size());
+    }
+
+    @Test
+    public void testBloomFilterFalsePositiveRate() {
+        double falsePositiveRate = 0.01;
+        BloomFilterSeenUrlSet seenUrls = new BloomFilterSeenUrlSet(URLS_NUM, falsePositiveRate);
+        for (int i = 0; i < URLS_NUM; i++) {
+            seenUrls.add(getUrl(i));
+        }
+        int falsePositivesNum = 0;
+        for (int i = URLS_NUM; i < 2 * URLS_NUM; i++) {
+            if (seenUrls.contains(getUrl(i))) {
+                falsePositivesNum++;
+            }
+        }
+        Assert.assertEquals(7, seenUrls.getHashFunctionsNum());
+        Assert.assertTrue(falsePositivesNum < 2 * falsePositiveRate * URLS_NUM);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBloomFilterWrongFalsePositiveRate() {
+        new BloomFilterSeenUrlSet(URLS_NUM, 1);
+    }
+
+    private SeenUrlSet writeAndRead(SeenUrlSet seenUrls, SeenUrlSet emptySeenUrls) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        seenUrls.copy().writeTo(new DataOutputStream(bytes));
+        emptySeenUrls.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        return emptySeenUrls;
+    }
+
+    @Test
+    public void testWritingAndReading() throws IOException {
+        SeenUrlSet fingerprintSeenUrls = new FingerprintSeenUrlSet(16);
+        SeenUrlSet bloomFilterSeenUrls = new BloomFilterSeenUrlSet(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            fingerprintSeenUrls.add(getUrl(i));
+            bloomFilterSeenUrls.add(getUrl(i));
+        }
+        SeenUrlSet restoredFingerprintSeenUrls = writeAndRead(fingerprintSeenUrls, new FingerprintSeenUrlSet());
+        SeenUrlSet restoredBloomFilterSeenUrls = writeAndRead(bloomFilterSeenUrls, new BloomFilterSeenUrlSet(1000, 0.01));
+        Assert.assertEquals(fingerprintSeenUrls.size(), restoredFingerprintSeenUrls.size());
+        Assert.assertEquals(bloomFilterSeenUrls.size(), restoredBloomFilterSeenUrls.size());
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertFalse(restoredFingerprintSeenUrls.add(getUrl(i)));
+            Assert.assertFalse(restoredBloomFilterSeenUrls.add(getUrl(i)));
+        }
+        Assert.assertTrue(restoredFingerprintSeenUrls.add(getUrl(1000)));
+        Assert.assertFalse(fingerprintSeenUrls.contains(getUrl(1000)));
+    }
+}
@@ -0,0 +1,51 @@
+package com.company.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.SocketTimeoutException;
+
+public class CrawlMetricsTest {
+    @Test
+    public void testSnapshot() {
+        CrawlMetrics metrics = new CrawlMetrics();
+        metrics.setJfrEventsEnabled(true);
+        metrics.recordStage(Stage.FETCH, 2000);
+        metrics.recordStage(Stage.FETCH, 4000);
+        metrics.increment(Counter.PAGES);
+        metrics.add(Counter.BYTES, 512);
+        metrics.setGauge(Gauge.FRONTIER_SIZE, 7);
+        metrics.recordError(new SocketTimeoutException());
+        metrics.recordError(new SocketTimeoutException());
+        MetricsSnapshot snapshot = metrics.getSnapshot();
+        metrics.increment(Counter.PAGES);
+
+        Assert.assertEquals(2, snapshot.getStageCount(Stage.FETCH));
+        Assert.assertEquals(6000, snapshot.getStageTotalNanos(Stage.FETCH));
+        Assert.assertEquals(4000, snapshot.getStageMaxNanos(Stage.FETCH));
+        Assert.assertEquals(0, snapshot.getStageCount(Stage.MATCH));
+        Assert.assertEquals(1, snapshot.getCounter(Counter.PAGES));
+        Assert.assertEquals(512, snapshot.getCounter(Counter.BYTES));
+        Assert.assertEquals(7, snapshot.getGauge(Gauge.FRONTIER_SIZE));
+        Assert.assertEquals(Long.valueOf(2), snapshot.getErrors().get("SocketTimeoutException"));
+        String json = snapshot.toJson();
+        Assert.assertFalse(json.contains("\n"));
+        Assert.assertTrue(json.contains("\"FETCH\":{\"count\":2,\"totalNanos\":6000,"));
+        Assert.assertTrue(json.contains("\"counters\":{\"PAGES\":1,\"BYTES\":512,\"DUPLICATES\":0,\"CHECKPOINT_FAILURES\":0}"));
+        Assert.assertTrue(json.contains("\"errors\":{\"SocketTimeoutException\":2}}"));
+    }
+
+    @Test
+    public void testReporterWritesLastSnapshotOnClose() throws IOException {
+        CrawlMetrics metrics = new CrawlMetrics();
+        StringWriter writer = new StringWriter();
+        MetricsReporter metricsReporter = new MetricsReporter(metrics, writer, 60 * 1000);
+        metrics.increment(Counter.PAGES);
+        metricsReporter.close();
+        String[] lines = writer.toString().split("\n");
+        Assert.assertEquals(1, lines.length);
+        Assert.assertTrue(lines[0].contains("\"PAGES\":1"));
+    }
+}
@@ -0,0 +1,38 @@
+package com.company.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 1000; nanos++) {
+            histogram.record(nanos * 1000);
+        }
+        Assert.assertEquals(1000, histogram.getCount());
+        Assert.assertEquals(500500L * 1000, histogram.getTotalNanos());
+        Assert.assertEquals(1_000_000, histogram.getMaxNanos());
+        Assert.assertEquals(1_000_000, histogram.getPercentileNanos(100));
+        long[][] expectedPercentiles = {{50, 500_000}, {90, 900_000}, {99, 990_000}};
+        for (long[] expected : expectedPercentiles) {
+            long percentile = histogram.getPercentileNanos(expected[0]);
+            Assert.assertTrue(percentile >= expected[1]);
+            Assert.assertTrue(percentile <= expected[1] * 1.125);
+        }
+    }
+
+    @Test
+    public void testSmallAndEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getPercentileNanos(50));
+        histogram.record(-5);
+        histogram.record(3);
+        Assert.assertEquals(0, histogram.getPercentileNanos(50));
+        Assert.assertEquals(3, histogram.getPercentileNanos(99));
+        LatencyHistogram copy = histogram.copy();
+        histogram.record(Long.MAX_VALUE);
+        Assert.assertEquals(2, copy.getCount());
+        Assert.assertEquals(Long.MAX_VALUE, histogram.getPercentileNanos(100));
+    }
+}
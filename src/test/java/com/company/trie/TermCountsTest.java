@@ -0,0 +1,48 @@
+package com.company.trie;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+public class TermCountsTest {
+    @Test
+    public void testOccurredTermsAndClear() {
+        TermCounts termCounts = new TermCounts(5);
+        termCounts.increment(3);
+        termCounts.add(1, 2);
+        termCounts.increment(3);
+        termCounts.add(4, 0);
+        Assert.assertEquals(4, termCounts.getTotal());
+        Assert.assertEquals(2, termCounts.getOccurredTermsNum());
+        Assert.assertEquals(3, termCounts.getOccurredTermId(0));
+        Assert.assertEquals(1, termCounts.getOccurredTermId(1));
+        Assert.assertArrayEquals(new int[]{0, 2, 0, 2, 0}, termCounts.toArray());
+        termCounts.clear();
+        Assert.assertEquals(0, termCounts.getTotal());
+        Assert.assertEquals(0, termCounts.getOccurredTermsNum());
+        Assert.assertArrayEquals(new int[5], termCounts.getCounts());
+    }
+
+    @Test
+    public void testReuseForSeveralTexts() {
+        Trie trie = new Trie(new HashSet<>(Arrays.asList("he", "she", "his", "hers")));
+        TermCounts termCounts = new TermCounts(trie.getTermsNum());
+        for (String text : Arrays.asList("ushers", "this is his", "", "she sells")) {
+            int[] counts = new int[trie.getTermsNum()];
+            trie.countOccurrences(text, counts);
+            trie.countOccurrences(text, termCounts);
+            Assert.assertArrayEquals(counts, termCounts.getCounts());
+            Assert.assertEquals(Arrays.stream(counts).sum(), termCounts.getTotal());
+            termCounts.clear();
+
+            TrieMatcher trieMatcher = trie.newMatcher(termCounts);
+            for (int i = 0; i < text.length(); i++) {
+                trieMatcher.feed(text.charAt(i));
+            }
+            Assert.assertArrayEquals(counts, trieMatcher.getCounts());
+            termCounts.clear();
+        }
+    }
+}
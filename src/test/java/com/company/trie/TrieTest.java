@@ -1,11 +1,25 @@
 package com.company.trie;
 
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class TrieTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private String generateString(Random random, int len, int alphabetSize) {
         StringBuilder builder = new StringBuilder();
         for (int j = 0; j < len; j++) {
@@ -64,6 +78,175 @@ public class TrieTest {
         System.out.println("trie operating time " + (secondTime - firstTime) / 1000.0);
     }
 
+    @Test
+    public void compiledTrieRandomTests() {
+        Random random = new Random();
+        int numTests = 5000;
+        for (int iteration = 0; iteration < numTests; iteration++) {
+            int alphabetSize = random.nextInt(26) + 1;
+            int termsNum = random.nextInt(100) + 1;
+            Set<String> terms = generateTerms(random, termsNum, alphabetSize, 10);
+            String text = generateString(random, random.nextInt(5000), Math.min(26, alphabetSize + 2));
+            Trie trie = new Trie(terms);
+            Map<String, Integer> trieResult = trie.getOccurrencesNum(text);
+            CompiledTrie compiledTrie = trie.compile();
+            Assert.assertEquals(trieResult, compiledTrie.getOccurrencesNum(text));
+            Assert.assertEquals(trieResult, trie.getOccurrencesNum(text));
+        }
+    }
+
+    @Test
+    public void compiledTrieWithEmptyAndUnicodeTerms() {
+        Set<String> terms = new HashSet<>(Arrays.asList("", "ёж", "жук", "ж", "a b"));
+        CompiledTrie compiledTrie = new Trie(terms).compile();
+        String text = "ёжук, a b ёж\uffff";
+        Map<String, Integer> result = compiledTrie.getOccurrencesNum(text);
+        Assert.assertEquals(0, (int) result.get(""));
+        Assert.assertEquals(2, (int) result.get("ёж"));
+        Assert.assertEquals(1, (int) result.get("жук"));
+        Assert.assertEquals(2, (int) result.get("ж"));
+        Assert.assertEquals(1, (int) result.get("a b"));
+        Assert.assertEquals(8, compiledTrie.getAlphabetSize());
+    }
+
+    @Test
+    public void concurrentCompilationAndMatching() throws Exception {
+        Random random = new Random();
+        int threadsNum = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threadsNum);
+        try {
+            for (int iteration = 0; iteration < 200; iteration++) {
+                Set<String> terms = generateTerms(random, 50, 4, 6);
+                String text = generateString(random, 2000, 5);
+                Map<String, Integer> rightResult = getOccurrencesNumSimpleAlgorithm(text, terms);
+                Trie trie = new Trie(terms);
+                CyclicBarrier barrier = new CyclicBarrier(threadsNum);
+                List<Future<Map<String, Integer>>> results = new ArrayList<>();
+                for (int thread = 0; thread < threadsNum; thread++) {
+                    boolean isMatcher = thread % 2 == 0;
+                    results.add(executor.submit(() -> {
+                        int[] counts = new int[trie.getTermsNum()];
+                        barrier.await();
+                        if (isMatcher) {
+                            TrieMatcher matcher = trie.newMatcher(counts);
+                            for (int i = 0; i < text.length(); i++) {
+                                matcher.feed(text.charAt(i));
+                            }
+                        } else {
+                            trie.countOccurrences(text, counts);
+                        }
+                        return trie.getOccurrencesMap(counts);
+                    }));
+                }
+                for (Future<Map<String, Integer>> result : results) {
+                    Assert.assertEquals(rightResult, result.get());
+                }
+                Assert.assertSame(trie.compile(), trie.compile());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void countOccurrencesToReusedArray() {
+        Random random = new Random();
+        Set<String> terms = generateTerms(random, 50, 4, 6);
+        Trie trie = new Trie(terms);
+        CompiledTrie compiledTrie = new Trie(terms).compile();
+        int[] counts = new int[trie.getTermsNum()];
+        int[] compiledCounts = new int[compiledTrie.getTermsNum()];
+        for (int iteration = 0; iteration < 100; iteration++) {
+            String text = generateString(random, random.nextInt(3000), 5);
+            Arrays.fill(counts, 0);
+            Arrays.fill(compiledCounts, 0);
+            trie.countOccurrences(text, counts);
+            compiledTrie.countOccurrences(new StringBuilder(text), compiledCounts);
+            Map<String, Integer> rightResult = getOccurrencesNumSimpleAlgorithm(text, terms);
+            Assert.assertEquals(rightResult, trie.getOccurrencesMap(counts));
+            for (int i = 0; i < compiledCounts.length; i++) {
+                Assert.assertEquals((int) rightResult.get(compiledTrie.getTerm(i)), compiledCounts[i]);
+            }
+        }
+    }
+
+    @Test
+    public void mappedTrieRandomTests() throws IOException {
+        Random random = new Random();
+        Path automatonFile = temporaryFolder.getRoot().toPath().resolve("automaton.bin");
+        for (int iteration = 0; iteration < 500; iteration++) {
+            int alphabetSize = random.nextInt(26) + 1;
+            Set<String> terms = generateTerms(random, random.nextInt(100) + 1, alphabetSize, 10);
+            TrieCompiler.compile(terms, automatonFile);
+            MappedTrie mappedTrie = MappedTrie.map(automatonFile);
+            String text = generateString(random, random.nextInt(5000), Math.min(26, alphabetSize + 2));
+            Assert.assertEquals(getOccurrencesNumSimpleAlgorithm(text, terms), mappedTrie.getOccurrencesNum(text));
+        }
+    }
+
+    @Test
+    public void mappedTrieWithOverlappingAndUnicodeTerms() throws IOException {
+        List<String> terms = Arrays.asList("he", "she", "his", "hers", "", "ёж", "ж", "he");
+        Path automatonFile = temporaryFolder.getRoot().toPath().resolve("automaton.bin");
+        TrieCompiler.compile(terms, automatonFile);
+        Assert.assertTrue(MappedTrie.isAutomatonFile(automatonFile));
+        Trie trie = Trie.load(automatonFile);
+        Assert.assertNull(trie.compile());
+        Assert.assertEquals(terms.size(), trie.getTermsNum());
+        Assert.assertEquals("hers", trie.getTerm(3));
+
+        int[] counts = new int[trie.getTermsNum()];
+        trie.countOccurrences("ushers, his ёжик", counts);
+        Assert.assertArrayEquals(new int[]{0, 1, 1, 1, 0, 1, 1, 1}, counts);
+        int[] matcherCounts = new int[trie.getTermsNum()];
+        TrieMatcher matcher = trie.newMatcher(matcherCounts);
+        for (char character : "USHERS, HIS ЁЖИК".toCharArray()) {
+            matcher.feedLowerCase(character);
+        }
+        matcher.finish();
+        Assert.assertArrayEquals(counts, matcherCounts);
+    }
+
+    @Test
+    public void parallelMatchingEqualsSequential() throws IOException {
+        Random random = new Random();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Path automatonFile = temporaryFolder.getRoot().toPath().resolve("automaton.bin");
+        try {
+            for (int iteration = 0; iteration < 300; iteration++) {
+                Set<String> terms = generateTerms(random, random.nextInt(50) + 1, 3, 12);
+                String text = generateString(random, random.nextInt(3000), 4);
+                Trie trie = new Trie(terms);
+                int[] sequentialCounts = new int[trie.getTermsNum()];
+                trie.countOccurrences(text, sequentialCounts);
+                int[] parallelCounts = new int[trie.getTermsNum()];
+                trie.countOccurrencesInParallel(text, parallelCounts, random.nextInt(20) + 1, pool);
+                Assert.assertArrayEquals(sequentialCounts, parallelCounts);
+
+                List<String> termsById = new ArrayList<>();
+                for (int i = 0; i < trie.getTermsNum(); i++) {
+                    termsById.add(trie.getTerm(i));
+                }
+                TrieCompiler.compile(termsById, automatonFile);
+                Trie mappedTrie = Trie.load(automatonFile);
+                int[] mappedCounts = new int[mappedTrie.getTermsNum()];
+                mappedTrie.countOccurrencesInParallel(text, mappedCounts, random.nextInt(20) + 1, pool);
+                Assert.assertArrayEquals(sequentialCounts, mappedCounts);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void readTermsFromFile() throws IOException {
+        Path termsFile = temporaryFolder.newFile("terms.txt").toPath();
+        Files.write(termsFile, Arrays.asList("# comment", "Java", "", "  crawler ", "java"), StandardCharsets.UTF_8);
+        Assert.assertEquals(new ArrayList<>(Arrays.asList("java", "crawler")),
+                new ArrayList<>(TermFiles.readTerms(termsFile)));
+        Assert.assertFalse(MappedTrie.isAutomatonFile(termsFile));
+    }
+
     private Map<String, Integer> getOccurrencesNumSimpleAlgorithm(String text, Set<String> words) {
         Map<String, Integer> occurrences = new HashMap<>();
         for (String word : words) {
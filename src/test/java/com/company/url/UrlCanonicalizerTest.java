@@ -0,0 +1,65 @@
+package com.company.url;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.EnumSet;
+
+public class UrlCanonicalizerTest {
+    private final UrlCanonicalizer canonicalizer = new UrlCanonicalizer();
+
+    @Test
+    public void testSamePageUrls() {
+        String canonicalUrl = "http://host/a";
+        Assert.assertEquals(canonicalUrl, canonicalizer.canonicalize("http://Host/a"));
+        Assert.assertEquals(canonicalUrl, canonicalizer.canonicalize("HTTP://host/a/"));
+        Assert.assertEquals(canonicalUrl, canonicalizer.canonicalize("http://host/a#frag"));
+        Assert.assertEquals(canonicalUrl, canonicalizer.canonicalize("http://host:80/a"));
+        Assert.assertEquals(canonicalUrl, canonicalizer.canonicalize("http://host/b/../a"));
+        Assert.assertEquals(canonicalUrl, canonicalizer.canonicalize("http://host/./%61"));
+        Assert.assertEquals(canonicalUrl, canonicalizer.canonicalize("http://host/a?"));
+        Assert.assertEquals(canonicalUrl, canonicalizer.canonicalize("http://host/a?utm_source=x&fbclid=y"));
+    }
+
+    @Test
+    public void testQueryParameters() {
+        Assert.assertEquals("https://host/?a=1&b=2&b=1",
+                canonicalizer.canonicalize("https://host?b=2&utm_medium=z&a=1&&b=1"));
+        Assert.assertEquals("https://host:8443/%2F?q=%20",
+                canonicalizer.canonicalize("https://HOST:8443/%2f?q=%20#top"));
+    }
+
+    @Test
+    public void testNotHttpUrls() {
+        Assert.assertEquals("mailto:user@host", canonicalizer.canonicalize("mailto:user@host"));
+        Assert.assertEquals("ftp://Host/a/", canonicalizer.canonicalize("ftp://Host/a/"));
+        Assert.assertEquals("url1", canonicalizer.canonicalize("url1"));
+    }
+
+    @Test
+    public void testConfiguredRules() {
+        UrlCanonicalizer fragmentCanonicalizer = new UrlCanonicalizer(
+                EnumSet.of(UrlCanonicalizer.Rule.REMOVE_FRAGMENT), Collections.emptyList());
+        Assert.assertEquals("http://Host:80/a/?b&a", fragmentCanonicalizer.canonicalize("http://Host:80/a/?b&a#frag"));
+        UrlCanonicalizer queryCanonicalizer = new UrlCanonicalizer(
+                EnumSet.of(UrlCanonicalizer.Rule.STRIP_QUERY_PARAMETERS), Collections.singletonList("ref"));
+        Assert.assertEquals("http://host/?utm_source=x", queryCanonicalizer.canonicalize("http://host/?utm_source=x&REF=1"));
+    }
+
+    @Test
+    public void testChangedUrlsNum() {
+        canonicalizer.canonicalize("http://Host/a/");
+        canonicalizer.canonicalize("http://host:80/a#frag");
+        canonicalizer.canonicalize("http://host/a?b=1&a=2");
+        canonicalizer.canonicalize("http://host/a");
+        Assert.assertEquals("http://host/a?a=2&b=1", canonicalizer.canonicalizeWithoutCounting("HTTP://Host:80/a/?b=1&a=2#f"));
+        Assert.assertEquals(1, canonicalizer.getChangedUrlsNum(UrlCanonicalizer.Rule.LOWERCASE_SCHEME_AND_HOST));
+        Assert.assertEquals(1, canonicalizer.getChangedUrlsNum(UrlCanonicalizer.Rule.REMOVE_TRAILING_SLASH));
+        Assert.assertEquals(1, canonicalizer.getChangedUrlsNum(UrlCanonicalizer.Rule.REMOVE_DEFAULT_PORT));
+        Assert.assertEquals(1, canonicalizer.getChangedUrlsNum(UrlCanonicalizer.Rule.REMOVE_FRAGMENT));
+        Assert.assertEquals(1, canonicalizer.getChangedUrlsNum(UrlCanonicalizer.Rule.SORT_QUERY_PARAMETERS));
+        Assert.assertEquals(0, canonicalizer.getChangedUrlsNum(UrlCanonicalizer.Rule.STRIP_QUERY_PARAMETERS));
+        Assert.assertEquals(0, canonicalizer.getChangedUrlsNum(UrlCanonicalizer.Rule.NORMALIZE_PATH));
+    }
+}
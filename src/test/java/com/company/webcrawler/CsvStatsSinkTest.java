@@ -0,0 +1,66 @@
+package com.company.webcrawler;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+
+public class CsvStatsSinkTest {
+    @Test
+    public void testColumnsFollowTermsOrder() throws IOException {
+        StringWriter writer = new StringWriter();
+        try (CsvStatsSink csvStatsSink = new CsvStatsSink(writer, Arrays.asList("b", "a", "c"))) {
+            csvStatsSink.accept("url1", new int[]{1, 0, 3});
+            csvStatsSink.accept("url2", new int[]{0, 2, 0});
+        }
+        Assert.assertEquals("Page,b,a,c,Total\nurl1,1,0,3,4\nurl2,0,2,0,2\n", writer.toString());
+    }
+
+    @Test
+    public void testRowsAreFlushedDuringWriting() throws IOException {
+        StringWriter target = new StringWriter();
+        Writer bufferedWriter = new BufferedWriter(target);
+        CsvStatsSink csvStatsSink = new CsvStatsSink(bufferedWriter, Arrays.asList("a"), 0);
+        Assert.assertEquals("Page,a,Total\n", target.toString());
+        csvStatsSink.accept("url1", new int[]{5});
+        Assert.assertEquals("Page,a,Total\nurl1,5,5\n", target.toString());
+        csvStatsSink.close();
+    }
+
+    @Test
+    public void testWriteExceptionIsThrownByClose() throws IOException {
+        IOException writeException = new IOException("disk is full");
+        Writer writer = new Writer() {
+            private boolean isHeaderWritten;
+
+            @Override
+            public void write(char[] buffer, int offset, int length) throws IOException {
+                if (isHeaderWritten) {
+                    throw writeException;
+                }
+                isHeaderWritten = true;
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        CsvStatsSink csvStatsSink = new CsvStatsSink(writer, Arrays.asList("a"));
+        csvStatsSink.accept("url1", new int[]{1});
+        csvStatsSink.accept("url2", new int[]{2});
+        try {
+            csvStatsSink.close();
+            Assert.fail();
+        } catch (IOException exc) {
+            Assert.assertSame(writeException, exc);
+        }
+    }
+}
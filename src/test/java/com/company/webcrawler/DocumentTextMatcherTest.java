@@ -0,0 +1,64 @@
+package com.company.webcrawler;
+
+import com.company.trie.CompiledTrie;
+import com.company.trie.Trie;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class DocumentTextMatcherTest {
+    private final static Set<String> TERMS = new HashSet<>(Arrays.asList(
+            "one two", "two", "one", "a b", "b c", " ", "  ", "x\ny", "i̇", "ǆ", "𐐨", "ab", "o"));
+
+    private final static List<String> HTMLS = Arrays.asList(
+            "<p>One</p>Two<div>two</div><br>one<span> two </span> ",
+            "   <b>One</b>  <i>  Two</i>\t\n ONE&nbsp;two",
+            "<div><p>a</p><p>b</p></div>c<br><br>a<span>b</span>",
+            "<pre>  x\ny  \n one  two</pre>  x\ny <textarea>a  b</textarea>",
+            "<p>İ Ǆ 𐐀 A&shy;B a&#8203;b</p>",
+            "<ul><li>One<li>Two</ul><table><tr><td>a<td>b</table>",
+            "",
+            "   ",
+            "<div> </div><div>one</div>");
+
+    private int[] matchText(CompiledTrie compiledTrie, Element body) {
+        int[] counts = new int[compiledTrie.getTermsNum()];
+        compiledTrie.countOccurrences(body.text().toLowerCase(Locale.ROOT), counts);
+        return counts;
+    }
+
+    private int[] matchStream(CompiledTrie compiledTrie, Element body) {
+        int[] counts = new int[compiledTrie.getTermsNum()];
+        DocumentTextMatcher.match(body, compiledTrie.newMatcher(counts));
+        return counts;
+    }
+
+    @Test
+    public void testSameCountsAsBuiltText() {
+        CompiledTrie compiledTrie = new Trie(TERMS).compile();
+        for (String html : HTMLS) {
+            Element body = Jsoup.parse(html).body();
+            Assert.assertArrayEquals(html, matchText(compiledTrie, body), matchStream(compiledTrie, body));
+        }
+    }
+
+    @Test
+    public void testRandomDocuments() {
+        Random random = new Random();
+        List<String> parts = Arrays.asList("one", "two", "One ", " TWO", "a", "b", "c", " ", "\n", "&nbsp;", "<p>",
+                "</p>", "<br>", "<span>", "</span>", "<div>", "</div>", "<pre>", "</pre>", "<b>", "</b>", "x", "y");
+        CompiledTrie compiledTrie = new Trie(TERMS).compile();
+        for (int iteration = 0; iteration < 2000; iteration++) {
+            StringBuilder html = new StringBuilder();
+            int partsNum = random.nextInt(50);
+            for (int i = 0; i < partsNum; i++) {
+                html.append(parts.get(random.nextInt(parts.size())));
+            }
+            Element body = Jsoup.parse(html.toString()).body();
+            Assert.assertArrayEquals(html.toString(), matchText(compiledTrie, body), matchStream(compiledTrie, body));
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.company.webcrawler;
+
+import com.company.url.UrlCanonicalizer;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class LinkExtractorTest {
+    private static final String PAGE = "http://example.com/dir/page.html";
+
+    private static final String HTML = "<html><body>"
+            + "<a href=\"other.html\">relative</a>"
+            + "<a href=\"/root.html\">absolute path</a>"
+            + "<a href=\"../up.html\">parent</a>"
+            + "<a href=\"?q=1\">query</a>"
+            + "<a href=\"//cdn.example.org/lib\">protocol relative</a>"
+            + "<a href=\" http://other.org/a \">other host</a>"
+            + "<a href=\"HTTPS://example.com/secure\">https</a>"
+            + "<a href=\"#top\">fragment</a>"
+            + "<a href=\"\">empty</a>"
+            + "<a>no href</a>"
+            + "<div><p><a href=\"other.html\">repeated</a></p></div>"
+            + "<a href=\"/image.PNG\">image</a>"
+            + "<a href=\"/report.pdf?download=1\">report</a>"
+            + "<a href=\"/archive.tar.gz/index\">directory</a>"
+            + "</body></html>";
+
+    private final UrlCanonicalizer urlCanonicalizer = new UrlCanonicalizer();
+
+    @Test
+    public void testLinksAreResolvedAsByAbsUrl() {
+        Element documentBody = Jsoup.parse(HTML, PAGE).body();
+        List<String> expectedLinks = new ArrayList<>();
+        for (Element anchor : documentBody.select("a[href]")) {
+            String href = anchor.attr("href");
+            if (!href.isEmpty() && !href.startsWith("#")) {
+                String link = urlCanonicalizer.canonicalize(anchor.absUrl("href"));
+                if (!expectedLinks.contains(link)) {
+                    expectedLinks.add(link);
+                }
+            }
+        }
+        LinkExtractor linkExtractor = new LinkExtractor();
+        List<String> links = linkExtractor.extractLinks(PAGE, documentBody, urlCanonicalizer, null);
+        Assert.assertEquals(expectedLinks, links);
+        Assert.assertEquals(10, links.size());
+        Assert.assertEquals(1, linkExtractor.getRepeatedLinksNum());
+        Assert.assertEquals(0, linkExtractor.getFilteredLinksNum());
+    }
+
+    @Test
+    public void testResolutionEqualsAbsUrl() {
+        String[] bases = {PAGE, "http://example.com", "https://user@Example.com:8443/a/b/?q=1#f",
+                "http://example.com/a/./b/../c.html", "http://example.com/dir/"};
+        String[] hrefs = {"name.html", "name?q=/../x", "name#f", "/", "/a/b.html?x=1#y", "/a/./b", "/.well-known",
+                "//other.org/x", "?q=2", "./x", "../x", "..", ".hidden", "a/b", "a/../b", "mailto:a@b.c",
+                "javascript:void(0)", "HTTP://Other.org/X", "http://other.org/a/../b", "https://other.org/x?y#z",
+                "  /spaced  ", " ", "a\\b", "/a:b", "a b"};
+        for (String base : bases) {
+            LinkExtractor.BaseUrl baseUrl = LinkExtractor.BaseUrl.parse(base);
+            Assert.assertNotNull(base, baseUrl);
+            for (String href : hrefs) {
+                Element anchor = Jsoup.parse("<a href=\"" + href + "\">link</a>", base).body().child(0);
+                Assert.assertEquals(base + " " + href, anchor.absUrl("href"), baseUrl.resolve(href));
+            }
+        }
+        Assert.assertNull(LinkExtractor.BaseUrl.parse("file:///tmp/page.html"));
+        Assert.assertNull(LinkExtractor.BaseUrl.parse("not a url"));
+    }
+
+    @Test
+    public void testBaseElementIsUsed() {
+        String html = "<html><head><base href=\"http://base.org/a/\"></head>"
+                + "<body><a href=\"b.html\">b</a></body></html>";
+        List<String> links = new LinkExtractor().extractLinks(PAGE, Jsoup.parse(html, PAGE).body(),
+                urlCanonicalizer, null);
+        Assert.assertEquals(Collections.singletonList("http://base.org/a/b.html"), links);
+    }
+
+    @Test
+    public void testScope() {
+        LinkExtractor linkExtractor = new LinkExtractor();
+        linkExtractor.setSameHostOnly(true);
+        linkExtractor.setDeniedExtensions(LinkExtractor.DEFAULT_DENIED_EXTENSIONS);
+        List<String> links = linkExtractor.extractLinks(PAGE, Jsoup.parse(HTML, PAGE).body(), urlCanonicalizer, null);
+        Assert.assertEquals(6, links.size());
+        for (String link : links) {
+            Assert.assertTrue(link, link.startsWith("http://example.com/") || link.startsWith("https://example.com/"));
+        }
+        Assert.assertTrue(links.contains(urlCanonicalizer.canonicalize("http://example.com/archive.tar.gz/index")));
+        Assert.assertEquals(4, linkExtractor.getFilteredLinksNum());
+
+        linkExtractor.setAllowedPrefixes(Collections.singletonList("http://example.com/dir/"));
+        links = linkExtractor.extractLinks(PAGE, Jsoup.parse(HTML, PAGE).body(), urlCanonicalizer, null);
+        Assert.assertEquals(Arrays.asList(urlCanonicalizer.canonicalize("http://example.com/dir/other.html"),
+                urlCanonicalizer.canonicalize("http://example.com/dir/page.html?q=1")), links);
+
+        // only links are counted by the canonicalizer, not the page
+        UrlCanonicalizer pageCanonicalizer = new UrlCanonicalizer();
+        LinkExtractor.PageLinks pageLinks = linkExtractor.newPageLinks("http://Example.com:80/dir/", pageCanonicalizer);
+        Assert.assertEquals("http://example.com/dir/a", pageLinks.add("http://example.com/dir/a"));
+        for (UrlCanonicalizer.Rule rule : UrlCanonicalizer.Rule.values()) {
+            Assert.assertEquals(0, pageCanonicalizer.getChangedUrlsNum(rule));
+        }
+    }
+
+    @Test
+    public void testAnchorsOfRepeatedLinksAreConsumed() {
+        List<String> anchorTexts = new ArrayList<>();
+        new LinkExtractor().extractLinks(PAGE, Jsoup.parse(HTML, PAGE).body(), urlCanonicalizer,
+                (link, anchor) -> {
+                    if (link.endsWith("/dir/other.html")) {
+                        anchorTexts.add(anchor.text());
+                    }
+                });
+        Assert.assertEquals(Arrays.asList("relative", "repeated"), anchorTexts);
+    }
+
+    @Test
+    public void testAuthorityAndExtension() {
+        Assert.assertEquals("example.com:8080", LinkExtractor.getAuthority("http://Example.com:8080/a.html"));
+        Assert.assertEquals("example.com", LinkExtractor.getAuthority("http://example.com?q=a.pdf"));
+        Assert.assertEquals("", LinkExtractor.getAuthority("mailto:someone@example.com"));
+        Assert.assertEquals("html", LinkExtractor.getExtension("http://example.com/a.b/c.HTML?x=y.pdf#z.png"));
+        Assert.assertEquals("", LinkExtractor.getExtension("http://example.com/a.b/c"));
+        Assert.assertEquals("", LinkExtractor.getExtension("http://example.com"));
+        Assert.assertEquals("", LinkExtractor.getExtension("http://example.com/archive.gz/"));
+    }
+}
@@ -0,0 +1,95 @@
+package com.company.webcrawler;
+
+import com.company.support.Pair;
+import com.company.trie.TermCounts;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class PageStatsStoreTest {
+    @Test
+    public void testOnlyNotZeroCountsAreStored() {
+        PageStatsStore store = new PageStatsStore(4);
+        store.accept("url1", new int[]{0, 3, 0, 1});
+        store.accept("url2", new int[]{0, 0, 0, 0});
+        Assert.assertEquals(2, store.size());
+        Assert.assertTrue(store.contains("url1"));
+        Assert.assertFalse(store.contains("url3"));
+        Assert.assertEquals("url1", store.getPage(0));
+        Assert.assertEquals(4, store.getTotal(0));
+        Assert.assertEquals(2, store.getCellsNum(0));
+        Assert.assertEquals(1, store.getCellTermId(0, 0));
+        Assert.assertEquals(3, store.getCellCount(0, 0));
+        Assert.assertEquals(3, store.getCellTermId(0, 1));
+        Assert.assertEquals(0, store.getCellsNum(1));
+        Assert.assertArrayEquals(new int[]{0, 3, 0, 1}, store.getPageStats(0));
+        Assert.assertArrayEquals(new int[]{0, 0, 0, 0}, store.getPageStats(1));
+        Assert.assertArrayEquals(new int[]{0, 3, 0, 1}, store.getPageStats("url1"));
+        Assert.assertNull(store.getPageStats("url3"));
+        Assert.assertArrayEquals(new long[]{0, 3, 0, 1}, store.getTermTotals());
+    }
+
+    @Test
+    public void testReplacedPageAndSnapshot() {
+        PageStatsStore store = new PageStatsStore(2);
+        store.accept("url1", new int[]{1, 0});
+        PageStatsStore snapshot = store.snapshot();
+        store.accept("url1", new int[]{2, 5});
+        for (int i = 0; i < 100; i++) {
+            store.accept("page" + i, new int[]{i, 1});
+        }
+        Assert.assertEquals(101, store.size());
+        Assert.assertArrayEquals(new int[]{2, 5}, store.getPageStats(0));
+        Assert.assertEquals(7, store.getTotal(0));
+        Assert.assertEquals(1, snapshot.size());
+        Assert.assertArrayEquals(new int[]{1, 0}, snapshot.getPageStats(0));
+        List<String> pages = new ArrayList<>();
+        snapshot.forEach((page, pageStats) -> pages.add(page));
+        Assert.assertEquals(Arrays.asList("url1"), pages);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSnapshotIsReadOnly() {
+        new PageStatsStore(1).snapshot().accept("url1", new int[]{1});
+    }
+
+    @Test
+    public void testTopPages() {
+        PageStatsStore store = new PageStatsStore(2);
+        store.accept("url1", new int[]{1, 1});
+        store.accept("url2", new int[]{5, 0});
+        store.accept("url3", new int[]{0, 2});
+        store.accept("url4", new int[]{0, 0});
+        List<Pair<String, int[]>> topPages = store.getTopPages(2);
+        Assert.assertEquals(2, topPages.size());
+        Assert.assertEquals("url2", topPages.get(0).getFirst());
+        Assert.assertArrayEquals(new int[]{5, 0}, topPages.get(0).getSecond());
+        // pages with the same total are ranked in the order of storing
+        Assert.assertEquals("url1", topPages.get(1).getFirst());
+        Assert.assertEquals(4, store.getTopPages(10).size());
+        Assert.assertTrue(store.getTopPages(0).isEmpty());
+    }
+
+    @Test
+    public void testTermCountsAreStoredInOrderOfTermIds() {
+        PageStatsStore store = new PageStatsStore(4);
+        TermCounts termCounts = new TermCounts(4);
+        termCounts.add(3, 1);
+        termCounts.add(0, 2);
+        termCounts.add(3, 1);
+        store.accept("url1", termCounts);
+        termCounts.clear();
+        store.accept("url2", termCounts);
+        Assert.assertEquals(4, store.getTotal(0));
+        Assert.assertEquals(2, store.getCellsNum(0));
+        Assert.assertEquals(0, store.getCellTermId(0, 0));
+        Assert.assertEquals(3, store.getCellTermId(0, 1));
+        Assert.assertEquals(2, store.getCellCount(0, 1));
+        Assert.assertArrayEquals(new int[]{2, 0, 0, 2}, store.getPageStats("url1"));
+        Assert.assertEquals(0, store.getCellsNum(1));
+        Assert.assertEquals(0, store.getTotal(1));
+    }
+}
@@ -0,0 +1,77 @@
+package com.company.webcrawler;
+
+import com.company.trie.CompiledTrie;
+import com.company.trie.Trie;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.*;
+
+public class StreamingPageParserTest {
+    private final static String PAGE_URL = "http://host/dir/page.html";
+    private final static Set<String> TERMS = new HashSet<>(Arrays.asList(
+            "one two", "two", "one", "a b", "b c", "x\ny", "&", "<b>", "title", "script", "comment"));
+
+    private final CompiledTrie compiledTrie = new Trie(TERMS).compile();
+
+    private int[] matchDocument(String html) {
+        Document document = Jsoup.parse(html, PAGE_URL);
+        int[] counts = new int[compiledTrie.getTermsNum()];
+        compiledTrie.countOccurrences(document.body().text().toLowerCase(Locale.ROOT), counts);
+        return counts;
+    }
+
+    private int[] matchStream(String html, List<String> links) throws IOException {
+        int[] counts = new int[compiledTrie.getTermsNum()];
+        new StreamingPageParser(compiledTrie.newMatcher(counts), PAGE_URL, links == null ? null : links::add)
+                .parse(new StringReader(html));
+        return counts;
+    }
+
+    @Test
+    public void testSameCountsAsDocumentText() throws IOException {
+        List<String> htmls = Arrays.asList(
+                "<html><head><title>Title one</title><script>var one = '</p>'</script></head>"
+                        + "<body><p>One</p>Two<div>two</div><br>one<span> two </span></body></html>",
+                "<p>ONE&nbsp;two &amp; &lt;b&gt; &#111;ne &#x74;wo &unknown; a &amp</p>",
+                "<div><p>a</p><p>b</p></div>c<br/>a<span>b</span><!-- one two comment -->",
+                "<pre>  x\ny  \n one  two</pre>  x\ny ",
+                "<style>p { content: 'one two' }</style><SCRIPT type=\"text/javascript\">one two</SCRIPT >one",
+                "<ul><li>One</li><li>Two</li></ul><table><tr><td>a</td><td>b</td></tr></table>",
+                "a < b c <!doctype html> one<? two ?>two",
+                "");
+        for (String html : htmls) {
+            Assert.assertArrayEquals(html, matchDocument(html), matchStream(html, null));
+        }
+    }
+
+    @Test
+    public void testLinks() throws IOException {
+        String html = "<a href=\"/a\">1</a><a href='b?x=1&amp;y=2'>2</a><A HREF=http://other/c>3</A>"
+                + "<a href=\"#top\">4</a><a href=\"\">5</a><a name=\"d\">6</a><a title='x' href = \" ../e \">7</a>"
+                + "<link href=\"/style.css\"><script>'<a href=\"/f\">'</script>";
+        List<String> links = new ArrayList<>();
+        matchStream(html, links);
+        Assert.assertEquals(Arrays.asList("http://host/a", "http://host/dir/b?x=1&y=2", "http://other/c",
+                "http://host/e"), links);
+        List<String> documentLinks = new ArrayList<>();
+        Jsoup.parse(html, PAGE_URL).body().select("a[href]").forEach(element -> {
+            String href = element.attr("href");
+            if (!href.isEmpty() && !href.startsWith("#")) {
+                documentLinks.add(element.absUrl("href"));
+            }
+        });
+        Assert.assertEquals(documentLinks, links);
+    }
+
+    @Test
+    public void testBaseHref() throws IOException {
+        List<String> links = new ArrayList<>();
+        matchStream("<head><base href=\"http://base/path/\"></head><a href=\"a\">a</a>", links);
+        Assert.assertEquals(Collections.singletonList("http://base/path/a"), links);
+    }
+}
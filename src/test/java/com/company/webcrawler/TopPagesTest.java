@@ -0,0 +1,63 @@
+package com.company.webcrawler;
+
+import com.company.support.Pair;
+import com.company.trie.TermCounts;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class TopPagesTest {
+    private static List<String> getPages(TopPages topPages) {
+        return topPages.getTopPages().stream().map(Pair::getFirst).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testKeepsPagesWithMostTotalHits() {
+        TopPages topPages = new TopPages(3);
+        topPages.accept("url1", new int[]{1, 1});
+        topPages.accept("url2", new int[]{5, 0});
+        topPages.accept("url3", new int[]{0, 0});
+        topPages.accept("url4", new int[]{3, 4});
+        topPages.accept("url5", new int[]{2, 1});
+        Assert.assertEquals(Arrays.asList("url4", "url2", "url5"), getPages(topPages));
+        Assert.assertArrayEquals(new int[]{3, 4}, topPages.getTopPages().get(0).getSecond());
+    }
+
+    @Test
+    public void testEarlierPageWinsTie() {
+        TopPages topPages = new TopPages(2);
+        topPages.accept("url1", new int[]{2});
+        topPages.accept("url2", new int[]{2});
+        topPages.accept("url3", new int[]{2});
+        topPages.accept("url4", new int[]{1});
+        Assert.assertEquals(Arrays.asList("url1", "url2"), getPages(topPages));
+    }
+
+    @Test
+    public void testFewerPagesThanCapacity() {
+        TopPages topPages = new TopPages(10);
+        topPages.accept("url1", new int[]{1});
+        Assert.assertEquals(Arrays.asList("url1"), getPages(topPages));
+        TopPages emptyTopPages = new TopPages(0);
+        emptyTopPages.accept("url1", new int[]{1});
+        Assert.assertTrue(emptyTopPages.getTopPages().isEmpty());
+    }
+
+    @Test
+    public void testReceivedArraysCanBeReused() {
+        TopPages topPages = new TopPages(1);
+        int[] pageStats = {1, 2};
+        topPages.accept("url1", pageStats);
+        pageStats[0] = 0;
+        TermCounts termCounts = new TermCounts(2);
+        termCounts.add(1, 7);
+        topPages.accept("url2", termCounts);
+        termCounts.clear();
+        topPages.accept("url3", termCounts);
+        Assert.assertEquals(Arrays.asList("url2"), getPages(topPages));
+        Assert.assertArrayEquals(new int[]{0, 7}, topPages.getTopPages().get(0).getSecond());
+    }
+}
@@ -1,6 +1,21 @@
 package com.company.webcrawler;
 
+import com.company.cache.ResponseCache;
+import com.company.dedup.DuplicateDetector;
+import com.company.distributed.HostPartitioner;
+import com.company.fetch.FetchResponse;
+import com.company.metrics.Counter;
+import com.company.metrics.CrawlMetrics;
+import com.company.metrics.Gauge;
+import com.company.metrics.MetricsSnapshot;
+import com.company.metrics.Stage;
+import com.company.frontier.BestFirstFrontier;
+import com.company.frontier.FingerprintSeenUrlSet;
+import com.company.frontier.FrontierSnapshot;
+import com.company.frontier.LinkScorer;
+import com.company.frontier.SeenUrlSet;
 import com.company.support.Pair;
+import com.company.trie.TermCounts;
 import com.company.trie.Trie;
 import org.jsoup.Connection;
 import org.jsoup.Jsoup;
@@ -9,7 +24,9 @@ import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -18,13 +35,21 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.mockito.Mockito.*;
 
 @RunWith(PowerMockRunner.class)
 @PrepareForTest({Jsoup.class, WebCrawler.class})
 public class WebCrawlerTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Mock
     private Connection connection;
     @Mock
@@ -42,8 +67,10 @@ public class WebCrawlerTest {
 
     private final static Map<String, Integer> OCCURRENCE_NUM_FIRST_MAP;
     private final static Map<String, Integer> OCCURRENCE_NUM_SECOND_MAP;
+    private final static List<String> TERMS = Arrays.asList("key1", "key2");
     private final static List<String> URLS = Arrays.asList("url1", "url2", "url3", "url4");
-    private final static List<String> TEXTS = Arrays.asList("text1", "text2", "text3");
+    private final static List<String> TEXTS = Arrays.asList("text of the first page", "text of the second page",
+            "text of the third page");
     private final static String RELEVANT_HREF_ATTR = "/a";
     private final static String NOT_RELEVANT_HREF_ATTR = "#";
     private final static String EXCEPTION_MESSAGE = "exception message";
@@ -65,9 +92,28 @@ public class WebCrawlerTest {
         when(connection.get()).thenReturn(document);
         when(document.body()).thenReturn(documentBody);
         when(documentBody.text()).thenReturn(TEXTS.get(0));
-        when(documentBody.select("a")).thenReturn(elements);
+        when(documentBody.getElementsByTag("a")).thenReturn(elements);
         when(elements.iterator()).thenReturn(elementIterator);
-        when(trie.getOccurrencesNum(TEXTS.get(0))).thenReturn(OCCURRENCE_NUM_FIRST_MAP);
+        when(trie.getTermsNum()).thenReturn(TERMS.size());
+        when(trie.getOccurrencesMap(any())).thenAnswer(invocation -> {
+            int[] counts = invocation.getArgument(0);
+            Map<String, Integer> occurrences = new HashMap<>();
+            for (int i = 0; i < TERMS.size(); i++) {
+                occurrences.put(TERMS.get(i), counts[i]);
+            }
+            return occurrences;
+        });
+        mockOccurrences(TEXTS.get(0), OCCURRENCE_NUM_FIRST_MAP);
+    }
+
+    private void mockOccurrences(String text, Map<String, Integer> occurrences) {
+        doAnswer(invocation -> {
+            TermCounts counts = invocation.getArgument(1);
+            for (int i = 0; i < TERMS.size(); i++) {
+                counts.add(i, occurrences.get(TERMS.get(i)));
+            }
+            return null;
+        }).when(trie).countOccurrences(eq(text), any(TermCounts.class));
     }
 
     private void mockElementIterator(int linksNum) {
@@ -114,8 +160,7 @@ public class WebCrawlerTest {
         mockElementIterator(2);
         mockElement(RELEVANT_HREF_ATTR, URLS.get(1));
         when(documentBody.text()).thenReturn(TEXTS.get(0)).thenReturn(TEXTS.get(1));
-        when(trie.getOccurrencesNum(TEXTS.get(0))).thenReturn(OCCURRENCE_NUM_FIRST_MAP);
-        when(trie.getOccurrencesNum(TEXTS.get(1))).thenReturn(OCCURRENCE_NUM_SECOND_MAP);
+        mockOccurrences(TEXTS.get(1), OCCURRENCE_NUM_SECOND_MAP);
         WebCrawler webCrawler = new WebCrawler(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP.keySet());
         webCrawler.calculateStats();
         Map<String, Map<String, Integer>> rightResult = new HashMap<>();
@@ -143,7 +188,7 @@ public class WebCrawlerTest {
         webCrawler.calculateStats();
         Map<String, Map<String, Integer>> rightResult = new HashMap<>();
         rightResult.put(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP);
-        verify(documentBody, times(0)).select("a");
+        verify(documentBody, times(0)).getElementsByTag("a");
         Assert.assertEquals(rightResult, webCrawler.getPagesStats());
     }
 
@@ -164,7 +209,7 @@ public class WebCrawlerTest {
         when(connection.get()).thenThrow(new IOException(EXCEPTION_MESSAGE));
         WebCrawler webCrawler = new WebCrawler(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP.keySet());
         webCrawler.calculateStats();
-        verify(trie, times(0)).getOccurrencesNum(anyString());
+        verify(trie, times(0)).countOccurrences(anyString(), any(TermCounts.class));
     }
 
     @Test
@@ -173,8 +218,7 @@ public class WebCrawlerTest {
         mockElement(RELEVANT_HREF_ATTR, URLS.get(1));
         WebCrawler webCrawler = new WebCrawler(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP.keySet());
         when(documentBody.text()).thenReturn(TEXTS.get(0)).thenReturn(TEXTS.get(1));
-        when(trie.getOccurrencesNum(TEXTS.get(0))).thenReturn(OCCURRENCE_NUM_FIRST_MAP);
-        when(trie.getOccurrencesNum(TEXTS.get(1))).thenReturn(OCCURRENCE_NUM_SECOND_MAP);
+        mockOccurrences(TEXTS.get(1), OCCURRENCE_NUM_SECOND_MAP);
         webCrawler.calculateStats();
         List<Pair<String, Map<String, Integer>>> result = webCrawler.getSortedPagesStats();
         Assert.assertEquals(result.get(0).getFirst(), URLS.get(1));
@@ -182,4 +226,397 @@ public class WebCrawlerTest {
         Assert.assertEquals(result.get(1).getFirst(), URLS.get(0));
         Assert.assertEquals(result.get(1).getSecond(), OCCURRENCE_NUM_FIRST_MAP);
     }
+
+    @Test
+    public void testStatsSinkWithoutStatsInMemory() {
+        mockElementIterator(2);
+        mockElement(RELEVANT_HREF_ATTR, URLS.get(1));
+        when(documentBody.text()).thenReturn(TEXTS.get(0)).thenReturn(TEXTS.get(1));
+        mockOccurrences(TEXTS.get(1), OCCURRENCE_NUM_SECOND_MAP);
+        WebCrawler webCrawler = new WebCrawler(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP.keySet());
+        List<String> sinkRows = new ArrayList<>();
+        webCrawler.setStatsSink((page, pageStats) -> sinkRows.add(page + Arrays.toString(pageStats)));
+        webCrawler.setStatsKeptInMemory(false);
+        webCrawler.calculateStats();
+        Assert.assertEquals(Arrays.asList(URLS.get(0) + "[2, 2]", URLS.get(1) + "[1, 4]"), sinkRows);
+        Assert.assertTrue(webCrawler.getPagesStats().isEmpty());
+    }
+
+    @Test
+    public void testCheckpointOfFinishedCrawl() throws IOException {
+        when(trie.getTerm(anyInt())).thenAnswer(invocation -> TERMS.get(invocation.getArgument(0)));
+        mockElementIterator(1);
+        mockElement(RELEVANT_HREF_ATTR, URLS.get(1));
+        Path checkpointFile = temporaryFolder.getRoot().toPath().resolve("checkpoint");
+        WebCrawler webCrawler = new WebCrawler(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP.keySet(),
+                WebCrawler.DEFAULT_LINK_DEPTH, 1);
+        webCrawler.setCheckpoint(checkpointFile, WebCrawler.DEFAULT_CHECKPOINT_INTERVAL_MILLIS);
+        webCrawler.calculateStats();
+        CrawlCheckpoint checkpoint = CrawlCheckpoint.read(checkpointFile, new FingerprintSeenUrlSet());
+        Assert.assertEquals(TERMS, checkpoint.getTermColumns());
+        Assert.assertEquals(0, checkpoint.getRemainingPagesLimit());
+        Assert.assertEquals(1, checkpoint.getFrontierPages().size());
+        Assert.assertEquals(URLS.get(1), checkpoint.getFrontierPages().get(0).getFirst());
+        Assert.assertEquals(WebCrawler.DEFAULT_LINK_DEPTH - 1, (int) checkpoint.getFrontierPages().get(0).getSecond());
+        Assert.assertEquals(2, checkpoint.getSeenUrls().size());
+        Assert.assertEquals(URLS.get(0), checkpoint.getPagesStats().getPage(0));
+        Assert.assertArrayEquals(new int[]{2, 2}, checkpoint.getPagesStats().getPageStats(0));
+        Assert.assertEquals(1, checkpoint.getTopPages().size());
+    }
+
+    @Test
+    public void testCheckpointFailureIsCounted() {
+        mockElementIterator(1);
+        mockElement(RELEVANT_HREF_ATTR, URLS.get(1));
+        CrawlMetrics metrics = new CrawlMetrics();
+        WebCrawler webCrawler = new WebCrawler(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP.keySet(),
+                WebCrawler.DEFAULT_LINK_DEPTH, 1);
+        webCrawler.setMetrics(metrics);
+        webCrawler.setCheckpoint(temporaryFolder.getRoot().toPath().resolve("missing").resolve("checkpoint"),
+                WebCrawler.DEFAULT_CHECKPOINT_INTERVAL_MILLIS);
+        webCrawler.calculateStats();
+        Assert.assertEquals(1, webCrawler.getCheckpointFailuresNum());
+        Assert.assertEquals(1, metrics.getSnapshot().getCounter(Counter.CHECKPOINT_FAILURES));
+        Assert.assertEquals(1, webCrawler.getPagesStats().size());
+    }
+
+    @Test
+    public void testResumeFromCheckpoint() throws IOException {
+        when(trie.getTerm(anyInt())).thenAnswer(invocation -> TERMS.get(invocation.getArgument(0)));
+        mockElementIterator(0);
+        when(documentBody.text()).thenReturn(TEXTS.get(1));
+        mockOccurrences(TEXTS.get(1), OCCURRENCE_NUM_SECOND_MAP);
+        SeenUrlSet seenUrls = new FingerprintSeenUrlSet();
+        seenUrls.add(URLS.get(0));
+        seenUrls.add(URLS.get(1));
+        List<Pair<String, int[]>> pagesStats = Collections.singletonList(new Pair<>(URLS.get(0), new int[]{2, 2}));
+        PageStatsStore pageStatsStore = new PageStatsStore(TERMS.size());
+        pageStatsStore.accept(URLS.get(0), new int[]{2, 2});
+        Path checkpointFile = temporaryFolder.getRoot().toPath().resolve("checkpoint");
+        new CrawlCheckpoint(TERMS, 1, FrontierSnapshot.of(Collections.singletonList(new Pair<>(URLS.get(1), 3))),
+                seenUrls, pageStatsStore, pagesStats).write(checkpointFile);
+
+        WebCrawler webCrawler = new WebCrawler(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP.keySet());
+        webCrawler.restoreCheckpoint(checkpointFile);
+        webCrawler.calculateStats();
+        Map<String, Map<String, Integer>> rightResult = new HashMap<>();
+        rightResult.put(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP);
+        rightResult.put(URLS.get(1), OCCURRENCE_NUM_SECOND_MAP);
+        verify(connection, times(1)).get();
+        PowerMockito.verifyStatic(Jsoup.class);
+        Jsoup.connect(URLS.get(1));
+        Assert.assertEquals(rightResult, webCrawler.getPagesStats());
+    }
+
+    @Test
+    public void testResponseCacheRevalidation() throws IOException {
+        when(trie.getTerm(anyInt())).thenAnswer(invocation -> TERMS.get(invocation.getArgument(0)));
+        mockElementIterator(0);
+        Connection.Response fullResponse = mock(Connection.Response.class);
+        when(fullResponse.statusCode()).thenReturn(200);
+        when(fullResponse.bodyAsBytes()).thenReturn(TEXTS.get(0).getBytes());
+        when(fullResponse.header("ETag")).thenReturn("\"v1\"");
+        when(fullResponse.url()).thenReturn(new URL("http://host/"));
+        Connection.Response notModifiedResponse = mock(Connection.Response.class);
+        when(notModifiedResponse.statusCode()).thenReturn(304);
+        when(connection.maxBodySize(anyInt())).thenReturn(connection);
+        when(connection.ignoreHttpErrors(true)).thenReturn(connection);
+        when(connection.header(anyString(), anyString())).thenReturn(connection);
+        when(connection.execute()).thenReturn(fullResponse).thenReturn(notModifiedResponse);
+        PowerMockito.when(Jsoup.parse(any(InputStream.class), any(), anyString())).thenReturn(document);
+        ResponseCache responseCache = new ResponseCache(temporaryFolder.getRoot().toPath());
+
+        for (int i = 0; i < 2; i++) {
+            WebCrawler webCrawler = new WebCrawler(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP.keySet());
+            webCrawler.setResponseCache(responseCache);
+            webCrawler.calculateStats();
+            Map<String, Map<String, Integer>> rightResult = new HashMap<>();
+            rightResult.put(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP);
+            Assert.assertEquals(rightResult, webCrawler.getPagesStats());
+        }
+        verify(connection, times(1)).header("If-None-Match", "\"v1\"");
+        // the second crawl reuses statistics of the cached response without parsing
+        verify(trie, times(1)).countOccurrences(anyString(), any(TermCounts.class));
+        Assert.assertEquals(1, responseCache.getHitsNum());
+        Assert.assertEquals(1, responseCache.getMissesNum());
+    }
+
+    @Test
+    public void testParallelMatchingDoesNotChangeSharedTrie() {
+        mockElementIterator(0);
+        WebCrawler parallelWebCrawler = new WebCrawler(URLS.get(0), trie, 1, 10);
+        parallelWebCrawler.setParallelMatching(0);
+        WebCrawler webCrawler = new WebCrawler(URLS.get(0), trie, 1, 10);
+        parallelWebCrawler.calculateStats();
+        verify(trie, times(1)).countOccurrencesInParallel(eq(TEXTS.get(0)), any(TermCounts.class), anyInt(),
+                any(ForkJoinPool.class));
+        webCrawler.calculateStats();
+        // the second crawler matches the page by the calling thread
+        verify(trie, times(1)).countOccurrencesInParallel(anyString(), any(TermCounts.class), anyInt(),
+                any(ForkJoinPool.class));
+        verify(trie, times(1)).countOccurrences(anyString(), any(TermCounts.class));
+    }
+
+    @Test
+    public void testTextlessPagesWithDifferentLinksAreCrawled() throws IOException {
+        Map<String, Integer> noOccurrences = new HashMap<>();
+        OCCURRENCE_NUM_FIRST_MAP.keySet().forEach(term -> noOccurrences.put(term, 0));
+        when(documentBody.text()).thenReturn("");
+        mockOccurrences("", noOccurrences);
+        when(elementIterator.hasNext()).thenReturn(true, false, true, false, false);
+        when(elementIterator.next()).thenReturn(element);
+        when(element.attr("href")).thenReturn(RELEVANT_HREF_ATTR);
+        when(element.absUrl("href")).thenReturn(URLS.get(1), URLS.get(2));
+        DuplicateDetector duplicateDetector = new DuplicateDetector();
+        WebCrawler webCrawler = new WebCrawler(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP.keySet());
+        webCrawler.setDuplicateDetector(duplicateDetector);
+        webCrawler.calculateStats();
+        Assert.assertEquals(new HashSet<>(URLS.subList(0, 3)), webCrawler.getPagesStats().keySet());
+        // pages without text aren't duplicates, so links of the second page are requested too
+        verify(connection, times(3)).get();
+        Assert.assertEquals(0, duplicateDetector.getExactDuplicatesNum());
+    }
+
+    @Test
+    public void testDuplicatePageStatsAreReused() throws IOException {
+        mockElementIterator(1);
+        mockElement(RELEVANT_HREF_ATTR, URLS.get(1));
+        DuplicateDetector duplicateDetector = new DuplicateDetector();
+        WebCrawler webCrawler = new WebCrawler(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP.keySet());
+        webCrawler.setDuplicateDetector(duplicateDetector);
+        webCrawler.calculateStats();
+        Map<String, Map<String, Integer>> rightResult = new HashMap<>();
+        rightResult.put(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP);
+        rightResult.put(URLS.get(1), OCCURRENCE_NUM_FIRST_MAP);
+        Assert.assertEquals(rightResult, webCrawler.getPagesStats());
+        // the second page has the same text, it isn't matched and its links aren't requested
+        verify(trie, times(1)).countOccurrences(anyString(), any(TermCounts.class));
+        verify(connection, times(2)).get();
+        Assert.assertEquals(1, duplicateDetector.getExactDuplicatesNum());
+        Assert.assertEquals(1, duplicateDetector.getSkippedLinksNum());
+    }
+
+    @Test
+    public void testMetrics() throws IOException {
+        mockElementIterator(2);
+        mockElement(RELEVANT_HREF_ATTR, URLS.get(1));
+        when(connection.get()).thenReturn(document).thenThrow(new IOException(EXCEPTION_MESSAGE));
+        CrawlMetrics metrics = new CrawlMetrics();
+        WebCrawler webCrawler = new WebCrawler(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP.keySet());
+        webCrawler.setMetrics(metrics);
+        webCrawler.calculateStats();
+        MetricsSnapshot snapshot = metrics.getSnapshot();
+        // the failed request is counted only as the error
+        Assert.assertEquals(1, snapshot.getStageCount(Stage.FETCH));
+        Assert.assertEquals(1, snapshot.getStageCount(Stage.MATCH));
+        Assert.assertEquals(1, snapshot.getStageCount(Stage.LINK_EXTRACTION));
+        Assert.assertEquals(1, snapshot.getStageCount(Stage.ENQUEUE));
+        Assert.assertEquals(1, snapshot.getCounter(Counter.PAGES));
+        Assert.assertEquals(Long.valueOf(1), snapshot.getErrors().get("IOException"));
+        Assert.assertEquals(0, snapshot.getGauge(Gauge.IN_FLIGHT_REQUESTS));
+    }
+
+    @Test
+    public void testConcurrentCrawl() {
+        mockElementIterator(2);
+        mockElement(RELEVANT_HREF_ATTR, URLS.get(1));
+        when(documentBody.text()).thenReturn(TEXTS.get(0)).thenReturn(TEXTS.get(1));
+        mockOccurrences(TEXTS.get(1), OCCURRENCE_NUM_SECOND_MAP);
+        WebCrawler webCrawler = new WebCrawler(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP.keySet());
+        webCrawler.setMinHostDelay(0);
+        webCrawler.calculateStats(4);
+        Map<String, Map<String, Integer>> rightResult = new HashMap<>();
+        rightResult.put(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP);
+        rightResult.put(URLS.get(1), OCCURRENCE_NUM_SECOND_MAP);
+        Assert.assertEquals(rightResult, webCrawler.getPagesStats());
+    }
+
+    @Test
+    public void testConcurrentCrawlMaxVisitedPagesLimit() throws IOException {
+        mockElementIterator(1);
+        mockElement(RELEVANT_HREF_ATTR, URLS.get(1));
+        WebCrawler webCrawler = new WebCrawler(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP.keySet(),
+                WebCrawler.DEFAULT_LINK_DEPTH, 1);
+        webCrawler.setMinHostDelay(0);
+        webCrawler.calculateStats(4);
+        Map<String, Map<String, Integer>> rightResult = new HashMap<>();
+        rightResult.put(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP);
+        verify(connection, times(1)).get();
+        Assert.assertEquals(rightResult, webCrawler.getPagesStats());
+    }
+
+    @Test
+    public void testConcurrentCrawlConnectionException() throws IOException {
+        when(connection.get()).thenThrow(new IOException(EXCEPTION_MESSAGE));
+        WebCrawler webCrawler = new WebCrawler(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP.keySet());
+        webCrawler.setMinHostDelay(0);
+        webCrawler.calculateStats(4);
+        // failed page isn't requested again
+        verify(connection, times(1)).get();
+        verify(trie, times(0)).countOccurrences(anyString(), any(TermCounts.class));
+        Assert.assertTrue(webCrawler.getPagesStats().isEmpty());
+    }
+
+    private void mockPipelineResponse() throws IOException {
+        Connection.Response response = mock(Connection.Response.class);
+        when(response.statusCode()).thenReturn(200);
+        when(response.bodyAsBytes()).thenReturn(TEXTS.get(0).getBytes());
+        when(response.url()).thenReturn(new URL("http://host/"));
+        when(connection.maxBodySize(anyInt())).thenReturn(connection);
+        when(connection.ignoreHttpErrors(true)).thenReturn(connection);
+        when(connection.execute()).thenReturn(response);
+        PowerMockito.when(Jsoup.parse(any(InputStream.class), any(), anyString())).thenReturn(document);
+    }
+
+    @Test
+    public void testPipelinedCrawl() throws IOException {
+        mockPipelineResponse();
+        mockElementIterator(2);
+        mockElement(RELEVANT_HREF_ATTR, URLS.get(1));
+        when(documentBody.text()).thenReturn(TEXTS.get(0)).thenReturn(TEXTS.get(1));
+        mockOccurrences(TEXTS.get(1), OCCURRENCE_NUM_SECOND_MAP);
+        WebCrawler webCrawler = new WebCrawler(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP.keySet());
+        webCrawler.setPipelineQueueCapacity(1);
+        webCrawler.setMinHostDelay(0);
+        webCrawler.calculateStats(4, 2);
+        Map<String, Map<String, Integer>> rightResult = new HashMap<>();
+        rightResult.put(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP);
+        rightResult.put(URLS.get(1), OCCURRENCE_NUM_SECOND_MAP);
+        Assert.assertEquals(rightResult, webCrawler.getPagesStats());
+        verify(connection, times(2)).execute();
+    }
+
+    @Test
+    public void testPageFetcher() throws IOException {
+        mockElementIterator(0);
+        PowerMockito.when(Jsoup.parse(any(InputStream.class), any(), anyString())).thenReturn(document);
+        List<String> fetchedPages = new ArrayList<>();
+        WebCrawler webCrawler = new WebCrawler(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP.keySet());
+        webCrawler.setPageFetcher((url, headers) -> {
+            fetchedPages.add(url);
+            FetchResponse response = mock(FetchResponse.class);
+            when(response.getStatusCode()).thenReturn(200);
+            when(response.getUrl()).thenReturn(url);
+            when(response.getBody()).thenReturn(TEXTS.get(0).getBytes());
+            return response;
+        });
+        webCrawler.calculateStats();
+        Map<String, Map<String, Integer>> rightResult = new HashMap<>();
+        rightResult.put(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP);
+        Assert.assertEquals(rightResult, webCrawler.getPagesStats());
+        Assert.assertEquals(Collections.singletonList(URLS.get(0)), fetchedPages);
+        // pages aren't requested by jsoup connections
+        PowerMockito.verifyStatic(Jsoup.class, times(0));
+        Jsoup.connect(anyString());
+    }
+
+    @Test
+    public void testResponsesWithErrorStatusAreClosed() throws IOException {
+        List<FetchResponse> responses = new ArrayList<>();
+        for (boolean isStreaming : new boolean[]{false, true}) {
+            WebCrawler webCrawler = new WebCrawler(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP.keySet());
+            webCrawler.setStreamingPageProcessing(isStreaming);
+            webCrawler.setPageFetcher((url, headers) -> {
+                FetchResponse response = mock(FetchResponse.class);
+                when(response.getStatusCode()).thenReturn(503);
+                responses.add(response);
+                return response;
+            });
+            webCrawler.calculateStats();
+            Assert.assertTrue(webCrawler.getPagesStats().isEmpty());
+        }
+        Assert.assertEquals(2, responses.size());
+        for (FetchResponse response : responses) {
+            verify(response).close();
+            verify(response, times(0)).getBodyStream();
+        }
+    }
+
+    @Test
+    public void testPipelinedCrawlConnectionException() throws IOException {
+        when(connection.maxBodySize(anyInt())).thenReturn(connection);
+        when(connection.ignoreHttpErrors(true)).thenReturn(connection);
+        when(connection.execute()).thenThrow(new IOException(EXCEPTION_MESSAGE));
+        WebCrawler webCrawler = new WebCrawler(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP.keySet());
+        webCrawler.setMinHostDelay(0);
+        webCrawler.calculateStats(4, 2);
+        verify(trie, times(0)).countOccurrences(anyString(), any(TermCounts.class));
+        Assert.assertTrue(webCrawler.getPagesStats().isEmpty());
+    }
+
+    @Test(timeout = 10000)
+    public void testPipelinedCrawlRuntimeExceptions() throws IOException {
+        when(elementIterator.hasNext()).thenReturn(true, true, true, false);
+        when(elementIterator.next()).thenReturn(element);
+        when(element.attr("href")).thenReturn(RELEVANT_HREF_ATTR);
+        when(element.absUrl("href")).thenReturn(URLS.get(1), URLS.get(2), URLS.get(3));
+        when(documentBody.text()).thenReturn(TEXTS.get(0))
+                .thenThrow(new UncheckedIOException(new IOException(EXCEPTION_MESSAGE)))
+                .thenReturn(TEXTS.get(0));
+        PowerMockito.when(Jsoup.parse(any(InputStream.class), any(), anyString())).thenReturn(document);
+        WebCrawler webCrawler = new WebCrawler(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP.keySet());
+        webCrawler.setMinHostDelay(0);
+        webCrawler.setPageFetcher((url, headers) -> {
+            if (url.equals(URLS.get(3))) {
+                throw new IllegalStateException(EXCEPTION_MESSAGE);
+            }
+            FetchResponse response = mock(FetchResponse.class);
+            when(response.getStatusCode()).thenReturn(200);
+            when(response.getUrl()).thenReturn(url);
+            when(response.getBody()).thenReturn(TEXTS.get(0).getBytes());
+            return response;
+        });
+        // the only fetch thread and the only analysis thread survive failed pages
+        webCrawler.calculateStats(1, 1);
+        Assert.assertEquals(new HashSet<>(Arrays.asList(URLS.get(0), URLS.get(2))),
+                webCrawler.getPagesStats().keySet());
+    }
+
+    @Test
+    public void testDistributedCrawl() {
+        HostPartitioner partitioner = new HostPartitioner(2);
+        String seedPage = "http://host0/";
+        String otherNodePage = null;
+        for (int i = 1; otherNodePage == null; i++) {
+            if (partitioner.getNode("http://host" + i + "/") != partitioner.getNode(seedPage)) {
+                otherNodePage = "http://host" + i + "/";
+            }
+        }
+        mockElementIterator(1);
+        mockElement(RELEVANT_HREF_ATTR, otherNodePage);
+        DistributedCrawl distributedCrawl = new DistributedCrawl(seedPage, OCCURRENCE_NUM_FIRST_MAP.keySet(),
+                WebCrawler.DEFAULT_LINK_DEPTH, WebCrawler.DEFAULT_MAX_VISITED_PAGES_LIMIT, 2);
+        distributedCrawl.calculateStats();
+        Map<String, Map<String, Integer>> rightResult = new HashMap<>();
+        rightResult.put(seedPage, OCCURRENCE_NUM_FIRST_MAP);
+        rightResult.put(otherNodePage, OCCURRENCE_NUM_FIRST_MAP);
+        Assert.assertEquals(rightResult, distributedCrawl.getPagesStats());
+        // the found page is forwarded to its node
+        Assert.assertEquals(1, distributedCrawl.getTransport().getSentPagesNum());
+        for (WebCrawler node : distributedCrawl.getNodes()) {
+            Assert.assertEquals(1, node.getPagesStats().size());
+        }
+    }
+
+    @Test
+    public void testBestFirstCrawl() {
+        Element plainLink = mock(Element.class);
+        Element termLink = mock(Element.class);
+        when(plainLink.attr("href")).thenReturn(RELEVANT_HREF_ATTR);
+        when(plainLink.absUrl("href")).thenReturn(URLS.get(1));
+        when(plainLink.text()).thenReturn(TEXTS.get(1));
+        when(termLink.attr("href")).thenReturn(RELEVANT_HREF_ATTR);
+        when(termLink.absUrl("href")).thenReturn(URLS.get(2));
+        when(termLink.text()).thenReturn(TEXTS.get(2));
+        when(trie.countTotalOccurrences(TEXTS.get(2))).thenReturn(1);
+        when(elementIterator.hasNext()).thenReturn(true, true, false);
+        when(elementIterator.next()).thenReturn(plainLink, termLink);
+
+        WebCrawler webCrawler = new WebCrawler(URLS.get(0), OCCURRENCE_NUM_FIRST_MAP.keySet(), 2, 2);
+        webCrawler.setFrontier(new BestFirstFrontier());
+        webCrawler.setLinkScorer(new LinkScorer());
+        webCrawler.calculateStats();
+        // the link with a term in the anchor text is visited first although it's found later
+        Assert.assertEquals(new HashSet<>(Arrays.asList(URLS.get(0), URLS.get(2))), webCrawler.getPagesStats().keySet());
+    }
 }